@@ -0,0 +1,80 @@
+package frc.robot.commands.auto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+
+import frc.robot.Constants.AutoConstants;
+
+/**
+ * Benchmarks sampling a trajectory once per loop, as {@link FollowTrajectoryCmd} does, from both PathPlanner's
+ * trajectory and a {@link CompiledTrajectory}.
+ *
+ * <p>Paths are loaded from src/main/deploy/pathplanner, so the benchmark must run from the project directory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TrajectorySampleBenchmark {
+
+    @Param({"CenterStartToDock", "RightScoreCube1ToGrabCube2Dock"})
+    public String path;
+
+    private PathPlannerTrajectory trajectory;
+    private CompiledTrajectory compiledTrajectory;
+
+    private final PathPlannerState state = new PathPlannerState();
+
+    private double timeSeconds = 0.0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        trajectory = PathPlanner.loadPath(path, AutoConstants.maxVelMetersPerSec, AutoConstants.maxAccelMetersPerSecondSq);
+        compiledTrajectory = CompiledTrajectory.compile(
+            trajectory,
+            AutoConstants.compiledTrajectoryDtSeconds,
+            AutoConstants.maxVelMetersPerSec,
+            AutoConstants.maxAccelMetersPerSecondSq
+        );
+    }
+
+    @Benchmark
+    public PathPlannerState sample() {
+        // Steps forward one 20 ms loop per call and wraps at the end of the path.
+        timeSeconds += 0.02;
+        if(timeSeconds > trajectory.getTotalTimeSeconds()) timeSeconds = 0.0;
+
+        return (PathPlannerState)trajectory.sample(timeSeconds);
+    }
+
+    @Benchmark
+    public PathPlannerState sampleCompiled() {
+        timeSeconds += 0.02;
+        if(timeSeconds > compiledTrajectory.getTotalTimeSeconds()) timeSeconds = 0.0;
+
+        return compiledTrajectory.sample(timeSeconds, state);
+    }
+
+    @Benchmark
+    public PathPlannerTrajectory load() {
+        return PathPlanner.loadPath(path, AutoConstants.maxVelMetersPerSec, AutoConstants.maxAccelMetersPerSecondSq);
+    }
+}
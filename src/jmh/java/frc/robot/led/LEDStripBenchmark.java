@@ -0,0 +1,103 @@
+package frc.robot.led;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+import edu.wpi.first.wpilibj.util.Color;
+import frc.robot.led.animations.AnimationDirection;
+
+/**
+ * Benchmarks drawing to a single {@link LEDStrip}, one operation per call the way LightsSys drives it.
+ * Each drawing benchmark composes the frame afterwards so they measure the whole cost of a change.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LEDStripBenchmark {
+
+    @Param({"22", "64"})
+    public int length;
+
+    private LEDStrip strip;
+    private AddressableLEDBuffer buffer;
+
+    private final Color[] colors = {
+        new Color(50, 255, 0), new Color(150, 128, 0), new Color(204, 0, 255), Color.kRed, Color.kBlue
+    };
+
+    private int frame = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // LEDStrip schedules its default animation, which needs the HAL for the command scheduler.
+        HAL.initialize(500, 0);
+
+        strip = new LEDStrip(length);
+        buffer = new AddressableLEDBuffer(length);
+    }
+
+    private Color nextColor() {
+        frame++;
+        return colors[frame % colors.length];
+    }
+
+    /**
+     * Composes and copies an unchanged strip, the common case when the lights are holding a solid color.
+     */
+    @Benchmark
+    public boolean writeUnchanged() {
+        return strip.writeTo(buffer, 0);
+    }
+
+    @Benchmark
+    public LEDStrip setColorSolid() {
+        strip.setColor(nextColor());
+        strip.update();
+        return strip;
+    }
+
+    /**
+     * Sets every pixel individually, as the party mode and neutral color loops do.
+     */
+    @Benchmark
+    public LEDStrip setColorPerPixel() {
+        Color color = nextColor();
+        for(int i = 0; i < strip.getLength(); i++) {
+            strip.setColor(color, i);
+        }
+        strip.update();
+        return strip;
+    }
+
+    @Benchmark
+    public LEDStrip translateColors() {
+        strip.translateColors(nextColor(), AnimationDirection.kForward);
+        strip.update();
+        return strip;
+    }
+
+    @Benchmark
+    public LEDStrip translateBrightnesses() {
+        frame++;
+        strip.translateBrightnesses((frame % 30) / 30.0, AnimationDirection.kReverse);
+        strip.update();
+        return strip;
+    }
+}
@@ -0,0 +1,71 @@
+package frc.robot.subsystems;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.Constants.GameElement;
+
+/**
+ * Benchmarks one full {@link LightsSys#periodic()} render of all six strips, including the write to the
+ * simulated AddressableLED.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LightsSysBenchmark {
+
+    /**
+     * The lighting mode to render.
+     */
+    @Param({"neutral", "cone", "party", "weeWoo", "intaking"})
+    public String mode;
+
+    private LightsSys lightsSys;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HAL.initialize(500, 0);
+
+        lightsSys = new LightsSys();
+
+        switch(mode) {
+            case "cone":
+                lightsSys.setStatus(GameElement.kCone);
+                break;
+            case "party":
+                lightsSys.setPartyMode(true);
+                break;
+            case "weeWoo":
+                lightsSys.setWeeWooMode(true);
+                break;
+            case "intaking":
+                lightsSys.setIntaking(true);
+                break;
+            default:
+                lightsSys.setStatus(GameElement.kNone);
+                break;
+        }
+    }
+
+    @Benchmark
+    public LightsSys periodic() {
+        lightsSys.periodic();
+        return lightsSys;
+    }
+}
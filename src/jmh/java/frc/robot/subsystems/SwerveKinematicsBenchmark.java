@@ -0,0 +1,99 @@
+package frc.robot.subsystems;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * Benchmarks the math behind {@link SwerveSys#drive} and {@link SwerveModule#setDesiredState}.
+ *
+ * <p>Each benchmark steps through a fixed set of joystick inputs so the JIT can't fold the math away.
+ * The WPILib benchmark is the object-based path drive used before it was made allocation-free, kept as a baseline.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SwerveKinematicsBenchmark {
+
+    private static final int inputCount = 256;
+
+    private final double[] driveX = new double[inputCount];
+    private final double[] driveY = new double[inputCount];
+    private final double[] rotation = new double[inputCount];
+    private final double[] headingRadians = new double[inputCount];
+
+    private final double[] moduleSpeeds = new double[4];
+    private final double[] moduleAngles = new double[4];
+
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        for(int i = 0; i < inputCount; i++) {
+            double t = i * 2.0 * Math.PI / inputCount;
+            driveX[i] = Math.cos(t) * DriveConstants.maxDriveSpeedMetersPerSec;
+            driveY[i] = Math.sin(3.0 * t) * DriveConstants.maxDriveSpeedMetersPerSec;
+            rotation[i] = Math.sin(t) * DriveConstants.maxTurnRateRadiansPerSec;
+            headingRadians[i] = t;
+        }
+    }
+
+    private int next() {
+        index = (index + 1) % inputCount;
+        return index;
+    }
+
+    @Benchmark
+    public double calculateAdjustedAngle() {
+        int i = next();
+        return SwerveModule.calculateAdjustedAngle(headingRadians[i] - Math.PI, headingRadians[i] * 7.0);
+    }
+
+    @Benchmark
+    public void drivePrimitive(Blackhole bh) {
+        int i = next();
+
+        double cos = Math.cos(headingRadians[i]);
+        double sin = Math.sin(headingRadians[i]);
+        double vx = driveX[i] * cos + driveY[i] * sin;
+        double vy = -driveX[i] * sin + driveY[i] * cos;
+
+        SwerveSys.toModuleStates(vx, vy, rotation[i], moduleSpeeds, moduleAngles);
+        SwerveSys.desaturateWheelSpeeds(moduleSpeeds, DriveConstants.maxDriveSpeedMetersPerSec);
+
+        bh.consume(moduleSpeeds);
+        bh.consume(moduleAngles);
+    }
+
+    @Benchmark
+    public void driveWPILib(Blackhole bh) {
+        int i = next();
+
+        ChassisSpeeds speeds = ChassisSpeeds.fromFieldRelativeSpeeds(
+            driveX[i], driveY[i], rotation[i], new Rotation2d(headingRadians[i]));
+
+        SwerveModuleState[] states = DriveConstants.kinematics.toSwerveModuleStates(speeds);
+        SwerveDriveKinematics.desaturateWheelSpeeds(states, DriveConstants.maxDriveSpeedMetersPerSec);
+
+        bh.consume(states);
+    }
+}
@@ -0,0 +1,141 @@
+package frc.robot.subsystems;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * Benchmarks {@link SwervePoseEstimator} against the WPILib SwerveDrivePoseEstimator it replaced in {@link SwerveSys}.
+ *
+ * <p>Each update benchmark steps through a fixed drive along a curve, one odometry period per call. The vision
+ * benchmarks start from a full history and apply a measurement from 100 ms ago, so each call replays 20 updates. The
+ * reset benchmarks compare resetting in place with building a new estimator, as resetPose() and setPose() used to.
+ * Run with the gc profiler to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SwervePoseEstimatorBenchmark {
+
+    private static final int inputCount = 256;
+
+    private static final double visionDelaySeconds = 0.1;
+
+    // Each step's module positions and gyro reading, along a curve.
+    private final SwerveModulePosition[][] positions = new SwerveModulePosition[inputCount][4];
+    private final double[] gyroRadians = new double[inputCount];
+
+    private final Matrix<N3, N1> visionStdDevs = VecBuilder.fill(0.5, 0.5, 0.5);
+    private final Pose2d visionPose = new Pose2d(1.0, 1.0, new Rotation2d(0.5));
+
+    private SwervePoseEstimator primitive;
+    private SwerveDrivePoseEstimator wpilib;
+
+    private int index = 0;
+    private double timestampSeconds = 0.0;
+
+    @Setup
+    public void setup() {
+        for(int i = 0; i < inputCount; i++) {
+            double t = i * 2.0 * Math.PI / inputCount;
+            gyroRadians[i] = 0.5 * t;
+            for(int module = 0; module < 4; module++) {
+                positions[i][module] = new SwerveModulePosition(
+                    i * DriveConstants.maxDriveSpeedMetersPerSec * DriveConstants.odometryPeriodSeconds,
+                    new Rotation2d(Math.sin(t) + module * 0.1)
+                );
+            }
+        }
+
+        primitive = new SwervePoseEstimator(
+            DriveConstants.moduleXMeters,
+            DriveConstants.moduleYMeters,
+            DriveConstants.odometryXYStdDevMeters,
+            DriveConstants.odometryHeadingStdDevRadians,
+            DriveConstants.poseHistorySeconds,
+            DriveConstants.odometryPeriodSeconds
+        );
+        primitive.resetPosition(gyroRadians[0], positions[0], 0.0, 0.0, 0.0);
+
+        wpilib = new SwerveDrivePoseEstimator(DriveConstants.kinematics, new Rotation2d(gyroRadians[0]), positions[0], new Pose2d());
+
+        // Fill the history so the vision benchmarks have something to replay.
+        int steps = (int)(DriveConstants.poseHistorySeconds / DriveConstants.odometryPeriodSeconds);
+        for(int step = 0; step < steps; step++) {
+            int i = next();
+            primitive.update(timestampSeconds, gyroRadians[i], positions[i]);
+            wpilib.updateWithTime(timestampSeconds, new Rotation2d(gyroRadians[i]), positions[i]);
+        }
+    }
+
+    private int next() {
+        index = (index + 1) % inputCount;
+        timestampSeconds += DriveConstants.odometryPeriodSeconds;
+        return index;
+    }
+
+    @Benchmark
+    public double updatePrimitive() {
+        int i = next();
+        primitive.update(timestampSeconds, gyroRadians[i], positions[i]);
+        return primitive.getXMeters();
+    }
+
+    @Benchmark
+    public Pose2d updateWPILib() {
+        int i = next();
+        // The gyro was read as a new Rotation2d each update before.
+        return wpilib.updateWithTime(timestampSeconds, new Rotation2d(gyroRadians[i]), positions[i]);
+    }
+
+    @Benchmark
+    public double visionPrimitive() {
+        primitive.addVisionMeasurement(
+            visionPose.getX(), visionPose.getY(), visionPose.getRotation().getRadians(),
+            timestampSeconds - visionDelaySeconds,
+            0.5, 0.5, 0.5
+        );
+        return primitive.getXMeters();
+    }
+
+    @Benchmark
+    public Pose2d visionWPILib() {
+        wpilib.addVisionMeasurement(visionPose, timestampSeconds - visionDelaySeconds, visionStdDevs);
+        return wpilib.getEstimatedPosition();
+    }
+
+    @Benchmark
+    public void resetPrimitive(Blackhole bh) {
+        primitive.resetPosition(gyroRadians[index], positions[index], 0.0, 0.0, 0.0);
+        bh.consume(primitive.getXMeters());
+    }
+
+    @Benchmark
+    public void resetWPILib(Blackhole bh) {
+        // resetPose() and setPose() built a new estimator.
+        bh.consume(new SwerveDrivePoseEstimator(DriveConstants.kinematics, new Rotation2d(gyroRadians[index]), positions[index], new Pose2d()));
+    }
+}
@@ -0,0 +1,118 @@
+package frc.robot;
+
+import java.util.ArrayList;
+
+import edu.wpi.first.wpilibj.GenericHID.RumbleType;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.robot.Constants.TelemetryConstants;
+import frc.robot.telemetry.Telemetry;
+import frc.robot.telemetry.Telemetry.DoubleEntry;
+import frc.robot.telemetry.Telemetry.StringEntry;
+
+/**
+ * Keeps track of the controller bindings so they can be configured again without piling up.
+ *
+ * <p>Button bindings are only torn down and rebound when the controller layout changes, so re-entering teleop
+ * with the same controllers reuses them. Rumbles are created once and re-armed on every call, since their
+ * pollers are cancelled whenever the robot is disabled.
+ */
+public class BindingRegistry {
+
+    private final ArrayList<Rumble> rumbles = new ArrayList<Rumble>();
+
+    private final StringEntry layoutEntry =
+        Telemetry.getInstance().addString("bindings/layout", TelemetryConstants.slowPeriodCycles);
+    private final DoubleEntry triggerCountEntry =
+        Telemetry.getInstance().addDouble("bindings/triggers", TelemetryConstants.slowPeriodCycles, 0.0);
+    private final DoubleEntry liveCommandCountEntry =
+        Telemetry.getInstance().addDouble("bindings/background commands", TelemetryConstants.slowPeriodCycles, 0.0);
+
+    private String layout = null;
+    public String getLayout() {
+        return layout;
+    }
+
+    private int triggerCount = 0;
+    public int getTriggerCount() {
+        return triggerCount;
+    }
+
+    /**
+     * Creates a Rumble whose pollers and controllers are managed by the registry.
+     *
+     * @param rumbleType The side of the controllers to rumble.
+     * @param power The rumble strength, from 0.0 to 1.0.
+     * @return The new Rumble.
+     */
+    public Rumble rumble(RumbleType rumbleType, double power) {
+        Rumble rumble = new Rumble(rumbleType, power);
+        rumbles.add(rumble);
+        return rumble;
+    }
+
+    /**
+     * Cancels every rumble poller and detaches every controller, ready for the rumbles to be armed again.
+     */
+    public void resetRumbles() {
+        for(Rumble rumble : rumbles) {
+            rumble.cancelPollers();
+            rumble.clearControllers();
+        }
+    }
+
+    /**
+     * Checks whether the button bindings are already configured for a layout.
+     *
+     * @param layout The name of the controller layout.
+     * @return True if the bindings for the layout are live and can be reused.
+     */
+    public boolean isBound(String layout) {
+        return layout.equals(this.layout);
+    }
+
+    /**
+     * Removes every button binding so a new layout can be bound.
+     * <p>All button bindings belong to the registry, so this clears the scheduler's whole default button loop.
+     *
+     * @param layout The name of the controller layout about to be bound.
+     */
+    public void startLayout(String layout) {
+        CommandScheduler.getInstance().getDefaultButtonLoop().clear();
+        triggerCount = 0;
+        this.layout = layout;
+    }
+
+    /**
+     * Records a trigger as bound under the current layout.
+     *
+     * @param trigger The trigger about to be bound.
+     * @return The same trigger, for chaining its bindings.
+     */
+    public <T extends Trigger> T bind(T trigger) {
+        triggerCount++;
+        return trigger;
+    }
+
+    /**
+     * Returns how many rumble pollers are currently scheduled.
+     *
+     * @return The number of live background commands.
+     */
+    public int getLiveCommandCount() {
+        int count = 0;
+        for(Rumble rumble : rumbles) {
+            count += rumble.getLivePollerCount();
+        }
+        return count;
+    }
+
+    /**
+     * Publishes the layout and binding counts.
+     */
+    public void report() {
+        layoutEntry.set(layout == null ? "none" : layout);
+        triggerCountEntry.set(triggerCount);
+        liveCommandCountEntry.set(getLiveCommandCount());
+    }
+}
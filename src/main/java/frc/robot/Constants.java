@@ -2,7 +2,10 @@ package frc.robot;
 
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Translation3d;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.trajectory.TrajectoryConfig;
 import edu.wpi.first.math.util.Units;
@@ -52,6 +55,64 @@ public class Constants {
         public static final int rollerMtrId = 18;
     }
 
+    public static final class CANBusConstants {
+
+        /**
+         * Status frame periods, by how a signal is used. Frames that only carry faults are slowed, but kept fast enough
+         * that faults still show up. Frames the code never reads are slowed as far as is sensible, rather than
+         * disabled, so a device that stops responding is still noticed.
+         */
+        public static final int leaderFramePeriodMs = 10;
+        public static final int loopFramePeriodMs = 20;
+        public static final int faultFramePeriodMs = 100;
+        public static final int unusedFramePeriodMs = 500;
+
+        /**
+         * CTRE devices cap their frame periods at this.
+         */
+        public static final int ctreMaxFramePeriodMs = 255;
+
+        /**
+         * An extended frame with 8 data bytes, with typical bit stuffing, on the 1 Mbit/s bus.
+         */
+        public static final double bitsPerFrame = 135.0;
+        public static final double busBitsPerSecond = 1e6;
+
+        /**
+         * Loops between reads of the bus status.
+         */
+        public static final int statusPeriodCycles = 25;
+
+        /**
+         * Devices are configured in parallel at startup on this many threads. Each setting is tried this many times
+         * before it's reported as failed, and startup waits this long for configuration before moving on without it.
+         */
+        public static final int configThreads = 8;
+        public static final int configAttempts = 3;
+        public static final double configTimeoutSeconds = 5.0;
+
+        /**
+         * How long a CTRE config call waits for the device to confirm it.
+         */
+        public static final int ctreConfigTimeoutMs = 50;
+
+        /**
+         * A device is marked unhealthy after this many reads in a row come back without a fresh status frame, and
+         * an unhealthy device is probed this often in the background to see if it's back.
+         */
+        public static final int unhealthyMissedReads = 5;
+        public static final double probePeriodSeconds = 1.0;
+    }
+
+    public static final class OutputConstants {
+
+        /**
+         * Loops a motor command may go unchanged before it is sent again anyway, so a motor controller that reset or
+         * missed a frame picks its command back up.
+         */
+        public static final int keepAliveCycles = 5;
+    }
+
     public static enum ControllerType {
         kJoystick,
         kGamepad
@@ -106,6 +167,12 @@ public class Constants {
                 new Translation2d(-trackWidth / 2.0, -wheelBase / 2.0) // rear right
             );
 
+        /**
+         * The module positions used by the kinematics, as primitives for the allocation-free drive path.
+         */
+        public static final double[] moduleXMeters = {trackWidth / 2.0, trackWidth / 2.0, -trackWidth / 2.0, -trackWidth / 2.0};
+        public static final double[] moduleYMeters = {wheelBase / 2.0, -wheelBase / 2.0, wheelBase / 2.0, -wheelBase / 2.0};
+
         /**
          * The gear reduction from the drive motor to the wheel.
          */
@@ -150,6 +217,26 @@ public class Constants {
         public static final double kaVoltSecsPerMeterSq = 0.0;
 
         public static final SimpleMotorFeedforward driveFF = new SimpleMotorFeedforward(ksVolts, kvVoltSecsPerMeter, kaVoltSecsPerMeterSq);
+
+        /**
+         * The odometry thread runs at 200 Hz, independent of the 20 ms main loop.
+         */
+        public static final double odometryPeriodSeconds = 0.005;
+        public static final int odometryFramePeriodMs = 5;
+
+        /**
+         * How many odometry samples the log holds per loop, twice what a 20 ms loop takes. If the main loop falls further
+         * behind, the odometry thread waits for it, and the next sample covers the motion in between.
+         */
+        public static final int maxOdometrySamplesPerLoop = 8;
+
+        /**
+         * How much the pose estimator trusts the odometry, against each vision measurement's standard deviations, and
+         * how far back it keeps odometry to apply a delayed measurement to.
+         */
+        public static final double odometryXYStdDevMeters = 0.1;
+        public static final double odometryHeadingStdDevRadians = 0.1;
+        public static final double poseHistorySeconds = 1.5;
     }
 
     public static enum DockDirection {
@@ -167,6 +254,17 @@ public class Constants {
         public static final double maxVelMetersPerSec = 3.25;
         public static final double maxAccelMetersPerSecondSq = 1.75; //1.5
 
+        /**
+         * Time between samples in compiled trajectories. Samples are interpolated, so this only needs to be fine
+         * enough to follow the curvature of the paths.
+         */
+        public static final double compiledTrajectoryDtSeconds = 0.01;
+
+        /**
+         * Directory in the deploy directory that compiled trajectories are deployed to.
+         */
+        public static final String compiledTrajectoryDir = "trajectories";
+
         public static final double drivekP = 12.8; //12.8
         public static final double drivekD = 0.085; //0.065
 
@@ -188,7 +286,7 @@ public class Constants {
         );
 
         public static final PIDController rotController = constructRotController();
-        private static PIDController constructRotController() {
+        public static PIDController constructRotController() {
             PIDController rotController = new PIDController(
                 rotkP,
                 0,
@@ -231,6 +329,33 @@ public class Constants {
 
         public static final double rotToleranceDeg = 2.0;
 
+        /**
+         * Where the limelight sits on the robot: centered, at the front bumper, looking straight ahead.
+         */
+        public static final Transform3d limelightRobotToCamera = new Transform3d(
+            new Translation3d(Units.inchesToMeters(12.0), 0.0, Units.inchesToMeters(24.0)),
+            new Rotation3d()
+        );
+
+        /**
+         * AprilTag sightings more ambiguous than this, or from tags farther than this, aren't fused into the pose.
+         */
+        public static final double maxPoseAmbiguity = 0.2;
+        public static final double maxPoseTagDistanceMeters = 4.0;
+
+        /**
+         * How much a vision pose is trusted, which falls off with the square of the distance to the tag. At one meter
+         * the pose is trusted to within these standard deviations.
+         */
+        public static final double poseXYStdDevMetersPerMeterSq = 0.02;
+        public static final double poseHeadingStdDevRadiansPerMeterSq = 0.2;
+
+        /**
+         * The limelight sends a frame every 30 ms or so, even without targets. If none has arrived in this long, its
+         * last target is dropped.
+         */
+        public static final double frameTimeoutSeconds = 0.5;
+
         public static final PIDController rotController = constructRotController();
         private static PIDController constructRotController() {
             PIDController rotController = new PIDController(
@@ -322,6 +447,11 @@ public class Constants {
         public static final double kP = 3.0;
         public static final double kD = 0.0;
 
+        public static final double rollerkP = 0.00015;
+        public static final double rollerkI = 0.000001;
+        public static final double rollerkFF = 0.0002525;
+        public static final double rollerIZone = 30.0;
+
         public static final double manualPower = 0.5;
 
         public static final double manualControlPadding = 0.5;
@@ -355,4 +485,157 @@ public class Constants {
 
         public static final double rollerAbsoluteMetersPerSecond = 4.875;
     }
-}
\ No newline at end of file
+
+    public static final class SimulationConstants {
+
+        /**
+         * Each loop's physics is stepped in this many pieces, so the emulated SPARK MAX controllers update closer to
+         * their real rate.
+         */
+        public static final int substepsPerLoop = 4;
+
+        public static final double robotMassKg = 56.0;
+
+        /**
+         * Each wheel carries a quarter of the robot's mass at the wheel's radius.
+         */
+        public static final double driveMomentOfInertiaKgMetersSq =
+            robotMassKg / 4.0 * DriveConstants.wheelRadiusMeters * DriveConstants.wheelRadiusMeters;
+        public static final double steerMomentOfInertiaKgMetersSq = 0.004;
+
+        public static final double liftCarriageMassKg = 7.0;
+
+        /**
+         * How far the lift tilts from vertical when articulated down, and how long the cylinder takes to get there.
+         */
+        public static final double liftArticulatedDownDegrees = 30.0;
+        public static final double liftArticulationSeconds = 0.4;
+
+        /**
+         * The intake's actuation gearbox isn't documented, so its reduction is an estimate.
+         */
+        public static final double intakeActuationGearing = 10.0;
+        public static final double intakeActuationMomentOfInertiaKgMetersSq = 0.001;
+        public static final double intakeRollerMomentOfInertiaKgMetersSq = 0.0015;
+
+        public static final double startingPressurePSI = 120.0;
+
+        /**
+         * The compressor fills at this rate into empty tanks, slowing linearly to nothing at its stall pressure.
+         */
+        public static final double compressorFillPSIPerSecond = 2.5;
+        public static final double compressorStallPSI = 150.0;
+        public static final double compressorCurrentAmps = 11.0;
+
+        /**
+         * Air used each time a solenoid fires a cylinder.
+         */
+        public static final double psiPerActuation = 1.5;
+
+        public static final double limelightDiagonalFOVDegrees = 75.8;
+        public static final int limelightResolutionWidth = 320;
+        public static final int limelightResolutionHeight = 240;
+        public static final double limelightMaxRangeMeters = 6.0;
+        public static final double limelightMinTargetArea = 0.1;
+
+        /**
+         * The auto runner gives each auto the length of a match's autonomous period, after holding the robot disabled
+         * long enough to build the auto and settle from the last one.
+         */
+        public static final double autoPeriodSeconds = 15.0;
+        public static final double autoSettleSeconds = 1.0;
+
+        /**
+         * A typical coefficient of friction for tread on carpet. Wheels slip past an acceleration of this times g.
+         */
+        public static final double wheelCoefficientOfFriction = 1.1;
+
+        /**
+         * The constraint optimizer tries every pair of these, and keeps the fastest that follows the path within
+         * the tracking error limit without slipping the wheels.
+         */
+        public static final double[] sweepMaxVelsMetersPerSec = {2.0, 2.5, 3.0, 3.25, 3.5, 3.75, 4.0, 4.25, 4.5};
+        public static final double[] sweepMaxAccelsMetersPerSecondSq = {1.5, 1.75, 2.0, 2.5, 3.0, 3.5, 4.0};
+        public static final double sweepMaxTrackingErrorMeters = 0.1;
+    }
+
+    public static final class TelemetryConstants {
+
+        /**
+         * Dashboard values that drivers watch get a chance to publish every loop.
+         */
+        public static final int defaultPeriodCycles = 1;
+
+        /**
+         * Slow-changing or diagnostic values publish at most every 200 ms.
+         */
+        public static final int slowPeriodCycles = 10;
+    }
+
+    public static final class LoggingConstants {
+
+        /**
+         * Logs go to the first directory that can be written to, so a USB stick is used when one is plugged in.
+         */
+        public static final String[] logDirectories = {"/U/logs", "/home/lvuser/logs"};
+
+        /**
+         * The oldest logs in a directory are deleted at startup until it fits in this many bytes.
+         */
+        public static final long maxLogDirectoryBytes = 256L * 1024 * 1024;
+
+        /**
+         * Frames waiting for the writer. Must be a power of two. 256 frames is about five seconds of loops.
+         */
+        public static final int ringCapacity = 256;
+
+        public static final int maxEventsPerFrame = 32;
+
+        public static final int writeBufferBytes = 64 * 1024;
+
+        /**
+         * Encoded frames are written to the file at least this often, which bounds what a power cut loses.
+         */
+        public static final long flushPeriodNanos = 1000000000L;
+
+        public static final long writerIdleMs = 5;
+
+        /**
+         * Driver station joystick ports and axes to record, enough for every controller layout.
+         */
+        public static final int joystickPortCount = 4;
+        public static final int joystickAxisCount = 6;
+
+        /**
+         * A replayed output further than this from its recorded value counts as diverged. The replay runs the same code
+         * on the same inputs, but Math's trig functions may round differently on the roboRIO than on the desktop.
+         */
+        public static final double replayTolerance = 1e-3;
+    }
+
+    public static final class ProfilerConstants {
+
+        public static final double loopBudgetSeconds = 0.02;
+        public static final double sectionBudgetSeconds = 0.002;
+        public static final double commandBudgetSeconds = 0.001;
+
+        /**
+         * The histogram covers 0 to 40 ms in 50 us buckets.
+         */
+        public static final long bucketWidthNanos = 50000;
+        public static final int bucketCount = 800;
+
+        /**
+         * One timer is published every this many loops.
+         */
+        public static final int publishPeriodCycles = 5;
+    }
+
+    public static final class HistoryConstants {
+
+        /**
+         * How far back the state history reaches.
+         */
+        public static final double historySeconds = 2.0;
+    }
+}
@@ -3,6 +3,11 @@ package frc.robot;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.logging.MatchLogger;
+import frc.robot.output.OutputStage;
+import frc.robot.profiling.LoopProfiler;
+import frc.robot.profiling.LoopTimer;
+import frc.robot.telemetry.Telemetry;
 
 public class Robot extends TimedRobot {
     
@@ -10,6 +15,11 @@ public class Robot extends TimedRobot {
 
     private Command autonomousCommand;
 
+    private final LoopProfiler profiler = LoopProfiler.getInstance();
+    private final LoopTimer inputsTimer = profiler.register("RobotContainer.updateInputs");
+    private final LoopTimer outputTimer = profiler.register("OutputStage.commit");
+    private final LoopTimer interfaceTimer = profiler.register("RobotContainer.updateInterface");
+
     // private UsbCamera camera;
 
     @Override
@@ -21,15 +31,50 @@ public class Robot extends TimedRobot {
         // CameraServer.startAutomaticCapture(camera);
     }
 
+    public RobotContainer getRobotContainer() {
+        return robotContainer;
+    }
+
     @Override
     public void robotPeriodic() {
+        profiler.startLoop();
+        MatchLogger.getInstance().startLoop();
+
+        inputsTimer.start();
+        robotContainer.updateInputs();
+        MatchLogger.getInstance().replayInputs();
+        robotContainer.applyInputs();
+        inputsTimer.stop();
+
         CommandScheduler.getInstance().run();
+        profiler.stopCommand();
+
+        // Every subsystem and command has decided its outputs, so write the ones that changed.
+        outputTimer.start();
+        OutputStage.getInstance().commit();
+        outputTimer.stop();
 
+        interfaceTimer.start();
         robotContainer.updateInterface();
+        Telemetry.getInstance().publish();
+        interfaceTimer.stop();
+
+        // Captured last, so the log holds what every subsystem and command decided this loop.
+        MatchLogger.getInstance().capture();
+
+        profiler.endLoop();
+    }
+
+    @Override
+    public void disabledPeriodic() {
+        robotContainer.preloadAuto();
     }
 
     @Override
     public void autonomousInit() {
+        // Start a fresh set of loop statistics for the match.
+        profiler.reset();
+
         autonomousCommand = robotContainer.getAutonomousCommand();
 
         if(autonomousCommand != null) autonomousCommand.schedule();
@@ -1,5 +1,10 @@
 package frc.robot;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Supplier;
+
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Joystick;
@@ -9,14 +14,20 @@ import edu.wpi.first.wpilibj.GenericHID.RumbleType;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.ParallelRaceGroup;
 import edu.wpi.first.wpilibj2.command.RunCommand;
+import edu.wpi.first.wpilibj2.command.WrapperCommand;
 import edu.wpi.first.wpilibj2.command.button.JoystickButton;
 import edu.wpi.first.wpilibj2.command.button.POVButton;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.Constants.ControllerType;
 import frc.robot.Constants.GameElement;
 import frc.robot.Constants.ControllerConstants;
+import frc.robot.Constants.TelemetryConstants;
+import frc.robot.can.CANBudget;
+import frc.robot.can.DeviceConfigurator;
+import frc.robot.commands.auto.TrajectoryLoader;
 import frc.robot.commands.auto.programs.CenterConeDock;
 import frc.robot.commands.auto.programs.CenterConeGrabCubeDock;
 import frc.robot.commands.auto.programs.CenterConeMobilityDock;
@@ -58,6 +69,8 @@ import frc.robot.commands.lift.ShelfPickupCmd;
 import frc.robot.commands.lights.TogglePartyModeCmd;
 import frc.robot.commands.lights.ToggleWeeWooModeCmd;
 import frc.robot.commands.vision.RestartLimelightCmd;
+import frc.robot.logging.MatchLogger;
+import frc.robot.profiling.LoopProfiler;
 import frc.robot.subsystems.ClawSys;
 import frc.robot.subsystems.CompressorSys;
 import frc.robot.subsystems.IntakeSys;
@@ -65,18 +78,30 @@ import frc.robot.subsystems.LiftSys;
 import frc.robot.subsystems.LightsSys;
 import frc.robot.subsystems.SwerveSys;
 import frc.robot.subsystems.VisionSys;
+import frc.robot.subsystems.inputs.DriverStationInputs;
+import frc.robot.subsystems.inputs.PowerInputs;
+import frc.robot.telemetry.Telemetry;
+import frc.robot.telemetry.Telemetry.DoubleEntry;
+import frc.robot.telemetry.Telemetry.StringEntry;
 
 public class RobotContainer {
+
+    // Created before any subsystem, on the main thread. Its constructor registers log and telemetry channels, which
+    // the device configuration workers that call it later must not race to do.
+    private final CANBudget canBudget = CANBudget.getInstance();
     
     // Initialize subsystems.
     private final SwerveSys swerveSys = new SwerveSys();
     private final LiftSys liftSys = new LiftSys();
     private final ClawSys clawSys = new ClawSys();
     private final IntakeSys intakeSys = new IntakeSys(() -> swerveSys.getForwardVelocityMetersPerSecond());
-    private final VisionSys visionSys = new VisionSys();  
+    private final VisionSys visionSys = new VisionSys(swerveSys::getSimulatedPose, swerveSys::addVisionMeasurement);
     private final CompressorSys compressorSys = new CompressorSys();  
     private final LightsSys lightsSys = new LightsSys();
 
+    private final PowerInputs powerInputs = new PowerInputs();
+    private final DriverStationInputs driverStationInputs = new DriverStationInputs();
+
     // Initialize joysticks.
     private final XboxController driverController = new XboxController(ControllerConstants.driverGamepadPort);
 
@@ -126,15 +151,48 @@ public class RobotContainer {
     private final JoystickButton hybridMenuBtn = new JoystickButton(driverController, 8);
     private final JoystickButton hybridRightJoystickPressBtn = new JoystickButton(hybridController, 10);
 
-    // Instantiate controller rumble.
-    private Rumble matchTimeRumble;
-    private Rumble brownOutRumble;
-    private Rumble countdown10Rumble;
-    private Rumble countdown5Rumble;
-    private Rumble targetAlignedRumble;
+    // Tracks the controller bindings so configBindings can run every teleopInit without piling them up.
+    private final BindingRegistry bindings = new BindingRegistry();
 
-    // Initialize auto selector.
-    SendableChooser<Command> autoSelector = new SendableChooser<Command>();
+    private static final String hybridLayout = "hybrid";
+    private static final String gamepadLayout = "gamepad";
+    private static final String joystickLayout = "joysticks";
+    private static final String operatorOnlyLayout = "only operator";
+
+    // Instantiate controller rumble.
+    private final Rumble matchTimeRumble = bindings.rumble(RumbleType.kRightRumble, 1.0);
+    private final Rumble brownOutRumble = bindings.rumble(RumbleType.kLeftRumble, 1.0);
+    private final Rumble countdown10Rumble = bindings.rumble(RumbleType.kRightRumble, 1.0);
+    private final Rumble countdown5Rumble = bindings.rumble(RumbleType.kRightRumble, 1.0);
+    private final Rumble targetAlignedRumble = bindings.rumble(RumbleType.kLeftRumble, 1.0);
+
+    // Bind dashboard values. The strings are constants, so they only publish when the status changes.
+    private final Telemetry telemetry = Telemetry.getInstance();
+    private final DoubleEntry batteryVoltageEntry = telemetry.addDouble("battery voltage", TelemetryConstants.slowPeriodCycles, 0.05);
+    private final DoubleEntry headingEntry = telemetry.addDouble("heading", TelemetryConstants.defaultPeriodCycles, 0.1);
+    private final DoubleEntry speedEntry = telemetry.addDouble("speed m/s", TelemetryConstants.defaultPeriodCycles, 0.01);
+    private final DoubleEntry pressureEntry = telemetry.addDouble("pressure PSI", TelemetryConstants.slowPeriodCycles, 0.5);
+    private final StringEntry compressorStatusEntry = telemetry.addString("compressor status", TelemetryConstants.defaultPeriodCycles);
+    private final DoubleEntry compressorElapsedEntry = telemetry.addDouble("compressor elapsed", TelemetryConstants.slowPeriodCycles, 0.1);
+    private final DoubleEntry compressorTurnOnEntry = telemetry.addDouble("compressor turn on", TelemetryConstants.slowPeriodCycles, 0.0);
+    private final DoubleEntry intakeInchesEntry = telemetry.addDouble("intake inches", TelemetryConstants.defaultPeriodCycles, 0.05);
+    private final DoubleEntry rollerSpeedEntry = telemetry.addDouble("roller rpm", TelemetryConstants.defaultPeriodCycles, 0.01);
+    private final DoubleEntry liftInchesEntry = telemetry.addDouble("lift inches", TelemetryConstants.defaultPeriodCycles, 0.05);
+    private final StringEntry liftArticulationEntry = telemetry.addString("lift articulation", TelemetryConstants.defaultPeriodCycles);
+    private final DoubleEntry liftTargetEntry = telemetry.addDouble("lift target", TelemetryConstants.defaultPeriodCycles, 0.0);
+    private final StringEntry clawStatusEntry = telemetry.addString("claw status", TelemetryConstants.defaultPeriodCycles);
+
+    // Initialize auto selector. Autos are registered as factories and only the selected one is built.
+    SendableChooser<Supplier<Command>> autoSelector = new SendableChooser<Supplier<Command>>();
+
+    // Every auto by name, in the order they were added, so they can be run without the dashboard.
+    private final LinkedHashMap<String, Supplier<Command>> autos = new LinkedHashMap<String, Supplier<Command>>();
+
+    // Takes the place of the dashboard selection when set.
+    private Supplier<Command> selectedAutoOverride = null;
+
+    private Supplier<Command> loadedAutoFactory = null;
+    private Command loadedAuto = null;
 
     public RobotContainer() {
         SmartDashboard.putData("auto selector", autoSelector);
@@ -151,72 +209,125 @@ public class RobotContainer {
         disableCompressor.setName("DISABLE COMPRESSOR");
         SmartDashboard.putData(disableCompressor);
 
+        WrapperCommand resetProfiler = new InstantCommand(() -> LoopProfiler.getInstance().reset()).ignoringDisable(true);
+        resetProfiler.setName("RESET PROFILER");
+        SmartDashboard.putData(resetProfiler);
+
         RobotController.setBrownoutVoltage(7.5);
 
-        autoSelector.addOption("Cone", new Cone(swerveSys, liftSys, clawSys, intakeSys));
-        autoSelector.addOption("Cube", new Cube(swerveSys, liftSys, clawSys, intakeSys));
-        autoSelector.addOption("CenterConeDock", new CenterConeDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        autoSelector.addOption("CenterCubeDock", new CenterCubeDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        autoSelector.addOption("CenterConeMobilityDock", new CenterConeMobilityDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        autoSelector.addOption("CenterCubeMobilityDock", new CenterCubeMobilityDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        autoSelector.addOption("CenterConeGrabCubeDock", new CenterConeGrabCubeDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        // autoSelector.addOption("LeftConeGrabCube", new LeftConeGrabCube(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        autoSelector.addOption("LeftConeGrabCubeDock", new LeftConeGrabCubeDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        autoSelector.addOption("LeftConeScoreCube", new LeftConeScoreCube(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        // autoSelector.addOption("LeftConeScoreCubeDock", new LeftConeScoreCubeDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        autoSelector.addOption("LeftConeScoreCubeGrabCube", new LeftConeScoreCubeGrabCube(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        autoSelector.addOption("LeftConeWAITScoreCubeGrabCube", new LeftConeWAITScoreCubeGrabCube(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        // autoSelector.addOption("LeftConeScoreCubeScoreCubeMid", new LeftConeScoreCubeScoreCubeMid(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        // autoSelector.addOption("RightConeGrabCube", new RightConeGrabCube(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        autoSelector.addOption("RightConeGrabCubeDock", new RightConeGrabCubeDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        autoSelector.addOption("RightConeScoreCube", new RightConeScoreCube(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        // autoSelector.addOption("RightConeScoreCubeDock", new RightConeScoreCubeDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        autoSelector.addOption("RightConeScoreCubeGrabCube", new RightConeScoreCubeGrabCube(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        // autoSelector.addOption("RightConeScoreCubeScoreCubeMid", new RightConeScoreCubeScoreCubeMid(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
-        autoSelector.setDefaultOption("DoNothing", new SetHeadingCmd(new Rotation2d(Math.PI), swerveSys));
+        countdown10Rumble.setPulseTime(1.0);
+
+        countdown5Rumble.setPulseTime(1.0);
+        countdown5Rumble.setPulseLength(0.25);
+
+        addAuto("Cone", () -> new Cone(swerveSys, liftSys, clawSys, intakeSys));
+        addAuto("Cube", () -> new Cube(swerveSys, liftSys, clawSys, intakeSys));
+        addAuto("CenterConeDock", () -> new CenterConeDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        addAuto("CenterCubeDock", () -> new CenterCubeDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        addAuto("CenterConeMobilityDock", () -> new CenterConeMobilityDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        addAuto("CenterCubeMobilityDock", () -> new CenterCubeMobilityDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        addAuto("CenterConeGrabCubeDock", () -> new CenterConeGrabCubeDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        // addAuto("LeftConeGrabCube", () -> new LeftConeGrabCube(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        addAuto("LeftConeGrabCubeDock", () -> new LeftConeGrabCubeDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        addAuto("LeftConeScoreCube", () -> new LeftConeScoreCube(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        // addAuto("LeftConeScoreCubeDock", () -> new LeftConeScoreCubeDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        addAuto("LeftConeScoreCubeGrabCube", () -> new LeftConeScoreCubeGrabCube(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        addAuto("LeftConeWAITScoreCubeGrabCube", () -> new LeftConeWAITScoreCubeGrabCube(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        // addAuto("LeftConeScoreCubeScoreCubeMid", () -> new LeftConeScoreCubeScoreCubeMid(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        // addAuto("RightConeGrabCube", () -> new RightConeGrabCube(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        addAuto("RightConeGrabCubeDock", () -> new RightConeGrabCubeDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        addAuto("RightConeScoreCube", () -> new RightConeScoreCube(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        // addAuto("RightConeScoreCubeDock", () -> new RightConeScoreCubeDock(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        addAuto("RightConeScoreCubeGrabCube", () -> new RightConeScoreCubeGrabCube(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+        // addAuto("RightConeScoreCubeScoreCubeMid", () -> new RightConeScoreCubeScoreCubeMid(swerveSys, liftSys, clawSys, intakeSys, lightsSys));
+
+        Supplier<Command> doNothing = () -> new SetHeadingCmd(new Rotation2d(Math.PI), swerveSys);
+        autos.put("DoNothing", doNothing);
+        autoSelector.setDefaultOption("DoNothing", doNothing);
+
+        // Every subsystem has started configuring its devices by now, in parallel.
+        DeviceConfigurator.getInstance().awaitAll();
+
+        // Every subsystem has registered its channels by now, so the log's layout is complete.
+        powerInputs.register("power/");
+        driverStationInputs.register("ds/");
+        LoopProfiler.getInstance().logTimers();
+        MatchLogger.getInstance().start();
     }
 
     public void configBindings() {
         lightsSys.cancelAnimations();
 
-        brownOutRumble = new Rumble(RumbleType.kLeftRumble, 1.0, driverController);
-        matchTimeRumble = new Rumble(RumbleType.kRightRumble, 1.0, driverController);
-        countdown10Rumble = new Rumble(RumbleType.kRightRumble, 1.0, driverController);
-        countdown5Rumble = new Rumble(RumbleType.kRightRumble, 1.0, driverController);
-        targetAlignedRumble = new Rumble(RumbleType.kLeftRumble, 1.0, driverController);
-
+        String layout;
         if(DriverStation.isJoystickConnected(ControllerConstants.hybridControllerPort)) {
-            configHybridBindings();
-            // SmartDashboard.putString("control type", "hybrid");
+            layout = hybridLayout;
+        }
+        else if(DriverStation.getJoystickIsXbox(ControllerConstants.driverGamepadPort)) {
+            layout = gamepadLayout;
+        }
+        else if(DriverStation.isJoystickConnected(ControllerConstants.driverRightJoystickPort)) {
+            layout = joystickLayout;
         }
         else {
-            if(DriverStation.getJoystickIsXbox(ControllerConstants.driverGamepadPort)) {
-                configDriverBindings(ControllerType.kGamepad);
-                // SmartDashboard.putString("control type", "gamepad");
-            }
-            else if(DriverStation.isJoystickConnected(ControllerConstants.driverRightJoystickPort)) {
-                configDriverBindings(ControllerType.kJoystick);
-                // SmartDashboard.putString("control type", "joysticks");
+            layout = operatorOnlyLayout;
+        }
+
+        // Button bindings outlive teleop, so they only need rebinding when the controllers change.
+        if(!bindings.isBound(layout)) {
+            bindings.startLayout(layout);
+
+            if(layout.equals(hybridLayout)) {
+                configHybridBindings();
             }
             else {
-                // SmartDashboard.putString("control type", "only operator");
-                brownOutRumble = new Rumble(RumbleType.kRightRumble, 1.0);
+                if(layout.equals(gamepadLayout)) {
+                    configDriverBindings(ControllerType.kGamepad);
+                }
+                else if(layout.equals(joystickLayout)) {
+                    configDriverBindings(ControllerType.kJoystick);
+                }
+
+                configOperatorBindings();
             }
+        }
 
-            configOperatorBindings();
+        configRumbles(layout);
+
+    }
+
+    /**
+     * Attaches the rumbles to the controllers in a layout and arms their conditions.
+     * <p>The scheduler cancels rumble pollers whenever the robot is disabled, so this runs every time teleop starts.
+     * 
+     * @param layout The name of the controller layout in use.
+     */
+    private void configRumbles(String layout) {
+        bindings.resetRumbles();
+
+        if(layout.equals(hybridLayout)) {
+            brownOutRumble.addControllers(driverController, hybridController);
+            matchTimeRumble.addControllers(driverController, hybridController);
+            countdown10Rumble.addControllers(driverController, hybridController);
+            countdown5Rumble.addControllers(driverController, hybridController);
+            targetAlignedRumble.addControllers(driverController, hybridController);
+        }
+        else {
+            // With only an operator connected, a brownout has no driver to warn.
+            if(!layout.equals(operatorOnlyLayout)) brownOutRumble.addControllers(driverController);
+            matchTimeRumble.addControllers(driverController, operatorController);
+            countdown10Rumble.addControllers(driverController, operatorController);
+            countdown5Rumble.addControllers(driverController, operatorController);
+            targetAlignedRumble.addControllers(driverController, operatorController);
         }
 
-        brownOutRumble.rumbleWhen(() -> RobotController.isBrownedOut(), 2.0);
+        brownOutRumble.rumbleWhen(() -> powerInputs.isBrownedOut, 2.0);
         
         matchTimeRumble.pulseWhen(() -> DriverStation.getMatchTime() <= 60.0 && DriverStation.isTeleop(), 3);
         matchTimeRumble.pulseWhen(() -> DriverStation.getMatchTime() <= 30.0 && DriverStation.isTeleop(), 2);
         matchTimeRumble.pulseWhen(() -> DriverStation.getMatchTime() <= 15.0 && DriverStation.isTeleop(), 1);
 
-        countdown10Rumble.setPulseTime(1.0);
         countdown10Rumble.pulseWhen(() -> DriverStation.getMatchTime() <= 10.0 && DriverStation.isTeleop(), 5);
 
-        countdown5Rumble.setPulseTime(1.0);
-        countdown5Rumble.setPulseLength(0.25);
         countdown5Rumble.pulseWhen(() -> DriverStation.getMatchTime() <= 5.0 && DriverStation.isTeleop(), 5);
 
         targetAlignedRumble.pulseWhen(() -> visionSys.targetIsXAligned() && visionSys.hasTarget() && swerveSys.isTracking());
@@ -234,35 +345,29 @@ public class RobotContainer {
                 )
             );
 
-            driverABtn.onTrue(new ToggleWeeWooModeCmd(lightsSys));
-            driverXBtn.whileTrue(new AutoAlignCmd(
+            bindings.bind(driverABtn).onTrue(new ToggleWeeWooModeCmd(lightsSys));
+            bindings.bind(driverXBtn).whileTrue(new AutoAlignCmd(
                 () -> deadband(driverController.getLeftY(), driverControllerType),
                 () -> deadband(driverController.getLeftX(), driverControllerType),
                 visionSys, swerveSys, liftSys)
             );
-            driverYBtn.onTrue(new TogglePartyModeCmd(lightsSys));
+            bindings.bind(driverYBtn).onTrue(new TogglePartyModeCmd(lightsSys));
             
-            driverMenuBtn.onTrue(new ResetHeadingCmd(swerveSys));
+            bindings.bind(driverMenuBtn).onTrue(new ResetHeadingCmd(swerveSys));
 
-            driverRightTriggerBtn
+            bindings.bind(driverRightTriggerBtn)
                 .onTrue(new OutCmd(intakeSys, lightsSys))
                 .onTrue(new IntakeCubeCmd(intakeSys, lightsSys))
                 .onFalse(new InCmd(intakeSys))
                 .onFalse(new StopRollersCmd(intakeSys, lightsSys));
 
-            driverRightBumper
+            bindings.bind(driverRightBumper)
                 .onTrue(new OutCmd(intakeSys, lightsSys))
                 .whileTrue(new IntakeConeCmd(intakeSys, lightsSys))
                 .onFalse(new InCmd(intakeSys))
                 .onFalse(new StopRollersCmd(intakeSys, lightsSys));
 
-            driverLeftTriggerBtn.whileTrue(new LockCmd(swerveSys));
-
-            brownOutRumble.addControllers(driverController);
-            matchTimeRumble.addControllers(driverController);
-            countdown10Rumble.addControllers(driverController);
-            countdown5Rumble.addControllers(driverController);
-            targetAlignedRumble.addControllers(driverController);
+            bindings.bind(driverLeftTriggerBtn).whileTrue(new LockCmd(swerveSys));
         }
         else {
             swerveSys.setDefaultCommand(
@@ -275,13 +380,13 @@ public class RobotContainer {
                 )
             );
 
-            driverRightJoystickTriggerBtn
+            bindings.bind(driverRightJoystickTriggerBtn)
                 .onTrue(new OutCmd(intakeSys, lightsSys))
                 .whileTrue(new SetAbsoluteSpeedCmd(intakeSys, lightsSys))
                 .onFalse(new InCmd(intakeSys))
                 .onFalse(new StopRollersCmd(intakeSys, lightsSys));
 
-            driverRightJoystickThumbBtn.onTrue(new ResetHeadingCmd(swerveSys));
+            bindings.bind(driverRightJoystickThumbBtn).onTrue(new ResetHeadingCmd(swerveSys));
         }
     }
 
@@ -302,28 +407,23 @@ public class RobotContainer {
             )
         );
 
-        operatorABtn.onTrue(new Row1Cmd(true, liftSys));
-        operatorBBtn.onTrue(new Row2Cmd(lightsSys, true, liftSys));
-        operatorXBtn.onTrue(new DownCmd(true, liftSys));
-        operatorYBtn.onTrue(new Row3Cmd(lightsSys, true, liftSys));
+        bindings.bind(operatorABtn).onTrue(new Row1Cmd(true, liftSys));
+        bindings.bind(operatorBBtn).onTrue(new Row2Cmd(lightsSys, true, liftSys));
+        bindings.bind(operatorXBtn).onTrue(new DownCmd(true, liftSys));
+        bindings.bind(operatorYBtn).onTrue(new Row3Cmd(lightsSys, true, liftSys));
 
-        operatorWindowBtn.onTrue(new SetElementStatusCmd(GameElement.kCube, liftSys, intakeSys, visionSys, lightsSys));
-        operatorMenuBtn.onTrue(new SetElementStatusCmd(GameElement.kCone, liftSys, intakeSys, visionSys, lightsSys));
+        bindings.bind(operatorWindowBtn).onTrue(new SetElementStatusCmd(GameElement.kCube, liftSys, intakeSys, visionSys, lightsSys));
+        bindings.bind(operatorMenuBtn).onTrue(new SetElementStatusCmd(GameElement.kCone, liftSys, intakeSys, visionSys, lightsSys));
 
-        operatorWindowBtn.and(operatorMenuBtn).onTrue(new SetElementStatusCmd(GameElement.kNone, liftSys, intakeSys, visionSys, lightsSys));
+        bindings.bind(operatorWindowBtn.and(operatorMenuBtn)).onTrue(new SetElementStatusCmd(GameElement.kNone, liftSys, intakeSys, visionSys, lightsSys));
         
-        operatorLeftBumper.onTrue(new OpenCmd(clawSys));
-        operatorRightBumper.onTrue(new CloseCmd(clawSys));
-
-        operatorUpBtn.onTrue(new ShelfPickupCmd(true, liftSys));
-        operatorRightBtn.onTrue(new YEETCmd(liftSys, clawSys));
-        operatorDownBtn.onTrue(new HoverCmd(true, liftSys));
-        operatorLeftBtn.onTrue(new HybridYeetCmd(liftSys, clawSys));
-
-        matchTimeRumble.addControllers(operatorController);
-        countdown10Rumble.addControllers(operatorController);
-        countdown5Rumble.addControllers(operatorController);
-        targetAlignedRumble.addControllers(operatorController);
+        bindings.bind(operatorLeftBumper).onTrue(new OpenCmd(clawSys));
+        bindings.bind(operatorRightBumper).onTrue(new CloseCmd(clawSys));
+
+        bindings.bind(operatorUpBtn).onTrue(new ShelfPickupCmd(true, liftSys));
+        bindings.bind(operatorRightBtn).onTrue(new YEETCmd(liftSys, clawSys));
+        bindings.bind(operatorDownBtn).onTrue(new HoverCmd(true, liftSys));
+        bindings.bind(operatorLeftBtn).onTrue(new HybridYeetCmd(liftSys, clawSys));
     }
 
     public void configHybridBindings() {
@@ -337,30 +437,71 @@ public class RobotContainer {
             )
         );
 
-        hybridABtn.onTrue(new Row1Cmd(true, liftSys));
-        hybridBBtn.onTrue(new Row2Cmd(lightsSys, true, liftSys));
-        hybridXBtn.onTrue(new DownCmd(true, liftSys));
-        hybridYBtn.onTrue(new Row3Cmd(lightsSys, true, liftSys));
+        bindings.bind(hybridABtn).onTrue(new Row1Cmd(true, liftSys));
+        bindings.bind(hybridBBtn).onTrue(new Row2Cmd(lightsSys, true, liftSys));
+        bindings.bind(hybridXBtn).onTrue(new DownCmd(true, liftSys));
+        bindings.bind(hybridYBtn).onTrue(new Row3Cmd(lightsSys, true, liftSys));
 
-        hybridWindowBtn.onTrue(new SetElementStatusCmd(GameElement.kCube, liftSys, intakeSys, visionSys, lightsSys));
-        hybridMenuBtn.onTrue(new SetElementStatusCmd(GameElement.kCone, liftSys, intakeSys, visionSys, lightsSys));
+        bindings.bind(hybridWindowBtn).onTrue(new SetElementStatusCmd(GameElement.kCube, liftSys, intakeSys, visionSys, lightsSys));
+        bindings.bind(hybridMenuBtn).onTrue(new SetElementStatusCmd(GameElement.kCone, liftSys, intakeSys, visionSys, lightsSys));
 
-        hybridWindowBtn.and(operatorMenuBtn).onTrue(new SetElementStatusCmd(GameElement.kNone, liftSys, intakeSys, visionSys, lightsSys));
+        bindings.bind(hybridWindowBtn.and(operatorMenuBtn)).onTrue(new SetElementStatusCmd(GameElement.kNone, liftSys, intakeSys, visionSys, lightsSys));
         
-        hybridLeftBumper.onTrue(new OpenCmd(clawSys));
-        hybridRightBumper.onTrue(new CloseCmd(clawSys));
+        bindings.bind(hybridLeftBumper).onTrue(new OpenCmd(clawSys));
+        bindings.bind(hybridRightBumper).onTrue(new CloseCmd(clawSys));
+
+        bindings.bind(hybridRightJoystickPressBtn).onTrue(new ResetHeadingCmd(swerveSys));
+    }
+
+    private void addAuto(String name, Supplier<Command> factory) {
+        autos.put(name, factory);
+        autoSelector.addOption(name, factory);
+    }
+
+    /**
+     * Returns the names of every auto in the auto selector.
+     *
+     * @return The auto names, in the order they appear in the selector.
+     */
+    public List<String> getAutoNames() {
+        return new ArrayList<String>(autos.keySet());
+    }
 
-        hybridRightJoystickPressBtn.onTrue(new ResetHeadingCmd(swerveSys));
+    /**
+     * Selects an auto by name, overriding the dashboard selection.
+     *
+     * @param name The name of the auto, as it appears in the selector.
+     */
+    public void selectAuto(String name) {
+        Supplier<Command> factory = autos.get(name);
+        if(factory == null) throw new IllegalArgumentException("No auto named " + name);
 
-        brownOutRumble.addControllers(hybridController);
-        matchTimeRumble.addControllers(hybridController);
-        countdown10Rumble.addControllers(hybridController);
-        countdown5Rumble.addControllers(hybridController);
-        targetAlignedRumble.addControllers(hybridController);
+        selectedAutoOverride = factory;
+    }
+
+    /**
+     * Builds the selected auto if the selection has changed, which starts loading its trajectories in the background.
+     * <p>Call periodically while disabled so the auto is ready before the match starts.
+     */
+    public void preloadAuto() {
+        Supplier<Command> selected = selectedAutoOverride != null ? selectedAutoOverride : autoSelector.getSelected();
+        if(selected == loadedAutoFactory) return;
+
+        // Only the newly selected auto's trajectories are kept.
+        TrajectoryLoader.clear();
+
+        loadedAutoFactory = selected;
+        loadedAuto = selected == null ? null : selected.get();
+    }
+
+    public SwerveSys getSwerveSys() {
+        return swerveSys;
     }
 
     public Command getAutonomousCommand() {
-        return autoSelector.getSelected();
+        // Builds the auto now if it wasn't preloaded, e.g. if the selection changed right before enabling.
+        preloadAuto();
+        return loadedAuto;
     }
 
     /**
@@ -385,38 +526,71 @@ public class RobotContainer {
         return value;
     }
 
+    /**
+     * Reads every sensor on the robot once into the subsystems' inputs.
+     * <p>Runs at the top of each loop, so every subsystem and command sees the same instant
+     * and each CAN value is only read once per loop.
+     */
+    public void updateInputs() {
+        powerInputs.batteryVoltage = RobotController.getBatteryVoltage();
+        powerInputs.isBrownedOut = RobotController.isBrownedOut();
+
+        driverStationInputs.update();
+
+        canBudget.update();
+
+        swerveSys.updateInputs();
+        liftSys.updateInputs();
+        intakeSys.updateInputs();
+        compressorSys.updateInputs();
+    }
+
+    /**
+     * Hands the loop's inputs to whatever keeps state across loops, like the pose estimator and the state history.
+     * <p>Runs right after {@link MatchLogger#replayInputs()}, so a replay feeds in the recorded inputs rather than the
+     * ones just read.
+     */
+    public void applyInputs() {
+        swerveSys.applyOdometryInputs();
+        liftSys.recordHistory();
+        intakeSys.recordHistory();
+    }
+
     public void updateInterface() {
         // BATTERY
-        SmartDashboard.putNumber("battery voltage", RobotController.getBatteryVoltage());
+        batteryVoltageEntry.set(powerInputs.batteryVoltage);
 
         // SWERVE
-        double headingDisplay = swerveSys.getHeading().getDegrees() % 360;
+        double headingDisplay = swerveSys.getHeadingDegrees() % 360;
         if(headingDisplay < 0) {
             headingDisplay += 360;
         }
 
-        SmartDashboard.putNumber("heading", headingDisplay);
+        headingEntry.set(headingDisplay);
 
-        SmartDashboard.putNumber("speed m/s", swerveSys.getAverageDriveVelocityMetersPerSecond());
+        speedEntry.set(swerveSys.getAverageDriveVelocityMetersPerSecond());
         // SmartDashboard.putNumber("speed mph", swerveSys.getAverageDriveVelocityMetersPerSecond() * 2.23694);
 
         // COMPRESSOR
-        SmartDashboard.putNumber("pressure PSI", compressorSys.getPressurePSI());
+        pressureEntry.set(compressorSys.getPressurePSI());
 
-        SmartDashboard.putString("compressor status", (compressorSys.isEnabled() ? (compressorSys.isRunning() ? "PRESSURIZING" : "OFF") : "DISABLED"));
-        SmartDashboard.putNumber("compressor elapsed", compressorSys.getRunTimeSeconds());
-        SmartDashboard.putNumber("compressor turn on", compressorSys.getTurnOnCount());
+        compressorStatusEntry.set((compressorSys.isEnabled() ? (compressorSys.isRunning() ? "PRESSURIZING" : "OFF") : "DISABLED"));
+        compressorElapsedEntry.set(compressorSys.getRunTimeSeconds());
+        compressorTurnOnEntry.set(compressorSys.getTurnOnCount());
 
         // INTAKE
-        SmartDashboard.putNumber("intake inches", intakeSys.getCurrentPosition());
-        SmartDashboard.putNumber("roller rpm", intakeSys.getCurrentSpeedMetersPerSecond());
+        intakeInchesEntry.set(intakeSys.getCurrentPosition());
+        rollerSpeedEntry.set(intakeSys.getCurrentSpeedMetersPerSecond());
 
         // LIFT
-        SmartDashboard.putNumber("lift inches", liftSys.getCurrentPosition());
-        SmartDashboard.putString("lift articulation", (liftSys.isArticulationOverride() ? (liftSys.isArticulatedDown() ? "DOWN" : "UP") : "UP - OVERRIDE"));
-        SmartDashboard.putNumber("lift target", liftSys.getTargetInches());
+        liftInchesEntry.set(liftSys.getCurrentPosition());
+        liftArticulationEntry.set((liftSys.isArticulationOverride() ? (liftSys.isArticulatedDown() ? "DOWN" : "UP") : "UP - OVERRIDE"));
+        liftTargetEntry.set(liftSys.getTargetInches());
 
         // CLAW
-        SmartDashboard.putString("claw status", (clawSys.isOpen() ? "OPEN" : "CLOSED"));
+        clawStatusEntry.set((clawSys.isOpen() ? "OPEN" : "CLOSED"));
+
+        // BINDINGS
+        bindings.report();
     }
 }
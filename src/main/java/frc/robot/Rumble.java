@@ -1,5 +1,6 @@
 package frc.robot;
 
+import java.util.ArrayList;
 import java.util.function.BooleanSupplier;
 
 import edu.wpi.first.wpilibj.GenericHID;
@@ -48,6 +49,9 @@ public class Rumble {
         return isPulsing;
     }
 
+    // Commands that watch a condition and never finish on their own, so they can be cancelled when rebinding.
+    private final ArrayList<CommandBase> pollers = new ArrayList<CommandBase>();
+
     public Rumble(RumbleType rumbleType, double power, GenericHID... controllers) {
         this.rumbleType = rumbleType;
         this.power = power;
@@ -73,6 +77,40 @@ public class Rumble {
         this.controllers = proxy;
     }
 
+    public void clearControllers() {
+        stopRumble();
+        stopPulse();
+        for(GenericHID controller : controllers) controller.setRumble(rumbleType, 0.0);
+        controllers = new GenericHID[0];
+    }
+
+    /**
+     * Cancels every condition poller scheduled by this Rumble.
+     */
+    public void cancelPollers() {
+        for(CommandBase poller : pollers) poller.cancel();
+        pollers.clear();
+    }
+
+    /**
+     * Returns how many of this Rumble's condition pollers are still scheduled.
+     * <p>Pollers don't run while disabled, so the scheduler cancels them whenever the robot is disabled.
+     * 
+     * @return The number of live pollers.
+     */
+    public int getLivePollerCount() {
+        int count = 0;
+        for(CommandBase poller : pollers) {
+            if(poller.isScheduled()) count++;
+        }
+        return count;
+    }
+
+    private void schedulePoller(CommandBase poller) {
+        pollers.add(poller);
+        CommandScheduler.getInstance().schedule(poller);
+    }
+
     public void startRumble() {
         CommandBase startRumble = new CommandBase() {
             @Override
@@ -115,7 +153,7 @@ public class Rumble {
                 return false;
             }
         };
-        CommandScheduler.getInstance().schedule(rumbleStarter);
+        schedulePoller(rumbleStarter);
     }
 
     public void stopRumble() {
@@ -134,7 +172,7 @@ public class Rumble {
                 return false;
             }
         };
-        CommandScheduler.getInstance().schedule(rumbleStopper);
+        schedulePoller(rumbleStopper);
     }
 
     public void rumble(double seconds) {
@@ -174,7 +212,7 @@ public class Rumble {
                 return false;
             }
         };
-        CommandScheduler.getInstance().schedule(rumbleScheduler);
+        schedulePoller(rumbleScheduler);
     }
 
     public void rumbleWhile(BooleanSupplier condition) {
@@ -194,7 +232,7 @@ public class Rumble {
                 return false;
             }
         };
-        CommandScheduler.getInstance().schedule(rumbleScheduler);
+        schedulePoller(rumbleScheduler);
     }
 
     public void startPulse() {
@@ -246,7 +284,7 @@ public class Rumble {
                 return false;
             }
         };
-        CommandScheduler.getInstance().schedule(pulseStarter);
+        schedulePoller(pulseStarter);
     }
 
     public void stopPulse() {
@@ -265,7 +303,7 @@ public class Rumble {
                 return false;
             }
         };
-        CommandScheduler.getInstance().schedule(pulseStopper);
+        schedulePoller(pulseStopper);
     }
 
     public void pulse() {
@@ -356,7 +394,7 @@ public class Rumble {
                 return false;
             }
         };
-        CommandScheduler.getInstance().schedule(rumbleStarter);
+        schedulePoller(rumbleStarter);
     }
 
     public void pulseWhen(BooleanSupplier condition, int times) {
@@ -380,7 +418,7 @@ public class Rumble {
                 return false;
             }
         };
-        CommandScheduler.getInstance().schedule(rumbleStarter);
+        schedulePoller(rumbleStarter);
     }
 
     public void pulseWhile(BooleanSupplier condition) {
@@ -400,7 +438,7 @@ public class Rumble {
                 return false;
             }
         };
-        CommandScheduler.getInstance().schedule(pulseScheduler);
+        schedulePoller(pulseScheduler);
     }
 
 }
\ No newline at end of file
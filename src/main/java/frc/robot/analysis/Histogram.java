@@ -0,0 +1,81 @@
+package frc.robot.analysis;
+
+/**
+ * A fixed-bucket histogram of durations in milliseconds, small enough to keep one per section per match and cheap to
+ * merge across matches.
+ */
+class Histogram {
+
+    private static final double bucketWidthMillis = 0.05;
+    private static final int bucketCount = 2000;
+
+    // The last bucket collects every sample past the end of the range.
+    private final long[] buckets = new long[bucketCount + 1];
+
+    private long count = 0;
+    private double total = 0.0;
+    private double max = 0.0;
+
+    void add(double millis) {
+        int bucket = (int)(millis / bucketWidthMillis);
+        if(bucket > bucketCount || bucket < 0) bucket = bucketCount;
+        buckets[bucket]++;
+
+        count++;
+        total += millis;
+        if(millis > max) max = millis;
+    }
+
+    void merge(Histogram other) {
+        for(int i = 0; i < buckets.length; i++) {
+            buckets[i] += other.buckets[i];
+        }
+        count += other.count;
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    double getMean() {
+        return count == 0 ? 0.0 : total / count;
+    }
+
+    double getMax() {
+        return max;
+    }
+
+    /**
+     * Counts the samples longer than a threshold, to the nearest bucket.
+     *
+     * @param millis The threshold.
+     * @return The number of samples past the threshold.
+     */
+    long countAbove(double millis) {
+        long above = 0;
+        for(int i = Math.min((int)(millis / bucketWidthMillis), bucketCount); i < buckets.length; i++) {
+            above += buckets[i];
+        }
+        return above;
+    }
+
+    /**
+     * Estimates a percentile as the upper edge of the bucket that contains it.
+     *
+     * @param percentile The percentile, from 0.0 to 1.0.
+     * @return The estimated value at the percentile.
+     */
+    double getPercentile(double percentile) {
+        if(count == 0) return 0.0;
+
+        long threshold = Math.max(1, (long)Math.ceil(count * percentile));
+        long seen = 0;
+        for(int i = 0; i < bucketCount; i++) {
+            seen += buckets[i];
+            if(seen >= threshold) return (i + 1) * bucketWidthMillis;
+        }
+        return max;
+    }
+}
@@ -0,0 +1,199 @@
+package frc.robot.analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import frc.robot.logging.LogFormat;
+
+/**
+ * Summarizes a season of match logs into CSV tables, one row per match, per profiled section and per path segment.
+ *
+ * <p>Run through Gradle with {@code ./gradlew analyzeLogs -Plogs=<directory or logs> [-Pout=<directory>]}. Logs
+ * are independent, so each one is read and summarized on its own core; only the small summaries are kept, so
+ * memory stays flat no matter how many logs there are.
+ *
+ * <p>Writes:
+ * <ul>
+ * <li>{@code matches.csv}: duration, dropped frames, loop period and overruns, brownouts, compressor duty, and lift
+ * time-to-target for each match.</li>
+ * <li>{@code sections.csv}: mean, p50, p99 and max of every profiled section for each match, plus rows for all
+ * matches combined.</li>
+ * <li>{@code paths.csv}: duration and position error of every trajectory the robot followed.</li>
+ * </ul>
+ */
+public class LogAnalytics {
+
+    private static final String allMatches = "ALL";
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2) {
+            System.err.println("Usage: LogAnalytics <output directory> <log file or directory>...");
+            System.exit(2);
+        }
+
+        File outputDirectory = new File(args[0]);
+
+        ArrayList<File> logs = new ArrayList<File>();
+        for(int i = 1; i < args.length; i++) {
+            collectLogs(new File(args[i]), logs);
+        }
+        if(logs.isEmpty()) {
+            System.err.println("No " + LogFormat.fileExtension + " logs found.");
+            System.exit(2);
+        }
+
+        long startNanos = System.nanoTime();
+
+        List<MatchSummary> summaries = logs.parallelStream()
+            .map(LogAnalytics::analyze)
+            .filter(Objects::nonNull)
+            .sorted(Comparator.comparing((MatchSummary summary) -> summary.name))
+            .collect(Collectors.toList());
+
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        if(!outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+            throw new IOException("Could not create " + outputDirectory);
+
+        writeMatches(new File(outputDirectory, "matches.csv"), summaries);
+        writeSections(new File(outputDirectory, "sections.csv"), summaries);
+        writePaths(new File(outputDirectory, "paths.csv"), summaries);
+
+        System.out.printf(
+            Locale.ROOT,
+            "Analyzed %d of %d logs in %.2f s on %d cores. Tables written to %s%n",
+            summaries.size(), logs.size(), elapsedSeconds, Runtime.getRuntime().availableProcessors(),
+            outputDirectory.getAbsolutePath()
+        );
+    }
+
+    private static void collectLogs(File file, List<File> logs) {
+        if(file.isDirectory()) {
+            File[] children = file.listFiles();
+            if(children == null) return;
+            for(File child : children) {
+                collectLogs(child, logs);
+            }
+        }
+        else if(file.getName().endsWith(LogFormat.fileExtension)) {
+            logs.add(file);
+        }
+    }
+
+    private static MatchSummary analyze(File log) {
+        try {
+            return MatchSummary.analyze(log);
+        }
+        catch(IOException | RuntimeException e) {
+            // One bad log shouldn't sink the rest of the season.
+            System.err.println("Skipping " + log + ": " + e);
+            return null;
+        }
+    }
+
+    private static void writeMatches(File file, List<MatchSummary> summaries) throws IOException {
+        try(PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println(
+                "match,durationSeconds,enabledSeconds,autonomousSeconds,frames,droppedFrames,truncated," +
+                "loopPeriodP50Ms,loopPeriodP99Ms,loopPeriodMaxMs,loopP50Ms,loopP99Ms,loopMaxMs,loopOverruns," +
+                "brownouts,brownoutSeconds,minBatteryVoltage,compressorDuty,compressorEnabledDuty," +
+                "liftMoves,liftMovesUnreached,liftTimeToTargetMeanMs,liftTimeToTargetMaxMs"
+            );
+
+            for(MatchSummary summary : summaries) {
+                Histogram loop = summary.sections.get("Robot.robotPeriodic ms");
+                if(loop == null) loop = new Histogram();
+
+                out.println(String.join(",",
+                    summary.name,
+                    format(summary.durationSeconds),
+                    format(summary.enabledSeconds),
+                    format(summary.autonomousSeconds),
+                    Integer.toString(summary.frameCount),
+                    Integer.toString(summary.droppedFrames),
+                    Boolean.toString(summary.isTruncated),
+                    format(summary.loopPeriods.getPercentile(0.5)),
+                    format(summary.loopPeriods.getPercentile(0.99)),
+                    format(summary.loopPeriods.getMax()),
+                    format(loop.getPercentile(0.5)),
+                    format(loop.getPercentile(0.99)),
+                    format(loop.getMax()),
+                    Long.toString(summary.getLoopOverruns()),
+                    Integer.toString(summary.brownoutCount),
+                    format(summary.brownoutSeconds),
+                    format(summary.minBatteryVoltage),
+                    format(summary.getCompressorDuty()),
+                    format(summary.getCompressorEnabledDuty()),
+                    Integer.toString(summary.liftMoveCount),
+                    Integer.toString(summary.liftMovesUnreached),
+                    format(summary.liftTimeToTarget.getMean()),
+                    format(summary.liftTimeToTarget.getMax())
+                ));
+            }
+        }
+    }
+
+    private static void writeSections(File file, List<MatchSummary> summaries) throws IOException {
+        Map<String, Histogram> combined = new LinkedHashMap<String, Histogram>();
+
+        try(PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println("match,section,samples,meanMs,p50Ms,p99Ms,maxMs");
+
+            for(MatchSummary summary : summaries) {
+                for(Map.Entry<String, Histogram> section : summary.sections.entrySet()) {
+                    writeSection(out, summary.name, section.getKey(), section.getValue());
+                    combined.computeIfAbsent(section.getKey(), name -> new Histogram()).merge(section.getValue());
+                }
+            }
+
+            for(Map.Entry<String, Histogram> section : combined.entrySet()) {
+                writeSection(out, allMatches, section.getKey(), section.getValue());
+            }
+        }
+    }
+
+    private static void writeSection(PrintWriter out, String match, String section, Histogram histogram) {
+        out.println(String.join(",",
+            match,
+            section,
+            Long.toString(histogram.getCount()),
+            format(histogram.getMean()),
+            format(histogram.getPercentile(0.5)),
+            format(histogram.getPercentile(0.99)),
+            format(histogram.getMax())
+        ));
+    }
+
+    private static void writePaths(File file, List<MatchSummary> summaries) throws IOException {
+        try(PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println("match,segment,startSeconds,durationSeconds,meanErrorMeters,maxErrorMeters,finalErrorMeters");
+
+            for(MatchSummary summary : summaries) {
+                for(MatchSummary.PathSegment segment : summary.pathSegments) {
+                    out.println(String.join(",",
+                        summary.name,
+                        Integer.toString(segment.index),
+                        format(segment.startSeconds),
+                        format(segment.durationSeconds),
+                        format(segment.getMeanErrorMeters()),
+                        format(segment.maxErrorMeters),
+                        format(segment.finalErrorMeters)
+                    ));
+                }
+            }
+        }
+    }
+
+    private static String format(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.4f", value);
+    }
+}
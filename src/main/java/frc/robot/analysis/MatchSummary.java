@@ -0,0 +1,234 @@
+package frc.robot.analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import frc.robot.Constants.LiftConstants;
+import frc.robot.Constants.ProfilerConstants;
+import frc.robot.logging.LogReader;
+
+/**
+ * Statistics for one match log, computed in a single pass over its frames.
+ */
+class MatchSummary {
+
+    /**
+     * One run of a trajectory, from when the robot started following it to when it stopped.
+     */
+    static class PathSegment {
+
+        final int index;
+        final double startSeconds;
+        double durationSeconds = 0.0;
+
+        private double totalError = 0.0;
+        private int sampleCount = 0;
+        double maxErrorMeters = 0.0;
+        double finalErrorMeters = 0.0;
+
+        PathSegment(int index, double startSeconds) {
+            this.index = index;
+            this.startSeconds = startSeconds;
+        }
+
+        private void add(double errorMeters) {
+            totalError += errorMeters;
+            sampleCount++;
+            maxErrorMeters = Math.max(maxErrorMeters, errorMeters);
+            finalErrorMeters = errorMeters;
+        }
+
+        double getMeanErrorMeters() {
+            return sampleCount == 0 ? 0.0 : totalError / sampleCount;
+        }
+    }
+
+    final String name;
+
+    int frameCount = 0;
+    int droppedFrames = 0;
+    boolean isTruncated = false;
+
+    double durationSeconds = 0.0;
+    double enabledSeconds = 0.0;
+    double autonomousSeconds = 0.0;
+
+    final Histogram loopPeriods = new Histogram();
+
+    /**
+     * Histograms of each profiled section, keyed by section name, in log order.
+     */
+    final Map<String, Histogram> sections = new LinkedHashMap<String, Histogram>();
+
+    int brownoutCount = 0;
+    double brownoutSeconds = 0.0;
+    double minBatteryVoltage = Double.NaN;
+
+    double compressorRunSeconds = 0.0;
+    double compressorRunEnabledSeconds = 0.0;
+
+    final ArrayList<PathSegment> pathSegments = new ArrayList<PathSegment>();
+
+    int liftMoveCount = 0;
+    int liftMovesUnreached = 0;
+    final Histogram liftTimeToTarget = new Histogram();
+
+    private MatchSummary(String name) {
+        this.name = name;
+    }
+
+    double getCompressorDuty() {
+        return durationSeconds == 0.0 ? 0.0 : compressorRunSeconds / durationSeconds;
+    }
+
+    double getCompressorEnabledDuty() {
+        return enabledSeconds == 0.0 ? 0.0 : compressorRunEnabledSeconds / enabledSeconds;
+    }
+
+    /**
+     * Reads a log and computes its statistics.
+     *
+     * @param file The log to read.
+     * @return The statistics.
+     * @throws IOException If the log can't be read.
+     */
+    static MatchSummary analyze(File file) throws IOException {
+        LogReader reader = LogReader.open(file);
+        MatchSummary summary = new MatchSummary(file.getName());
+
+        int enabled = reader.indexOf("ds/isEnabled");
+        int autonomous = reader.indexOf("ds/isAutonomous");
+        int batteryVoltage = reader.indexOf("power/batteryVoltage");
+        int brownedOut = reader.indexOf("power/isBrownedOut");
+        int compressorRunning = reader.indexOf("compressor/isRunning");
+        int following = reader.indexOf("swerve/isFollowingTrajectory");
+        int poseX = reader.indexOf("swerve/poseXMeters");
+        int poseY = reader.indexOf("swerve/poseYMeters");
+        int targetX = reader.indexOf("swerve/trajectoryTargetXMeters");
+        int targetY = reader.indexOf("swerve/trajectoryTargetYMeters");
+        int liftPosition = reader.indexOf("lift/positionInches");
+        int liftTarget = reader.indexOf("lift/targetInches");
+        int liftManual = reader.indexOf("lift/isManual");
+
+        ArrayList<Integer> sectionChannels = new ArrayList<Integer>();
+        for(int i = 0; i < reader.getChannelCount(); i++) {
+            String channelName = reader.getChannelName(i);
+            if(reader.isDiagnostic(i) && channelName.startsWith("profiler/")) {
+                sectionChannels.add(i);
+                summary.sections.put(channelName.substring("profiler/".length()), new Histogram());
+            }
+        }
+        Histogram[] sectionHistograms = summary.sections.values().toArray(new Histogram[0]);
+
+        long firstMicros = -1;
+        long previousMicros = -1;
+        boolean wasBrownedOut = false;
+
+        PathSegment segment = null;
+
+        double previousLiftTarget = Double.NaN;
+        double liftMoveStartSeconds = -1.0;
+
+        while(reader.next()) {
+            summary.droppedFrames += reader.getDroppedBefore();
+
+            long micros = reader.getTimestampMicros();
+            if(firstMicros < 0) firstMicros = micros;
+            double timeSeconds = (micros - firstMicros) / 1e6;
+
+            // Each frame's values hold until the next frame, so weight them by the time since the previous one.
+            double dtSeconds = 0.0;
+            if(previousMicros >= 0) {
+                dtSeconds = (micros - previousMicros) / 1e6;
+                // A gap from dropped frames isn't a loop period.
+                if(reader.getDroppedBefore() == 0) summary.loopPeriods.add(dtSeconds * 1e3);
+            }
+            previousMicros = micros;
+
+            boolean isEnabled = flag(reader, enabled);
+            if(isEnabled) summary.enabledSeconds += dtSeconds;
+            if(isEnabled && flag(reader, autonomous)) summary.autonomousSeconds += dtSeconds;
+
+            for(int i = 0; i < sectionHistograms.length; i++) {
+                sectionHistograms[i].add(reader.getValue(sectionChannels.get(i)));
+            }
+
+            // POWER
+            if(batteryVoltage >= 0) {
+                double voltage = reader.getValue(batteryVoltage);
+                // The first loops read 0 V before the first battery sample arrives.
+                if(voltage > 0.0 && (Double.isNaN(summary.minBatteryVoltage) || voltage < summary.minBatteryVoltage))
+                    summary.minBatteryVoltage = voltage;
+            }
+
+            boolean isBrownedOut = flag(reader, brownedOut);
+            if(isBrownedOut && !wasBrownedOut) summary.brownoutCount++;
+            if(isBrownedOut) summary.brownoutSeconds += dtSeconds;
+            wasBrownedOut = isBrownedOut;
+
+            // COMPRESSOR
+            if(flag(reader, compressorRunning)) {
+                summary.compressorRunSeconds += dtSeconds;
+                if(isEnabled) summary.compressorRunEnabledSeconds += dtSeconds;
+            }
+
+            // PATH FOLLOWING
+            if(flag(reader, following) && poseX >= 0 && targetX >= 0) {
+                if(segment == null) {
+                    segment = new PathSegment(summary.pathSegments.size(), timeSeconds);
+                    summary.pathSegments.add(segment);
+                }
+                segment.durationSeconds = timeSeconds - segment.startSeconds;
+                segment.add(Math.hypot(
+                    reader.getValue(poseX) - reader.getValue(targetX),
+                    reader.getValue(poseY) - reader.getValue(targetY)
+                ));
+            }
+            else {
+                segment = null;
+            }
+
+            // LIFT
+            if(liftTarget >= 0 && liftPosition >= 0) {
+                double target = reader.getValue(liftTarget);
+
+                if(!flag(reader, liftManual) && target != previousLiftTarget && !Double.isNaN(previousLiftTarget)) {
+                    if(liftMoveStartSeconds >= 0.0) summary.liftMovesUnreached++;
+                    summary.liftMoveCount++;
+                    liftMoveStartSeconds = timeSeconds;
+                }
+                previousLiftTarget = target;
+
+                if(liftMoveStartSeconds >= 0.0 && Math.abs(reader.getValue(liftPosition) - target) < LiftConstants.targetToleranceInches) {
+                    summary.liftTimeToTarget.add((timeSeconds - liftMoveStartSeconds) * 1e3);
+                    liftMoveStartSeconds = -1.0;
+                }
+            }
+        }
+
+        if(liftMoveStartSeconds >= 0.0) summary.liftMovesUnreached++;
+
+        summary.frameCount = reader.getFrameCount();
+        summary.isTruncated = reader.isTruncated();
+        summary.durationSeconds = firstMicros < 0 ? 0.0 : (previousMicros - firstMicros) / 1e6;
+
+        return summary;
+    }
+
+    /**
+     * Returns how many loops went past the loop budget.
+     *
+     * @return The number of overruns.
+     */
+    long getLoopOverruns() {
+        Histogram loop = sections.get("Robot.robotPeriodic ms");
+        return loop == null ? 0 : loop.countAbove(ProfilerConstants.loopBudgetSeconds * 1e3);
+    }
+
+    private static boolean flag(LogReader reader, int channel) {
+        return channel >= 0 && reader.getValue(channel) != 0.0;
+    }
+}
@@ -0,0 +1,181 @@
+package frc.robot.can;
+
+import com.ctre.phoenix.sensors.CANCoder;
+import com.ctre.phoenix.sensors.CANCoderStatusFrame;
+import com.ctre.phoenix.sensors.PigeonIMU;
+import com.ctre.phoenix.sensors.PigeonIMU_StatusFrame;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+
+import edu.wpi.first.hal.can.CANJNI;
+import edu.wpi.first.hal.can.CANStatus;
+import frc.robot.Constants.CANBusConstants;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.TelemetryConstants;
+import frc.robot.logging.MatchLogger;
+import frc.robot.telemetry.Telemetry;
+import frc.robot.telemetry.Telemetry.DoubleEntry;
+
+/**
+ * Sets the status frame periods of every SPARK MAX, CANCoder and Pigeon from what the code reads from them, and
+ * reports how busy the CAN bus is, as RobotController.getCANStatus() measures it.
+ *
+ * <p>Devices are configured once at construction through the {@code configure} methods, each of which declares what
+ * the device is used for. Every frame is sent only as often as its signals are read, so frames nobody reads stop
+ * crowding the bus and the ones that matter arrive on time. The bus load those periods should produce is estimated
+ * as the devices are configured, alongside the load the same devices would produce at their default periods.
+ *
+ * <p>The PDH and pneumatic hub send their frames at fixed rates, so they aren't managed or counted in the estimate,
+ * but they are part of the measured utilization.
+ */
+public class CANBudget {
+
+    private static CANBudget instance;
+
+    /**
+     * Returns the CANBudget instance.
+     *
+     * @return The CANBudget instance.
+     */
+    public static synchronized CANBudget getInstance() {
+        if(instance == null) instance = new CANBudget();
+        return instance;
+    }
+
+    private static final PeriodicFrame[] sparkMaxFrames = {
+        PeriodicFrame.kStatus0,
+        PeriodicFrame.kStatus1,
+        PeriodicFrame.kStatus2,
+        PeriodicFrame.kStatus3,
+        PeriodicFrame.kStatus4,
+        PeriodicFrame.kStatus5,
+        PeriodicFrame.kStatus6
+    };
+
+    private static final int[] sparkMaxDefaultPeriodsMs = {10, 20, 20, 50, 20, 200, 200};
+
+    private static final int canCoderDefaultSensorPeriodMs = 10;
+    private static final int canCoderDefaultFaultPeriodMs = 100;
+
+    private static final int pigeonDefaultYawPitchRollPeriodMs = 10;
+
+    private final CANStatus status = new CANStatus();
+
+    private final DoubleEntry utilizationEntry =
+        Telemetry.getInstance().addDouble("can utilization %", TelemetryConstants.defaultPeriodCycles, 0.5);
+    private final DoubleEntry estimatedUtilizationEntry = Telemetry.getInstance().addDouble("can estimated utilization %");
+    private final DoubleEntry defaultUtilizationEntry = Telemetry.getInstance().addDouble("can default utilization %");
+    private final DoubleEntry txFullEntry = Telemetry.getInstance().addDouble("can tx full count");
+    private final DoubleEntry busOffEntry = Telemetry.getInstance().addDouble("can bus off count");
+
+    // Bits per second the managed frames send at their configured periods, and at their default periods.
+    private double bitsPerSecond = 0.0;
+    private double defaultBitsPerSecond = 0.0;
+
+    private int statusCounter = 0;
+
+    private CANBudget() {
+        MatchLogger logger = MatchLogger.getInstance();
+        logger.addDoubleDiagnostic("can/utilization", () -> status.percentBusUtilization);
+        logger.addDoubleDiagnostic("can/busOffCount", () -> status.busOffCount);
+        logger.addDoubleDiagnostic("can/txFullCount", () -> status.txFullCount);
+        logger.addDoubleDiagnostic("can/receiveErrorCount", () -> status.receiveErrorCount);
+        logger.addDoubleDiagnostic("can/transmitErrorCount", () -> status.transmitErrorCount);
+        logger.addDoubleDiagnostic("can/estimatedUtilization", this::getEstimatedUtilization);
+        logger.addDoubleDiagnostic("can/defaultUtilization", this::getDefaultUtilization);
+    }
+
+    /**
+     * Sets the status frame periods of a SPARK MAX.
+     *
+     * @param motor The SPARK MAX.
+     * @param role What the code reads from it.
+     */
+    public void configure(CANSparkMax motor, SparkMaxRole role) {
+        for(int i = 0; i < sparkMaxFrames.length; i++) {
+            int periodMs;
+            if(i == 0) periodMs = role.status0PeriodMs;
+            else if(i == 1) periodMs = role.status1PeriodMs;
+            else if(i == 2) periodMs = role.status2PeriodMs;
+            else periodMs = CANBusConstants.unusedFramePeriodMs;
+
+            motor.setPeriodicFramePeriod(sparkMaxFrames[i], periodMs);
+            count(periodMs, sparkMaxDefaultPeriodsMs[i]);
+        }
+    }
+
+    /**
+     * Sets the status frame periods of a swerve module's CANCoder, whose angle the odometry thread samples.
+     *
+     * @param canCoder The CANCoder.
+     */
+    public void configureOdometry(CANCoder canCoder) {
+        canCoder.setStatusFramePeriod(CANCoderStatusFrame.SensorData, DriveConstants.odometryFramePeriodMs);
+        canCoder.setStatusFramePeriod(CANCoderStatusFrame.VbatAndFaults, CANBusConstants.ctreMaxFramePeriodMs);
+
+        count(DriveConstants.odometryFramePeriodMs, canCoderDefaultSensorPeriodMs);
+        count(CANBusConstants.ctreMaxFramePeriodMs, canCoderDefaultFaultPeriodMs);
+    }
+
+    /**
+     * Sets the status frame period of the Pigeon's yaw, pitch and roll, which the odometry thread samples.
+     * <p>The Pigeon's other frames are already slow or off by default, and nothing reads them.
+     *
+     * @param imu The Pigeon.
+     */
+    public void configureOdometry(PigeonIMU imu) {
+        imu.setStatusFramePeriod(PigeonIMU_StatusFrame.CondStatus_9_SixDeg_YPR, DriveConstants.odometryFramePeriodMs);
+
+        count(DriveConstants.odometryFramePeriodMs, pigeonDefaultYawPitchRollPeriodMs);
+    }
+
+    // Devices are configured in parallel, so this is called from the configuration threads.
+    private synchronized void count(int periodMs, int defaultPeriodMs) {
+        bitsPerSecond += CANBusConstants.bitsPerFrame * 1000.0 / periodMs;
+        defaultBitsPerSecond += CANBusConstants.bitsPerFrame * 1000.0 / defaultPeriodMs;
+    }
+
+    /**
+     * Returns the share of the bus the managed frames should use at their configured periods.
+     *
+     * @return The estimated utilization, from 0.0 to 1.0.
+     */
+    public synchronized double getEstimatedUtilization() {
+        return bitsPerSecond / CANBusConstants.busBitsPerSecond;
+    }
+
+    /**
+     * Returns the share of the bus the managed frames would use at their default periods.
+     *
+     * @return The estimated utilization, from 0.0 to 1.0.
+     */
+    public synchronized double getDefaultUtilization() {
+        return defaultBitsPerSecond / CANBusConstants.busBitsPerSecond;
+    }
+
+    /**
+     * Reads the bus status every {@link CANBusConstants#statusPeriodCycles} loops. Call once per loop.
+     */
+    public void update() {
+        if(++statusCounter < CANBusConstants.statusPeriodCycles) return;
+        statusCounter = 0;
+
+        // Fills the same status in place, where RobotController.getCANStatus() would allocate a new one.
+        CANJNI.getCANStatus(status);
+
+        utilizationEntry.set(status.percentBusUtilization * 100.0);
+        estimatedUtilizationEntry.set(getEstimatedUtilization() * 100.0);
+        defaultUtilizationEntry.set(getDefaultUtilization() * 100.0);
+        txFullEntry.set(status.txFullCount);
+        busOffEntry.set(status.busOffCount);
+    }
+
+    /**
+     * Returns the bus status as of the last read.
+     *
+     * @return The bus status, which is overwritten on every read.
+     */
+    public CANStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,224 @@
+package frc.robot.can;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import com.ctre.phoenix.ErrorCode;
+import com.revrobotics.REVLibError;
+
+import frc.robot.Constants.CANBusConstants;
+
+/**
+ * The ordered settings for one CAN device, each applied and then verified by reading it back.
+ *
+ * <p>Settings are built on the main thread and applied by {@link DeviceConfigurator} on a worker thread. A setting
+ * that fails to apply or doesn't read back is retried up to {@link CANBusConstants#configAttempts} times, then
+ * recorded as failed, and the rest of the device's settings still go ahead.
+ */
+public class DeviceConfig {
+
+    /**
+     * One setting.
+     */
+    private static class Setting {
+
+        private final String name;
+        private final BooleanSupplier apply;
+        private final BooleanSupplier verify;
+
+        private Setting(String name, BooleanSupplier apply, BooleanSupplier verify) {
+            this.name = name;
+            this.apply = apply;
+            this.verify = verify;
+        }
+    }
+
+    private final String name;
+    private final DeviceHealth health;
+
+    private final ArrayList<Setting> settings = new ArrayList<Setting>();
+
+    // Written by the worker thread, read once configuration is over.
+    private final ArrayList<String> failures = new ArrayList<String>();
+    private volatile boolean isDone = false;
+    private volatile boolean isStopped = false;
+    private volatile int attemptCount = 0;
+    private volatile long durationNanos = 0;
+
+    /**
+     * Constructs a new DeviceConfig for a device whose health isn't tracked. If it doesn't finish configuring, it's
+     * reported but not tried again.
+     *
+     * @param name The name the device is reported under.
+     */
+    public DeviceConfig(String name) {
+        this(name, null);
+    }
+
+    /**
+     * Constructs a new DeviceConfig for a device whose health is tracked, so it can be marked unhealthy if it doesn't
+     * finish configuring, and configured again before it's used.
+     *
+     * @param name The name the device is reported under.
+     * @param health The device's health.
+     */
+    public DeviceConfig(String name, DeviceHealth health) {
+        this.name = name;
+        this.health = health;
+    }
+
+    /**
+     * Adds a setting made through REVLib.
+     *
+     * @param name The name of the setting.
+     * @param apply Applies the setting.
+     * @param verify Reads the setting back and returns true if it took. Null for a setting that can't be read back.
+     * @return This config, for chaining.
+     */
+    public DeviceConfig rev(String name, Supplier<REVLibError> apply, BooleanSupplier verify) {
+        return add(name, () -> apply.get() == REVLibError.kOk, verify);
+    }
+
+    /**
+     * Adds a setting made through Phoenix.
+     *
+     * @param name The name of the setting.
+     * @param apply Applies the setting.
+     * @param verify Reads the setting back and returns true if it took. Null for a setting that can't be read back.
+     * @return This config, for chaining.
+     */
+    public DeviceConfig ctre(String name, Supplier<ErrorCode> apply, BooleanSupplier verify) {
+        return add(name, () -> apply.get() == ErrorCode.OK, verify);
+    }
+
+    /**
+     * Adds a setting made through a call that doesn't report errors.
+     *
+     * @param name The name of the setting.
+     * @param apply Applies the setting.
+     * @param verify Reads the setting back and returns true if it took. Null for a setting that can't be read back.
+     * @return This config, for chaining.
+     */
+    public DeviceConfig run(String name, Runnable apply, BooleanSupplier verify) {
+        return add(name, () -> {
+            apply.run();
+            return true;
+        }, verify);
+    }
+
+    /**
+     * Returns true if a value read back from a SPARK MAX matches the one that was set. Gains and conversion factors
+     * are stored as floats on the controller, so they can't be compared to the double that was set directly.
+     *
+     * @param actual The value read back.
+     * @param expected The value that was set.
+     * @return True if they match.
+     */
+    public static boolean matches(double actual, double expected) {
+        return (float)actual == (float)expected;
+    }
+
+    private DeviceConfig add(String name, BooleanSupplier apply, BooleanSupplier verify) {
+        settings.add(new Setting(name, apply, verify));
+        return this;
+    }
+
+    /**
+     * Applies and verifies every setting in order. Called by the configurator on a worker thread. Only one
+     * application runs at a time, so a config applied again waits for one that was stopped to let go of the device.
+     */
+    synchronized void apply() {
+        long startNanos = System.nanoTime();
+        int attempts = 0;
+
+        for(Setting setting : settings) {
+            if(isStopped) return;
+
+            boolean isApplied = false;
+            for(int attempt = 0; attempt < CANBusConstants.configAttempts && !isApplied && !isStopped; attempt++) {
+                attempts++;
+                isApplied = setting.apply.getAsBoolean() && (setting.verify == null || setting.verify.getAsBoolean());
+            }
+
+            if(!isApplied) {
+                synchronized(failures) {
+                    failures.add(setting.name);
+                }
+            }
+        }
+
+        attemptCount = attempts;
+        durationNanos = System.nanoTime() - startNanos;
+        isDone = true;
+    }
+
+    /**
+     * Applies every setting again, from the first, for a device that came back after it stopped answering. Called by
+     * the configurator on a worker thread. Clears an earlier stop.
+     *
+     * @return True if every setting was applied and read back.
+     */
+    synchronized boolean reapply() {
+        isStopped = false;
+        synchronized(failures) {
+            failures.clear();
+        }
+
+        apply();
+
+        return isDone && getFailures().isEmpty();
+    }
+
+    /**
+     * Stops applying settings, for a device that didn't finish in time, and marks the device unhealthy so nothing
+     * talks to it until {@link DeviceHealthMonitor} hears from it again. The config stays with the device's health,
+     * so it's applied again from the first setting before the device is used. A setting already being applied
+     * finishes first.
+     */
+    void stop() {
+        isStopped = true;
+        if(health != null) health.markUnhealthy();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    DeviceHealth getHealth() {
+        return health;
+    }
+
+    public boolean isDone() {
+        return isDone;
+    }
+
+    public int getSettingCount() {
+        return settings.size();
+    }
+
+    /**
+     * Returns how many times settings were applied, counting retries.
+     *
+     * @return The number of attempts.
+     */
+    public int getAttemptCount() {
+        return attemptCount;
+    }
+
+    public double getDurationMillis() {
+        return durationNanos / 1e6;
+    }
+
+    /**
+     * Returns the settings that didn't take.
+     *
+     * @return The names of the failed settings.
+     */
+    public List<String> getFailures() {
+        synchronized(failures) {
+            return new ArrayList<String>(failures);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package frc.robot.can;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Constants.CANBusConstants;
+
+/**
+ * Configures CAN devices in parallel at startup.
+ *
+ * <p>Subsystems hand each device's {@link DeviceConfig} to {@link #configure} as they're constructed, and it starts
+ * right away on a worker thread, so devices configure side by side instead of one blocking call after another. A
+ * config can wait on others, like a steer encoder that is zeroed from its CANCoder. Once every subsystem is built,
+ * {@link #awaitAll()} waits for configuration to finish, up to {@link CANBusConstants#configTimeoutSeconds}, and
+ * reports how long each device took and which settings failed. A device that doesn't answer only holds up its own
+ * config. Once the timeout passes, unfinished configs are stopped, their devices are marked unhealthy, and startup
+ * moves on without them. Their configs are applied again from the start once the devices answer.
+ *
+ * <p>Workers only talk to devices. Anything a config measures, like a steer encoder's offset, comes back through the
+ * future from {@link #configure} for the main thread to apply.
+ *
+ * <p>Each config is kept with its device's {@link DeviceHealth}, so a device that stops answering, or never finished
+ * configuring, is configured again here before it's used.
+ */
+public class DeviceConfigurator {
+
+    private static DeviceConfigurator instance;
+
+    /**
+     * Returns the DeviceConfigurator instance.
+     *
+     * @return The DeviceConfigurator instance.
+     */
+    public static synchronized DeviceConfigurator getInstance() {
+        if(instance == null) instance = new DeviceConfigurator();
+        return instance;
+    }
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CANBusConstants.configThreads, runnable -> {
+        Thread thread = new Thread(runnable, "DeviceConfigurator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ArrayList<DeviceConfig> configs = new ArrayList<DeviceConfig>();
+    private final ArrayList<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+
+    private final long startNanos = System.nanoTime();
+
+    private DeviceConfigurator() {}
+
+    /**
+     * Starts applying a device's config on a worker thread.
+     *
+     * @param config The device's config.
+     * @param dependencies Configs that must finish first.
+     * @return Completes when the config has been applied.
+     */
+    @SafeVarargs
+    public final synchronized CompletableFuture<Void> configure(DeviceConfig config, CompletableFuture<Void>... dependencies) {
+        CompletableFuture<Void> future = CompletableFuture.allOf(dependencies).thenRunAsync(config::apply, executor);
+
+        if(config.getHealth() != null) config.getHealth().setConfig(config);
+
+        configs.add(config);
+        futures.add(future);
+
+        return future;
+    }
+
+    /**
+     * Applies a config again on a worker thread, for a device that came back after it stopped answering. Used by
+     * {@link DeviceHealth} before it marks the device healthy again.
+     *
+     * @param config The device's config.
+     * @return Completes with true if every setting was applied and read back.
+     */
+    CompletableFuture<Boolean> reapply(DeviceConfig config) {
+        return CompletableFuture.supplyAsync(config::reapply, executor);
+    }
+
+    /**
+     * Waits for every config started so far to finish, up to {@link CANBusConstants#configTimeoutSeconds}, and reports
+     * the results. Configs that are still running are stopped and their devices marked unhealthy.
+     *
+     * @return True if every device finished with every setting applied.
+     */
+    public synchronized boolean awaitAll() {
+        boolean isTimedOut = false;
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .get((long)(CANBusConstants.configTimeoutSeconds * 1000.0), TimeUnit.MILLISECONDS);
+        }
+        catch(TimeoutException e) {
+            isTimedOut = true;
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            isTimedOut = true;
+        }
+        catch(ExecutionException e) {
+            DriverStation.reportError("Device configuration threw " + e.getCause(), e.getCause().getStackTrace());
+        }
+
+        if(isTimedOut) stopUnfinished();
+
+        return report((System.nanoTime() - startNanos) / 1e6, isTimedOut);
+    }
+
+    /**
+     * Stops every config that hasn't finished and cancels the configs waiting on them. A stopped device is left
+     * unhealthy until it answers, then configured again by {@link DeviceHealth} before anything talks to it, so
+     * it's never used half configured.
+     */
+    private void stopUnfinished() {
+        for(int i = 0; i < configs.size(); i++) {
+            if(configs.get(i).isDone()) continue;
+
+            configs.get(i).stop();
+            futures.get(i).cancel(false);
+        }
+    }
+
+    private boolean report(double elapsedMillis, boolean isTimedOut) {
+        boolean isConfigured = !isTimedOut;
+
+        StringBuilder report = new StringBuilder(String.format(
+            "Configured %d devices in %.0f ms%s",
+            configs.size(), elapsedMillis, isTimedOut ? ", timed out waiting for some" : ""
+        ));
+
+        for(DeviceConfig config : configs) {
+            if(!config.isDone()) {
+                report.append(String.format("%n  %-28s didn't finish configuring, it may be missing", config.getName()));
+                continue;
+            }
+
+            List<String> failures = config.getFailures();
+            report.append(String.format(
+                "%n  %-28s %7.1f ms, %d settings, %d attempts%s",
+                config.getName(),
+                config.getDurationMillis(),
+                config.getSettingCount(),
+                config.getAttemptCount(),
+                failures.isEmpty() ? "" : ", failed: " + String.join(", ", failures)
+            ));
+
+            if(!failures.isEmpty()) isConfigured = false;
+        }
+
+        DriverStation.reportWarning(report.toString(), false);
+
+        return isConfigured;
+    }
+}
@@ -0,0 +1,157 @@
+package frc.robot.can;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import com.ctre.phoenix.ErrorCode;
+import com.revrobotics.REVLibError;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Constants.CANBusConstants;
+
+/**
+ * Whether one CAN device is still answering.
+ *
+ * <p>Code that reads the device reports whether each read came back with a fresh status frame. After
+ * {@link CANBusConstants#unhealthyMissedReads} misses in a row the device is marked unhealthy, and callers stop
+ * talking to it: reads keep their last good value and commands aren't sent, so a device that fell off the bus costs
+ * nothing in the loop. {@link DeviceHealthMonitor} probes unhealthy devices in the background. Once one answers, its
+ * {@link DeviceConfig} is applied again on a config worker, since a device that browned out comes back with its
+ * factory settings, and it's only marked healthy once every setting reads back.
+ */
+public class DeviceHealth {
+
+    private final String name;
+    private final BooleanSupplier probe;
+
+    // The monitor's count of unhealthy devices, kept up to date here so it can be read without a scan.
+    private final AtomicInteger unhealthyCount;
+
+    // Reads come from both the main loop and the odometry thread.
+    private final AtomicInteger missedReads = new AtomicInteger();
+    private volatile boolean isHealthy = true;
+
+    // The device's settings, put back before it's marked healthy again. Null if it has none.
+    private volatile DeviceConfig config = null;
+
+    // Set while the config is being applied again, so the next probe doesn't start it a second time.
+    private volatile boolean isRestoring = false;
+
+    DeviceHealth(String name, BooleanSupplier probe, AtomicInteger unhealthyCount) {
+        this.name = name;
+        this.probe = probe;
+        this.unhealthyCount = unhealthyCount;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns whether the device is answering. Check before talking to the device.
+     *
+     * @return True if the device is healthy.
+     */
+    public boolean isHealthy() {
+        return isHealthy;
+    }
+
+    /**
+     * Records a read from a SPARK MAX.
+     *
+     * @param error The controller's last error, right after the read.
+     * @return True if the read is good and should be used.
+     */
+    public boolean update(REVLibError error) {
+        return update(error == REVLibError.kOk);
+    }
+
+    /**
+     * Records a read from a CTRE device.
+     *
+     * @param error The device's last error, right after the read.
+     * @return True if the read is good and should be used.
+     */
+    public boolean update(ErrorCode error) {
+        return update(error == ErrorCode.OK);
+    }
+
+    /**
+     * Records a read.
+     *
+     * @param isReceived True if the read came back with a fresh status frame.
+     * @return True if the read is good and should be used.
+     */
+    public boolean update(boolean isReceived) {
+        if(isReceived) {
+            missedReads.set(0);
+            return true;
+        }
+
+        if(missedReads.incrementAndGet() >= CANBusConstants.unhealthyMissedReads) setHealthy(false);
+        return false;
+    }
+
+    /**
+     * Sets the config to apply again when the device comes back. Called by the configurator when the config is first
+     * started.
+     *
+     * @param config The device's config.
+     */
+    void setConfig(DeviceConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Probes the device if it's unhealthy, and once it answers, applies its config again before marking it healthy.
+     * Called by the monitor's background thread, since the probe waits on the bus.
+     */
+    void probe() {
+        if(isHealthy || isRestoring) return;
+
+        if(!probe.getAsBoolean()) return;
+
+        if(config == null) {
+            missedReads.set(0);
+            setHealthy(true);
+            return;
+        }
+
+        isRestoring = true;
+        DeviceConfigurator.getInstance().reapply(config).whenComplete((isApplied, error) -> {
+            if(error != null) {
+                DriverStation.reportError(name + " threw while being configured again: " + error, false);
+            }
+            else if(isApplied) {
+                missedReads.set(0);
+                setHealthy(true);
+            }
+            else {
+                DriverStation.reportWarning(
+                    name + " is answering, but its config didn't take (" + String.join(", ", config.getFailures()) +
+                    "), trying again",
+                    false
+                );
+            }
+            isRestoring = false;
+        });
+    }
+
+    /**
+     * Marks the device unhealthy without waiting for reads to miss, for a device that never finished configuring.
+     */
+    void markUnhealthy() {
+        setHealthy(false);
+    }
+
+    private synchronized void setHealthy(boolean isHealthy) {
+        if(this.isHealthy == isHealthy) return;
+        this.isHealthy = isHealthy;
+
+        if(isHealthy) unhealthyCount.decrementAndGet();
+        else unhealthyCount.incrementAndGet();
+
+        if(isHealthy) DriverStation.reportWarning(name + " is answering again", false);
+        else DriverStation.reportWarning(name + " stopped answering, holding its last readings until it's back", false);
+    }
+}
@@ -0,0 +1,114 @@
+package frc.robot.can;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.sensors.CANCoder;
+import com.ctre.phoenix.sensors.PigeonIMU;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.REVLibError;
+
+import edu.wpi.first.wpilibj.Notifier;
+import frc.robot.Constants.CANBusConstants;
+import frc.robot.logging.MatchLogger;
+
+/**
+ * Tracks the health of every CAN device and probes the unhealthy ones in the background.
+ *
+ * <p>Probing reads the device's firmware version, which waits on the bus and times out if the device is still gone.
+ * That happens on the monitor's own thread every {@link CANBusConstants#probePeriodSeconds}, so the loop never waits
+ * on a missing device. A device that answers has its config applied again on a config worker before it's marked
+ * healthy, so it's never driven with the factory settings it comes back with after a reboot.
+ */
+public class DeviceHealthMonitor {
+
+    private static DeviceHealthMonitor instance;
+
+    /**
+     * Returns the DeviceHealthMonitor instance.
+     *
+     * @return The DeviceHealthMonitor instance.
+     */
+    public static synchronized DeviceHealthMonitor getInstance() {
+        if(instance == null) instance = new DeviceHealthMonitor();
+        return instance;
+    }
+
+    // Added to on the main thread, probed on the monitor's.
+    private final CopyOnWriteArrayList<DeviceHealth> devices = new CopyOnWriteArrayList<DeviceHealth>();
+
+    // Kept by each device as it changes, so the logger can read it every loop without iterating.
+    private final AtomicInteger unhealthyCount = new AtomicInteger();
+
+    private final Notifier probeNotifier = new Notifier(this::probe);
+
+    private DeviceHealthMonitor() {
+        MatchLogger.getInstance().addDoubleDiagnostic("can/unhealthyDeviceCount", this::getUnhealthyCount);
+
+        probeNotifier.setName("DeviceHealthMonitor");
+        probeNotifier.startPeriodic(CANBusConstants.probePeriodSeconds);
+    }
+
+    /**
+     * Starts tracking a SPARK MAX.
+     *
+     * @param name The name the device is reported under.
+     * @param motor The SPARK MAX.
+     * @return The device's health, to report reads to.
+     */
+    public DeviceHealth add(String name, CANSparkMax motor) {
+        return add(new DeviceHealth(name, () -> {
+            motor.getFirmwareVersion();
+            return motor.getLastError() == REVLibError.kOk;
+        }, unhealthyCount));
+    }
+
+    /**
+     * Starts tracking a CANCoder.
+     *
+     * @param name The name the device is reported under.
+     * @param canCoder The CANCoder.
+     * @return The device's health, to report reads to.
+     */
+    public DeviceHealth add(String name, CANCoder canCoder) {
+        return add(new DeviceHealth(name, () -> {
+            canCoder.getFirmwareVersion();
+            return canCoder.getLastError() == ErrorCode.OK;
+        }, unhealthyCount));
+    }
+
+    /**
+     * Starts tracking a Pigeon.
+     *
+     * @param name The name the device is reported under.
+     * @param imu The Pigeon.
+     * @return The device's health, to report reads to.
+     */
+    public DeviceHealth add(String name, PigeonIMU imu) {
+        return add(new DeviceHealth(name, () -> {
+            imu.getFirmwareVersion();
+            return imu.getLastError() == ErrorCode.OK;
+        }, unhealthyCount));
+    }
+
+    private DeviceHealth add(DeviceHealth health) {
+        devices.add(health);
+        return health;
+    }
+
+    private void probe() {
+        for(DeviceHealth health : devices) {
+            health.probe();
+        }
+    }
+
+    /**
+     * Returns how many devices are currently unhealthy.
+     *
+     * @return The number of unhealthy devices.
+     */
+    public int getUnhealthyCount() {
+        return unhealthyCount.get();
+    }
+}
@@ -0,0 +1,54 @@
+package frc.robot.can;
+
+import frc.robot.Constants.CANBusConstants;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * What the code reads from a SPARK MAX, and so how often each of its status frames needs to be sent.
+ *
+ * <p>Status 0 carries applied output and faults, and is what followers mirror. Status 1 carries velocity, current,
+ * voltage and temperature. Status 2 carries position. Statuses 3 through 6 carry the analog sensor, alternate encoder
+ * and duty cycle encoder, none of which the robot uses.
+ */
+public enum SparkMaxRole {
+
+    /**
+     * Velocity is read each loop, and position is sampled by the odometry thread.
+     */
+    kSwerveDrive(CANBusConstants.faultFramePeriodMs, CANBusConstants.loopFramePeriodMs, DriveConstants.odometryFramePeriodMs),
+
+    /**
+     * Position is read each loop. Velocity is never read.
+     */
+    kSwerveSteer(CANBusConstants.faultFramePeriodMs, CANBusConstants.unusedFramePeriodMs, CANBusConstants.loopFramePeriodMs),
+
+    /**
+     * Followed by another SPARK MAX, and its output and position are read each loop.
+     */
+    kLeader(CANBusConstants.leaderFramePeriodMs, CANBusConstants.unusedFramePeriodMs, CANBusConstants.loopFramePeriodMs),
+
+    /**
+     * Mirrors its leader. Nothing is read from it.
+     */
+    kFollower(CANBusConstants.faultFramePeriodMs, CANBusConstants.unusedFramePeriodMs, CANBusConstants.unusedFramePeriodMs),
+
+    /**
+     * Position is read each loop. Velocity is never read.
+     */
+    kPosition(CANBusConstants.faultFramePeriodMs, CANBusConstants.unusedFramePeriodMs, CANBusConstants.loopFramePeriodMs),
+
+    /**
+     * Output and velocity are read each loop. Position is never read.
+     */
+    kVelocity(CANBusConstants.loopFramePeriodMs, CANBusConstants.loopFramePeriodMs, CANBusConstants.unusedFramePeriodMs);
+
+    public final int status0PeriodMs;
+    public final int status1PeriodMs;
+    public final int status2PeriodMs;
+
+    SparkMaxRole(int status0PeriodMs, int status1PeriodMs, int status2PeriodMs) {
+        this.status0PeriodMs = status0PeriodMs;
+        this.status1PeriodMs = status1PeriodMs;
+        this.status2PeriodMs = status2PeriodMs;
+    }
+}
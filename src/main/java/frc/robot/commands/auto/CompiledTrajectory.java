@@ -0,0 +1,209 @@
+package frc.robot.commands.auto;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * A trajectory stored as fixed-rate samples in a flat binary buffer.
+ *
+ * <p>Compiled trajectories are generated from PathPlanner paths at build time by {@link TrajectoryCompiler} and
+ * memory-mapped at runtime, so loading one does no JSON parsing or generation. Because samples are evenly spaced,
+ * sampling finds its neighbours with index arithmetic instead of a search.
+ *
+ * <p>File layout, big-endian: an int magic number, an int version, the sample period, the total time, an int
+ * sample count, the max velocity and max acceleration the path was generated with, then every sample as
+ * {@value #doublesPerSample} doubles.
+ */
+public class CompiledTrajectory {
+
+    public static final String fileExtension = ".traj";
+
+    private static final int magic = 0x54524A31; // "TRJ1"
+    private static final int version = 1;
+
+    private static final int headerBytes = 4 + 4 + 8 + 8 + 4 + 8 + 8;
+
+    // Offsets of each value within a sample.
+    private static final int x = 0;
+    private static final int y = 1;
+    private static final int heading = 2;
+    private static final int velocity = 3;
+    private static final int acceleration = 4;
+    private static final int angularVelocity = 5;
+    private static final int curvature = 6;
+    private static final int holonomicRotation = 7;
+    private static final int holonomicAngularVelocity = 8;
+    private static final int doublesPerSample = 9;
+
+    private final ByteBuffer buffer;
+
+    private final double dtSeconds;
+    public double getDtSeconds() {
+        return dtSeconds;
+    }
+
+    private final double totalTimeSeconds;
+    public double getTotalTimeSeconds() {
+        return totalTimeSeconds;
+    }
+
+    private final int sampleCount;
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    private CompiledTrajectory(ByteBuffer buffer) {
+        this.buffer = buffer;
+
+        if(buffer.getInt(0) != magic || buffer.getInt(4) != version)
+            throw new IllegalArgumentException("Not a version " + version + " compiled trajectory");
+
+        dtSeconds = buffer.getDouble(8);
+        totalTimeSeconds = buffer.getDouble(16);
+        sampleCount = buffer.getInt(24);
+    }
+
+    /**
+     * Memory-maps a compiled trajectory file.
+     *
+     * @param file The file to map.
+     * @return The compiled trajectory.
+     * @throws IOException If the file can't be read.
+     */
+    public static CompiledTrajectory map(File file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            return new CompiledTrajectory(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Compiles a generated PathPlanner trajectory in memory.
+     *
+     * @param trajectory The trajectory to compile.
+     * @param dtSeconds The time between samples.
+     * @param maxVelMetersPerSec The maximum velocity the trajectory was generated with.
+     * @param maxAccelMetersPerSecondSq The maximum acceleration the trajectory was generated with.
+     * @return The compiled trajectory.
+     */
+    public static CompiledTrajectory compile(
+        PathPlannerTrajectory trajectory, double dtSeconds, double maxVelMetersPerSec, double maxAccelMetersPerSecondSq) {
+
+        double totalTimeSeconds = trajectory.getTotalTimeSeconds();
+        int sampleCount = (int)Math.ceil(totalTimeSeconds / dtSeconds) + 1;
+
+        ByteBuffer buffer = ByteBuffer.allocate(headerBytes + sampleCount * doublesPerSample * 8);
+        buffer.putInt(magic);
+        buffer.putInt(version);
+        buffer.putDouble(dtSeconds);
+        buffer.putDouble(totalTimeSeconds);
+        buffer.putInt(sampleCount);
+        buffer.putDouble(maxVelMetersPerSec);
+        buffer.putDouble(maxAccelMetersPerSecondSq);
+
+        for(int i = 0; i < sampleCount; i++) {
+            PathPlannerState state = (PathPlannerState)trajectory.sample(Math.min(i * dtSeconds, totalTimeSeconds));
+
+            buffer.putDouble(state.poseMeters.getX());
+            buffer.putDouble(state.poseMeters.getY());
+            buffer.putDouble(state.poseMeters.getRotation().getRadians());
+            buffer.putDouble(state.velocityMetersPerSecond);
+            buffer.putDouble(state.accelerationMetersPerSecondSq);
+            buffer.putDouble(state.angularVelocityRadPerSec);
+            buffer.putDouble(state.curvatureRadPerMeter);
+            buffer.putDouble(state.holonomicRotation.getRadians());
+            buffer.putDouble(state.holonomicAngularVelocityRadPerSec);
+        }
+
+        buffer.flip();
+        return new CompiledTrajectory(buffer);
+    }
+
+    /**
+     * Writes the compiled trajectory to a file.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file can't be written.
+     */
+    public void write(File file) throws IOException {
+        try(FileChannel channel = FileChannel.open(
+            file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            ByteBuffer contents = buffer.duplicate();
+            contents.rewind();
+            while(contents.hasRemaining()) channel.write(contents);
+        }
+    }
+
+    /**
+     * Samples the trajectory, interpolating linearly between the two nearest samples.
+     * <p>Times past either end of the trajectory clamp to its first or last sample.
+     *
+     * <p>Not allocation-free: each call builds a new Pose2d and two Rotation2ds, since PathPlannerState holds them as
+     * immutable objects and the holonomic controller reads them from there. The scalar fields are filled in place.
+     *
+     * @param timeSeconds The time since the start of the trajectory.
+     * @param state The state to fill in. Its pose and rotations are replaced, since they are immutable.
+     * @return The same state, for convenience.
+     */
+    public PathPlannerState sample(double timeSeconds, PathPlannerState state) {
+        if(timeSeconds < 0.0) timeSeconds = 0.0;
+        else if(timeSeconds > totalTimeSeconds) timeSeconds = totalTimeSeconds;
+
+        double position = timeSeconds / dtSeconds;
+        int i = (int)position;
+        if(i >= sampleCount - 1) i = sampleCount - 2;
+        if(i < 0) i = 0;
+
+        double t = sampleCount > 1 ? MathUtil.clamp(position - i, 0.0, 1.0) : 0.0;
+        int j = sampleCount > 1 ? i + 1 : i;
+
+        state.timeSeconds = timeSeconds;
+        state.velocityMetersPerSecond = lerp(i, j, velocity, t);
+        state.accelerationMetersPerSecondSq = lerp(i, j, acceleration, t);
+        state.angularVelocityRadPerSec = lerp(i, j, angularVelocity, t);
+        state.curvatureRadPerMeter = lerp(i, j, curvature, t);
+        state.holonomicAngularVelocityRadPerSec = lerp(i, j, holonomicAngularVelocity, t);
+
+        state.poseMeters = new Pose2d(lerp(i, j, x, t), lerp(i, j, y, t), new Rotation2d(lerpAngle(i, j, heading, t)));
+        state.holonomicRotation = new Rotation2d(lerpAngle(i, j, holonomicRotation, t));
+
+        return state;
+    }
+
+    private double get(int sample, int offset) {
+        return buffer.getDouble(headerBytes + (sample * doublesPerSample + offset) * 8);
+    }
+
+    private double lerp(int i, int j, int offset, double t) {
+        double start = get(i, offset);
+        return start + (get(j, offset) - start) * t;
+    }
+
+    private double lerpAngle(int i, int j, int offset, double t) {
+        double start = get(i, offset);
+        return MathUtil.angleModulus(start + MathUtil.angleModulus(get(j, offset) - start) * t);
+    }
+
+    /**
+     * Returns the file name a trajectory is compiled to, so the compiler and loader agree.
+     *
+     * @param name The name of the path.
+     * @param maxVelMetersPerSec The maximum velocity the trajectory is generated with.
+     * @param maxAccelMetersPerSecondSq The maximum acceleration the trajectory is generated with.
+     * @return The file name, including the extension.
+     */
+    public static String fileName(String name, double maxVelMetersPerSec, double maxAccelMetersPerSecondSq) {
+        return name + "_" + maxVelMetersPerSec + "_" + maxAccelMetersPerSecondSq + fileExtension;
+    }
+}
@@ -1,41 +1,85 @@
 package frc.robot.commands.auto;
 
-import com.pathplanner.lib.PathPlanner;
-import com.pathplanner.lib.commands.PPSwerveControllerCommand;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import com.pathplanner.lib.controllers.PPHolonomicDriveController;
 
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.Constants.AutoConstants;
 import frc.robot.subsystems.SwerveSys;
 
-public class FollowTrajectoryCmd extends PPSwerveControllerCommand {
+/**
+ * Follows a trajectory generated from a PathPlanner path.
+ * 
+ * <p>The trajectory starts loading in the background when the command is constructed, and is only collected when
+ * the command first runs, so building an auto program doesn't load any paths on the main thread.
+ */
+public class FollowTrajectoryCmd extends CommandBase {
 
     private final SwerveSys swerveSys;
 
+    private final String trajectoryName;
+    private final double maxVelMetersPerSec;
+    private final double maxAccelMetersPerSecondSq;
+
+    private final PPHolonomicDriveController controller;
+
+    private final Timer timer = new Timer();
+
+    // Refilled on every sample rather than allocated. Its pose and rotations are still new objects each sample.
+    private final PathPlannerState state = new PathPlannerState();
+
+    private CompiledTrajectory trajectory = null;
+
     public FollowTrajectoryCmd(String trajectoryName, double maxVelMetersPerSec, double maxAccelMetersPerSecondSq, SwerveSys swerveSys) {
-        super(
-            PathPlanner.loadPath(trajectoryName, maxVelMetersPerSec, maxAccelMetersPerSecondSq),
-            swerveSys::getPose, 
-            AutoConstants.driveController, 
+        this.swerveSys = swerveSys;
+
+        this.trajectoryName = trajectoryName;
+        this.maxVelMetersPerSec = maxVelMetersPerSec;
+        this.maxAccelMetersPerSecondSq = maxAccelMetersPerSecondSq;
+
+        controller = new PPHolonomicDriveController(
+            AutoConstants.driveController,
             AutoConstants.driveController,
-            AutoConstants.rotController, 
-            swerveSys::setChassisSpeeds, 
-            swerveSys
+            AutoConstants.rotController
         );
 
-        this.swerveSys = swerveSys;
+        TrajectoryLoader.preload(trajectoryName, maxVelMetersPerSec, maxAccelMetersPerSecondSq);
+
+        addRequirements(swerveSys);
+    }
+
+    public FollowTrajectoryCmd(String trajectoryName, SwerveSys swerveSys) {
+        this(trajectoryName, AutoConstants.maxVelMetersPerSec, AutoConstants.maxAccelMetersPerSecondSq, swerveSys);
     }
 
     @Override
     public void initialize() {
-        super.initialize();
+        if(trajectory == null)
+            trajectory = TrajectoryLoader.get(trajectoryName, maxVelMetersPerSec, maxAccelMetersPerSecondSq);
+
+        timer.reset();
+        timer.start();
+    }
+
+    @Override
+    public void execute() {
+        trajectory.sample(timer.get(), state);
+
+        swerveSys.setTrajectoryTarget(trajectoryName, state.poseMeters.getX(), state.poseMeters.getY(), state.holonomicRotation.getRadians());
+
+        swerveSys.setChassisSpeeds(controller.calculate(swerveSys.getPose(), state));
     }
 
     @Override
     public void end(boolean interrupted) {
-        super.end(interrupted);
+        timer.stop();
+        swerveSys.clearTrajectoryTarget();
         swerveSys.stop();
     }
 
-    public FollowTrajectoryCmd(String trajectoryName, SwerveSys swerveSys) {
-        this(trajectoryName, AutoConstants.maxVelMetersPerSec, AutoConstants.maxAccelMetersPerSecondSq, swerveSys);
+    @Override
+    public boolean isFinished() {
+        return timer.hasElapsed(trajectory.getTotalTimeSeconds());
     }
-}
\ No newline at end of file
+}
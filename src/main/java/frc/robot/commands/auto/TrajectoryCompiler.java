@@ -0,0 +1,102 @@
+package frc.robot.commands.auto;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+
+import frc.robot.Constants.AutoConstants;
+
+/**
+ * Build-time tool that compiles PathPlanner paths into {@link CompiledTrajectory} files.
+ *
+ * <p>Every path is compiled with the default auto constraints, plus every constraint pair passed to a
+ * {@link FollowTrajectoryCmd} in the robot code, found by scanning the sources for constructor calls with literal
+ * arguments. A call site the scan can't read still works; it falls back to generating its path at runtime.
+ *
+ * <p>Run by the compileTrajectories Gradle task with the path directory, the source directory and the output directory.
+ */
+public class TrajectoryCompiler {
+
+    private static final Pattern callSite = Pattern.compile(
+        "new\\s+FollowTrajectoryCmd\\(\\s*\"([^\"]+)\"\\s*(?:,\\s*([0-9.]+)\\s*,\\s*([0-9.]+))?\\s*,");
+
+    public static void main(String[] args) throws IOException {
+        if(args.length != 3) {
+            System.err.println("Usage: TrajectoryCompiler <pathplanner dir> <source dir> <output dir>");
+            System.exit(1);
+        }
+
+        File pathDir = new File(args[0]);
+        File sourceDir = new File(args[1]);
+        File outputDir = new File(args[2]);
+
+        outputDir.mkdirs();
+
+        // Each entry is a path name with the constraints to generate it with.
+        Set<String> compiled = new LinkedHashSet<String>();
+
+        File[] pathFiles = pathDir.listFiles((dir, name) -> name.endsWith(".path"));
+        if(pathFiles == null) throw new IOException("No path directory at " + pathDir);
+        for(File pathFile : pathFiles) {
+            String name = pathFile.getName().substring(0, pathFile.getName().length() - ".path".length());
+            compile(name, AutoConstants.maxVelMetersPerSec, AutoConstants.maxAccelMetersPerSecondSq, pathDir, outputDir, compiled);
+        }
+
+        for(Path source : listSources(sourceDir)) {
+            Matcher matcher = callSite.matcher(new String(Files.readAllBytes(source), StandardCharsets.UTF_8));
+            while(matcher.find()) {
+                if(matcher.group(2) == null) continue;
+
+                compile(
+                    matcher.group(1),
+                    Double.parseDouble(matcher.group(2)),
+                    Double.parseDouble(matcher.group(3)),
+                    pathDir,
+                    outputDir,
+                    compiled
+                );
+            }
+        }
+
+        System.out.println("Compiled " + compiled.size() + " trajectories into " + outputDir);
+    }
+
+    private static List<Path> listSources(File sourceDir) throws IOException {
+        try(Stream<Path> files = Files.walk(sourceDir.toPath())) {
+            return files.filter(path -> path.toString().endsWith(".java")).collect(Collectors.toList());
+        }
+    }
+
+    private static void compile(
+        String name, double maxVelMetersPerSec, double maxAccelMetersPerSecondSq,
+        File pathDir, File outputDir, Set<String> compiled) throws IOException {
+
+        String fileName = CompiledTrajectory.fileName(name, maxVelMetersPerSec, maxAccelMetersPerSecondSq);
+        if(!compiled.add(fileName)) return;
+
+        if(!new File(pathDir, name + ".path").exists()) {
+            System.out.println("Skipping " + fileName + ", there is no path named " + name);
+            compiled.remove(fileName);
+            return;
+        }
+
+        PathPlannerTrajectory trajectory = PathPlanner.loadPath(name, maxVelMetersPerSec, maxAccelMetersPerSecondSq);
+        if(trajectory == null) throw new IOException("Failed to generate " + name);
+
+        CompiledTrajectory.compile(
+            trajectory, AutoConstants.compiledTrajectoryDtSeconds, maxVelMetersPerSec, maxAccelMetersPerSecondSq
+        ).write(new File(outputDir, fileName));
+    }
+}
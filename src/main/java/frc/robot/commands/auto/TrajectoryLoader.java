@@ -0,0 +1,100 @@
+package frc.robot.commands.auto;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Constants.AutoConstants;
+
+/**
+ * Loads trajectories on a background thread and caches them until the auto selection changes.
+ *
+ * <p>Trajectories are memory-mapped from the {@link CompiledTrajectory} files generated at build time. If a
+ * trajectory wasn't compiled, e.g. when running from the source tree in simulation, its path is generated from
+ * the JSON in deploy/pathplanner instead, which is far too slow for the main loop.
+ * Trajectories are requested with {@link #preload(String, double, double)} when an auto is built, and collected with
+ * {@link #get(String, double, double)} when it runs, which only blocks if loading hasn't finished yet.
+ */
+public final class TrajectoryLoader {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "TrajectoryLoader");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private static final ConcurrentHashMap<String, Future<CompiledTrajectory>> trajectories =
+        new ConcurrentHashMap<String, Future<CompiledTrajectory>>();
+
+    private TrajectoryLoader() {}
+
+    /**
+     * Starts loading a trajectory in the background, unless it is already loaded or loading.
+     * 
+     * @param name The name of the path file in deploy/pathplanner, without the extension.
+     * @param maxVelMetersPerSec The maximum velocity to generate the trajectory with.
+     * @param maxAccelMetersPerSecondSq The maximum acceleration to generate the trajectory with.
+     * @return The pending trajectory.
+     */
+    public static Future<CompiledTrajectory> preload(String name, double maxVelMetersPerSec, double maxAccelMetersPerSecondSq) {
+        return trajectories.computeIfAbsent(
+            CompiledTrajectory.fileName(name, maxVelMetersPerSec, maxAccelMetersPerSecondSq),
+            fileName -> executor.submit(() -> load(name, maxVelMetersPerSec, maxAccelMetersPerSecondSq))
+        );
+    }
+
+    /**
+     * Returns a trajectory, waiting for it to finish loading if needed.
+     * 
+     * @param name The name of the path file in deploy/pathplanner, without the extension.
+     * @param maxVelMetersPerSec The maximum velocity to generate the trajectory with.
+     * @param maxAccelMetersPerSecondSq The maximum acceleration to generate the trajectory with.
+     * @return The trajectory.
+     */
+    public static CompiledTrajectory get(String name, double maxVelMetersPerSec, double maxAccelMetersPerSecondSq) {
+        try {
+            return preload(name, maxVelMetersPerSec, maxAccelMetersPerSecondSq).get();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading trajectory " + name, e);
+        }
+        catch(ExecutionException e) {
+            throw new RuntimeException("Failed to load trajectory " + name, e.getCause());
+        }
+    }
+
+    /**
+     * Drops every cached trajectory, so trajectories for autos that are no longer selected can be collected.
+     * <p>Loads already in progress finish, but their results are discarded.
+     */
+    public static void clear() {
+        trajectories.clear();
+    }
+
+    private static CompiledTrajectory load(String name, double maxVelMetersPerSec, double maxAccelMetersPerSecondSq) throws Exception {
+        File compiledFile = new File(
+            new File(Filesystem.getDeployDirectory(), AutoConstants.compiledTrajectoryDir),
+            CompiledTrajectory.fileName(name, maxVelMetersPerSec, maxAccelMetersPerSecondSq)
+        );
+        if(compiledFile.exists()) return CompiledTrajectory.map(compiledFile);
+
+        DriverStation.reportWarning("No compiled trajectory " + compiledFile.getName() + ", generating it from the path", false);
+
+        PathPlannerTrajectory trajectory = PathPlanner.loadPath(name, maxVelMetersPerSec, maxAccelMetersPerSecondSq);
+        if(trajectory == null) throw new IllegalStateException("No path named " + name);
+
+        return CompiledTrajectory.compile(
+            trajectory, AutoConstants.compiledTrajectoryDtSeconds, maxVelMetersPerSec, maxAccelMetersPerSecondSq
+        );
+    }
+}
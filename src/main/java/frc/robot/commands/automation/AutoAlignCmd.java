@@ -46,10 +46,10 @@ public class AutoAlignCmd extends CommandBase {
     @Override
     public void execute() {
         double rot;
-        if(Math.abs(swerveSys.getHeading().getDegrees() - rotController.getSetpoint()) < VisionConstants.rotToleranceDeg)
+        if(Math.abs(swerveSys.getHeadingDegrees() - rotController.getSetpoint()) < VisionConstants.rotToleranceDeg)
             rot = 0.0;
         else
-            rot = rotController.calculate(swerveSys.getHeading().getDegrees());
+            rot = rotController.calculate(swerveSys.getHeadingDegrees());
 
         double strafe;
         if(!visionSys.hasTarget()) {
@@ -59,7 +59,7 @@ public class AutoAlignCmd extends CommandBase {
             strafe = 0.0;
         }
         else {
-            strafe = alignController.calculate(visionSys.targetXDegrees() - (swerveSys.getHeading().getDegrees() - 180));
+            strafe = alignController.calculate(visionSys.targetXDegrees() - (swerveSys.getHeadingDegrees() - 180));
         }
 
         if(Math.abs(strafe) > VisionConstants.maxAlignSpeedMetersPerSecond) {
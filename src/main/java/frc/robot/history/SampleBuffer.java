@@ -0,0 +1,213 @@
+package frc.robot.history;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * A fixed-size ring buffer of timestamped samples, each with the same number of channels, that can be looked up at
+ * any time between its oldest and newest sample.
+ *
+ * <p>Samples are stored in primitive arrays allocated up front, so adding and looking up never allocate. A lookup
+ * binary searches the timestamps and linearly interpolates between the samples on either side. Channels marked as
+ * angles interpolate the short way around the circle and always come back wrapped to -pi to pi.
+ *
+ * <p>Samples are added from one thread and may be looked up from others, so every method is synchronized.
+ */
+public class SampleBuffer {
+
+    private final int capacity;
+    private final int channelCount;
+
+    private final double[] timestampsSeconds;
+
+    // Indexed [channel * capacity + slot], so each channel is contiguous.
+    private final double[] values;
+
+    private final boolean[] isAngle;
+
+    // The slot of the oldest sample, and how many samples there are.
+    private int head = 0;
+    private int size = 0;
+
+    /**
+     * Constructs a new SampleBuffer.
+     *
+     * @param capacity The number of samples kept. Once full, each new sample replaces the oldest.
+     * @param channelCount The number of values in each sample.
+     */
+    public SampleBuffer(int capacity, int channelCount) {
+        this.capacity = capacity;
+        this.channelCount = channelCount;
+
+        timestampsSeconds = new double[capacity];
+        values = new double[capacity * channelCount];
+        isAngle = new boolean[channelCount];
+    }
+
+    /**
+     * Marks a channel as an angle, in radians, so it interpolates across the wrap from pi to -pi. Its values are
+     * returned wrapped to -pi to pi, whether they're interpolated or not.
+     *
+     * @param channel The channel.
+     */
+    public synchronized void setAngle(int channel) {
+        isAngle[channel] = true;
+    }
+
+    /**
+     * Adds a sample with one channel.
+     *
+     * @param timestampSeconds When the sample was taken, in FPGA seconds.
+     * @param value The sample's value.
+     */
+    public synchronized void add(double timestampSeconds, double value) {
+        int slot = claimSlot(timestampSeconds);
+        if(slot < 0) return;
+
+        values[slot] = value;
+    }
+
+    /**
+     * Adds a sample.
+     *
+     * @param timestampSeconds When the sample was taken, in FPGA seconds.
+     * @param sample The sample's values, one per channel. Copied, so it can be reused.
+     */
+    public synchronized void add(double timestampSeconds, double[] sample) {
+        int slot = claimSlot(timestampSeconds);
+        if(slot < 0) return;
+
+        for(int channel = 0; channel < channelCount; channel++) {
+            values[channel * capacity + slot] = sample[channel];
+        }
+    }
+
+    /**
+     * Claims the slot for a new sample, replacing the oldest if the buffer is full.
+     *
+     * @return The slot, or -1 if the sample is older than the newest one and should be dropped.
+     */
+    private int claimSlot(double timestampSeconds) {
+        if(size > 0 && timestampSeconds < timestampsSeconds[slotOf(size - 1)]) return -1;
+
+        int slot;
+        if(size < capacity) {
+            slot = slotOf(size);
+            size++;
+        }
+        else {
+            slot = head;
+            head = (head + 1) % capacity;
+        }
+
+        timestampsSeconds[slot] = timestampSeconds;
+        return slot;
+    }
+
+    /**
+     * Returns a channel's value at a time, interpolated between the samples on either side. Times outside the
+     * buffer return the oldest or newest value.
+     *
+     * @param channel The channel.
+     * @param timestampSeconds The time, in FPGA seconds.
+     * @return The value, or NaN if the buffer is empty.
+     */
+    public synchronized double get(int channel, double timestampSeconds) {
+        if(size == 0) return Double.NaN;
+
+        return interpolate(channel, search(timestampSeconds), timestampSeconds);
+    }
+
+    /**
+     * Fills every channel's value at a time, interpolated like {@link #get(int, double)}. The channels are read under
+     * one lock, so they all come from the same samples even while another thread adds more.
+     *
+     * @param timestampSeconds The time, in FPGA seconds.
+     * @param sample Filled with the values, one per channel.
+     * @return False if the buffer is empty, in which case the sample is left as it was.
+     */
+    public synchronized boolean get(double timestampSeconds, double[] sample) {
+        if(size == 0) return false;
+
+        int after = search(timestampSeconds);
+        for(int channel = 0; channel < channelCount; channel++) {
+            sample[channel] = interpolate(channel, after, timestampSeconds);
+        }
+        return true;
+    }
+
+    /**
+     * Interpolates a channel between the sample before a time and the first sample at or after it.
+     */
+    private double interpolate(int channel, int after, double timestampSeconds) {
+        int offset = channel * capacity;
+
+        if(after == 0) return wrap(channel, values[offset + slotOf(0)]);
+        if(after == size) return wrap(channel, values[offset + slotOf(size - 1)]);
+
+        int beforeSlot = slotOf(after - 1);
+        int afterSlot = slotOf(after);
+
+        double beforeTime = timestampsSeconds[beforeSlot];
+        double span = timestampsSeconds[afterSlot] - beforeTime;
+        double t = span > 0.0 ? (timestampSeconds - beforeTime) / span : 1.0;
+
+        double before = values[offset + beforeSlot];
+        double delta = values[offset + afterSlot] - before;
+        if(isAngle[channel]) return MathUtil.angleModulus(before + MathUtil.angleModulus(delta) * t);
+        return before + delta * t;
+    }
+
+    private double wrap(int channel, double value) {
+        return isAngle[channel] ? MathUtil.angleModulus(value) : value;
+    }
+
+    /**
+     * Finds the first sample at or after a time.
+     *
+     * @return The sample's index, oldest first, or size if every sample is before the time.
+     */
+    private int search(double timestampSeconds) {
+        int low = 0;
+        int high = size;
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+            if(timestampsSeconds[slotOf(mid)] < timestampSeconds) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private int slotOf(int index) {
+        return (head + index) % capacity;
+    }
+
+    /**
+     * Removes every sample, for when the state jumps and the old samples no longer line up with the new ones.
+     */
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns when the oldest sample was taken.
+     *
+     * @return The oldest timestamp, in FPGA seconds, or NaN if the buffer is empty.
+     */
+    public synchronized double getOldestTimestampSeconds() {
+        return size > 0 ? timestampsSeconds[slotOf(0)] : Double.NaN;
+    }
+
+    /**
+     * Returns when the newest sample was taken.
+     *
+     * @return The newest timestamp, in FPGA seconds, or NaN if the buffer is empty.
+     */
+    public synchronized double getNewestTimestampSeconds() {
+        return size > 0 ? timestampsSeconds[slotOf(size - 1)] : Double.NaN;
+    }
+}
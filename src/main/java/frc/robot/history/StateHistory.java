@@ -0,0 +1,205 @@
+package frc.robot.history;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.TimedRobot;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.HistoryConstants;
+
+/**
+ * Where the robot and its mechanisms were over the last {@link HistoryConstants#historySeconds}, for anything that
+ * needs to know the state at a past time, like {@link frc.robot.subsystems.VisionSys} bringing a delayed camera target
+ * up to date by how far the robot has turned since the frame was captured.
+ *
+ * <p>Subsystems record their state once the loop's inputs are final, and any consumer can look it up at an FPGA
+ * timestamp. Lookups interpolate between samples in O(log n) without allocating, except {@link #getPose(double)},
+ * which returns a new pose for convenience.
+ *
+ * <p>The pose is recorded as the estimator had it at each odometry sample. A vision measurement corrects the samples
+ * after it is fused, but not the ones already recorded between the frame's capture and its arrival, so over that
+ * window the history is the odometry the estimator was running on, not its corrected estimate.
+ */
+public class StateHistory {
+
+    private static StateHistory instance;
+
+    /**
+     * Returns the StateHistory instance.
+     *
+     * @return The StateHistory instance.
+     */
+    public static synchronized StateHistory getInstance() {
+        if(instance == null) instance = new StateHistory();
+        return instance;
+    }
+
+    private static final int poseX = 0;
+    private static final int poseY = 1;
+    private static final int poseHeading = 2;
+
+    private static final int intakePosition = 0;
+    private static final int rollerVelocity = 1;
+
+    // The drivetrain is sampled by the odometry thread, the mechanisms by the main loop.
+    private static final int odometryCapacity = (int)Math.ceil(HistoryConstants.historySeconds / DriveConstants.odometryPeriodSeconds);
+    private static final int loopCapacity = (int)Math.ceil(HistoryConstants.historySeconds / TimedRobot.kDefaultPeriod);
+
+    private final SampleBuffer poseHistory = new SampleBuffer(odometryCapacity, 3);
+
+    // Each module's distance, then its angle.
+    private final SampleBuffer moduleHistory = new SampleBuffer(odometryCapacity, 8);
+
+    private final SampleBuffer liftHistory = new SampleBuffer(loopCapacity, 1);
+    private final SampleBuffer intakeHistory = new SampleBuffer(loopCapacity, 2);
+
+    // Reused to record each sample. Each record method is only called from one thread at a time.
+    private final double[] poseSample = new double[3];
+    private final double[] moduleSample = new double[8];
+    private final double[] intakeSample = new double[2];
+
+    private StateHistory() {
+        poseHistory.setAngle(poseHeading);
+        for(int i = 0; i < 4; i++) {
+            moduleHistory.setAngle(4 + i);
+        }
+    }
+
+    /**
+     * Records the estimated pose. Called by the odometry thread, or by the main loop in a replay.
+     *
+     * @param timestampSeconds When the pose was estimated, in FPGA seconds.
+     * @param xMeters The estimated x position.
+     * @param yMeters The estimated y position.
+     * @param headingRadians The estimated heading.
+     */
+    public void recordPose(double timestampSeconds, double xMeters, double yMeters, double headingRadians) {
+        poseSample[poseX] = xMeters;
+        poseSample[poseY] = yMeters;
+        poseSample[poseHeading] = headingRadians;
+        poseHistory.add(timestampSeconds, poseSample);
+    }
+
+    /**
+     * Records the module positions. Called by the odometry thread, or by the main loop in a replay.
+     *
+     * @param timestampSeconds When the modules were read, in FPGA seconds.
+     * @param distancesMeters The drive distances of the four modules.
+     * @param anglesRadians The angles of the four modules.
+     */
+    public void recordModulePositions(double timestampSeconds, double[] distancesMeters, double[] anglesRadians) {
+        for(int i = 0; i < 4; i++) {
+            moduleSample[i] = distancesMeters[i];
+            moduleSample[4 + i] = anglesRadians[i];
+        }
+        moduleHistory.add(timestampSeconds, moduleSample);
+    }
+
+    /**
+     * Records the lift's height. Called by the main loop once the loop's inputs are final.
+     *
+     * @param timestampSeconds When the lift was read, in FPGA seconds.
+     * @param positionInches The lift's height, in inches.
+     */
+    public void recordLift(double timestampSeconds, double positionInches) {
+        liftHistory.add(timestampSeconds, positionInches);
+    }
+
+    /**
+     * Records the intake's position and roller speed. Called by the main loop once the loop's inputs are final.
+     *
+     * @param timestampSeconds When the intake was read, in FPGA seconds.
+     * @param positionInches The intake's position, in inches.
+     * @param rollerVelocityRPM The rollers' speed, in RPM.
+     */
+    public void recordIntake(double timestampSeconds, double positionInches, double rollerVelocityRPM) {
+        intakeSample[intakePosition] = positionInches;
+        intakeSample[rollerVelocity] = rollerVelocityRPM;
+        intakeHistory.add(timestampSeconds, intakeSample);
+    }
+
+    /**
+     * Forgets the drivetrain's history, for when the pose or module distances are reset and would otherwise be
+     * interpolated across the jump.
+     */
+    public void clearDrivetrain() {
+        poseHistory.clear();
+        moduleHistory.clear();
+    }
+
+    // Each coordinate is looked up on its own. getPose() reads all three from the same samples.
+    public double getPoseXMeters(double timestampSeconds) {
+        return poseHistory.get(poseX, timestampSeconds);
+    }
+
+    public double getPoseYMeters(double timestampSeconds) {
+        return poseHistory.get(poseY, timestampSeconds);
+    }
+
+    public double getPoseHeadingRadians(double timestampSeconds) {
+        return poseHistory.get(poseHeading, timestampSeconds);
+    }
+
+    /**
+     * Returns the estimated pose at a time, looked up in one step so the odometry thread can't add a sample partway
+     * through.
+     *
+     * @param timestampSeconds The time, in FPGA seconds.
+     * @return The pose, or null if no pose has been recorded.
+     */
+    public Pose2d getPose(double timestampSeconds) {
+        double[] pose = new double[3];
+        if(!poseHistory.get(timestampSeconds, pose)) return null;
+
+        return new Pose2d(pose[poseX], pose[poseY], new Rotation2d(pose[poseHeading]));
+    }
+
+    /**
+     * Returns a module's drive distance at a time.
+     *
+     * @param module The module's index, in the order SwerveSys passes them to the kinematics.
+     * @param timestampSeconds The time, in FPGA seconds.
+     * @return The distance, in meters.
+     */
+    public double getModuleDistanceMeters(int module, double timestampSeconds) {
+        return moduleHistory.get(module, timestampSeconds);
+    }
+
+    /**
+     * Returns a module's angle at a time.
+     *
+     * @param module The module's index, in the order SwerveSys passes them to the kinematics.
+     * @param timestampSeconds The time, in FPGA seconds.
+     * @return The angle, in radians.
+     */
+    public double getModuleAngleRadians(int module, double timestampSeconds) {
+        return moduleHistory.get(4 + module, timestampSeconds);
+    }
+
+    public double getLiftPositionInches(double timestampSeconds) {
+        return liftHistory.get(0, timestampSeconds);
+    }
+
+    public double getIntakePositionInches(double timestampSeconds) {
+        return intakeHistory.get(intakePosition, timestampSeconds);
+    }
+
+    public double getRollerVelocityRPM(double timestampSeconds) {
+        return intakeHistory.get(rollerVelocity, timestampSeconds);
+    }
+
+    public SampleBuffer getPoseHistory() {
+        return poseHistory;
+    }
+
+    public SampleBuffer getModuleHistory() {
+        return moduleHistory;
+    }
+
+    public SampleBuffer getLiftHistory() {
+        return liftHistory;
+    }
+
+    public SampleBuffer getIntakeHistory() {
+        return intakeHistory;
+    }
+}
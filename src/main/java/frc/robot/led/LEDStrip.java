@@ -1,5 +1,6 @@
 package frc.robot.led;
 
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
 import edu.wpi.first.wpilibj.util.Color;
 import frc.robot.led.animations.AnimationDirection;
 import frc.robot.led.animations.SetSolid;
@@ -7,24 +8,33 @@ import frc.robot.led.animations.base.BrightnessAnimation;
 import frc.robot.led.animations.base.ColorAnimation;
 import frc.robot.led.animations.base.CombinedAnimation;
 
+/**
+ * A section of an addressable LED chain, drawn as separate color and brightness layers.
+ *
+ * <p>Colors are stored packed as 0xRRGGBB (see {@link PackedColor}) and brightnesses as primitives, so drawing
+ * never allocates. Setters only mark the strip dirty, and the layers are combined into the output frame once per
+ * loop by {@link #writeTo(AddressableLEDBuffer, int)}.
+ */
 public class LEDStrip {
 
-    private final Color[] buffer;
-    public Color[] getStates() {
-        return buffer;
-    }
-    public Color getState(int index) {
-        return buffer[index];
-    }
+    // The composed output, packed as 0xRRGGBB.
+    private final int[] frame;
 
-    private final Color[] colorStates;
+    private final int[] colorStates;
     private final double[] brightnessStates;
 
+    // Whether the color or brightness layers have changed since the frame was last composed.
+    private boolean isDirty = true;
+
+    // Whether the frame has changed since it was last written to an AddressableLEDBuffer.
+    private boolean isFrameChanged = true;
+
     private double dimness = 1.0;
     public double getDimness() {
         return dimness;
     }
     public void setDimness(double dimness) {
+        if(this.dimness != dimness) isDirty = true;
         this.dimness = dimness;
     }
 
@@ -36,15 +46,16 @@ public class LEDStrip {
         return isEnabled;
     }
     public void setEnabled(boolean isEnabled) {
+        if(this.isEnabled != isEnabled) isDirty = true;
         this.isEnabled = isEnabled;
     }
     
     public LEDStrip(int length) {
-        buffer = new Color[length];
+        frame = new int[length];
 
-        colorStates = new Color[length];
+        colorStates = new int[length];
         for(int i = 0; i < colorStates.length; i++) {
-            colorStates[i] = Color.kBlack;
+            colorStates[i] = PackedColor.kBlack;
         }
 
         brightnessStates = new double[length];
@@ -101,61 +112,107 @@ public class LEDStrip {
         setAnimation(defaultAnimation);
     }
 
-    public Color getPixel(int index) {
-        return buffer[index];
+    /**
+     * Returns the composed color of a pixel as of the last compose.
+     * 
+     * @param index The index of the pixel.
+     * @return The packed color of the pixel.
+     */
+    public int getPixel(int index) {
+        return frame[index];
     }
 
+    /**
+     * Combines the color and brightness layers into the output frame, if either has changed.
+     */
     public void update() {
-        if(!isEnabled) {
-            for(int i = 0; i < buffer.length; i++) {
-                buffer[i] = Color.kBlack;
+        if(!isDirty) return;
+        isDirty = false;
+
+        for(int i = 0; i < frame.length; i++) {
+            int pixel;
+            if(!isEnabled) {
+                pixel = PackedColor.kBlack;
             }
-        }
-        else {
-            // Combine color and brightness arrays into buffer and write it to the LEDs
-            for(int i = 0; i < buffer.length; i++) {
-                buffer[i] = new Color(
-                    (colorStates[i].red * brightnessStates[i] * dimness),
-                    (colorStates[i].green * brightnessStates[i] * dimness),
-                    (colorStates[i].blue * brightnessStates[i] * dimness)
+            else {
+                int color = colorStates[i];
+                double scale = brightnessStates[i] * dimness;
+                pixel = PackedColor.pack(
+                    (int)(PackedColor.red(color) * scale),
+                    (int)(PackedColor.green(color) * scale),
+                    (int)(PackedColor.blue(color) * scale)
                 );
             }
+
+            if(frame[i] != pixel) {
+                frame[i] = pixel;
+                isFrameChanged = true;
+            }
         }
     }
 
-    public Color getColorState(int index) {
+    /**
+     * Composes the strip and copies it into part of an AddressableLEDBuffer.
+     * 
+     * @param buffer The buffer for the whole LED chain.
+     * @param startIndex The index in the buffer of the strip's first pixel.
+     * @return True if the strip's pixels changed since it was last written, so the buffer needs to be sent.
+     */
+    public boolean writeTo(AddressableLEDBuffer buffer, int startIndex) {
+        update();
+
+        if(!isFrameChanged) return false;
+        isFrameChanged = false;
+
+        for(int i = 0; i < frame.length; i++) {
+            int pixel = frame[i];
+            buffer.setRGB(startIndex + i, PackedColor.red(pixel), PackedColor.green(pixel), PackedColor.blue(pixel));
+        }
+        return true;
+    }
+
+    public int getColorState(int index) {
         return colorStates[index];
     }
 
     public void setColor(Color color) {
+        setColor(PackedColor.fromColor(color));
+    }
+
+    public void setColor(int color) {
         // Set LEDs to solid color
-        for(int i = 0; i < buffer.length; i++) {
-            colorStates[i] = color;
+        for(int i = 0; i < colorStates.length; i++) {
+            setColor(color, i);
         }
-        update();
     }
 
     public void setColor(Color color, int index) {
+        setColor(PackedColor.fromColor(color), index);
+    }
+
+    public void setColor(int color, int index) {
         // Set color of specific LED
-        colorStates[index] = color;
-        update();
+        if(colorStates[index] != color) {
+            colorStates[index] = color;
+            isDirty = true;
+        }
     }
 
     public void translateColors(Color color, AnimationDirection direction) {
+        translateColors(PackedColor.fromColor(color), direction);
+    }
+
+    public void translateColors(int color, AnimationDirection direction) {
         // Translate colors array and set the "empty" pixel to the new color
         if(direction.equals(AnimationDirection.kForward)) {
-            for(int i = buffer.length - 1; i >= 1; i--) {
-                colorStates[i] = colorStates[i - 1];
-            }
+            System.arraycopy(colorStates, 0, colorStates, 1, colorStates.length - 1);
             colorStates[0] = color;
         }
         else {
-            for(int i = 0; i < buffer.length - 1; i++) {
-                colorStates[i] = colorStates[i + 1];
-            }
-            colorStates[buffer.length - 1] = color;
+            System.arraycopy(colorStates, 1, colorStates, 0, colorStates.length - 1);
+            colorStates[colorStates.length - 1] = color;
         }
-        update();
+        isDirty = true;
     }
 
     public double getBrightnessState(int index) {
@@ -163,38 +220,33 @@ public class LEDStrip {
     }
 
     public void setBrightness(double brightness) {
-        if(brightness > 1.0) brightness = 1.0;
-        else if(brightness < 0.0) brightness = 0.0;
         // Set LEDs to solid brightness
-        for(int i = 0; i < buffer.length; i++) {
-            brightnessStates[i] = brightness;
+        for(int i = 0; i < brightnessStates.length; i++) {
+            setBrightness(brightness, i);
         }
-        update();
     }
 
     public void setBrightness(double brightness, int index) {
         if(brightness > 1.0) brightness = 1.0;
         else if(brightness < 0.0) brightness = 0.0;
         // Set brightness of specific LED
-        brightnessStates[index] = brightness;
-        update();
+        if(brightnessStates[index] != brightness) {
+            brightnessStates[index] = brightness;
+            isDirty = true;
+        }
     }
 
     public void translateBrightnesses(double brightness, AnimationDirection direction) {
         // Translate brightnesses array and set the "empty" pixel to the new brightness
         if(direction.equals(AnimationDirection.kForward)) {
-            for(int i = buffer.length - 1; i >= 1; i--) {
-                brightnessStates[i] = brightnessStates[i - 1];
-            }
+            System.arraycopy(brightnessStates, 0, brightnessStates, 1, brightnessStates.length - 1);
             brightnessStates[0] = brightness;
         }
         else {
-            for(int i = 0; i < buffer.length - 1; i++) {
-                brightnessStates[i] = brightnessStates[i + 1];
-            }
-            brightnessStates[buffer.length - 1] = brightness;
+            System.arraycopy(brightnessStates, 1, brightnessStates, 0, brightnessStates.length - 1);
+            brightnessStates[brightnessStates.length - 1] = brightness;
         }
-        update();
+        isDirty = true;
     }
 
 }
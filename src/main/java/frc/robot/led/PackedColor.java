@@ -0,0 +1,89 @@
+package frc.robot.led;
+
+import edu.wpi.first.wpilibj.util.Color;
+
+/**
+ * Helpers for colors packed into a single int as 0xRRGGBB, with 8 bits per channel.
+ *
+ * <p>Packed colors let the LED code draw every frame without allocating a {@link Color} per pixel.
+ */
+public final class PackedColor {
+
+    public static final int kBlack = 0x000000;
+
+    private PackedColor() {}
+
+    /**
+     * Packs 8-bit channels into a single color.
+     *
+     * @param red The red channel, from 0 to 255.
+     * @param green The green channel, from 0 to 255.
+     * @param blue The blue channel, from 0 to 255.
+     * @return The packed color.
+     */
+    public static int pack(int red, int green, int blue) {
+        return ((red & 0xFF) << 16) | ((green & 0xFF) << 8) | (blue & 0xFF);
+    }
+
+    /**
+     * Packs a WPILib color, rounding each channel the same way AddressableLEDBuffer does.
+     *
+     * @param color The color to pack.
+     * @return The packed color.
+     */
+    public static int fromColor(Color color) {
+        return pack((int)(color.red * 255), (int)(color.green * 255), (int)(color.blue * 255));
+    }
+
+    /**
+     * Packs a color given in HSV, matching {@link Color#fromHSV(int, int, int)} without allocating.
+     *
+     * @param h The hue, from 0 to 180.
+     * @param s The saturation, from 0 to 255.
+     * @param v The value, from 0 to 255.
+     * @return The packed color.
+     */
+    public static int fromHSV(int h, int s, int v) {
+        // Difference between highest and lowest value of any rgb component
+        int chroma = (s * v) / 255;
+
+        // Because hue is 0-180 rather than 0-360 use 30 not 60
+        int region = (h / 30) % 6;
+
+        // Remainder converted from 0-30 to 0-255
+        int remainder = (int)Math.round((h % 30) * (255 / 30.0));
+
+        // Value of the lowest rgb component
+        int m = v - chroma;
+
+        // Goes from 0 to chroma as hue increases
+        int x = (chroma * remainder) >> 8;
+
+        switch(region) {
+            case 0:
+                return pack(v, x + m, m);
+            case 1:
+                return pack(v - x, v, m);
+            case 2:
+                return pack(m, v, x + m);
+            case 3:
+                return pack(m, v - x, v);
+            case 4:
+                return pack(x + m, m, v);
+            default:
+                return pack(v, m, v - x);
+        }
+    }
+
+    public static int red(int color) {
+        return (color >> 16) & 0xFF;
+    }
+
+    public static int green(int color) {
+        return (color >> 8) & 0xFF;
+    }
+
+    public static int blue(int color) {
+        return color & 0xFF;
+    }
+}
@@ -0,0 +1,130 @@
+package frc.robot.logging;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The layout of a match log, shared by the writer and anything that reads logs back.
+ *
+ * <p>A log starts with a header: an int magic number, an int version, a varint channel count, then each channel as
+ * a kind byte and a string name. Inputs are replayed, outputs are checked by a replay, and diagnostics, like loop
+ * timings, are only recorded. The rest of the file is records, each starting with a tag byte:
+ * <ul>
+ * <li>{@link #frameTag}: one loop. A varint of microseconds from the previous loop's start to this one's, a
+ * bitmask with one bit per channel set if the channel changed, every changed value, then a varint event count and
+ * the events.</li>
+ * <li>{@link #commandNameTag}: a varint command id and its string name, written before the id is first used.</li>
+ * <li>{@link #droppedTag}: a varint count of frames dropped because the writer fell behind.</li>
+ * </ul>
+ *
+ * <p>A changed value is stored as the XOR of its bits with the channel's previous bits, shifted right past its
+ * trailing zeros: a byte with the shift, then the shifted XOR as a varint. Values that move by round amounts, like
+ * targets and booleans, take two or three bytes, and unchanged values take one bit.
+ *
+ * <p>Strings are a varint byte length followed by UTF-8 bytes. Varints are unsigned LEB128.
+ */
+public final class LogFormat {
+
+    public static final int magic = 0x524C4F47; // "RLOG"
+    public static final int version = 2;
+
+    public static final String fileExtension = ".rlog";
+
+    public static final byte inputChannel = 0;
+    public static final byte outputChannel = 1;
+    public static final byte diagnosticChannel = 2;
+
+    public static final byte frameTag = 0;
+    public static final byte commandNameTag = 1;
+    public static final byte droppedTag = 2;
+
+    // Events pack a command id with what happened to it.
+    public static final int commandStarted = 0;
+    public static final int commandFinished = 1;
+    public static final int commandInterrupted = 2;
+    private static final int eventTypeBits = 2;
+
+    /**
+     * The most bytes a varint can take.
+     */
+    public static final int maxVarLongBytes = 10;
+
+    private LogFormat() {}
+
+    public static int event(int commandId, int type) {
+        return (commandId << eventTypeBits) | type;
+    }
+
+    public static int eventCommandId(int event) {
+        return event >>> eventTypeBits;
+    }
+
+    public static int eventType(int event) {
+        return event & ((1 << eventTypeBits) - 1);
+    }
+
+    /**
+     * Returns the number of bytes in the changed-channel bitmask of each frame.
+     *
+     * @param channelCount The number of channels in the log.
+     * @return The number of bytes in the bitmask.
+     */
+    public static int bitmaskBytes(int channelCount) {
+        return (channelCount + 7) / 8;
+    }
+
+    public static void putVarLong(ByteBuffer buffer, long value) {
+        while((value & ~0x7FL) != 0) {
+            buffer.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte)value);
+    }
+
+    public static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long)(b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Writes a changed value as its shifted XOR with the channel's previous bits.
+     *
+     * @param buffer The buffer to write to.
+     * @param xorBits The XOR of the new and previous bits. Must not be zero.
+     */
+    public static void putXor(ByteBuffer buffer, long xorBits) {
+        int shift = Long.numberOfTrailingZeros(xorBits);
+        buffer.put((byte)shift);
+        putVarLong(buffer, xorBits >>> shift);
+    }
+
+    /**
+     * Reads a changed value written by {@link #putXor(ByteBuffer, long)}.
+     *
+     * @param buffer The buffer to read from.
+     * @return The XOR of the new and previous bits.
+     */
+    public static long getXor(ByteBuffer buffer) {
+        int shift = buffer.get();
+        return getVarLong(buffer) << shift;
+    }
+
+    public static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarLong(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    public static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[(int)getVarLong(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
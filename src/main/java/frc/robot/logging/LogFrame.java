@@ -0,0 +1,24 @@
+package frc.robot.logging;
+
+/**
+ * One loop's worth of logged values. Frames are allocated once with the ring and reused.
+ */
+class LogFrame {
+
+    long timestampMicros;
+
+    final double[] values;
+
+    final int[] events;
+    int eventCount;
+
+    /**
+     * The number of frames dropped since the last frame the writer received.
+     */
+    int droppedBefore;
+
+    LogFrame(int channelCount, int maxEvents) {
+        values = new double[channelCount];
+        events = new int[maxEvents];
+    }
+}
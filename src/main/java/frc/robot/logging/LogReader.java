@@ -0,0 +1,240 @@
+package frc.robot.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Reads a match log back one frame at a time.
+ *
+ * <p>The file is memory-mapped and decoded in place. {@link #next()} moves to the next frame, after which the
+ * getters describe that frame. Values are kept per channel, so a channel that didn't change in a frame still
+ * reports its current value.
+ *
+ * <p>A log cut short by a power loss ends at its last complete frame, and {@link #isTruncated()} reports it.
+ */
+public class LogReader {
+
+    private final ByteBuffer buffer;
+
+    private final String[] channelNames;
+    private final byte[] channelKinds;
+
+    private final long[] valueBits;
+    private final long[] scratchBits;
+
+    private final ArrayList<String> commandNames = new ArrayList<String>();
+
+    private int[] events = new int[16];
+    private int eventCount = 0;
+
+    private long timestampMicros = 0;
+    public long getTimestampMicros() {
+        return timestampMicros;
+    }
+
+    private int frameCount = 0;
+    /**
+     * Returns the number of frames read so far.
+     *
+     * @return The number of frames read.
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    private int droppedBefore = 0;
+    /**
+     * Returns the number of frames the robot dropped right before the current one.
+     *
+     * @return The number of dropped frames.
+     */
+    public int getDroppedBefore() {
+        return droppedBefore;
+    }
+
+    private boolean isTruncated = false;
+    public boolean isTruncated() {
+        return isTruncated;
+    }
+
+    /**
+     * Constructs a new LogReader over a log already in memory.
+     *
+     * @param buffer The log's bytes, from the start of the header.
+     * @throws IOException If the buffer doesn't hold a log this reader understands.
+     */
+    public LogReader(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        try {
+            if(buffer.getInt() != LogFormat.magic) throw new IOException("Not a match log");
+            int version = buffer.getInt();
+            if(version != LogFormat.version) throw new IOException("Unsupported log version " + version);
+
+            int channelCount = (int)LogFormat.getVarLong(buffer);
+            channelNames = new String[channelCount];
+            channelKinds = new byte[channelCount];
+            for(int i = 0; i < channelCount; i++) {
+                channelKinds[i] = buffer.get();
+                channelNames[i] = LogFormat.getString(buffer);
+            }
+        }
+        catch(BufferUnderflowException e) {
+            throw new IOException("Log header is incomplete");
+        }
+
+        valueBits = new long[channelNames.length];
+        scratchBits = new long[channelNames.length];
+    }
+
+    /**
+     * Memory-maps a log file.
+     *
+     * @param file The log to read.
+     * @return A reader positioned before the first frame.
+     * @throws IOException If the file can't be read or isn't a match log.
+     */
+    public static LogReader open(File file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            return new LogReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Moves to the next frame.
+     *
+     * @return True if there was another frame, false at the end of the log.
+     */
+    public boolean next() {
+        droppedBefore = 0;
+
+        while(buffer.hasRemaining()) {
+            int start = buffer.position();
+            try {
+                byte tag = buffer.get();
+
+                if(tag == LogFormat.frameTag) {
+                    readFrame();
+                    frameCount++;
+                    return true;
+                }
+                else if(tag == LogFormat.commandNameTag) {
+                    int id = (int)LogFormat.getVarLong(buffer);
+                    String name = LogFormat.getString(buffer);
+                    while(commandNames.size() <= id) commandNames.add(null);
+                    commandNames.set(id, name);
+                }
+                else if(tag == LogFormat.droppedTag) {
+                    droppedBefore += (int)LogFormat.getVarLong(buffer);
+                }
+                else {
+                    isTruncated = true;
+                    return false;
+                }
+            }
+            catch(BufferUnderflowException e) {
+                // The robot lost power partway through writing this record.
+                buffer.position(start);
+                isTruncated = true;
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void readFrame() {
+        // Decode into a copy first, so a frame cut short leaves the previous frame's values intact.
+        long timestamp = timestampMicros + LogFormat.getVarLong(buffer);
+
+        int bitmaskPosition = buffer.position();
+        buffer.position(bitmaskPosition + LogFormat.bitmaskBytes(valueBits.length));
+
+        int channelCount = valueBits.length;
+        System.arraycopy(valueBits, 0, scratchBits, 0, channelCount);
+        for(int i = 0; i < channelCount; i++) {
+            if((buffer.get(bitmaskPosition + (i >> 3)) & (1 << (i & 7))) != 0) {
+                scratchBits[i] ^= LogFormat.getXor(buffer);
+            }
+        }
+
+        int count = (int)LogFormat.getVarLong(buffer);
+        if(count > events.length) events = new int[count];
+        for(int i = 0; i < count; i++) {
+            events[i] = (int)LogFormat.getVarLong(buffer);
+        }
+
+        System.arraycopy(scratchBits, 0, valueBits, 0, channelCount);
+        eventCount = count;
+        timestampMicros = timestamp;
+    }
+
+    public int getChannelCount() {
+        return channelNames.length;
+    }
+
+    public String getChannelName(int channel) {
+        return channelNames[channel];
+    }
+
+    public boolean isInput(int channel) {
+        return channelKinds[channel] == LogFormat.inputChannel;
+    }
+
+    public boolean isDiagnostic(int channel) {
+        return channelKinds[channel] == LogFormat.diagnosticChannel;
+    }
+
+    /**
+     * Finds a channel by name.
+     *
+     * @param name The name of the channel.
+     * @return The index of the channel, or -1 if the log doesn't have it.
+     */
+    public int indexOf(String name) {
+        for(int i = 0; i < channelNames.length; i++) {
+            if(channelNames[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a channel's value as of the current frame.
+     *
+     * @param channel The index of the channel.
+     * @return The value.
+     */
+    public double getValue(int channel) {
+        return Double.longBitsToDouble(valueBits[channel]);
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Returns an event from the current frame. Use {@link LogFormat#eventCommandId(int)} and
+     * {@link LogFormat#eventType(int)} to unpack it.
+     *
+     * @param index The index of the event within the frame.
+     * @return The packed event.
+     */
+    public int getEvent(int index) {
+        return events[index];
+    }
+
+    /**
+     * Returns the name of a command seen in the log.
+     *
+     * @param id The id of the command, from an event.
+     * @return The name of the command.
+     */
+    public String getCommandName(int id) {
+        return commandNames.get(id);
+    }
+}
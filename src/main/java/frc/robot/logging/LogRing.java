@@ -0,0 +1,75 @@
+package frc.robot.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size ring of preallocated frames, handed from one producer thread to one consumer thread without locks.
+ *
+ * <p>The producer claims the next free frame, fills it, and publishes it. The consumer peeks the oldest published
+ * frame, reads it, and releases it. Neither side ever waits: a full ring makes {@link #claim()} return null, and an
+ * empty ring makes {@link #peek()} return null.
+ */
+class LogRing {
+
+    private final LogFrame[] frames;
+    private final int mask;
+
+    // The next frame the producer will publish. Only the producer writes it.
+    private final AtomicLong head = new AtomicLong();
+
+    // The next frame the consumer will read. Only the consumer writes it.
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Constructs a new LogRing.
+     *
+     * @param capacity The number of frames. Must be a power of two.
+     * @param channelCount The number of values in each frame.
+     * @param maxEvents The number of events each frame can hold.
+     */
+    LogRing(int capacity, int channelCount, int maxEvents) {
+        if(Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two");
+
+        frames = new LogFrame[capacity];
+        for(int i = 0; i < capacity; i++) {
+            frames[i] = new LogFrame(channelCount, maxEvents);
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns the next free frame to fill, without publishing it. Producer only.
+     *
+     * @return The frame, or null if the ring is full.
+     */
+    LogFrame claim() {
+        long next = head.get();
+        if(next - tail.get() >= frames.length) return null;
+        return frames[(int)(next & mask)];
+    }
+
+    /**
+     * Publishes the frame returned by the last {@link #claim()}. Producer only.
+     */
+    void publish() {
+        head.lazySet(head.get() + 1);
+    }
+
+    /**
+     * Returns the oldest published frame, without releasing it. Consumer only.
+     *
+     * @return The frame, or null if the ring is empty.
+     */
+    LogFrame peek() {
+        long next = tail.get();
+        if(next == head.get()) return null;
+        return frames[(int)(next & mask)];
+    }
+
+    /**
+     * Hands the frame returned by the last {@link #peek()} back to the producer. Consumer only.
+     */
+    void release() {
+        tail.lazySet(tail.get() + 1);
+    }
+}
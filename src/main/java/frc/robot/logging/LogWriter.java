@@ -0,0 +1,166 @@
+package frc.robot.logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Constants.LoggingConstants;
+
+/**
+ * Drains frames from the ring, encodes them and writes them to the log file in batches.
+ *
+ * <p>Runs on its own thread, so encoding and file writes never touch the main loop. The encoded bytes collect in a
+ * direct buffer that is written out when it is nearly full or once every flush period, whichever comes first.
+ */
+class LogWriter implements Runnable {
+
+    private final LogRing ring;
+    private final FileChannel channel;
+    private final Queue<String> pendingCommandNames;
+
+    private final ByteBuffer buffer;
+    private final int maxFrameBytes;
+
+    private final int channelCount;
+    private final long[] previousBits;
+    private long previousTimestampMicros = 0;
+
+    private int nextCommandId = 0;
+
+    private long lastFlushNanos = System.nanoTime();
+
+    private volatile boolean isRunning = true;
+
+    LogWriter(LogRing ring, FileChannel channel, Queue<String> pendingCommandNames, int channelCount, int maxEvents) {
+        this.ring = ring;
+        this.channel = channel;
+        this.pendingCommandNames = pendingCommandNames;
+        this.channelCount = channelCount;
+
+        // Every value starts as 0.0, so the first frame only stores the channels that aren't.
+        previousBits = new long[channelCount];
+
+        // A dropped-frames record, then the frame: its tag and time, bitmask, values and events.
+        maxFrameBytes =
+            1 + LogFormat.maxVarLongBytes +
+            1 + LogFormat.maxVarLongBytes +
+            LogFormat.bitmaskBytes(channelCount) +
+            channelCount * (1 + LogFormat.maxVarLongBytes) +
+            (1 + maxEvents) * LogFormat.maxVarLongBytes;
+
+        buffer = ByteBuffer.allocateDirect(Math.max(LoggingConstants.writeBufferBytes, 2 * maxFrameBytes));
+    }
+
+    /**
+     * Asks the writer to finish the frames already in the ring and close the file.
+     */
+    void stop() {
+        isRunning = false;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while(true) {
+                LogFrame frame = ring.peek();
+
+                if(frame == null) {
+                    if(!isRunning) break;
+
+                    if(buffer.position() > 0 && System.nanoTime() - lastFlushNanos > LoggingConstants.flushPeriodNanos) flush();
+
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(LoggingConstants.writerIdleMs));
+                    continue;
+                }
+
+                writeCommandNames();
+                writeFrame(frame);
+                ring.release();
+
+                if(buffer.remaining() < maxFrameBytes) flush();
+            }
+
+            flush();
+            channel.force(false);
+        }
+        catch(IOException e) {
+            DriverStation.reportError("Match log stopped, write failed: " + e.getMessage(), false);
+        }
+        catch(RuntimeException e) {
+            // An encoding bug would otherwise end the thread without a word.
+            DriverStation.reportError("Match log stopped, encoding failed: " + e, true);
+        }
+        finally {
+            try {
+                channel.close();
+            }
+            catch(IOException e) {
+                // Nothing left to save.
+            }
+        }
+    }
+
+    private void writeCommandNames() throws IOException {
+        String name;
+        while((name = pendingCommandNames.poll()) != null) {
+            // Names can be long, so make room before each one.
+            if(buffer.remaining() < maxFrameBytes + name.length() * 3 + 2 * LogFormat.maxVarLongBytes) flush();
+
+            buffer.put(LogFormat.commandNameTag);
+            LogFormat.putVarLong(buffer, nextCommandId++);
+            LogFormat.putString(buffer, name);
+        }
+    }
+
+    private void writeFrame(LogFrame frame) {
+        if(frame.droppedBefore > 0) {
+            buffer.put(LogFormat.droppedTag);
+            LogFormat.putVarLong(buffer, frame.droppedBefore);
+        }
+
+        buffer.put(LogFormat.frameTag);
+        LogFormat.putVarLong(buffer, frame.timestampMicros - previousTimestampMicros);
+        previousTimestampMicros = frame.timestampMicros;
+
+        // Leave room for the bitmask and fill it in once the changed channels are known.
+        int bitmaskPosition = buffer.position();
+        int bitmaskBytes = LogFormat.bitmaskBytes(channelCount);
+        for(int i = 0; i < bitmaskBytes; i++) {
+            buffer.put((byte)0);
+        }
+
+        int bits = 0;
+        for(int i = 0; i < channelCount; i++) {
+            long valueBits = Double.doubleToRawLongBits(frame.values[i]);
+            long xorBits = valueBits ^ previousBits[i];
+
+            if(xorBits != 0) {
+                bits |= 1 << (i & 7);
+                LogFormat.putXor(buffer, xorBits);
+                previousBits[i] = valueBits;
+            }
+
+            if((i & 7) == 7 || i == channelCount - 1) {
+                buffer.put(bitmaskPosition + (i >> 3), (byte)bits);
+                bits = 0;
+            }
+        }
+
+        LogFormat.putVarLong(buffer, frame.eventCount);
+        for(int i = 0; i < frame.eventCount; i++) {
+            LogFormat.putVarLong(buffer, frame.events[i]);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+
+        lastFlushNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,455 @@
+package frc.robot.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.LoggingConstants;
+
+/**
+ * Records every logged channel once per loop, plus command start and end events, to a binary match log.
+ *
+ * <p>Channels are registered once at startup, before {@link #start()}. Inputs are sensor and driver station readings
+ * and come with a setter, so a replay can feed them back in; outputs are what the code decided and are only read.
+ *
+ * <p>{@link #startLoop()} runs at the start of every loop and stamps the frame with the time, so a replay can step
+ * its clock to the same time the loop's commands read. {@link #capture()} runs at the end of every loop and copies
+ * each channel into a preallocated frame in a ring.
+ * A writer thread encodes and writes the frames, so capturing never blocks, allocates or touches the file. If the
+ * writer falls behind and the ring fills, frames are dropped and the gap is recorded in the log.
+ *
+ * <p>See {@link LogFormat} for the file layout.
+ */
+public class MatchLogger {
+
+    private static MatchLogger instance;
+
+    /**
+     * Returns the MatchLogger instance.
+     *
+     * @return The MatchLogger instance.
+     */
+    public static synchronized MatchLogger getInstance() {
+        if(instance == null) instance = new MatchLogger();
+        return instance;
+    }
+
+    /**
+     * Accepts a boolean without boxing it.
+     */
+    @FunctionalInterface
+    public interface BooleanConsumer {
+        void accept(boolean value);
+    }
+
+    /**
+     * A registered channel.
+     */
+    public static class Channel {
+
+        private final String name;
+        public String getName() {
+            return name;
+        }
+
+        private final byte kind;
+        /**
+         * Returns what kind of channel this is.
+         *
+         * @return One of {@link LogFormat#inputChannel}, {@link LogFormat#outputChannel} or
+         * {@link LogFormat#diagnosticChannel}.
+         */
+        public byte getKind() {
+            return kind;
+        }
+
+        public boolean isInput() {
+            return kind == LogFormat.inputChannel;
+        }
+
+        private final DoubleSupplier getter;
+
+        private final DoubleConsumer setter;
+        /**
+         * Returns the setter that writes a replayed value back into the channel's source.
+         *
+         * @return The setter, or null if the channel is an output.
+         */
+        public DoubleConsumer getSetter() {
+            return setter;
+        }
+
+        private Channel(String name, byte kind, DoubleSupplier getter, DoubleConsumer setter) {
+            this.name = name;
+            this.kind = kind;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        /**
+         * Reads the channel's current value.
+         *
+         * @return The current value.
+         */
+        public double get() {
+            return getter.getAsDouble();
+        }
+    }
+
+    private final ArrayList<Channel> channels = new ArrayList<Channel>();
+    private Channel[] channelArray = null;
+
+    private final HashMap<String, Integer> commandIds = new HashMap<String, Integer>();
+    private final ConcurrentLinkedQueue<String> pendingCommandNames = new ConcurrentLinkedQueue<String>();
+
+    // Events are collected here during the loop and copied into the frame at capture.
+    private final int[] events = new int[LoggingConstants.maxEventsPerFrame];
+    private int eventCount = 0;
+
+    /**
+     * The FPGA time in microseconds when the current loop started.
+     */
+    private long loopStartMicros = 0;
+
+    private LogRing ring = null;
+    private LogWriter writer = null;
+    private Thread writerThread = null;
+
+    private boolean isStarted = false;
+    public boolean isStarted() {
+        return isStarted;
+    }
+
+    private File logFile = null;
+    /**
+     * Returns the file being written to.
+     *
+     * @return The log file, or null if logging hasn't started or couldn't open one.
+     */
+    public File getLogFile() {
+        return logFile;
+    }
+
+    private int droppedFrameCount = 0;
+    public int getDroppedFrameCount() {
+        return droppedFrameCount;
+    }
+
+    private int droppedEventCount = 0;
+    public int getDroppedEventCount() {
+        return droppedEventCount;
+    }
+
+    // Frames dropped since the last one that made it into the ring.
+    private int droppedSinceLastFrame = 0;
+
+    private File logDirectory = null;
+    /**
+     * Writes the log to a directory other than {@link LoggingConstants#logDirectories}, like a test's temporary
+     * directory. Set before logging starts.
+     *
+     * @param logDirectory The directory to write the log to.
+     */
+    public void setLogDirectory(File logDirectory) {
+        this.logDirectory = logDirectory;
+    }
+
+    private Runnable replaySource = null;
+    /**
+     * Checks whether inputs are being replayed from a log instead of read from hardware.
+     *
+     * @return True if a replay source is set.
+     */
+    public boolean isReplaying() {
+        return replaySource != null;
+    }
+    /**
+     * Replaces the robot's inputs with recorded ones. Set before the robot is constructed.
+     * <p>While replaying, no log file is written.
+     *
+     * @param replaySource Writes the current frame's inputs through the channels' setters.
+     */
+    public void setReplaySource(Runnable replaySource) {
+        this.replaySource = replaySource;
+    }
+
+    private MatchLogger() {
+        CommandScheduler.getInstance().onCommandInitialize(command -> logEvent(command, LogFormat.commandStarted));
+        CommandScheduler.getInstance().onCommandFinish(command -> logEvent(command, LogFormat.commandFinished));
+        CommandScheduler.getInstance().onCommandInterrupt(command -> logEvent(command, LogFormat.commandInterrupted));
+    }
+
+    /**
+     * Adds a number read from hardware or the driver station.
+     *
+     * @param name The name of the channel, with slashes separating groups.
+     * @param getter Reads the value.
+     * @param setter Writes a replayed value back.
+     */
+    public void addDoubleInput(String name, DoubleSupplier getter, DoubleConsumer setter) {
+        add(new Channel(name, LogFormat.inputChannel, getter, setter));
+    }
+
+    /**
+     * Adds a boolean read from hardware or the driver station. It is logged as 1.0 or 0.0.
+     *
+     * @param name The name of the channel, with slashes separating groups.
+     * @param getter Reads the value.
+     * @param setter Writes a replayed value back.
+     */
+    public void addBooleanInput(String name, BooleanSupplier getter, BooleanConsumer setter) {
+        add(new Channel(name, LogFormat.inputChannel, () -> getter.getAsBoolean() ? 1.0 : 0.0, value -> setter.accept(value != 0.0)));
+    }
+
+    /**
+     * Adds a number computed by the robot code.
+     *
+     * @param name The name of the channel, with slashes separating groups.
+     * @param getter Reads the value.
+     */
+    public void addDoubleOutput(String name, DoubleSupplier getter) {
+        add(new Channel(name, LogFormat.outputChannel, getter, null));
+    }
+
+    /**
+     * Adds a boolean computed by the robot code. It is logged as 1.0 or 0.0.
+     *
+     * @param name The name of the channel, with slashes separating groups.
+     * @param getter Reads the value.
+     */
+    public void addBooleanOutput(String name, BooleanSupplier getter) {
+        add(new Channel(name, LogFormat.outputChannel, () -> getter.getAsBoolean() ? 1.0 : 0.0, null));
+    }
+
+    /**
+     * Adds a number that describes how the code ran rather than what it decided, like a loop timing.
+     * <p>Diagnostics are recorded for analysis but a replay doesn't expect them to match.
+     *
+     * @param name The name of the channel, with slashes separating groups.
+     * @param getter Reads the value.
+     */
+    public void addDoubleDiagnostic(String name, DoubleSupplier getter) {
+        add(new Channel(name, LogFormat.diagnosticChannel, getter, null));
+    }
+
+    private void add(Channel channel) {
+        if(isStarted) throw new IllegalStateException("Channel " + channel.getName() + " added after logging started");
+        channels.add(channel);
+    }
+
+    /**
+     * Returns every registered channel, in log order.
+     *
+     * @return The channels.
+     */
+    public Channel[] getChannels() {
+        return channels.toArray(new Channel[0]);
+    }
+
+    /**
+     * Opens a new log file and starts the writer. Call once every channel has been added.
+     * <p>If no log directory can be written to, a warning is reported and the robot runs without logging.
+     */
+    public void start() {
+        if(isStarted) return;
+        isStarted = true;
+
+        channelArray = channels.toArray(new Channel[0]);
+
+        // A replay isn't a match, so it doesn't get a log.
+        if(isReplaying()) return;
+
+        FileChannel fileChannel = null;
+        String[] directories = logDirectory != null ? new String[] {logDirectory.getPath()} : LoggingConstants.logDirectories;
+        for(String directory : directories) {
+            try {
+                fileChannel = open(new File(directory));
+                break;
+            }
+            catch(IOException e) {
+                // Try the next directory, the USB stick may not be plugged in.
+            }
+        }
+
+        if(fileChannel == null) {
+            DriverStation.reportWarning("Match log disabled, no writable log directory", false);
+            return;
+        }
+
+        ring = new LogRing(LoggingConstants.ringCapacity, channelArray.length, LoggingConstants.maxEventsPerFrame);
+        writer = new LogWriter(ring, fileChannel, pendingCommandNames, channelArray.length, LoggingConstants.maxEventsPerFrame);
+
+        writerThread = new Thread(writer, "MatchLogger");
+        writerThread.setDaemon(true);
+        writerThread.setPriority(Thread.MIN_PRIORITY);
+        writerThread.start();
+    }
+
+    /**
+     * Stops logging, and waits for the writer to finish the frames already captured and close the file.
+     */
+    public void stop() {
+        if(writer != null) {
+            writer.stop();
+            try {
+                writerThread.join();
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        writer = null;
+        writerThread = null;
+        ring = null;
+    }
+
+    private FileChannel open(File directory) throws IOException {
+        if(!directory.isDirectory() && !directory.mkdirs()) throw new IOException("Can't create " + directory);
+
+        File[] logs = directory.listFiles((dir, name) -> name.endsWith(LogFormat.fileExtension));
+        if(logs == null) throw new IOException("Can't list " + directory);
+
+        deleteOldLogs(logs);
+
+        // Number logs after the newest one so they sort in order even though the clock isn't set before the DS connects.
+        int number = 0;
+        for(File log : logs) {
+            try {
+                String name = log.getName();
+                number = Math.max(number, Integer.parseInt(name.substring(4, name.length() - LogFormat.fileExtension.length())) + 1);
+            }
+            catch(NumberFormatException | IndexOutOfBoundsException e) {
+                // Not one of ours.
+            }
+        }
+
+        File file = new File(directory, String.format("log_%05d%s", number, LogFormat.fileExtension));
+        FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+        try {
+            ByteBuffer header = ByteBuffer.allocate(headerBytes());
+            header.putInt(LogFormat.magic);
+            header.putInt(LogFormat.version);
+            LogFormat.putVarLong(header, channelArray.length);
+            for(Channel channel : channelArray) {
+                header.put(channel.getKind());
+                LogFormat.putString(header, channel.getName());
+            }
+
+            header.flip();
+            while(header.hasRemaining()) fileChannel.write(header);
+        }
+        catch(IOException e) {
+            fileChannel.close();
+            throw e;
+        }
+
+        logFile = file;
+        return fileChannel;
+    }
+
+    private int headerBytes() {
+        int bytes = 4 + 4 + LogFormat.maxVarLongBytes;
+        for(Channel channel : channelArray) {
+            bytes += 1 + LogFormat.maxVarLongBytes + channel.getName().length() * 3;
+        }
+        return bytes;
+    }
+
+    /**
+     * Deletes the oldest logs until the directory fits in its size budget, leaving room for a new log.
+     */
+    private void deleteOldLogs(File[] logs) {
+        Arrays.sort(logs, Comparator.comparing(File::getName));
+
+        long totalBytes = 0;
+        for(File log : logs) {
+            totalBytes += log.length();
+        }
+
+        for(int i = 0; i < logs.length && totalBytes > LoggingConstants.maxLogDirectoryBytes; i++) {
+            long length = logs[i].length();
+            if(logs[i].delete()) totalBytes -= length;
+        }
+    }
+
+    /**
+     * Overwrites the inputs read from hardware with the replayed ones. Call right after the inputs are updated.
+     * <p>Does nothing on the robot.
+     */
+    public void replayInputs() {
+        if(replaySource != null) replaySource.run();
+    }
+
+    /**
+     * Records the time the loop started, which {@link #capture()} stamps the frame with. Call first in each loop.
+     */
+    public void startLoop() {
+        loopStartMicros = RobotController.getFPGATime();
+    }
+
+    /**
+     * Copies every channel into the next frame. Call once at the end of each loop.
+     */
+    public void capture() {
+        if(ring == null) {
+            eventCount = 0;
+            return;
+        }
+
+        LogFrame frame = ring.claim();
+        if(frame == null) {
+            droppedFrameCount++;
+            droppedSinceLastFrame++;
+            eventCount = 0;
+            return;
+        }
+
+        frame.timestampMicros = loopStartMicros;
+
+        for(int i = 0; i < channelArray.length; i++) {
+            frame.values[i] = channelArray[i].get();
+        }
+
+        System.arraycopy(events, 0, frame.events, 0, eventCount);
+        frame.eventCount = eventCount;
+        eventCount = 0;
+
+        frame.droppedBefore = droppedSinceLastFrame;
+        droppedSinceLastFrame = 0;
+
+        ring.publish();
+    }
+
+    private void logEvent(Command command, int type) {
+        if(eventCount >= events.length) {
+            droppedEventCount++;
+            return;
+        }
+
+        String name = command.getName();
+        Integer id = commandIds.get(name);
+        if(id == null) {
+            // Only allocates the first time a command with this name runs.
+            id = commandIds.size();
+            commandIds.put(name, id);
+            pendingCommandNames.add(name);
+        }
+
+        events[eventCount++] = LogFormat.event(id, type);
+    }
+}
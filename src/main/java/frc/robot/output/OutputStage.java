@@ -0,0 +1,99 @@
+package frc.robot.output;
+
+import java.util.ArrayList;
+
+import com.revrobotics.CANSparkMax;
+
+import edu.wpi.first.wpilibj.DoubleSolenoid;
+import frc.robot.can.DeviceHealth;
+import frc.robot.logging.MatchLogger;
+
+/**
+ * Holds the outputs every subsystem wants this loop, and writes the ones that changed to the hardware once, at the end
+ * of the loop.
+ *
+ * <p>Subsystems wrap each motor controller and solenoid in an output when they're constructed, and stage commands on
+ * the output instead of calling the hardware. Staging only stores the command, so a subsystem can restate its
+ * setpoint every loop for free. {@link #commit()} then sends each command that differs from the last one sent, and
+ * resends unchanged motor commands every {@link frc.robot.Constants.OutputConstants#keepAliveCycles} loops.
+ */
+public class OutputStage {
+
+    private static OutputStage instance;
+
+    /**
+     * Returns the OutputStage instance.
+     *
+     * @return The OutputStage instance.
+     */
+    public static synchronized OutputStage getInstance() {
+        if(instance == null) instance = new OutputStage();
+        return instance;
+    }
+
+    /**
+     * An output that can write its staged command to hardware.
+     */
+    interface StagedOutput {
+
+        /**
+         * Writes the staged command if it needs to be sent.
+         *
+         * @return The number of writes made to the hardware.
+         */
+        int commit();
+    }
+
+    private final ArrayList<StagedOutput> outputs = new ArrayList<StagedOutput>();
+
+    private int writeCount = 0;
+
+    private OutputStage() {
+        MatchLogger.getInstance().addDoubleDiagnostic("outputs/writeCount", () -> writeCount);
+    }
+
+    /**
+     * Wraps a SPARK MAX in a staged output.
+     *
+     * @param motor The SPARK MAX. Commands should only be sent through the returned output from now on.
+     * @param health The SPARK MAX's health. Nothing is sent while it's unhealthy.
+     * @return The output to stage commands on.
+     */
+    public SparkMaxOutput add(CANSparkMax motor, DeviceHealth health) {
+        SparkMaxOutput output = new SparkMaxOutput(motor, health);
+        outputs.add(output);
+        return output;
+    }
+
+    /**
+     * Wraps a double solenoid in a staged output.
+     *
+     * @param solenoid The solenoid. It should only be set through the returned output from now on.
+     * @return The output to stage values on.
+     */
+    public SolenoidOutput add(DoubleSolenoid solenoid) {
+        SolenoidOutput output = new SolenoidOutput(solenoid);
+        outputs.add(output);
+        return output;
+    }
+
+    /**
+     * Writes every staged output that needs to be sent. Call once, after every subsystem and command has run.
+     */
+    public void commit() {
+        int writes = 0;
+        for(int i = 0; i < outputs.size(); i++) {
+            writes += outputs.get(i).commit();
+        }
+        writeCount = writes;
+    }
+
+    /**
+     * Returns how many writes the last commit made.
+     *
+     * @return The number of hardware writes.
+     */
+    public int getWriteCount() {
+        return writeCount;
+    }
+}
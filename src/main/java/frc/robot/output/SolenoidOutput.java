@@ -0,0 +1,44 @@
+package frc.robot.output;
+
+import edu.wpi.first.wpilibj.DoubleSolenoid;
+import edu.wpi.first.wpilibj.DoubleSolenoid.Value;
+
+/**
+ * The staged value of one double solenoid. The pneumatic hub holds its outputs, so a value is only sent when it
+ * changes.
+ */
+public class SolenoidOutput implements OutputStage.StagedOutput {
+
+    private final DoubleSolenoid solenoid;
+
+    private Value value;
+    private Value sentValue;
+
+    SolenoidOutput(DoubleSolenoid solenoid) {
+        this.solenoid = solenoid;
+        value = solenoid.get();
+        sentValue = value;
+    }
+
+    public void set(Value value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the staged value, which is what the solenoid will be set to at the end of the loop.
+     *
+     * @return The staged value.
+     */
+    public Value get() {
+        return value;
+    }
+
+    @Override
+    public int commit() {
+        if(value == sentValue) return 0;
+
+        solenoid.set(value);
+        sentValue = value;
+        return 1;
+    }
+}
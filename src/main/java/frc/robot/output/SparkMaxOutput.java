@@ -0,0 +1,126 @@
+package frc.robot.output;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMax.ControlType;
+import com.revrobotics.SparkMaxPIDController;
+
+import frc.robot.Constants.OutputConstants;
+import frc.robot.can.DeviceHealth;
+
+/**
+ * The staged command and output range for one SPARK MAX.
+ *
+ * <p>Like the SPARK MAX, only the last command staged in a loop takes effect. The output range is a setting rather
+ * than a command, so it is sent only when it changes. Nothing is sent while the controller is unhealthy. Once it's back,
+ * its settings have already been put back by {@link frc.robot.can.DeviceHealthMonitor}, and the command and output
+ * range are sent again here, since it may have rebooted.
+ */
+public class SparkMaxOutput implements OutputStage.StagedOutput {
+
+    private final CANSparkMax motor;
+    private final SparkMaxPIDController controller;
+    private final DeviceHealth health;
+
+    private ControlType type = ControlType.kDutyCycle;
+    private double value = 0.0;
+    private double arbFeedforwardVolts = 0.0;
+
+    private double minOutput = -1.0;
+    private double maxOutput = 1.0;
+
+    // What was last sent. Starts unset, so the first commit sends everything.
+    private ControlType sentType = null;
+    private double sentValue = Double.NaN;
+    private double sentArbFeedforwardVolts = Double.NaN;
+    private double sentMinOutput = Double.NaN;
+    private double sentMaxOutput = Double.NaN;
+
+    private int cyclesSinceSent = 0;
+
+    SparkMaxOutput(CANSparkMax motor, DeviceHealth health) {
+        this.motor = motor;
+        this.health = health;
+        controller = motor.getPIDController();
+    }
+
+    /**
+     * Stages a duty cycle, like CANSparkMax.set().
+     *
+     * @param dutyCycle The duty cycle, from -1.0 to 1.0.
+     */
+    public void set(double dutyCycle) {
+        type = ControlType.kDutyCycle;
+        value = dutyCycle;
+        arbFeedforwardVolts = 0.0;
+    }
+
+    /**
+     * Stages a closed-loop reference, like SparkMaxPIDController.setReference().
+     *
+     * @param value The reference, in the units of the control type.
+     * @param type The control type.
+     */
+    public void setReference(double value, ControlType type) {
+        setReference(value, type, 0.0);
+    }
+
+    /**
+     * Stages a closed-loop reference on PID slot 0 with an arbitrary feedforward.
+     *
+     * @param value The reference, in the units of the control type.
+     * @param type The control type.
+     * @param arbFeedforwardVolts The feedforward added to the controller's output, in volts.
+     */
+    public void setReference(double value, ControlType type, double arbFeedforwardVolts) {
+        this.type = type;
+        this.value = value;
+        this.arbFeedforwardVolts = arbFeedforwardVolts;
+    }
+
+    /**
+     * Stages the closed loop's output range, like SparkMaxPIDController.setOutputRange().
+     *
+     * @param minOutput The minimum output, from -1.0 to 1.0.
+     * @param maxOutput The maximum output, from -1.0 to 1.0.
+     */
+    public void setOutputRange(double minOutput, double maxOutput) {
+        this.minOutput = minOutput;
+        this.maxOutput = maxOutput;
+    }
+
+    @Override
+    public int commit() {
+        if(!health.isHealthy()) {
+            sentType = null;
+            sentMinOutput = Double.NaN;
+            sentMaxOutput = Double.NaN;
+            return 0;
+        }
+
+        int writes = 0;
+
+        if(minOutput != sentMinOutput || maxOutput != sentMaxOutput) {
+            controller.setOutputRange(minOutput, maxOutput);
+            sentMinOutput = minOutput;
+            sentMaxOutput = maxOutput;
+            writes++;
+        }
+
+        cyclesSinceSent++;
+        if(
+            type != sentType || value != sentValue || arbFeedforwardVolts != sentArbFeedforwardVolts ||
+            cyclesSinceSent >= OutputConstants.keepAliveCycles
+        ) {
+            if(type == ControlType.kDutyCycle) motor.set(value);
+            else controller.setReference(value, type, 0, arbFeedforwardVolts);
+
+            sentType = type;
+            sentValue = value;
+            sentArbFeedforwardVolts = arbFeedforwardVolts;
+            cyclesSinceSent = 0;
+            writes++;
+        }
+
+        return writes;
+    }
+}
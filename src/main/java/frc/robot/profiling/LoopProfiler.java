@@ -0,0 +1,159 @@
+package frc.robot.profiling;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.ProfilerConstants;
+import frc.robot.logging.MatchLogger;
+
+/**
+ * Collects {@link LoopTimer}s for every timed section of the main loop and publishes their statistics.
+ *
+ * <p>Subsystems register a timer for their periodic method once at construction. Scheduled commands are
+ * timed automatically through the scheduler's execute hook: a command's sample runs from the start of its
+ * execute until the next command starts, which covers its execute, isFinished and end.
+ *
+ * <p>Statistics are published round-robin, one timer per publish period, so the cost of publishing stays
+ * flat no matter how many sections are timed.
+ */
+public class LoopProfiler {
+
+    private static LoopProfiler instance;
+
+    /**
+     * Returns the LoopProfiler instance.
+     *
+     * @return The LoopProfiler instance.
+     */
+    public static synchronized LoopProfiler getInstance() {
+        if(instance == null) instance = new LoopProfiler();
+        return instance;
+    }
+
+    private final NetworkTable table = NetworkTableInstance.getDefault().getTable("Profiler");
+
+    private final ArrayList<LoopTimer> timers = new ArrayList<LoopTimer>();
+    private final HashMap<String, LoopTimer> commandTimers = new HashMap<String, LoopTimer>();
+
+    private final LoopTimer loopTimer;
+    private final LoopTimer loopPeriodTimer;
+
+    private long lastLoopStartNanos = -1;
+
+    private LoopTimer currentCommandTimer = null;
+
+    private int publishCounter = 0;
+    private int publishIndex = 0;
+
+    private LoopProfiler() {
+        loopTimer = register("Robot.robotPeriodic", ProfilerConstants.loopBudgetSeconds);
+        loopPeriodTimer = register("Robot.loopPeriod", ProfilerConstants.loopBudgetSeconds * 1.25);
+
+        CommandScheduler.getInstance().onCommandExecute(this::startCommand);
+    }
+
+    /**
+     * Registers a new timed section with the default section budget.
+     *
+     * @param name The name of the section.
+     * @return The timer for the section.
+     */
+    public LoopTimer register(String name) {
+        return register(name, ProfilerConstants.sectionBudgetSeconds);
+    }
+
+    /**
+     * Registers a new timed section.
+     *
+     * @param name The name of the section.
+     * @param budgetSeconds The time the section may take before a sample counts as an overrun.
+     * @return The timer for the section.
+     */
+    public LoopTimer register(String name, double budgetSeconds) {
+        LoopTimer timer = new LoopTimer(name, budgetSeconds, table);
+        timers.add(timer);
+        return timer;
+    }
+
+    /**
+     * Records the latest sample of every timer registered so far in the match log.
+     * <p>Call once, after the subsystems have registered their timers and before the log starts. Command timers are
+     * registered as commands first run, so they are left out; the log records command events instead.
+     */
+    public void logTimers() {
+        MatchLogger logger = MatchLogger.getInstance();
+        for(int i = 0; i < timers.size(); i++) {
+            LoopTimer timer = timers.get(i);
+            logger.addDoubleDiagnostic("profiler/" + timer.getName() + " ms", timer::getLastMillis);
+        }
+    }
+
+    /**
+     * Marks the start of a main loop iteration. Call first thing in robotPeriodic.
+     */
+    public void startLoop() {
+        long now = System.nanoTime();
+        if(lastLoopStartNanos >= 0) loopPeriodTimer.record(now - lastLoopStartNanos);
+        lastLoopStartNanos = now;
+
+        loopTimer.start();
+    }
+
+    /**
+     * Marks the end of a main loop iteration and publishes statistics when due. Call last thing in robotPeriodic.
+     */
+    public void endLoop() {
+        stopCommand();
+        loopTimer.stop();
+
+        publishCounter++;
+        if(publishCounter >= ProfilerConstants.publishPeriodCycles) {
+            publishCounter = 0;
+
+            if(publishIndex >= timers.size()) publishIndex = 0;
+            timers.get(publishIndex).publish();
+            publishIndex++;
+        }
+    }
+
+    /**
+     * Closes the timing sample of the command that ran last. Call once the scheduler has finished running.
+     */
+    public void stopCommand() {
+        if(currentCommandTimer != null) {
+            currentCommandTimer.stop();
+            currentCommandTimer = null;
+        }
+    }
+
+    /**
+     * Clears all recorded samples.
+     */
+    public void reset() {
+        for(int i = 0; i < timers.size(); i++) {
+            timers.get(i).reset();
+        }
+
+        lastLoopStartNanos = -1;
+        currentCommandTimer = null;
+    }
+
+    private void startCommand(Command command) {
+        stopCommand();
+
+        String name = command.getName();
+        LoopTimer timer = commandTimers.get(name);
+        if(timer == null) {
+            // Only allocates the first time a command with this name runs.
+            timer = register("commands/" + (name.isEmpty() ? "anonymous" : name), ProfilerConstants.commandBudgetSeconds);
+            commandTimers.put(name, timer);
+        }
+
+        currentCommandTimer = timer;
+        timer.start();
+    }
+}
@@ -0,0 +1,184 @@
+package frc.robot.profiling;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import frc.robot.Constants.ProfilerConstants;
+
+/**
+ * Times a single section of the main loop and keeps a fixed-bucket histogram of its durations.
+ *
+ * <p>All storage is allocated up front, so starting, stopping and recording a sample never allocates.
+ *
+ * <p>A timer can be recorded on a thread other than the main loop, like the odometry thread, while the main loop
+ * publishes and resets it, so every method that touches the statistics is synchronized. The lock is only ever
+ * contended for the moment a publish or reset overlaps a sample.
+ */
+public class LoopTimer {
+
+    private final String name;
+    public String getName() {
+        return name;
+    }
+
+    private final long budgetNanos;
+
+    /**
+     * Sample counts per bucket. The last bucket collects every sample longer than the histogram range.
+     */
+    private final int[] buckets = new int[ProfilerConstants.bucketCount + 1];
+
+    private long startNanos = -1;
+
+    private long sampleCount = 0;
+    private long overrunCount = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+    private long lastNanos = 0;
+
+    private final DoublePublisher p50Pub;
+    private final DoublePublisher p99Pub;
+    private final DoublePublisher maxPub;
+    private final DoublePublisher meanPub;
+    private final DoublePublisher lastPub;
+    private final IntegerPublisher countPub;
+    private final IntegerPublisher overrunPub;
+
+    /**
+     * Constructs a new LoopTimer.
+     *
+     * @param name The name of the timed section, used as its NetworkTables subtable.
+     * @param budgetSeconds The time the section may take before a sample counts as an overrun.
+     * @param table The table to publish statistics under.
+     */
+    LoopTimer(String name, double budgetSeconds, NetworkTable table) {
+        this.name = name;
+        this.budgetNanos = (long)(budgetSeconds * 1e9);
+
+        NetworkTable subtable = table.getSubTable(name);
+        p50Pub = subtable.getDoubleTopic("p50 ms").publish();
+        p99Pub = subtable.getDoubleTopic("p99 ms").publish();
+        maxPub = subtable.getDoubleTopic("max ms").publish();
+        meanPub = subtable.getDoubleTopic("mean ms").publish();
+        lastPub = subtable.getDoubleTopic("last ms").publish();
+        countPub = subtable.getIntegerTopic("samples").publish();
+        overrunPub = subtable.getIntegerTopic("overruns").publish();
+    }
+
+    /**
+     * Marks the start of the timed section.
+     */
+    public synchronized void start() {
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of the timed section and records its duration.
+     * <p>Does nothing if {@link #start()} has not been called since the last stop.
+     */
+    public synchronized void stop() {
+        if(startNanos < 0) return;
+
+        record(System.nanoTime() - startNanos);
+        startNanos = -1;
+    }
+
+    /**
+     * Checks whether the section has been started and not yet stopped.
+     *
+     * @return True if the timer is running.
+     */
+    public synchronized boolean isRunning() {
+        return startNanos >= 0;
+    }
+
+    /**
+     * Records a single duration sample.
+     *
+     * @param nanos The duration of the sample, in nanoseconds.
+     */
+    public synchronized void record(long nanos) {
+        int bucket = (int)(nanos / ProfilerConstants.bucketWidthNanos);
+        if(bucket > ProfilerConstants.bucketCount || bucket < 0) bucket = ProfilerConstants.bucketCount;
+        buckets[bucket]++;
+
+        sampleCount++;
+        totalNanos += nanos;
+        lastNanos = nanos;
+        if(nanos > maxNanos) maxNanos = nanos;
+        if(nanos > budgetNanos) overrunCount++;
+    }
+
+    /**
+     * Clears all recorded samples.
+     */
+    public synchronized void reset() {
+        for(int i = 0; i < buckets.length; i++) {
+            buckets[i] = 0;
+        }
+
+        startNanos = -1;
+        sampleCount = 0;
+        overrunCount = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+        lastNanos = 0;
+    }
+
+    public synchronized long getSampleCount() {
+        return sampleCount;
+    }
+
+    public synchronized long getOverrunCount() {
+        return overrunCount;
+    }
+
+    public synchronized double getMaxMillis() {
+        return maxNanos / 1e6;
+    }
+
+    public synchronized double getLastMillis() {
+        return lastNanos / 1e6;
+    }
+
+    public synchronized double getMeanMillis() {
+        return sampleCount == 0 ? 0.0 : (totalNanos / (double)sampleCount) / 1e6;
+    }
+
+    /**
+     * Estimates a percentile of the recorded durations from the histogram.
+     *
+     * <p>The result is the upper edge of the bucket containing the percentile, so it is accurate to
+     * one bucket width. Samples past the end of the histogram report the maximum instead.
+     *
+     * @param percentile The percentile to find, between 0.0 and 1.0.
+     * @return The estimated duration at that percentile, in milliseconds.
+     */
+    public synchronized double getPercentileMillis(double percentile) {
+        if(sampleCount == 0) return 0.0;
+
+        long threshold = (long)Math.ceil(sampleCount * percentile);
+        if(threshold < 1) threshold = 1;
+
+        long seen = 0;
+        for(int i = 0; i < ProfilerConstants.bucketCount; i++) {
+            seen += buckets[i];
+            if(seen >= threshold) return ((i + 1) * ProfilerConstants.bucketWidthNanos) / 1e6;
+        }
+
+        return getMaxMillis();
+    }
+
+    /**
+     * Publishes the current statistics to NetworkTables.
+     */
+    synchronized void publish() {
+        p50Pub.set(getPercentileMillis(0.5));
+        p99Pub.set(getPercentileMillis(0.99));
+        maxPub.set(getMaxMillis());
+        meanPub.set(getMeanMillis());
+        lastPub.set(getLastMillis());
+        countPub.set(sampleCount);
+        overrunPub.set(overrunCount);
+    }
+}
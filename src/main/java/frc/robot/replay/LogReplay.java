@@ -0,0 +1,373 @@
+package frc.robot.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.DoubleConsumer;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Constants.LoggingConstants;
+import frc.robot.Robot;
+import frc.robot.logging.LogFormat;
+import frc.robot.logging.LogReader;
+import frc.robot.logging.MatchLogger;
+import frc.robot.logging.MatchLogger.Channel;
+
+/**
+ * Re-runs the robot code against a recorded match log on the desktop, and reports every output that comes out
+ * differently than it did on the field.
+ *
+ * <p>The real {@link Robot} is constructed on the simulated HAL with its clock paused. For each recorded frame the
+ * replay steps the clock to the time the frame's loop started, feeds the driver station state to the simulated
+ * driver station, runs the robot's loop, and overwrites the sensor inputs with the recorded ones right after the
+ * robot reads them. Timers therefore read the loop's start time, as they did on the field. The recorded outputs are
+ * then compared with what the code computed. Frames run back to back, so a match replays far faster than real time,
+ * and the time each loop took is reported so loop-time regressions show up on real data.
+ *
+ * <p>The odometry thread isn't started in a replay. Its samples are logged each loop, along with every pose reset and
+ * vision measurement in the order they were applied, and fed to the pose estimator on the main loop, so the replayed
+ * pose follows the recorded one. Camera frames come from NetworkTables rather than an inputs struct, so the vision
+ * channels are diagnostics, and a command that steers by a vision target is not expected to match.
+ *
+ * <p>Run with "./gradlew replay -Plog=path/to/log.rlog". Exits with status 1 if any output diverged.
+ */
+public class LogReplay {
+
+    /**
+     * Tracks how one output differed from its recorded value.
+     */
+    private static class Divergence {
+
+        private final String name;
+
+        private int frameCount = 0;
+        private double firstTimeSeconds = 0.0;
+        private double firstRecorded = 0.0;
+        private double firstReplayed = 0.0;
+        private double maxError = 0.0;
+
+        private Divergence(String name) {
+            this.name = name;
+        }
+
+        private void record(double timeSeconds, double recorded, double replayed) {
+            if(frameCount == 0) {
+                firstTimeSeconds = timeSeconds;
+                firstRecorded = recorded;
+                firstReplayed = replayed;
+            }
+            frameCount++;
+            maxError = Math.max(maxError, Math.abs(recorded - replayed));
+        }
+    }
+
+    private final LogReader reader;
+
+    // Live input setters and output channels, each paired with its channel index in the log.
+    private DoubleConsumer[] inputSetters;
+    private int[] inputIndices;
+    private Channel[] outputs;
+    private int[] outputIndices;
+    private Divergence[] divergences;
+
+    private final ArrayList<String> missingChannels = new ArrayList<String>();
+
+    private final int[] dsChannels;
+
+    private LogReplay(LogReader reader) {
+        this.reader = reader;
+        dsChannels = findDriverStationChannels();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length != 1) {
+            System.err.println("Usage: LogReplay <log file>");
+            System.exit(2);
+        }
+
+        File logFile = new File(args[0]);
+        LogReader reader = LogReader.open(logFile);
+
+        if(!HAL.initialize(500, 0)) throw new IllegalStateException("Failed to initialize the HAL");
+
+        // The clock only moves when the replay steps it, so timers see the recorded times.
+        SimHooks.pauseTiming();
+
+        LogReplay replay = new LogReplay(reader);
+        boolean hasDiverged = replay.run(logFile);
+
+        System.exit(hasDiverged ? 1 : 0);
+    }
+
+    private boolean run(File logFile) {
+        MatchLogger.getInstance().setReplaySource(this::injectInputs);
+
+        Robot robot = new Robot();
+        robot.robotInit();
+
+        matchChannels();
+
+        ArrayList<Long> loopNanos = new ArrayList<Long>();
+        long firstTimestampMicros = -1;
+        int droppedFrames = 0;
+
+        String mode = "";
+
+        long replayStartNanos = System.nanoTime();
+
+        while(reader.next()) {
+            droppedFrames += reader.getDroppedBefore();
+
+            long timestampMicros = reader.getTimestampMicros();
+            if(firstTimestampMicros < 0) firstTimestampMicros = timestampMicros;
+
+            long stepMicros = timestampMicros - RobotController.getFPGATime();
+            if(stepMicros > 0) SimHooks.stepTiming(stepMicros / 1e6);
+
+            updateDriverStation();
+
+            long loopStartNanos = System.nanoTime();
+
+            String nextMode = getMode();
+            if(!nextMode.equals(mode)) {
+                mode = nextMode;
+                if(mode.equals("disabled")) robot.disabledInit();
+                else if(mode.equals("autonomous")) robot.autonomousInit();
+                else if(mode.equals("test")) robot.testInit();
+                else robot.teleopInit();
+            }
+
+            robot.robotPeriodic();
+            if(mode.equals("disabled")) robot.disabledPeriodic();
+
+            loopNanos.add(System.nanoTime() - loopStartNanos);
+
+            compareOutputs((timestampMicros - firstTimestampMicros) / 1e6);
+        }
+
+        double replaySeconds = (System.nanoTime() - replayStartNanos) / 1e9;
+        double matchSeconds = firstTimestampMicros < 0 ? 0.0 : (reader.getTimestampMicros() - firstTimestampMicros) / 1e6;
+
+        return report(logFile, loopNanos, droppedFrames, matchSeconds, replaySeconds);
+    }
+
+    /**
+     * Pairs the channels the code registers now with the channels in the log, by name.
+     */
+    private void matchChannels() {
+        HashMap<String, Integer> logIndices = new HashMap<String, Integer>();
+        for(int i = 0; i < reader.getChannelCount(); i++) {
+            logIndices.put(reader.getChannelName(i), i);
+        }
+
+        ArrayList<DoubleConsumer> setters = new ArrayList<DoubleConsumer>();
+        ArrayList<Integer> setterIndices = new ArrayList<Integer>();
+        ArrayList<Channel> outputChannels = new ArrayList<Channel>();
+        ArrayList<Integer> outputChannelIndices = new ArrayList<Integer>();
+
+        for(Channel channel : MatchLogger.getInstance().getChannels()) {
+            if(channel.getKind() == LogFormat.diagnosticChannel) {
+                logIndices.remove(channel.getName());
+                continue;
+            }
+
+            Integer index = logIndices.remove(channel.getName());
+            if(index == null) {
+                missingChannels.add(channel.getName() + " (not in the log)");
+                continue;
+            }
+
+            if(channel.isInput()) {
+                setters.add(channel.getSetter());
+                setterIndices.add(index);
+            }
+            else {
+                outputChannels.add(channel);
+                outputChannelIndices.add(index);
+            }
+        }
+
+        for(String name : logIndices.keySet()) {
+            if(!reader.isDiagnostic(logIndices.get(name))) missingChannels.add(name + " (no longer registered)");
+        }
+
+        inputSetters = setters.toArray(new DoubleConsumer[0]);
+        inputIndices = setterIndices.stream().mapToInt(Integer::intValue).toArray();
+        outputs = outputChannels.toArray(new Channel[0]);
+        outputIndices = outputChannelIndices.stream().mapToInt(Integer::intValue).toArray();
+
+        divergences = new Divergence[outputs.length];
+    }
+
+    /**
+     * Writes the current frame's inputs over the ones the robot just read. Runs inside the robot's loop.
+     */
+    private void injectInputs() {
+        if(inputSetters == null) return;
+
+        for(int i = 0; i < inputSetters.length; i++) {
+            inputSetters[i].accept(reader.getValue(inputIndices[i]));
+        }
+    }
+
+    private void compareOutputs(double timeSeconds) {
+        for(int i = 0; i < outputs.length; i++) {
+            double recorded = reader.getValue(outputIndices[i]);
+            double replayed = outputs[i].get();
+
+            if(Math.abs(recorded - replayed) > LoggingConstants.replayTolerance) {
+                if(divergences[i] == null) divergences[i] = new Divergence(outputs[i].getName());
+                divergences[i].record(timeSeconds, recorded, replayed);
+            }
+        }
+    }
+
+    // Indices into dsChannels.
+    private static final int enabled = 0;
+    private static final int autonomous = 1;
+    private static final int test = 2;
+    private static final int dsAttached = 3;
+    private static final int alliance = 4;
+    private static final int matchTime = 5;
+    private static final int firstJoystick = 6;
+
+    // Channels per joystick: connected, xbox, button count, axes, buttons, POV.
+    private static final int joystickChannels = 3 + LoggingConstants.joystickAxisCount + 2;
+
+    private int[] findDriverStationChannels() {
+        int[] channels = new int[firstJoystick + LoggingConstants.joystickPortCount * joystickChannels];
+
+        channels[enabled] = reader.indexOf("ds/isEnabled");
+        channels[autonomous] = reader.indexOf("ds/isAutonomous");
+        channels[test] = reader.indexOf("ds/isTest");
+        channels[dsAttached] = reader.indexOf("ds/isDSAttached");
+        channels[alliance] = reader.indexOf("ds/alliance");
+        channels[matchTime] = reader.indexOf("ds/matchTimeSeconds");
+
+        for(int port = 0; port < LoggingConstants.joystickPortCount; port++) {
+            String prefix = "ds/joystick" + port + "/";
+            int base = firstJoystick + port * joystickChannels;
+
+            channels[base] = reader.indexOf(prefix + "isConnected");
+            channels[base + 1] = reader.indexOf(prefix + "isXbox");
+            channels[base + 2] = reader.indexOf(prefix + "buttonCount");
+            for(int axis = 0; axis < LoggingConstants.joystickAxisCount; axis++) {
+                channels[base + 3 + axis] = reader.indexOf(prefix + "axis" + axis);
+            }
+            channels[base + 3 + LoggingConstants.joystickAxisCount] = reader.indexOf(prefix + "buttons");
+            channels[base + 4 + LoggingConstants.joystickAxisCount] = reader.indexOf(prefix + "pov");
+        }
+
+        return channels;
+    }
+
+    private double ds(int channel) {
+        int index = dsChannels[channel];
+        return index < 0 ? 0.0 : reader.getValue(index);
+    }
+
+    private boolean dsFlag(int channel) {
+        return ds(channel) != 0.0;
+    }
+
+    /**
+     * Feeds the recorded driver station state to the simulated driver station, so the robot reads it like it did
+     * on the field.
+     */
+    private void updateDriverStation() {
+        DriverStationSim.setEnabled(dsFlag(enabled));
+        DriverStationSim.setAutonomous(dsFlag(autonomous));
+        DriverStationSim.setTest(dsFlag(test));
+        DriverStationSim.setDsAttached(dsFlag(dsAttached));
+        DriverStationSim.setMatchTime(ds(matchTime));
+
+        int allianceOrdinal = (int)ds(alliance);
+        if(allianceOrdinal == DriverStation.Alliance.Red.ordinal()) DriverStationSim.setAllianceStationId(AllianceStationID.Red1);
+        else if(allianceOrdinal == DriverStation.Alliance.Blue.ordinal()) DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+
+        for(int port = 0; port < LoggingConstants.joystickPortCount; port++) {
+            int base = firstJoystick + port * joystickChannels;
+            boolean isConnected = dsFlag(base);
+
+            DriverStationSim.setJoystickIsXbox(port, dsFlag(base + 1));
+            DriverStationSim.setJoystickButtonCount(port, isConnected ? (int)ds(base + 2) : 0);
+            DriverStationSim.setJoystickAxisCount(port, isConnected ? LoggingConstants.joystickAxisCount : 0);
+            DriverStationSim.setJoystickPOVCount(port, isConnected ? 1 : 0);
+
+            for(int axis = 0; axis < LoggingConstants.joystickAxisCount; axis++) {
+                DriverStationSim.setJoystickAxis(port, axis, ds(base + 3 + axis));
+            }
+            DriverStationSim.setJoystickButtons(port, (int)ds(base + 3 + LoggingConstants.joystickAxisCount));
+            DriverStationSim.setJoystickPOV(port, 0, (int)ds(base + 4 + LoggingConstants.joystickAxisCount));
+        }
+
+        DriverStationSim.notifyNewData();
+    }
+
+    private String getMode() {
+        if(!dsFlag(enabled)) return "disabled";
+        if(dsFlag(autonomous)) return "autonomous";
+        if(dsFlag(test)) return "test";
+        return "teleop";
+    }
+
+    private boolean report(File logFile, ArrayList<Long> loopNanos, int droppedFrames, double matchSeconds, double replaySeconds) {
+        System.out.println("Replayed " + logFile + ": " + reader.getFrameCount() + " frames, " +
+            String.format("%.1f s of robot time in %.1f s (%.0fx real time)", matchSeconds, replaySeconds, matchSeconds / Math.max(replaySeconds, 1e-9)));
+
+        if(droppedFrames > 0) System.out.println("The robot dropped " + droppedFrames + " frames while logging.");
+        if(reader.isTruncated()) System.out.println("The log ends partway through a frame, the robot likely lost power.");
+
+        if(!loopNanos.isEmpty()) {
+            long[] sorted = loopNanos.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+
+            System.out.println(String.format(
+                "Loop time: mean %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+                Arrays.stream(sorted).average().orElse(0.0) / 1e6,
+                sorted[sorted.length / 2] / 1e6,
+                sorted[Math.min(sorted.length - 1, (int)(sorted.length * 0.99))] / 1e6,
+                sorted[sorted.length - 1] / 1e6
+            ));
+        }
+
+        for(String channel : missingChannels) {
+            System.out.println("Unmatched channel: " + channel);
+        }
+
+        ArrayList<Divergence> diverged = new ArrayList<Divergence>();
+        for(Divergence divergence : divergences) {
+            if(divergence != null) diverged.add(divergence);
+        }
+
+        if(diverged.isEmpty()) {
+            System.out.println("Every output matched the log.");
+            return false;
+        }
+
+        diverged.sort((a, b) -> Double.compare(a.firstTimeSeconds, b.firstTimeSeconds));
+
+        System.out.println(diverged.size() + " outputs diverged:");
+        System.out.println(String.format("%-40s %10s %8s %14s %14s %12s", "channel", "first (s)", "frames", "recorded", "replayed", "max error"));
+        for(Divergence divergence : diverged) {
+            System.out.println(String.format(
+                "%-40s %10.3f %8d %14.6g %14.6g %12.6g",
+                divergence.name,
+                divergence.firstTimeSeconds,
+                divergence.frameCount,
+                divergence.firstRecorded,
+                divergence.firstReplayed,
+                divergence.maxError
+            ));
+        }
+
+        return true;
+    }
+}
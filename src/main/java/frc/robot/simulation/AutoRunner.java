@@ -0,0 +1,341 @@
+package frc.robot.simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.SimulationConstants;
+import frc.robot.Robot;
+import frc.robot.RobotContainer;
+import frc.robot.subsystems.SwerveSys;
+
+/**
+ * Runs every auto in the auto selector against the simulated robot, faster than real time, and reports how long
+ * each one takes.
+ *
+ * <p>The real {@link Robot} is constructed on the simulated HAL with its clock paused, and the clock is stepped one
+ * loop period at a time with the loops run back to back. The physics models and the odometry thread see the stepped
+ * time, so the robot drives exactly as it would in real time, and an auto finishes in a fraction of a second.
+ *
+ * <p>The HAL can only hold one robot per process, so a single robot runs every auto in turn. Between autos it is held
+ * disabled for {@link SimulationConstants#autoSettleSeconds}, which builds the next auto and lets the mechanisms come
+ * to rest. Every auto places the robot on the field when it starts, but the lift and intake start wherever the last
+ * auto left them.
+ *
+ * <p>For each auto this reports whether it finished within the autonomous period, how long it took, the time and end
+ * error of every trajectory it followed, how far odometry drifted from the simulated robot, and the main loop's CPU
+ * time per cycle. The physics models run inside the loop, so loop times read somewhat higher than on the robot.
+ *
+ * <p>Run with "./gradlew runAutos", or "./gradlew runAutos -Pautos=Cone,Cube" to run some of them. Tables are also
+ * written as CSV. Exits with status 1 if any auto didn't finish in time.
+ */
+public class AutoRunner {
+
+    private static final double loopSeconds = TimedRobot.kDefaultPeriod;
+
+    /**
+     * One trajectory followed during an auto.
+     */
+    private static class Segment {
+
+        private final String name;
+        private final double startSeconds;
+
+        private double durationSeconds = 0.0;
+        private Pose2d target;
+        private double endErrorMeters = 0.0;
+        private double endHeadingErrorDegrees = 0.0;
+        private boolean isComplete = false;
+
+        private Segment(String name, double startSeconds) {
+            this.name = name;
+            this.startSeconds = startSeconds;
+        }
+    }
+
+    /**
+     * The outcome of one auto.
+     */
+    private static class Result {
+
+        private final String name;
+
+        private boolean isFinished = false;
+        private double durationSeconds = 0.0;
+        private double odometryErrorMeters = 0.0;
+        private final ArrayList<Segment> segments = new ArrayList<Segment>();
+
+        private long[] loopNanos;
+        private double runSeconds = 0.0;
+
+        private Result(String name) {
+            this.name = name;
+        }
+
+        private double getLoopMillis(double percentile) {
+            if(loopNanos.length == 0) return 0.0;
+            return loopNanos[Math.min(loopNanos.length - 1, (int)(loopNanos.length * percentile))] / 1e6;
+        }
+
+        private double getMeanLoopMillis() {
+            return Arrays.stream(loopNanos).average().orElse(0.0) / 1e6;
+        }
+    }
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private final Robot robot;
+    private final RobotContainer robotContainer;
+    private final SwerveSys swerveSys;
+
+    private AutoRunner(Robot robot) {
+        this.robot = robot;
+        robotContainer = robot.getRobotContainer();
+        swerveSys = robotContainer.getSwerveSys();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            System.err.println("Usage: AutoRunner <output directory> [auto name]...");
+            System.exit(2);
+        }
+
+        File outputDirectory = new File(args[0]);
+
+        if(!HAL.initialize(500, 0)) throw new IllegalStateException("Failed to initialize the HAL");
+
+        // The clock only moves when the runner steps it, so every loop sees exactly one loop period pass.
+        SimHooks.pauseTiming();
+
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+        DriverStationSim.setAutonomous(true);
+        setEnabled(false);
+
+        Robot robot = new Robot();
+        robot.robotInit();
+
+        AutoRunner runner = new AutoRunner(robot);
+
+        List<String> names = args.length > 1
+            ? Arrays.asList(Arrays.copyOfRange(args, 1, args.length))
+            : runner.robotContainer.getAutoNames();
+
+        ArrayList<Result> results = new ArrayList<Result>();
+        for(String name : names) {
+            results.add(runner.run(name));
+        }
+
+        if(!outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+            throw new IOException("Could not create " + outputDirectory);
+
+        writeAutos(new File(outputDirectory, "autos.csv"), results);
+        writeSegments(new File(outputDirectory, "segments.csv"), results);
+
+        boolean hasUnfinished = report(results);
+        System.out.println("Tables written to " + outputDirectory.getAbsolutePath());
+
+        System.exit(hasUnfinished ? 1 : 0);
+    }
+
+    private Result run(String name) {
+        Result result = new Result(name);
+
+        robotContainer.selectAuto(name);
+
+        setEnabled(false);
+        robot.disabledInit();
+        for(double t = 0.0; t < SimulationConstants.autoSettleSeconds; t += loopSeconds) {
+            SimHooks.stepTiming(loopSeconds);
+            robot.robotPeriodic();
+            robot.disabledPeriodic();
+        }
+
+        Command auto = robotContainer.getAutonomousCommand();
+
+        setEnabled(true);
+        robot.autonomousInit();
+
+        ArrayList<Long> loopNanos = new ArrayList<Long>();
+        Segment segment = null;
+
+        double startSeconds = Timer.getFPGATimestamp();
+        long runStartNanos = System.nanoTime();
+
+        while(Timer.getFPGATimestamp() - startSeconds < SimulationConstants.autoPeriodSeconds) {
+            SimHooks.stepTiming(loopSeconds);
+
+            long loopStartNanos = getCpuNanos();
+            robot.robotPeriodic();
+            loopNanos.add(getCpuNanos() - loopStartNanos);
+
+            double nowSeconds = Timer.getFPGATimestamp() - startSeconds;
+
+            // A trajectory ends when the drivetrain stops following it, or when the next one takes over.
+            String trajectoryName = swerveSys.getTrajectoryName();
+            if(segment != null && !segment.name.equals(trajectoryName)) {
+                finishSegment(segment, nowSeconds, true);
+                segment = null;
+            }
+            if(trajectoryName != null) {
+                if(segment == null) {
+                    segment = new Segment(trajectoryName, nowSeconds);
+                    result.segments.add(segment);
+                }
+                segment.target = swerveSys.getTrajectoryTarget();
+            }
+
+            if(auto == null || !auto.isScheduled()) {
+                result.isFinished = true;
+                break;
+            }
+        }
+
+        result.runSeconds = (System.nanoTime() - runStartNanos) / 1e9;
+        result.durationSeconds = Timer.getFPGATimestamp() - startSeconds;
+
+        if(segment != null) finishSegment(segment, result.durationSeconds, false);
+
+        result.odometryErrorMeters =
+            swerveSys.getPose().getTranslation().getDistance(swerveSys.getSimulatedPose().getTranslation());
+
+        result.loopNanos = loopNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+
+        CommandScheduler.getInstance().cancelAll();
+        setEnabled(false);
+
+        return result;
+    }
+
+    private void finishSegment(Segment segment, double nowSeconds, boolean isComplete) {
+        Pose2d pose = swerveSys.getSimulatedPose();
+
+        segment.durationSeconds = nowSeconds - segment.startSeconds;
+        segment.isComplete = isComplete;
+        segment.endErrorMeters = pose.getTranslation().getDistance(segment.target.getTranslation());
+        segment.endHeadingErrorDegrees = Math.abs(pose.getRotation().minus(segment.target.getRotation()).getDegrees());
+    }
+
+    /**
+     * Returns the CPU time this thread has used, so time the loop spends waiting doesn't count against it.
+     *
+     * @return The thread's CPU time, or the wall clock if the JVM can't measure it.
+     */
+    private long getCpuNanos() {
+        return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private static void setEnabled(boolean isEnabled) {
+        DriverStationSim.setEnabled(isEnabled);
+        DriverStationSim.notifyNewData();
+    }
+
+    private static boolean report(List<Result> results) {
+        boolean hasUnfinished = false;
+
+        System.out.println(String.format(
+            "%-32s %9s %9s %8s %12s %9s %9s %9s %9s",
+            "auto", "finished", "time (s)", "paths", "odom err (m)", "mean (ms)", "p50 (ms)", "p99 (ms)", "max (ms)"
+        ));
+
+        for(Result result : results) {
+            if(!result.isFinished) hasUnfinished = true;
+
+            System.out.println(String.format(
+                Locale.ROOT,
+                "%-32s %9s %9.2f %8d %12.3f %9.3f %9.3f %9.3f %9.3f",
+                result.name,
+                result.isFinished ? "yes" : "NO",
+                result.durationSeconds,
+                result.segments.size(),
+                result.odometryErrorMeters,
+                result.getMeanLoopMillis(),
+                result.getLoopMillis(0.5),
+                result.getLoopMillis(0.99),
+                result.getLoopMillis(1.0)
+            ));
+
+            for(Segment segment : result.segments) {
+                System.out.println(String.format(
+                    Locale.ROOT,
+                    "    %-28s start %6.2f s, took %6.2f s, ended %.3f m and %.1f deg off%s",
+                    segment.name,
+                    segment.startSeconds,
+                    segment.durationSeconds,
+                    segment.endErrorMeters,
+                    segment.endHeadingErrorDegrees,
+                    segment.isComplete ? "" : " (cut off)"
+                ));
+            }
+        }
+
+        double autoSeconds = results.stream().mapToDouble(result -> result.durationSeconds).sum();
+        double runSeconds = results.stream().mapToDouble(result -> result.runSeconds).sum();
+        System.out.println(String.format(
+            Locale.ROOT,
+            "Ran %d autos: %.1f s of robot time in %.1f s (%.0fx real time)",
+            results.size(), autoSeconds, runSeconds, autoSeconds / Math.max(runSeconds, 1e-9)
+        ));
+
+        return hasUnfinished;
+    }
+
+    private static void writeAutos(File file, List<Result> results) throws IOException {
+        try(PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println("auto,finished,durationSeconds,paths,odometryErrorMeters,loopMeanMs,loopP50Ms,loopP99Ms,loopMaxMs");
+
+            for(Result result : results) {
+                out.println(String.join(",",
+                    result.name,
+                    Boolean.toString(result.isFinished),
+                    format(result.durationSeconds),
+                    Integer.toString(result.segments.size()),
+                    format(result.odometryErrorMeters),
+                    format(result.getMeanLoopMillis()),
+                    format(result.getLoopMillis(0.5)),
+                    format(result.getLoopMillis(0.99)),
+                    format(result.getLoopMillis(1.0))
+                ));
+            }
+        }
+    }
+
+    private static void writeSegments(File file, List<Result> results) throws IOException {
+        try(PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println("auto,trajectory,complete,startSeconds,durationSeconds,endErrorMeters,endHeadingErrorDegrees");
+
+            for(Result result : results) {
+                for(Segment segment : result.segments) {
+                    out.println(String.join(",",
+                        result.name,
+                        segment.name,
+                        Boolean.toString(segment.isComplete),
+                        format(segment.startSeconds),
+                        format(segment.durationSeconds),
+                        format(segment.endErrorMeters),
+                        format(segment.endHeadingErrorDegrees)
+                    ));
+                }
+            }
+        }
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.4f", value);
+    }
+}
@@ -0,0 +1,360 @@
+package frc.robot.simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import com.pathplanner.lib.controllers.PPHolonomicDriveController;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import frc.robot.Constants.AutoConstants;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.SimulationConstants;
+import frc.robot.subsystems.SwerveModule;
+import frc.robot.subsystems.SwerveSys;
+import frc.robot.subsystems.sim.SwerveModuleSim;
+
+/**
+ * Finds the fastest velocity and acceleration constraints each path can be followed at.
+ *
+ * <p>For every path in deploy/pathplanner, every pair of {@link SimulationConstants#sweepMaxVelsMetersPerSec} and
+ * {@link SimulationConstants#sweepMaxAccelsMetersPerSecondSq} is generated and followed by a simulated drivetrain,
+ * with the same controller and module commands {@link frc.robot.commands.auto.FollowTrajectoryCmd} uses. A pair
+ * passes if the robot stays within {@link SimulationConstants#sweepMaxTrackingErrorMeters} of the trajectory and no
+ * wheel accelerates harder than its tread can grip. The passing pair with the shortest trajectory wins.
+ *
+ * <p>Each run has its own drivetrain and controllers and never touches the HAL's clock, so the runs are independent
+ * and are spread across every core on a ForkJoinPool. Only the drivetrain is simulated, from the path's start pose.
+ *
+ * <p>Run with "./gradlew optimizeConstraints", or pass -Ppaths=<names, comma separated> to sweep some of them. The
+ * table is written as CSV, with each path's winning {@code FollowTrajectoryCmd} arguments ready to paste.
+ */
+public class ConstraintOptimizer {
+
+    private static final double loopSeconds = TimedRobot.kDefaultPeriod;
+
+    private static final double maxWheelAccelMetersPerSecondSq = SimulationConstants.wheelCoefficientOfFriction * 9.81;
+
+    /**
+     * The outcome of following one path at one pair of constraints.
+     */
+    private static class Run {
+
+        private final String path;
+        private final double maxVelMetersPerSec;
+        private final double maxAccelMetersPerSecondSq;
+
+        private double durationSeconds = Double.NaN;
+        private double maxErrorMeters = 0.0;
+        private double endErrorMeters = 0.0;
+        private double maxWheelAccelMetersPerSecondSq = 0.0;
+
+        private Run(String path, double maxVelMetersPerSec, double maxAccelMetersPerSecondSq) {
+            this.path = path;
+            this.maxVelMetersPerSec = maxVelMetersPerSec;
+            this.maxAccelMetersPerSecondSq = maxAccelMetersPerSecondSq;
+        }
+
+        private boolean isGenerated() {
+            return !Double.isNaN(durationSeconds);
+        }
+
+        private boolean passes() {
+            return isGenerated()
+                && maxErrorMeters <= SimulationConstants.sweepMaxTrackingErrorMeters
+                && maxWheelAccelMetersPerSecondSq <= ConstraintOptimizer.maxWheelAccelMetersPerSecondSq;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        if(args.length < 1) {
+            System.err.println("Usage: ConstraintOptimizer <output directory> [path name]...");
+            System.exit(2);
+        }
+
+        File outputDirectory = new File(args[0]);
+
+        if(!HAL.initialize(500, 0)) throw new IllegalStateException("Failed to initialize the HAL");
+
+        // The module models idle their motors while the robot is disabled.
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAutonomous(true);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+
+        List<String> paths = args.length > 1
+            ? Arrays.asList(Arrays.copyOfRange(args, 1, args.length))
+            : listPaths();
+
+        ArrayList<Callable<Run>> tasks = new ArrayList<Callable<Run>>();
+        for(String path : paths) {
+            for(double maxVel : SimulationConstants.sweepMaxVelsMetersPerSec) {
+                for(double maxAccel : SimulationConstants.sweepMaxAccelsMetersPerSecondSq) {
+                    tasks.add(() -> simulate(path, maxVel, maxAccel));
+                }
+            }
+        }
+
+        long startNanos = System.nanoTime();
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        ArrayList<Run> runs = new ArrayList<Run>();
+        try {
+            for(Future<Run> run : pool.invokeAll(tasks)) {
+                runs.add(run.get());
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        if(!outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+            throw new IOException("Could not create " + outputDirectory);
+
+        writeRuns(new File(outputDirectory, "runs.csv"), runs);
+        writeBest(new File(outputDirectory, "constraints.csv"), paths, runs);
+
+        System.out.println(String.format(
+            Locale.ROOT,
+            "Simulated %d runs of %d paths in %.2f s on %d cores. Tables written to %s",
+            runs.size(), paths.size(), elapsedSeconds, pool.getParallelism(), outputDirectory.getAbsolutePath()
+        ));
+
+        System.exit(0);
+    }
+
+    private static List<String> listPaths() throws IOException {
+        File pathDir = new File(Filesystem.getDeployDirectory(), "pathplanner");
+        File[] pathFiles = pathDir.listFiles((dir, name) -> name.endsWith(".path"));
+        if(pathFiles == null) throw new IOException("No path directory at " + pathDir);
+
+        ArrayList<String> paths = new ArrayList<String>();
+        for(File pathFile : pathFiles) {
+            paths.add(pathFile.getName().substring(0, pathFile.getName().length() - ".path".length()));
+        }
+        paths.sort(null);
+
+        return paths;
+    }
+
+    /**
+     * Follows one path at one pair of constraints with a fresh simulated drivetrain.
+     */
+    private static Run simulate(String path, double maxVelMetersPerSec, double maxAccelMetersPerSecondSq) {
+        Run run = new Run(path, maxVelMetersPerSec, maxAccelMetersPerSecondSq);
+
+        PathPlannerTrajectory trajectory = PathPlanner.loadPath(path, maxVelMetersPerSec, maxAccelMetersPerSecondSq);
+        if(trajectory == null) return run;
+
+        // The controllers in AutoConstants are shared, so each run builds its own with the same gains.
+        PIDController driveController = new PIDController(AutoConstants.drivekP, 0.0, AutoConstants.drivekD);
+        PPHolonomicDriveController controller = new PPHolonomicDriveController(
+            driveController,
+            driveController,
+            AutoConstants.constructRotController()
+        );
+
+        int moduleCount = DriveConstants.moduleXMeters.length;
+
+        SwerveModuleSim[] modules = new SwerveModuleSim[moduleCount];
+        SwerveModuleState[] states = new SwerveModuleState[moduleCount];
+        double[] lastVx = new double[moduleCount];
+        double[] lastVy = new double[moduleCount];
+        for(int i = 0; i < moduleCount; i++) {
+            modules[i] = new SwerveModuleSim();
+            states[i] = new SwerveModuleState();
+        }
+
+        double[] speeds = new double[moduleCount];
+        double[] anglesRadians = new double[moduleCount];
+
+        Pose2d pose = trajectory.getInitialHolonomicPose();
+
+        double dtSeconds = loopSeconds / SimulationConstants.substepsPerLoop;
+        double totalSeconds = trajectory.getTotalTimeSeconds();
+
+        for(double t = 0.0; t <= totalSeconds; t += loopSeconds) {
+            PathPlannerState state = (PathPlannerState)trajectory.sample(t);
+
+            run.maxErrorMeters = Math.max(
+                run.maxErrorMeters,
+                pose.getTranslation().getDistance(state.poseMeters.getTranslation())
+            );
+
+            ChassisSpeeds chassisSpeeds = controller.calculate(pose, state);
+            SwerveSys.toModuleStates(
+                chassisSpeeds.vxMetersPerSecond,
+                chassisSpeeds.vyMetersPerSecond,
+                chassisSpeeds.omegaRadiansPerSecond,
+                speeds,
+                anglesRadians
+            );
+
+            for(int i = 0; i < moduleCount; i++) {
+                drive(modules[i], speeds[i], anglesRadians[i]);
+            }
+
+            for(int step = 0; step < SimulationConstants.substepsPerLoop; step++) {
+                for(int i = 0; i < moduleCount; i++) {
+                    modules[i].update(dtSeconds);
+                    states[i].speedMetersPerSecond = modules[i].getDriveVelocityMetersPerSecond();
+                    states[i].angle = new Rotation2d(modules[i].getSteerAngleRadians());
+                }
+
+                ChassisSpeeds measured = DriveConstants.kinematics.toChassisSpeeds(states);
+                pose = pose.exp(new Twist2d(
+                    measured.vxMetersPerSecond * dtSeconds,
+                    measured.vyMetersPerSecond * dtSeconds,
+                    measured.omegaRadiansPerSecond * dtSeconds
+                ));
+            }
+
+            // Each wheel's acceleration over the loop, including turning, is what its tread has to grip through.
+            for(int i = 0; i < moduleCount; i++) {
+                double vx = states[i].speedMetersPerSecond * states[i].angle.getCos();
+                double vy = states[i].speedMetersPerSecond * states[i].angle.getSin();
+
+                run.maxWheelAccelMetersPerSecondSq = Math.max(
+                    run.maxWheelAccelMetersPerSecondSq,
+                    Math.hypot(vx - lastVx[i], vy - lastVy[i]) / loopSeconds
+                );
+
+                lastVx[i] = vx;
+                lastVy[i] = vy;
+            }
+        }
+
+        run.durationSeconds = totalSeconds;
+        run.endErrorMeters = pose.getTranslation().getDistance(trajectory.getEndState().poseMeters.getTranslation());
+        run.maxErrorMeters = Math.max(run.maxErrorMeters, run.endErrorMeters);
+
+        return run;
+    }
+
+    /**
+     * Commands a module open-loop, optimized the same way {@link SwerveModule#setDesiredState} does.
+     */
+    private static void drive(SwerveModuleSim module, double speedMetersPerSecond, double angleRadians) {
+        double currentAngleRadians = module.getSteerPositionRadians();
+
+        if(Math.abs(MathUtil.angleModulus(angleRadians - currentAngleRadians)) > 0.5 * Math.PI) {
+            speedMetersPerSecond = -speedMetersPerSecond;
+            angleRadians = MathUtil.angleModulus(angleRadians + Math.PI);
+        }
+
+        module.setSteerTarget(SwerveModule.calculateAdjustedAngle(angleRadians, currentAngleRadians));
+        module.setDriveDutyCycle(speedMetersPerSecond / DriveConstants.kFreeMetersPerSecond);
+    }
+
+    private static void writeRuns(File file, List<Run> runs) throws IOException {
+        try(PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println("path,maxVelMetersPerSec,maxAccelMetersPerSecondSq,passes,durationSeconds,maxErrorMeters,endErrorMeters,maxWheelAccelMetersPerSecondSq");
+
+            for(Run run : runs) {
+                out.println(String.join(",",
+                    run.path,
+                    format(run.maxVelMetersPerSec),
+                    format(run.maxAccelMetersPerSecondSq),
+                    Boolean.toString(run.passes()),
+                    format(run.durationSeconds),
+                    format(run.maxErrorMeters),
+                    format(run.endErrorMeters),
+                    format(run.maxWheelAccelMetersPerSecondSq)
+                ));
+            }
+        }
+    }
+
+    /**
+     * Prints and writes the winning constraints for each path, next to how the path does at the default ones.
+     */
+    private static void writeBest(File file, List<String> paths, List<Run> runs) throws IOException {
+        System.out.println(String.format(
+            "%-36s %11s %11s %9s %9s %10s  %s",
+            "path", "default (s)", "best (s)", "vel", "accel", "error (m)", "arguments"
+        ));
+
+        try(PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println("path,defaultSeconds,bestSeconds,maxVelMetersPerSec,maxAccelMetersPerSecondSq,maxErrorMeters,arguments");
+
+            for(String path : paths) {
+                Run best = null;
+                Run fallback = null;
+                for(Run run : runs) {
+                    if(!run.path.equals(path)) continue;
+
+                    if(run.passes() && (best == null || run.durationSeconds < best.durationSeconds
+                        || (run.durationSeconds == best.durationSeconds && run.maxErrorMeters < best.maxErrorMeters))) {
+                        best = run;
+                    }
+                    if(run.isGenerated() && (fallback == null || run.maxErrorMeters < fallback.maxErrorMeters)) {
+                        fallback = run;
+                    }
+                }
+
+                Run baseline = simulate(path, AutoConstants.maxVelMetersPerSec, AutoConstants.maxAccelMetersPerSecondSq);
+
+                if(best == null) {
+                    System.out.println(String.format(
+                        Locale.ROOT,
+                        "%-36s %11.2f  %s",
+                        path,
+                        baseline.durationSeconds,
+                        fallback == null
+                            ? "couldn't be generated"
+                            : String.format(Locale.ROOT, "no pair passes, the closest is %.3f m off", fallback.maxErrorMeters)
+                    ));
+                    out.println(String.join(",", path, format(baseline.durationSeconds), "", "", "", "", ""));
+                    continue;
+                }
+
+                String arguments = String.format(
+                    Locale.ROOT, "\"%s\", %s, %s", path, Double.toString(best.maxVelMetersPerSec), Double.toString(best.maxAccelMetersPerSecondSq)
+                );
+
+                System.out.println(String.format(
+                    Locale.ROOT,
+                    "%-36s %11.2f %11.2f %9s %9s %10.3f  %s",
+                    path, baseline.durationSeconds, best.durationSeconds, Double.toString(best.maxVelMetersPerSec),
+                    Double.toString(best.maxAccelMetersPerSecondSq), best.maxErrorMeters, arguments
+                ));
+                out.println(String.join(",",
+                    path,
+                    format(baseline.durationSeconds),
+                    format(best.durationSeconds),
+                    format(best.maxVelMetersPerSec),
+                    format(best.maxAccelMetersPerSecondSq),
+                    format(best.maxErrorMeters),
+                    "\"" + arguments.replace("\"", "\"\"") + "\""
+                ));
+            }
+        }
+    }
+
+    private static String format(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.4f", value);
+    }
+}
@@ -6,6 +6,7 @@ import edu.wpi.first.wpilibj.DoubleSolenoid.Value;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.CANDevices;
 import frc.robot.Constants.PneumaticChannels;
+import frc.robot.logging.MatchLogger;
 
 public class ClawSys extends SubsystemBase {
 
@@ -13,6 +14,8 @@ public class ClawSys extends SubsystemBase {
 
     public ClawSys() {
         clawSol = new DoubleSolenoid(CANDevices.pneumaticHubId, PneumaticsModuleType.REVPH, PneumaticChannels.clawSolChs[0], PneumaticChannels.clawSolChs[1]);
+
+        MatchLogger.getInstance().addBooleanOutput("claw/isOpen", this::isOpen);
     }
 
     // This method will be called once per scheduler run
@@ -3,15 +3,30 @@ package frc.robot.subsystems;
 import edu.wpi.first.wpilibj.Compressor;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.PneumaticsModuleType;
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.CANDevices;
 import frc.robot.Constants.CompressorConstants;
+import frc.robot.Constants.SimulationConstants;
+import frc.robot.logging.MatchLogger;
+import frc.robot.profiling.LoopProfiler;
+import frc.robot.profiling.LoopTimer;
+import frc.robot.subsystems.inputs.CompressorInputs;
+import frc.robot.subsystems.sim.PneumaticsSim;
+import frc.robot.subsystems.sim.Simulation;
 
 public class CompressorSys extends SubsystemBase {
 
+    private final LoopTimer periodicTimer = LoopProfiler.getInstance().register("CompressorSys.periodic");
+
     private final Compressor compressor;
 
+    private final CompressorInputs inputs = new CompressorInputs();
+
+    // Models the air on the desktop, where the hub has no pressure sensor. Null on the robot.
+    private final PneumaticsSim sim = Simulation.isPhysicsEnabled() ? new PneumaticsSim() : null;
+
     private final Timer runTimer;
 
     private boolean hasTurnedOff = true;
@@ -30,11 +45,27 @@ public class CompressorSys extends SubsystemBase {
 
         runTimer = new Timer();
         runTimer.reset();
+
+        inputs.register("compressor/");
+        MatchLogger.getInstance().addBooleanOutput("compressor/isRunning", this::isRunning);
+
+        updateInputs();
+    }
+
+    /**
+     * Reads the pneumatic hub once. Called at the start of each loop, before any subsystem or command runs.
+     */
+    public void updateInputs() {
+        inputs.pressurePSI = sim != null ? sim.getPressurePSI() : compressor.getPressure();
+        inputs.currentAmps = compressor.getCurrent();
+        inputs.isEnabled = compressor.isEnabled();
     }
 
     // This method will be called once per scheduler run
     @Override
     public void periodic() {
+        periodicTimer.start();
+
         if(isRunning()) {
             runTimer.start();
 
@@ -47,8 +78,20 @@ public class CompressorSys extends SubsystemBase {
             hasTurnedOff = true;
         }
 
-        if(compressor.getPressure() <= 0.0)
+        if(inputs.pressurePSI <= 0.0)
             DriverStation.reportError("PRESSURE RELEASE VALVE IS OPEN", false);
+
+        periodicTimer.stop();
+    }
+
+    @Override
+    public void simulationPeriodic() {
+        if(sim == null) return;
+
+        double dtSeconds = TimedRobot.kDefaultPeriod / SimulationConstants.substepsPerLoop;
+        for(int step = 0; step < SimulationConstants.substepsPerLoop; step++) {
+            sim.update(dtSeconds);
+        }
     }
 
     /**
@@ -57,7 +100,7 @@ public class CompressorSys extends SubsystemBase {
      * @return True if the compressor is enabled.
      */
     public boolean isEnabled() {
-        return compressor.isEnabled();
+        return inputs.isEnabled;
     }
 
     /**
@@ -88,11 +131,11 @@ public class CompressorSys extends SubsystemBase {
      * @return The pressure of the air tanks, in PSI.
      */
     public double getPressurePSI() {
-        return compressor.getPressure();
+        return inputs.pressurePSI;
     }
 
     public boolean isRunning() {
-        return compressor.getCurrent() > 0.3;
+        return inputs.currentAmps > 0.3;
     }
 
     public double getRunTimeSeconds() {
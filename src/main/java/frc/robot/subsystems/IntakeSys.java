@@ -10,25 +10,66 @@ import com.revrobotics.CANSparkMax.ControlType;
 import com.revrobotics.CANSparkMax.IdleMode;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.CANDevices;
 import frc.robot.Constants.IntakeConstants;
+import frc.robot.Constants.SimulationConstants;
+import frc.robot.Constants.TelemetryConstants;
+import frc.robot.can.CANBudget;
+import frc.robot.can.DeviceConfig;
+import frc.robot.can.DeviceConfigurator;
+import frc.robot.can.DeviceHealth;
+import frc.robot.can.DeviceHealthMonitor;
+import frc.robot.history.StateHistory;
+import frc.robot.can.SparkMaxRole;
+import frc.robot.logging.MatchLogger;
+import frc.robot.output.OutputStage;
+import frc.robot.output.SparkMaxOutput;
+import frc.robot.profiling.LoopProfiler;
+import frc.robot.profiling.LoopTimer;
+import frc.robot.subsystems.inputs.IntakeInputs;
+import frc.robot.subsystems.sim.IntakeSim;
+import frc.robot.subsystems.sim.Simulation;
+import frc.robot.telemetry.Telemetry;
+import frc.robot.telemetry.Telemetry.DoubleEntry;
 
 public class IntakeSys extends SubsystemBase {
 
+    private final LoopTimer periodicTimer = LoopProfiler.getInstance().register("IntakeSys.periodic");
+
     // Declare actuators, sensors, and other variables here
 
     private final CANSparkMax actuationMtr;
     private final CANSparkMax rollerMtr;
 
     private final RelativeEncoder intakeEnc;
+    private final RelativeEncoder rollerEnc;
+
+    // A motor is left alone while it isn't answering, and its last readings are held.
+    private final DeviceHealth actuationHealth;
+    private final DeviceHealth rollerHealth;
+
+    private final IntakeInputs inputs = new IntakeInputs();
+
+    // Stands in for the motors on the desktop. Null on the robot.
+    private final IntakeSim sim = Simulation.isPhysicsEnabled() ? new IntakeSim() : null;
+
+    private final DoubleEntry rollerPowerEntry =
+        Telemetry.getInstance().addDouble("roller power", TelemetryConstants.defaultPeriodCycles, 0.01);
 
     private final SparkMaxPIDController actuationController;
     private final SparkMaxPIDController rollerController;
 
+    // Commands are staged here and written at the end of the loop.
+    private final SparkMaxOutput actuationMtrOutput;
+    private final SparkMaxOutput rollerMtrOutput;
+
     private double targetInches = 0.0;
 
+    private double rollerTargetRPM = 0.0;
+
     private boolean actuationIsManual = false;
     private boolean rollersAreManual = false;
     private boolean rollersAreRelative = false;
@@ -50,49 +91,140 @@ public class IntakeSys extends SubsystemBase {
     public IntakeSys(DoubleSupplier robotSpeedMetersPerSecond) {
         // Initialize and configure actuators and sensors here
         actuationMtr = new CANSparkMax(CANDevices.actuationMtrId, MotorType.kBrushed);
-        actuationMtr.setInverted(true);
-        actuationMtr.setSmartCurrentLimit(IntakeConstants.actuationCurrentLimitAmps);
-
         rollerMtr = new CANSparkMax(CANDevices.rollerMtrId, MotorType.kBrushless);
-        rollerMtr.setInverted(true);
-        rollerMtr.getEncoder().setVelocityConversionFactor(IntakeConstants.rollerGearReduction);
-        rollerMtr.setIdleMode(IdleMode.kBrake);
-        rollerMtr.setSmartCurrentLimit(IntakeConstants.rollerCurrentLimitAmps);
 
         intakeEnc = actuationMtr.getEncoder(SparkMaxRelativeEncoder.Type.kQuadrature, IntakeConstants.actuationEncCountsPerRev);
-        intakeEnc.setAverageDepth(64);
-        intakeEnc.setPosition(offsetInches);
-        intakeEnc.setInverted(false);
-        intakeEnc.setPositionConversionFactor(IntakeConstants.encRevToInches);
+        rollerEnc = rollerMtr.getEncoder();
+
+        actuationController = actuationMtr.getPIDController();
+        rollerController = rollerMtr.getPIDController();
+
+        actuationHealth = DeviceHealthMonitor.getInstance().add("IntakeSys actuation", actuationMtr);
+        rollerHealth = DeviceHealthMonitor.getInstance().add("IntakeSys roller", rollerMtr);
+
+        actuationMtrOutput = OutputStage.getInstance().add(actuationMtr, actuationHealth);
+        rollerMtrOutput = OutputStage.getInstance().add(rollerMtr, rollerHealth);
 
         this.robotSpeedMetersPerSecond = robotSpeedMetersPerSecond;
         // relativeSpeed = IntakeConstants.rollerRelativeMetersPerSecond;
 
-        actuationController = actuationMtr.getPIDController();
-        actuationController.setP(IntakeConstants.kP);
-        actuationController.setD(IntakeConstants.kD);
+        // Configured in parallel with the other devices.
+        DeviceConfigurator.getInstance().configure(
+            new DeviceConfig("IntakeSys actuation", actuationHealth)
+                .run("inverted", () -> actuationMtr.setInverted(true), () -> actuationMtr.getInverted())
+                .rev("current limit", () -> actuationMtr.setSmartCurrentLimit(IntakeConstants.actuationCurrentLimitAmps), null)
+                .rev("average depth", () -> intakeEnc.setAverageDepth(64), () -> intakeEnc.getAverageDepth() == 64)
+                .rev("position", () -> intakeEnc.setPosition(offsetInches), null)
+                .rev("encoder inverted", () -> intakeEnc.setInverted(false), () -> !intakeEnc.getInverted())
+                .rev(
+                    "position conversion",
+                    () -> intakeEnc.setPositionConversionFactor(IntakeConstants.encRevToInches),
+                    () -> DeviceConfig.matches(intakeEnc.getPositionConversionFactor(), IntakeConstants.encRevToInches)
+                )
+                .rev(
+                    "kP",
+                    () -> actuationController.setP(IntakeConstants.kP),
+                    () -> DeviceConfig.matches(actuationController.getP(), IntakeConstants.kP)
+                )
+                .rev(
+                    "kD",
+                    () -> actuationController.setD(IntakeConstants.kD),
+                    () -> DeviceConfig.matches(actuationController.getD(), IntakeConstants.kD)
+                )
+                .run("status frames", () -> CANBudget.getInstance().configure(actuationMtr, SparkMaxRole.kPosition), null)
+        );
+
+        DeviceConfigurator.getInstance().configure(
+            new DeviceConfig("IntakeSys roller", rollerHealth)
+                .run("inverted", () -> rollerMtr.setInverted(true), () -> rollerMtr.getInverted())
+                .rev(
+                    "velocity conversion",
+                    () -> rollerEnc.setVelocityConversionFactor(IntakeConstants.rollerGearReduction),
+                    () -> DeviceConfig.matches(rollerEnc.getVelocityConversionFactor(), IntakeConstants.rollerGearReduction)
+                )
+                .rev("idle mode", () -> rollerMtr.setIdleMode(IdleMode.kBrake), () -> rollerMtr.getIdleMode() == IdleMode.kBrake)
+                .rev("current limit", () -> rollerMtr.setSmartCurrentLimit(IntakeConstants.rollerCurrentLimitAmps), null)
+                .rev(
+                    "kFF",
+                    () -> rollerController.setFF(IntakeConstants.rollerkFF),
+                    () -> DeviceConfig.matches(rollerController.getFF(), IntakeConstants.rollerkFF)
+                )
+                .rev(
+                    "kP",
+                    () -> rollerController.setP(IntakeConstants.rollerkP),
+                    () -> DeviceConfig.matches(rollerController.getP(), IntakeConstants.rollerkP)
+                )
+                .rev(
+                    "kI",
+                    () -> rollerController.setI(IntakeConstants.rollerkI),
+                    () -> DeviceConfig.matches(rollerController.getI(), IntakeConstants.rollerkI)
+                )
+                .rev(
+                    "IZone",
+                    () -> rollerController.setIZone(IntakeConstants.rollerIZone),
+                    () -> DeviceConfig.matches(rollerController.getIZone(), IntakeConstants.rollerIZone)
+                )
+                .run("status frames", () -> CANBudget.getInstance().configure(rollerMtr, SparkMaxRole.kVelocity), null)
+        );
+
+        inputs.register("intake/");
+        MatchLogger.getInstance().addDoubleOutput("intake/targetInches", () -> targetInches);
+        MatchLogger.getInstance().addDoubleOutput("intake/rollerTargetRPM", () -> rollerTargetRPM);
+        MatchLogger.getInstance().addDoubleOutput("intake/relativeSpeed", () -> relativeSpeed);
+        MatchLogger.getInstance().addBooleanOutput("intake/actuationIsManual", () -> actuationIsManual);
+        MatchLogger.getInstance().addBooleanOutput("intake/rollersAreManual", () -> rollersAreManual);
+
+        updateInputs();
+    }
 
-        rollerController = rollerMtr.getPIDController();
-        rollerController.setFF(0.0002525);
-        rollerController.setP(0.00015);
-        rollerController.setI(0.000001);
-        rollerController.setIZone(30.0);
+    /**
+     * Reads the intake's sensors once. Called at the start of each loop, before any subsystem or command runs.
+     */
+    public void updateInputs() {
+        if(sim != null) {
+            inputs.encoderPositionInches = sim.getPositionInches() + offsetInches;
+            inputs.rollerVelocityRPM = sim.getRollerRPM();
+            inputs.rollerOutput = sim.getRollerOutput();
+        }
+        else {
+            if(actuationHealth.isHealthy()) {
+                double positionInches = intakeEnc.getPosition();
+                if(actuationHealth.update(actuationMtr.getLastError())) inputs.encoderPositionInches = positionInches;
+            }
+            if(rollerHealth.isHealthy()) {
+                double velocityRPM = rollerEnc.getVelocity();
+                if(rollerHealth.update(rollerMtr.getLastError())) inputs.rollerVelocityRPM = velocityRPM;
+            }
+            inputs.rollerOutput = rollerMtr.get();
+        }
+    }
+
+    /**
+     * Records the intake's position and roller speed in the state history. Called once the loop's inputs are final,
+     * after a replay has injected its own.
+     */
+    public void recordHistory() {
+        StateHistory.getInstance().recordIntake(Timer.getFPGATimestamp(), getCurrentPosition(), inputs.rollerVelocityRPM);
     }
 
     // This method will be called once per scheduler run
     @Override
     public void periodic() {
+        periodicTimer.start();
+
         // The encoder is being dumb, so if it gives a really uneccesarily large reading it will try
         // zeroing it again.
         if(getCurrentPosition() > 100.0) {
-            intakeEnc.setPosition(offsetInches);
+            if(actuationHealth.isHealthy()) intakeEnc.setPosition(offsetInches);
+            inputs.encoderPositionInches = offsetInches;
         }
 
         if(targetInches > IntakeConstants.maxInches) targetInches = IntakeConstants.maxInches;
         else if(targetInches < IntakeConstants.minInches) targetInches = 0.0;
 
         if(!actuationIsManual) {
-            actuationController.setReference(targetInches + offsetInches, ControlType.kPosition);
+            actuationMtrOutput.setReference(targetInches + offsetInches, ControlType.kPosition);
+            if(sim != null) sim.setActuationTarget(targetInches);
         }
 
         if(!rollersAreManual) {
@@ -106,14 +238,25 @@ public class IntakeSys extends SubsystemBase {
                 setRPM(0.0);
             }
         }
-        SmartDashboard.putNumber("roller power", rollerMtr.get());
+        rollerPowerEntry.set(inputs.rollerOutput);
 
+        periodicTimer.stop();
+    }
+
+    @Override
+    public void simulationPeriodic() {
+        if(sim == null) return;
+
+        double dtSeconds = TimedRobot.kDefaultPeriod / SimulationConstants.substepsPerLoop;
+        for(int step = 0; step < SimulationConstants.substepsPerLoop; step++) {
+            sim.update(dtSeconds);
+        }
     }
 
     // Put methods for controlling this subsystem here. Call these from Commands.
 
     public double getCurrentPosition() {
-        return intakeEnc.getPosition() - offsetInches;
+        return inputs.encoderPositionInches - offsetInches;
     }
 
     public void setActuationPower(double power) {
@@ -121,11 +264,11 @@ public class IntakeSys extends SubsystemBase {
             (getCurrentPosition() <= IntakeConstants.minInches + IntakeConstants.manualControlPadding && power < 0.0) ||
             (getCurrentPosition() >= IntakeConstants.maxInches - IntakeConstants.manualControlPadding && power > 0.0)
         ) {
-            actuationMtr.set(0.0);
-        }
-        else {
-            actuationMtr.set(power);
+            power = 0.0;
         }
+
+        actuationMtrOutput.set(power);
+        if(sim != null) sim.setActuationDutyCycle(power);
     }
 
     public void manualRollerControl(double power) {
@@ -141,11 +284,13 @@ public class IntakeSys extends SubsystemBase {
     public void setRPM(double rpm) {
         // double power = rpm / IntakeConstants.freeRPM;
         // rollerMtr.set(power);
-        rollerController.setReference(rpm, ControlType.kVelocity);
+        rollerMtrOutput.setReference(rpm, ControlType.kVelocity);
+        if(sim != null) sim.setRollerRPM(rpm);
+        rollerTargetRPM = rpm;
     }
 
     public double getCurrentSpeedRPM() {
-        return rollerMtr.getEncoder().getVelocity();
+        return inputs.rollerVelocityRPM;
     }
 
     public double getCurrentSpeedMetersPerSecond() {
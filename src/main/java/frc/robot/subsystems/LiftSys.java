@@ -1,5 +1,7 @@
 package frc.robot.subsystems;
 
+import java.util.concurrent.CompletableFuture;
+
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.SparkMaxPIDController;
@@ -9,14 +11,35 @@ import com.revrobotics.CANSparkMaxLowLevel.MotorType;
 
 import edu.wpi.first.wpilibj.DoubleSolenoid;
 import edu.wpi.first.wpilibj.PneumaticsModuleType;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.DoubleSolenoid.Value;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.CANDevices;
 import frc.robot.Constants.LiftConstants;
 import frc.robot.Constants.PneumaticChannels;
+import frc.robot.Constants.SimulationConstants;
+import frc.robot.can.CANBudget;
+import frc.robot.can.DeviceConfig;
+import frc.robot.can.DeviceConfigurator;
+import frc.robot.can.DeviceHealth;
+import frc.robot.can.DeviceHealthMonitor;
+import frc.robot.history.StateHistory;
+import frc.robot.can.SparkMaxRole;
+import frc.robot.logging.MatchLogger;
+import frc.robot.output.OutputStage;
+import frc.robot.output.SolenoidOutput;
+import frc.robot.output.SparkMaxOutput;
+import frc.robot.profiling.LoopProfiler;
+import frc.robot.profiling.LoopTimer;
+import frc.robot.subsystems.inputs.LiftInputs;
+import frc.robot.subsystems.sim.LiftSim;
+import frc.robot.subsystems.sim.Simulation;
 
 public class LiftSys extends SubsystemBase {
 
+    private final LoopTimer periodicTimer = LoopProfiler.getInstance().register("LiftSys.periodic");
+
     private final CANSparkMax masterMtr;
     private final CANSparkMax slaveMtr;
  
@@ -25,6 +48,21 @@ public class LiftSys extends SubsystemBase {
     private final SparkMaxPIDController controller;
  
     private final DoubleSolenoid liftSol;
+
+    // The master is left alone while it isn't answering, and its last position is held.
+    private final DeviceHealth masterHealth;
+
+    // Nothing is read from the follower. Its health is tracked so it's configured again if it didn't finish at startup.
+    private final DeviceHealth slaveHealth;
+
+    // Commands are staged here and written at the end of the loop.
+    private final SparkMaxOutput masterMtrOutput;
+    private final SolenoidOutput liftSolOutput;
+
+    private final LiftInputs inputs = new LiftInputs();
+
+    // Stands in for the motors on the desktop. Null on the robot.
+    private final LiftSim sim = Simulation.isPhysicsEnabled() ? new LiftSim() : null;
  
     private double targetInches = 0.0;
 
@@ -49,49 +87,113 @@ public class LiftSys extends SubsystemBase {
         masterMtr = new CANSparkMax(CANDevices.masterMtrId, MotorType.kBrushless);
         slaveMtr = new CANSparkMax(CANDevices.slaveMtrId, MotorType.kBrushless);
 
-        masterMtr.setInverted(true);
-        slaveMtr.setInverted(false);
+        liftEnc = masterMtr.getEncoder();
 
-        masterMtr.setSmartCurrentLimit(LiftConstants.maxCurrentAmps);
+        masterHealth = DeviceHealthMonitor.getInstance().add("LiftSys master", masterMtr);
+        slaveHealth = DeviceHealthMonitor.getInstance().add("LiftSys slave", slaveMtr);
 
-        masterMtr.setIdleMode(IdleMode.kBrake);
+        controller = masterMtr.getPIDController();
 
-        slaveMtr.follow(masterMtr, true);
+        // Configured in parallel with the other devices.
+        CompletableFuture<Void> masterConfigured = DeviceConfigurator.getInstance().configure(
+            new DeviceConfig("LiftSys master", masterHealth)
+                .run("inverted", () -> masterMtr.setInverted(true), () -> masterMtr.getInverted())
+                .rev("current limit", () -> masterMtr.setSmartCurrentLimit(LiftConstants.maxCurrentAmps), null)
+                .rev("idle mode", () -> masterMtr.setIdleMode(IdleMode.kBrake), () -> masterMtr.getIdleMode() == IdleMode.kBrake)
+                .rev("position", () -> liftEnc.setPosition(0), null)
+                .rev(
+                    "position conversion",
+                    () -> liftEnc.setPositionConversionFactor(LiftConstants.inchesPerEncRev),
+                    () -> DeviceConfig.matches(liftEnc.getPositionConversionFactor(), LiftConstants.inchesPerEncRev)
+                )
+                .rev(
+                    "velocity conversion",
+                    () -> liftEnc.setVelocityConversionFactor(LiftConstants.feetPerSecondPerRPM),
+                    () -> DeviceConfig.matches(liftEnc.getVelocityConversionFactor(), LiftConstants.feetPerSecondPerRPM)
+                )
+                .rev(
+                    "kP",
+                    () -> controller.setP(LiftConstants.kP),
+                    () -> DeviceConfig.matches(controller.getP(), LiftConstants.kP)
+                )
+                .rev(
+                    "kD",
+                    () -> controller.setD(LiftConstants.kD),
+                    () -> DeviceConfig.matches(controller.getD(), LiftConstants.kD)
+                )
+                .rev("IZone", () -> controller.setIZone(0), () -> DeviceConfig.matches(controller.getIZone(), 0))
+                .run("status frames", () -> CANBudget.getInstance().configure(masterMtr, SparkMaxRole.kLeader), null)
+        );
+
+        // Follows the master, so it waits for the master to be configured first.
+        DeviceConfigurator.getInstance().configure(
+            new DeviceConfig("LiftSys slave", slaveHealth)
+                .run("inverted", () -> slaveMtr.setInverted(false), () -> !slaveMtr.getInverted())
+                .rev("follow", () -> slaveMtr.follow(masterMtr, true), () -> slaveMtr.isFollower())
+                .run("status frames", () -> CANBudget.getInstance().configure(slaveMtr, SparkMaxRole.kFollower), null),
+            masterConfigured
+        );
 
-        liftEnc = masterMtr.getEncoder();
+        liftSol = new DoubleSolenoid(CANDevices.pneumaticHubId, PneumaticsModuleType.REVPH, PneumaticChannels.liftSolChs[0], PneumaticChannels.liftSolChs[1]);
 
-        liftEnc.setPosition(0);
+        masterMtrOutput = OutputStage.getInstance().add(masterMtr, masterHealth);
+        liftSolOutput = OutputStage.getInstance().add(liftSol);
 
-        liftEnc.setPositionConversionFactor(LiftConstants.inchesPerEncRev);
-        liftEnc.setVelocityConversionFactor(LiftConstants.feetPerSecondPerRPM);
+        inputs.register("lift/");
+        MatchLogger.getInstance().addDoubleOutput("lift/targetInches", () -> targetInches);
+        MatchLogger.getInstance().addBooleanOutput("lift/isManual", () -> isManual);
+        MatchLogger.getInstance().addBooleanOutput("lift/isArticulationOverride", () -> isArticulationOverride);
+        MatchLogger.getInstance().addBooleanOutput("lift/isArticulatedDown", this::isArticulatedDown);
 
-        controller = masterMtr.getPIDController();
+        updateInputs();
+    }
 
-        controller.setP(LiftConstants.kP);
-        controller.setD(LiftConstants.kD);
-        
-        controller.setIZone(0);
-        
-        liftSol = new DoubleSolenoid(CANDevices.pneumaticHubId, PneumaticsModuleType.REVPH, PneumaticChannels.liftSolChs[0], PneumaticChannels.liftSolChs[1]);
+    /**
+     * Reads the lift's sensors once. Called at the start of each loop, before any subsystem or command runs.
+     */
+    public void updateInputs() {
+        if(sim != null) {
+            inputs.positionInches = sim.getPositionInches();
+            inputs.masterOutput = sim.getOutput();
+        }
+        else {
+            if(masterHealth.isHealthy()) {
+                double positionInches = liftEnc.getPosition();
+                if(masterHealth.update(masterMtr.getLastError())) inputs.positionInches = positionInches;
+            }
+            inputs.masterOutput = masterMtr.get();
+        }
+    }
+
+    /**
+     * Records the lift's height in the state history. Called once the loop's inputs are final, after a replay has
+     * injected its own.
+     */
+    public void recordHistory() {
+        StateHistory.getInstance().recordLift(Timer.getFPGATimestamp(), inputs.positionInches);
     }
 
     @Override
     public void periodic() {
+        periodicTimer.start();
+
         if(isManual) {
-            controller.setOutputRange(-LiftConstants.manualPower, LiftConstants.manualPower);
+            masterMtrOutput.setOutputRange(-LiftConstants.manualPower, LiftConstants.manualPower);
+            if(sim != null) sim.setOutputRange(-LiftConstants.manualPower, LiftConstants.manualPower);
         }
         else {
-            controller.setReference(targetInches, ControlType.kPosition);
+            masterMtrOutput.setReference(targetInches, ControlType.kPosition);
+            if(sim != null) sim.setTarget(targetInches);
         }
 
         if(
-            ((isManual && liftEnc.getPosition() < LiftConstants.upActuationHeightInches && masterMtr.get() < 0) ||
+            ((isManual && inputs.positionInches < LiftConstants.upActuationHeightInches && inputs.masterOutput < 0) ||
             (!isManual && targetInches < LiftConstants.upActuationHeightInches)) ||
             isArticulationOverride
         )
             actuateUp();
         else if(
-            ((isManual && liftEnc.getPosition() > LiftConstants.downActuationHeightInches && masterMtr.get() > 0) ||
+            ((isManual && inputs.positionInches > LiftConstants.downActuationHeightInches && inputs.masterOutput > 0) ||
             (!isManual && targetInches > LiftConstants.downActuationHeightInches)) &&
             !isArticulationOverride
         )
@@ -100,22 +202,36 @@ public class LiftSys extends SubsystemBase {
         if(targetInches < 0.0) targetInches = 0.0;
         else if(!isArticulationOverride && targetInches > LiftConstants.maxHeightInches) targetInches = LiftConstants.maxHeightInches;
         else if(isArticulationOverride && targetInches > LiftConstants.maxUnarticulatedHeightInches) targetInches = LiftConstants.maxUnarticulatedHeightInches;
+
+        periodicTimer.stop();
+    }
+
+    @Override
+    public void simulationPeriodic() {
+        if(sim == null) return;
+
+        sim.setArticulatedDown(isArticulatedDown());
+
+        double dtSeconds = TimedRobot.kDefaultPeriod / SimulationConstants.substepsPerLoop;
+        for(int step = 0; step < SimulationConstants.substepsPerLoop; step++) {
+            sim.update(dtSeconds);
+        }
     }
 
     public double getCurrentPosition() {
-        return liftEnc.getPosition();
+        return inputs.positionInches;
     }
         // Carl was here; 
     public void setPower(double power) {
         if(
-            (liftEnc.getPosition() <= LiftConstants.manualControlPaddingInches && power < 0.0) ||
-            (liftEnc.getPosition() >= (isArticulationOverride ? LiftConstants.maxUnarticulatedHeightInches : LiftConstants.maxHeightInches) - LiftConstants.manualControlPaddingInches && power > 0.0)
+            (inputs.positionInches <= LiftConstants.manualControlPaddingInches && power < 0.0) ||
+            (inputs.positionInches >= (isArticulationOverride ? LiftConstants.maxUnarticulatedHeightInches : LiftConstants.maxHeightInches) - LiftConstants.manualControlPaddingInches && power > 0.0)
         ) {
-            masterMtr.set(0.0);
-        }
-        else {
-            masterMtr.set(power);
+            power = 0.0;
         }
+
+        masterMtrOutput.set(power);
+        if(sim != null) sim.setDutyCycle(power);
     }
 
     public void setTarget(double inches, double power) {
@@ -124,7 +240,8 @@ public class LiftSys extends SubsystemBase {
         if(inches > LiftConstants.maxHeightInches) inches = LiftConstants.maxHeightInches;
         else if(inches < 0.0) inches = 0.0;
 
-        controller.setOutputRange(-power, power);
+        masterMtrOutput.setOutputRange(-power, power);
+        if(sim != null) sim.setOutputRange(-power, power);
 
         targetInches = inches;
     }
@@ -136,7 +253,7 @@ public class LiftSys extends SubsystemBase {
         }
         else {
             if(isManual)
-                targetInches = liftEnc.getPosition();
+                targetInches = inputs.positionInches;
 
             isManual = false;
         }
@@ -151,15 +268,15 @@ public class LiftSys extends SubsystemBase {
     }
 
     public void actuateUp() {
-        liftSol.set(Value.kReverse);
+        liftSolOutput.set(Value.kReverse);
     }
 
     public void actuateDown() {
-        liftSol.set(Value.kForward);
+        liftSolOutput.set(Value.kForward);
     }
 
     public boolean isArticulatedDown() {
-        return liftSol.get().equals(Value.kForward);
+        return liftSolOutput.get().equals(Value.kForward);
     }
 
     public boolean isManual() {
@@ -7,10 +7,15 @@ import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.GameElement;
 import frc.robot.led.LEDStrip;
+import frc.robot.led.PackedColor;
 import frc.robot.led.animations.AnimationDirection;
+import frc.robot.profiling.LoopProfiler;
+import frc.robot.profiling.LoopTimer;
 
 public class LightsSys extends SubsystemBase {
 
+    private final LoopTimer periodicTimer = LoopProfiler.getInstance().register("LightsSys.periodic");
+
     private final AddressableLED led;
     private final AddressableLEDBuffer buffer;
 
@@ -21,6 +26,9 @@ public class LightsSys extends SubsystemBase {
     private final LEDStrip innerRightStrip;
     private final LEDStrip innerLeftStrip;
 
+    // The strips in the order they are chained on the LED port.
+    private final LEDStrip[] strips;
+
     private GameElement status = GameElement.kNone;
 
     private final Color neutralColor = new Color(50, 255, 0); //new Color(50, 255, 0);
@@ -88,6 +96,8 @@ public class LightsSys extends SubsystemBase {
         innerLeftStrip = new LEDStrip(22);
         innerLeftStrip.setDimness(dimness);
 
+        strips = new LEDStrip[] {rightStrip, leftStrip, outerLeftStrip, outerRightStrip, innerRightStrip, innerLeftStrip};
+
         led = new AddressableLED(8);
 
         buffer = new AddressableLEDBuffer(
@@ -99,7 +109,7 @@ public class LightsSys extends SubsystemBase {
             innerLeftStrip.getLength()
         );
         led.setLength(buffer.getLength());
-        led.setData(buffer);
+        update();
         led.start();
 
         blinkTimer = new Timer();
@@ -112,6 +122,7 @@ public class LightsSys extends SubsystemBase {
     // This method will be called once per scheduler run
     @Override
     public void periodic() {
+        periodicTimer.start();
 
         if((!isPartyMode && !isWeeWooMode) || isBlinking) {
             if(status.equals(GameElement.kCone)) {
@@ -140,43 +151,43 @@ public class LightsSys extends SubsystemBase {
 
                 for(int i = 1; i <= rightStrip.getLength(); i++) {
                     if(i <= 11) {
-                        rightStrip.setColor(new Color(50, 255, 0), rightStrip.getLength() - i);
+                        rightStrip.setColor(neutralColor, rightStrip.getLength() - i);
                     }
                     else if(i <= 21) {
-                        rightStrip.setColor(new Color(50, 255, 0), rightStrip.getLength() - i);
+                        rightStrip.setColor(neutralColor, rightStrip.getLength() - i);
                     }
                     else if(i <= 32) {
-                        rightStrip.setColor(new Color(50, 255, 0), rightStrip.getLength() - i);
+                        rightStrip.setColor(neutralColor, rightStrip.getLength() - i);
                     }
                     else if(i <= 42) {
-                        rightStrip.setColor(new Color(50, 255, 0), rightStrip.getLength() - i);
+                        rightStrip.setColor(neutralColor, rightStrip.getLength() - i);
                     }
                     else if(i <= 53) {
-                        rightStrip.setColor(new Color(50, 255, 0), rightStrip.getLength() - i);
+                        rightStrip.setColor(neutralColor, rightStrip.getLength() - i);
                     }
                     else {
-                        rightStrip.setColor(new Color(50, 255, 0), rightStrip.getLength() - i);
+                        rightStrip.setColor(neutralColor, rightStrip.getLength() - i);
                     }
                 }
 
                 for(int i = 0; i < leftStrip.getLength(); i++) {
                     if(i <= 10) {
-                        leftStrip.setColor(new Color(50, 255, 0), i);
+                        leftStrip.setColor(neutralColor, i);
                     }
                     else if(i <= 20) {
-                        leftStrip.setColor(new Color(50, 255, 0), i);
+                        leftStrip.setColor(neutralColor, i);
                     }
                     else if(i <= 31) {
-                        leftStrip.setColor(new Color(50, 255, 0), i);
+                        leftStrip.setColor(neutralColor, i);
                     }
                     else if(i <= 41) {
-                        leftStrip.setColor(new Color(50, 255, 0), i);
+                        leftStrip.setColor(neutralColor, i);
                     }
                     else if(i <= 52) {
-                        leftStrip.setColor(new Color(50, 255, 0), i);
+                        leftStrip.setColor(neutralColor, i);
                     }
                     else {
-                        leftStrip.setColor(new Color(50, 255, 0), i);
+                        leftStrip.setColor(neutralColor, i);
                     }
                 }
             }
@@ -217,22 +228,22 @@ public class LightsSys extends SubsystemBase {
         }
         else if(isPartyMode) {
             for(int i = 0; i < rightStrip.getLength(); i++) {
-                rightStrip.setColor(Color.fromHSV((partyHue + i) % 180, 255, 255), i);
+                rightStrip.setColor(PackedColor.fromHSV((partyHue + i) % 180, 255, 255), i);
             }
             for(int i = leftStrip.getLength() - 1; i >= 0; i--) {
-                leftStrip.setColor(Color.fromHSV((partyHue + leftStrip.getLength() - 1 - i) % 180, 255, 255), i);
+                leftStrip.setColor(PackedColor.fromHSV((partyHue + leftStrip.getLength() - 1 - i) % 180, 255, 255), i);
             }
             for(int i = 0; i < outerLeftStrip.getLength(); i++) {
-                outerLeftStrip.setColor(Color.fromHSV((partyHue + i) % 180, 255, 255), i);
+                outerLeftStrip.setColor(PackedColor.fromHSV((partyHue + i) % 180, 255, 255), i);
             }
             for(int i = outerRightStrip.getLength() - 1; i >= 0; i--) {
-                outerRightStrip.setColor(Color.fromHSV((partyHue + outerRightStrip.getLength() - 1 - i) % 180, 255, 255), i);
+                outerRightStrip.setColor(PackedColor.fromHSV((partyHue + outerRightStrip.getLength() - 1 - i) % 180, 255, 255), i);
             }
             for(int i = innerRightStrip.getLength() - 1; i >= 0; i--) {
-                innerRightStrip.setColor(Color.fromHSV((partyHue + innerRightStrip.getLength() - 1 - i) % 180, 255, 255), i);
+                innerRightStrip.setColor(PackedColor.fromHSV((partyHue + innerRightStrip.getLength() - 1 - i) % 180, 255, 255), i);
             }
             for(int i = 0; i < innerLeftStrip.getLength(); i++) {
-                innerLeftStrip.setColor(Color.fromHSV((partyHue + i) % 180, 255, 255), i);
+                innerLeftStrip.setColor(PackedColor.fromHSV((partyHue + i) % 180, 255, 255), i);
             }
 
             partyHue -= partyHueIncrement;
@@ -372,6 +383,8 @@ public class LightsSys extends SubsystemBase {
         }
 
         update();
+
+        periodicTimer.stop();
     }
 
     public GameElement getStatus() {
@@ -403,32 +416,19 @@ public class LightsSys extends SubsystemBase {
         isWeeWooMode = false;
     }
 
+    /**
+     * Composes every strip into the LED buffer and sends it, skipping the send if no pixel changed.
+     */
     public void update() {
+        boolean isChanged = false;
+
         int pixel = 0;
-        for(int i = 0; i < rightStrip.getLength(); i++) {
-            buffer.setLED(pixel, rightStrip.getState(i));
-            pixel++;
-        }
-        for(int i = 0; i < leftStrip.getLength(); i++) {
-            buffer.setLED(pixel, leftStrip.getState(i));
-            pixel++;
-        }
-        for(int i = 0; i < outerLeftStrip.getLength(); i++) {
-            buffer.setLED(pixel, outerLeftStrip.getState(i));
-            pixel++;
-        }
-        for(int i = 0; i < outerRightStrip.getLength(); i++) {
-            buffer.setLED(pixel, outerRightStrip.getState(i));
-            pixel++;
+        for(int i = 0; i < strips.length; i++) {
+            // Every strip has to be written, so no short-circuiting.
+            isChanged |= strips[i].writeTo(buffer, pixel);
+            pixel += strips[i].getLength();
         }
-        for(int i = 0; i < innerRightStrip.getLength(); i++) {
-            buffer.setLED(pixel, innerRightStrip.getState(i));
-            pixel++;
-        }
-        for(int i = 0; i < innerLeftStrip.getLength(); i++) {
-            buffer.setLED(pixel, innerLeftStrip.getState(i));
-            pixel++;
-        }
-        led.setData(buffer);
+
+        if(isChanged) led.setData(buffer);
     }
-}
\ No newline at end of file
+}
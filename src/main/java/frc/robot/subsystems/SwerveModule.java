@@ -1,20 +1,41 @@
 package frc.robot.subsystems;
 
+import java.util.concurrent.CompletableFuture;
+
+import com.ctre.phoenix.ErrorCode;
 import com.ctre.phoenix.sensors.AbsoluteSensorRange;
 import com.ctre.phoenix.sensors.CANCoder;
+import com.ctre.phoenix.sensors.CANCoderConfiguration;
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.CANSparkMax.ControlType;
+import com.revrobotics.REVLibError;
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.SparkMaxPIDController;
 import com.revrobotics.CANSparkMax.IdleMode;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants.CANBusConstants;
 import frc.robot.Constants.DriveConstants;
+import frc.robot.can.CANBudget;
+import frc.robot.can.DeviceConfig;
+import frc.robot.can.DeviceConfigurator;
+import frc.robot.can.DeviceHealth;
+import frc.robot.can.DeviceHealthMonitor;
+import frc.robot.can.SparkMaxRole;
+import frc.robot.logging.MatchLogger;
+import frc.robot.output.OutputStage;
+import frc.robot.output.SparkMaxOutput;
+import frc.robot.profiling.LoopProfiler;
+import frc.robot.profiling.LoopTimer;
+import frc.robot.subsystems.inputs.SwerveModuleInputs;
+import frc.robot.subsystems.sim.Simulation;
+import frc.robot.subsystems.sim.SwerveModuleSim;
 
 /**
  * Class to represent and handle a swerve module
@@ -31,12 +52,43 @@ public class SwerveModule extends SubsystemBase {
 
     private final CANCoder canCoder;
 
+    // A device that stops answering is left alone until it's back, and its last readings are held.
+    private final DeviceHealth driveHealth;
+    private final DeviceHealth steerHealth;
+    private final DeviceHealth canCoderHealth;
+
+    // The last good readings from hardware. Written by both the main loop and the odometry thread.
+    private volatile double lastDrivePositionMeters = 0.0;
+    private volatile double lastCanCoderDegrees = 0.0;
+
     // absolute offset for the CANCoder so that the wheels can be aligned when the robot is turned on
     private final Rotation2d offset;
 
     private final SparkMaxPIDController steerController;
     private final SparkMaxPIDController driveController;
 
+    // Commands are staged here and written at the end of the loop.
+    private final SparkMaxOutput driveMtrOutput;
+    private final SparkMaxOutput steerMtrOutput;
+
+    private final LoopTimer inputsTimer;
+
+    private final SwerveModuleInputs inputs = new SwerveModuleInputs();
+
+    // The angle the steer encoder was last zeroed to. Written by a config worker.
+    private volatile double steerZeroRadians = 0.0;
+
+    // The angle the steer encoder was zeroed to at startup, handed back by a config worker and applied by
+    // updateInputs. Null once applied.
+    private CompletableFuture<Double> steerOffsetRadians;
+
+    // Stands in for the motors and CANCoder on the desktop. Null on the robot.
+    private final SwerveModuleSim sim = Simulation.isPhysicsEnabled() ? new SwerveModuleSim() : null;
+
+    // The last speed and angle sent to the motors, after optimization.
+    private double desiredSpeed = 0.0;
+    private double desiredAngleRadians = 0.0;
+
     /**
      * Constructs a new SwerveModule.
      * 
@@ -49,6 +101,14 @@ public class SwerveModule extends SubsystemBase {
      */
     public SwerveModule(int driveMtrId, int steerMtrId, int canCoderId, double measuredOffsetRadians) {
 
+        // The module has no periodic work of its own; reading its sensors is what it costs each loop.
+        inputsTimer = LoopProfiler.getInstance().register("SwerveModule" + driveMtrId + ".updateInputs");
+
+        String logPrefix = "swerve/module" + driveMtrId + "/";
+        inputs.register(logPrefix);
+        MatchLogger.getInstance().addDoubleOutput(logPrefix + "desiredSpeed", () -> desiredSpeed);
+        MatchLogger.getInstance().addDoubleOutput(logPrefix + "desiredAngleRadians", () -> desiredAngleRadians);
+
         driveMtr = new CANSparkMax(driveMtrId, MotorType.kBrushless);
         steerMtr = new CANSparkMax(steerMtrId, MotorType.kBrushless);
 
@@ -59,51 +119,183 @@ public class SwerveModule extends SubsystemBase {
 
         offset = new Rotation2d(measuredOffsetRadians);
 
-        driveMtr.setIdleMode(IdleMode.kBrake);
-        steerMtr.setIdleMode(IdleMode.kCoast);
-
-        driveMtr.setSmartCurrentLimit(DriveConstants.driveCurrentLimitAmps);
+        String name = "SwerveModule" + driveMtrId;
+        driveHealth = DeviceHealthMonitor.getInstance().add(name + " drive", driveMtr);
+        steerHealth = DeviceHealthMonitor.getInstance().add(name + " steer", steerMtr);
+        canCoderHealth = DeviceHealthMonitor.getInstance().add(name + " CANCoder", canCoder);
 
         steerController = steerMtr.getPIDController();
         driveController = driveMtr.getPIDController();
 
-        steerController.setP(DriveConstants.steerkP);
-        steerController.setD(DriveConstants.steerkD);
+        // Configuring each device takes several blocking calls, so it's done in parallel with the other devices.
+        // The steer encoder is zeroed from the CANCoder, so the steer motor waits for the CANCoder to be configured.
+        // Zeroing is part of the steer motor's config, so it's done again if the motor reboots.
+        DeviceConfigurator configurator = DeviceConfigurator.getInstance();
+
+        configurator.configure(
+            new DeviceConfig(name + " drive", driveHealth)
+                .rev("idle mode", () -> driveMtr.setIdleMode(IdleMode.kBrake), () -> driveMtr.getIdleMode() == IdleMode.kBrake)
+                .rev("current limit", () -> driveMtr.setSmartCurrentLimit(DriveConstants.driveCurrentLimitAmps), null)
+                .rev(
+                    "kP",
+                    () -> driveController.setP(DriveConstants.drivekP),
+                    () -> DeviceConfig.matches(driveController.getP(), DriveConstants.drivekP)
+                )
+                //set the output of the drive encoder to be in meters for linear measurement
+                .rev(
+                    "position conversion",
+                    () -> driveEnc.setPositionConversionFactor(DriveConstants.driveMetersPerEncRev),
+                    () -> DeviceConfig.matches(driveEnc.getPositionConversionFactor(), DriveConstants.driveMetersPerEncRev)
+                )
+                //set the output of the drive encoder to be in meters per second for velocity measurement
+                .rev(
+                    "velocity conversion",
+                    () -> driveEnc.setVelocityConversionFactor(DriveConstants.driveMetersPerSecPerRPM),
+                    () -> DeviceConfig.matches(driveEnc.getVelocityConversionFactor(), DriveConstants.driveMetersPerSecPerRPM)
+                )
+                .run("status frames", () -> CANBudget.getInstance().configure(driveMtr, SparkMaxRole.kSwerveDrive), null)
+        );
+
+        CompletableFuture<Void> canCoderConfigured = configurator.configure(
+            new DeviceConfig(name + " CANCoder", canCoderHealth)
+                //configure the CANCoder to output in unsigned (wrap around from 360 to 0 degrees)
+                .ctre(
+                    "sensor range",
+                    () -> canCoder.configAbsoluteSensorRange(AbsoluteSensorRange.Unsigned_0_to_360, CANBusConstants.ctreConfigTimeoutMs),
+                    () -> {
+                        CANCoderConfiguration config = new CANCoderConfiguration();
+                        return canCoder.getAllConfigs(config, CANBusConstants.ctreConfigTimeoutMs) == ErrorCode.OK &&
+                            config.absoluteSensorRange == AbsoluteSensorRange.Unsigned_0_to_360;
+                    }
+                )
+                // Send the absolute angle as often as the odometry thread samples it.
+                .run("status frames", () -> CANBudget.getInstance().configureOdometry(canCoder), null)
+        );
+
+        CompletableFuture<Void> steerConfigured = configurator.configure(
+            new DeviceConfig(name + " steer", steerHealth)
+                .rev("idle mode", () -> steerMtr.setIdleMode(IdleMode.kCoast), () -> steerMtr.getIdleMode() == IdleMode.kCoast)
+                .rev(
+                    "kP",
+                    () -> steerController.setP(DriveConstants.steerkP),
+                    () -> DeviceConfig.matches(steerController.getP(), DriveConstants.steerkP)
+                )
+                .rev(
+                    "kD",
+                    () -> steerController.setD(DriveConstants.steerkD),
+                    () -> DeviceConfig.matches(steerController.getD(), DriveConstants.steerkD)
+                )
+                //set the output of the steeration encoder to be in radians
+                .rev(
+                    "position conversion",
+                    () -> steerEnc.setPositionConversionFactor(DriveConstants.steerRadiansPerEncRev),
+                    () -> DeviceConfig.matches(steerEnc.getPositionConversionFactor(), DriveConstants.steerRadiansPerEncRev)
+                )
+                .run("status frames", () -> CANBudget.getInstance().configure(steerMtr, SparkMaxRole.kSwerveSteer), null)
+                .rev("zero", this::zeroSteerEncoder, null),
+            canCoderConfigured
+        );
+
+        steerOffsetRadians = steerConfigured.thenApply(ignored -> steerZeroRadians);
+
+        driveMtrOutput = OutputStage.getInstance().add(driveMtr, driveHealth);
+        steerMtrOutput = OutputStage.getInstance().add(steerMtr, steerHealth);
+
+        updateInputs();
+    }
+
+    /**
+     * Reads every sensor on the module once into its inputs. Called at the start of each loop,
+     * so the getters below all see the same instant.
+     */
+    public void updateInputs() {
+        inputsTimer.start();
 
-        driveController.setP(DriveConstants.drivekP);
+        if(steerOffsetRadians != null && steerOffsetRadians.isDone()) {
+            // Completes exceptionally if the steer motor never finished configuring.
+            if(!steerOffsetRadians.isCompletedExceptionally()) applySteerOffset(steerOffsetRadians.join());
+            steerOffsetRadians = null;
+        }
 
-  
+        if(sim != null) {
+            inputs.driveVelocityMetersPerSecond = sim.getDriveVelocityMetersPerSecond();
+            inputs.steerPositionRadians = sim.getSteerPositionRadians();
+        }
+        else {
+            if(driveHealth.isHealthy()) {
+                double velocity = driveEnc.getVelocity();
+                if(driveHealth.update(driveMtr.getLastError())) inputs.driveVelocityMetersPerSecond = velocity;
+            }
+            if(steerHealth.isHealthy()) {
+                double position = steerEnc.getPosition();
+                if(steerHealth.update(steerMtr.getLastError())) inputs.steerPositionRadians = position;
+            }
+        }
+        inputs.drivePositionMeters = readDrivePositionMeters();
+        inputs.canCoderAbsoluteDegrees = readCanCoderDegrees();
 
-        //set the output of the drive encoder to be in radians for linear measurement
-        driveEnc.setPositionConversionFactor(DriveConstants.driveMetersPerEncRev);
+        inputsTimer.stop();
+    }
 
-        //set the output of the drive encoder to be in radians per second for velocity measurement
-        driveEnc.setVelocityConversionFactor(DriveConstants.driveMetersPerSecPerRPM);
+    /**
+     * Reads the drive encoder, or the simulated module on the desktop. Holds the last good reading while the drive
+     * motor isn't answering.
+     *
+     * @return The drive distance, in meters.
+     */
+    private double readDrivePositionMeters() {
+        if(sim != null) return sim.getDrivePositionMeters();
 
-        //set the output of the steeration encoder to be in radians
-        steerEnc.setPositionConversionFactor(DriveConstants.steerRadiansPerEncRev);
+        if(driveHealth.isHealthy()) {
+            double position = driveEnc.getPosition();
+            if(driveHealth.update(driveMtr.getLastError())) lastDrivePositionMeters = position;
+        }
+        return lastDrivePositionMeters;
+    }
 
-        //configure the CANCoder to output in unsigned (wrap around from 360 to 0 degrees)
-        canCoder.configAbsoluteSensorRange(AbsoluteSensorRange.Unsigned_0_to_360);
+    /**
+     * Reads the CANCoder, or the simulated module on the desktop. Holds the last good reading while the CANCoder isn't
+     * answering.
+     *
+     * @return The raw absolute CANCoder reading, in degrees.
+     */
+    private double readCanCoderDegrees() {
+        if(sim != null) return MathUtil.inputModulus(Math.toDegrees(sim.getSteerAngleRadians() + offset.getRadians()), 0.0, 360.0);
 
-        initSteerOffset();
+        if(canCoderHealth.isHealthy()) {
+            double degrees = canCoder.getAbsolutePosition();
+            if(canCoderHealth.update(canCoder.getLastError())) lastCanCoderDegrees = degrees;
+        }
+        return lastCanCoderDegrees;
     }
 
     /**
-     * Returns the current position of the module.
+     * Reads the drive distance straight from hardware, for the odometry thread.
      *
-     * @return The current position of the module.
+     * @return The drive distance, in meters.
      */
-    public SwerveModulePosition getPosition() {
-    return new SwerveModulePosition(
-        driveEnc.getPosition(), getCanCoderAngle());
+    public double readDistanceMeters() {
+        return readDrivePositionMeters();
+    }
+
+    /**
+     * Reads the module angle straight from hardware, for the odometry thread. Unlike a
+     * {@link SwerveModulePosition}, doesn't allocate a new angle whenever the CANCoder moves.
+     *
+     * @return The module angle, in radians.
+     */
+    public double readAngleRadians() {
+        return toModuleAngleRadians(readCanCoderDegrees());
     }
 
     /**
      * Resets the distance traveled by the module.
      */
     public void resetDistance() {
-        driveEnc.setPosition(0.0);
+        if(driveHealth.isHealthy()) driveEnc.setPosition(0.0);
+        lastDrivePositionMeters = 0.0;
+        if(sim != null) sim.setDriveEncoderPosition(0.0);
+        inputs.drivePositionMeters = 0.0;
     }
 
     /**
@@ -113,7 +305,7 @@ public class SwerveModule extends SubsystemBase {
      */
     public double getDriveDistanceMeters() {
 
-        return driveEnc.getPosition();
+        return inputs.drivePositionMeters;
 
     }
     
@@ -124,9 +316,30 @@ public class SwerveModule extends SubsystemBase {
      */
     public Rotation2d getCanCoderAngle() {
 
-        double unsignedAngle = (Units.degreesToRadians(canCoder.getAbsolutePosition()) - offset.getRadians()) % (2 * Math.PI);
+        return new Rotation2d(getCanCoderAngleRadians());
+
+    }
+
+    /**
+     * Returns the current angle of the module without allocating.
+     * 
+     * @return The current angle of the module, in radians.
+     */
+    public double getCanCoderAngleRadians() {
+
+        return toModuleAngleRadians(inputs.canCoderAbsoluteDegrees);
+
+    }
+
+    /**
+     * Converts a raw CANCoder reading to the module angle by applying the module offset.
+     * 
+     * @param absoluteDegrees The raw absolute CANCoder reading, in degrees.
+     * @return The module angle, in radians.
+     */
+    private double toModuleAngleRadians(double absoluteDegrees) {
 
-        return new Rotation2d(unsignedAngle);
+        return (Units.degreesToRadians(absoluteDegrees) - offset.getRadians()) % (2 * Math.PI);
 
     }
 
@@ -137,7 +350,18 @@ public class SwerveModule extends SubsystemBase {
      */
     public Rotation2d getSteerEncAngle() {
 
-        return new Rotation2d(steerEnc.getPosition());
+        return new Rotation2d(getSteerEncAngleRadians());
+
+    }
+
+    /**
+     * Returns the current angle of the module from the steeration motor encoder without allocating.
+     * 
+     * @return The current angle of the module, in radians. Not wrapped, so it may be outside 0 to 2 * PI.
+     */
+    public double getSteerEncAngleRadians() {
+
+        return inputs.steerPositionRadians;
 
     }
 
@@ -148,12 +372,12 @@ public class SwerveModule extends SubsystemBase {
      */
     public double getCurrentVelocityMetersPerSecond() {
 
-        return driveEnc.getVelocity();
+        return inputs.driveVelocityMetersPerSecond;
         
     }
 
     public double getRelativeVelocityMetersPerSecond(double thetaRad) {
-        double rel = getCanCoderAngle().getDegrees() % 90.0;
+        double rel = Math.toDegrees(getCanCoderAngleRadians()) % 90.0;
         if(rel > 90.0 && rel < 270.0) rel *= -1.0;
         
         return getCurrentVelocityMetersPerSecond() * (rel / 90.0);
@@ -162,7 +386,7 @@ public class SwerveModule extends SubsystemBase {
     /**
      * Calculates the angle motor setpoint based on the desired angle and the current angle measurement.
      */
-    public double calculateAdjustedAngle(double targetAngle, double currentAngle) {
+    public static double calculateAdjustedAngle(double targetAngle, double currentAngle) {
 
         double modAngle = currentAngle % (2.0 * Math.PI);
 
@@ -179,11 +403,30 @@ public class SwerveModule extends SubsystemBase {
 
     /**
      * Initializes the steeration motor encoder to the value of the CANCoder, accounting for the offset.
+     * <p>Runs on a config worker as the steer motor's last setting, at startup and again whenever the steer motor comes
+     * back from not answering. Fails while the CANCoder isn't answering, rather than zeroing from a stale reading.
+     *
+     * @return The steer motor's error from setting the encoder.
      */
-    public void initSteerOffset() {
+    private REVLibError zeroSteerEncoder() {
+
+        if(!canCoderHealth.isHealthy()) return REVLibError.kCANDisconnected;
+
+        double angleRadians = toModuleAngleRadians(readCanCoderDegrees());
+        steerZeroRadians = angleRadians;
 
-        steerEnc.setPosition(getCanCoderAngle().getRadians());
+        return steerEnc.setPosition(angleRadians);
+
+    }
 
+    /**
+     * Starts the module's steer angle from where the steer encoder was zeroed, and moves the simulated encoder to match.
+     *
+     * @param angleRadians The angle the steer encoder was set to, in radians.
+     */
+    private void applySteerOffset(double angleRadians) {
+        if(sim != null) sim.setSteerEncoderPosition(angleRadians);
+        inputs.steerPositionRadians = angleRadians;
     }
 
     /**
@@ -196,34 +439,60 @@ public class SwerveModule extends SubsystemBase {
      * @param isOpenLoop True if the velocity control is open- or closed-loop.
      */
     public void setDesiredState(SwerveModuleState desiredState, boolean isOpenLoop) {
-        
+
+        setDesiredState(desiredState.speedMetersPerSecond, desiredState.angle.getRadians(), isOpenLoop);
+
+    }
+
+    /**
+     * Sets the desired speed and angle of the swerve module and optimizes it, without allocating.
+     * 
+     * @param speed The desired speed, as a fraction of max speed if closed-loop or in meters per second if open-loop.
+     * @param angleRadians The desired angle of the module, in radians.
+     * @param isOpenLoop True if the velocity control is open- or closed-loop.
+     * @see #setDesiredState(SwerveModuleState, boolean)
+     */
+    public void setDesiredState(double speed, double angleRadians, boolean isOpenLoop) {
+
+        double currentAngleRadians = getSteerEncAngleRadians();
+
         // Optimizes speed and angle to minimize change in heading
         // (e.g. module turns 1 degree and reverses drive direction to get from 90 degrees to -89 degrees)
-        desiredState = SwerveModuleState.optimize(desiredState, getSteerEncAngle());
+        if(Math.abs(MathUtil.angleModulus(angleRadians - currentAngleRadians)) > 0.5 * Math.PI) {
+            speed = -speed;
+            angleRadians = MathUtil.angleModulus(angleRadians + Math.PI);
+        }
 
-        steerController.setReference(
-            calculateAdjustedAngle(
-                desiredState.angle.getRadians(),
-                getSteerEncAngle().getRadians()),
-            ControlType.kPosition
-        );
+        desiredSpeed = speed;
+        desiredAngleRadians = angleRadians;
+
+        double steerTargetRadians = calculateAdjustedAngle(angleRadians, currentAngleRadians);
+        steerMtrOutput.setReference(steerTargetRadians, ControlType.kPosition);
+        if(sim != null) sim.setSteerTarget(steerTargetRadians);
 
         if(isOpenLoop) {
-            driveMtr.set(desiredState.speedMetersPerSecond / DriveConstants.kFreeMetersPerSecond);
+            driveMtrOutput.set(speed / DriveConstants.kFreeMetersPerSecond);
+            if(sim != null) sim.setDriveDutyCycle(speed / DriveConstants.kFreeMetersPerSecond);
         }
         else {
-            double speedMetersPerSecond = desiredState.speedMetersPerSecond * DriveConstants.maxDriveSpeedMetersPerSec;
-
-            driveController.setReference(
-                speedMetersPerSecond,
-                ControlType.kVelocity,
-                0, 
-                DriveConstants.driveFF.calculate(speedMetersPerSecond)
-            );
+            double speedMetersPerSecond = speed * DriveConstants.maxDriveSpeedMetersPerSec;
+            double feedforwardVolts = DriveConstants.driveFF.calculate(speedMetersPerSecond);
+
+            driveMtrOutput.setReference(speedMetersPerSecond, ControlType.kVelocity, feedforwardVolts);
+            if(sim != null) sim.setDriveVelocity(speedMetersPerSecond, feedforwardVolts);
         }
     }
 
     public void setDriveCurrentLimit(int amps) {
-        driveMtr.setSmartCurrentLimit(amps);
+        if(driveHealth.isHealthy()) driveMtr.setSmartCurrentLimit(amps);
+    }
+
+    /**
+     * Returns the module's physics model, which {@link SwerveSys} steps along with the rest of the drivetrain.
+     *
+     * @return The physics model, or null on the robot.
+     */
+    SwerveModuleSim getSim() {
+        return sim;
     }
 }
\ No newline at end of file
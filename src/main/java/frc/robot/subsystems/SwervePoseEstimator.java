@@ -0,0 +1,477 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+
+/**
+ * Estimates the robot's pose from module positions and the gyro, corrected by vision, the same way as WPILib's
+ * SwerveDrivePoseEstimator, without allocating.
+ *
+ * <p>The pose, gyro offset and last module distances are kept in primitive fields, and each update integrates the
+ * module deltas with the closed-form pose exponential. Every update is kept in a fixed-size ring of primitive arrays,
+ * so a vision measurement can be applied at the time its frame was captured and the updates since then replayed on
+ * top of it. Resetting the pose clears the ring in place rather than building a new estimator.
+ *
+ * <p>Only {@link #getEstimatedPosition()} allocates. Not thread-safe; {@link SwerveSys} calls it under its odometry
+ * lock.
+ */
+public class SwervePoseEstimator {
+
+    private static final int moduleCount = 4;
+
+    // The least-squares forward kinematics, from the module displacements (dx0, dy0, dx1, dy1, ...) to the chassis
+    // displacement (dx, dy, dtheta).
+    private final double[][] forwardKinematics = new double[3][2 * moduleCount];
+
+    // The variance of each odometry state, x, y and heading.
+    private final double[] stateVariances = new double[3];
+
+    // The current estimate. The heading is the gyro plus its offset, unwrapped, like the gyro.
+    private double x = 0.0;
+    private double y = 0.0;
+    private double heading = 0.0;
+    private double gyroOffset = 0.0;
+    private final double[] lastDistances = new double[moduleCount];
+
+    private final double historySeconds;
+
+    // The update history, oldest first from head.
+    private final int capacity;
+    private final double[] historyTimes;
+    private final double[] historyXs;
+    private final double[] historyYs;
+    private final double[] historyHeadings;
+    private final double[] historyGyros;
+    private final double[][] historyDistances;
+    private final double[][] historyAngles;
+    private int head = 0;
+    private int size = 0;
+
+    // The module positions being integrated, reused by every update and replay.
+    private final double[] angles = new double[moduleCount];
+    private final double[] distances = new double[moduleCount];
+
+    /**
+     * Constructs a new SwervePoseEstimator.
+     *
+     * @param moduleXMeters The forward position of each module from the robot's center.
+     * @param moduleYMeters The leftward position of each module from the robot's center.
+     * @param xyStdDevMeters How much the odometry's x and y are trusted.
+     * @param headingStdDevRadians How much the odometry's heading is trusted.
+     * @param historySeconds How far back vision measurements are accepted.
+     * @param periodSeconds How often the estimator is updated, to size the history.
+     */
+    public SwervePoseEstimator(
+        double[] moduleXMeters, double[] moduleYMeters,
+        double xyStdDevMeters, double headingStdDevRadians,
+        double historySeconds, double periodSeconds
+    ) {
+        // The inverse kinematics maps (dx, dy, dtheta) to each module's (dx - dtheta * y, dy + dtheta * x). Its
+        // pseudo-inverse, inverse(M^T M) M^T, is the forward kinematics.
+        double sumX = 0.0;
+        double sumY = 0.0;
+        double sumSq = 0.0;
+        for(int i = 0; i < moduleCount; i++) {
+            sumX += moduleXMeters[i];
+            sumY += moduleYMeters[i];
+            sumSq += moduleXMeters[i] * moduleXMeters[i] + moduleYMeters[i] * moduleYMeters[i];
+        }
+
+        double[][] inverse = invert(new double[][] {
+            {moduleCount, 0.0, -sumY},
+            {0.0, moduleCount, sumX},
+            {-sumY, sumX, sumSq}
+        });
+
+        for(int i = 0; i < moduleCount; i++) {
+            for(int row = 0; row < 3; row++) {
+                forwardKinematics[row][2 * i] = inverse[row][0] - inverse[row][2] * moduleYMeters[i];
+                forwardKinematics[row][2 * i + 1] = inverse[row][1] + inverse[row][2] * moduleXMeters[i];
+            }
+        }
+
+        stateVariances[0] = xyStdDevMeters * xyStdDevMeters;
+        stateVariances[1] = xyStdDevMeters * xyStdDevMeters;
+        stateVariances[2] = headingStdDevRadians * headingStdDevRadians;
+
+        this.historySeconds = historySeconds;
+
+        capacity = (int)Math.ceil(historySeconds / periodSeconds) + 1;
+        historyTimes = new double[capacity];
+        historyXs = new double[capacity];
+        historyYs = new double[capacity];
+        historyHeadings = new double[capacity];
+        historyGyros = new double[capacity];
+        historyDistances = new double[moduleCount][capacity];
+        historyAngles = new double[moduleCount][capacity];
+    }
+
+    /**
+     * Inverts a 3x3 matrix by its adjugate. Only used at construction.
+     */
+    private static double[][] invert(double[][] m) {
+        double[][] inverse = new double[3][3];
+
+        double determinant = 0.0;
+        for(int row = 0; row < 3; row++) {
+            for(int col = 0; col < 3; col++) {
+                // The cyclic index order builds the cofactor's sign in.
+                double cofactor =
+                    m[(row + 1) % 3][(col + 1) % 3] * m[(row + 2) % 3][(col + 2) % 3] -
+                    m[(row + 1) % 3][(col + 2) % 3] * m[(row + 2) % 3][(col + 1) % 3];
+
+                inverse[col][row] = cofactor;
+                if(row == 0) determinant += m[0][col] * cofactor;
+            }
+        }
+
+        for(int row = 0; row < 3; row++) {
+            for(int col = 0; col < 3; col++) {
+                inverse[row][col] /= determinant;
+            }
+        }
+
+        return inverse;
+    }
+
+    /**
+     * Resets the estimate to a pose in place and forgets the history.
+     *
+     * @param gyroRadians The gyro's current reading.
+     * @param positions The current position of each module.
+     * @param xMeters The robot's x on the field.
+     * @param yMeters The robot's y on the field.
+     * @param headingRadians The robot's heading on the field.
+     */
+    public void resetPosition(double gyroRadians, SwerveModulePosition[] positions, double xMeters, double yMeters, double headingRadians) {
+        for(int i = 0; i < moduleCount; i++) {
+            distances[i] = positions[i].distanceMeters;
+        }
+
+        resetPosition(gyroRadians, distances, xMeters, yMeters, headingRadians);
+    }
+
+    /**
+     * Resets the estimate to a pose in place and forgets the history, from primitive module distances.
+     *
+     * @param gyroRadians The gyro's current reading.
+     * @param distancesMeters The current drive distance of each module. Not kept, so it can be reused.
+     * @param xMeters The robot's x on the field.
+     * @param yMeters The robot's y on the field.
+     * @param headingRadians The robot's heading on the field.
+     */
+    public void resetPosition(double gyroRadians, double[] distancesMeters, double xMeters, double yMeters, double headingRadians) {
+        x = xMeters;
+        y = yMeters;
+        heading = headingRadians;
+        gyroOffset = headingRadians - gyroRadians;
+
+        for(int i = 0; i < moduleCount; i++) {
+            lastDistances[i] = distancesMeters[i];
+        }
+
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Integrates new module positions and gyro reading into the estimate, and records them.
+     *
+     * @param timestampSeconds When the positions were read, in FPGA seconds.
+     * @param gyroRadians The gyro's reading.
+     * @param positions The position of each module.
+     */
+    public void update(double timestampSeconds, double gyroRadians, SwerveModulePosition[] positions) {
+        for(int i = 0; i < moduleCount; i++) {
+            distances[i] = positions[i].distanceMeters;
+            angles[i] = positions[i].angle.getRadians();
+        }
+
+        integrate(gyroRadians);
+        record(timestampSeconds, gyroRadians);
+    }
+
+    /**
+     * Integrates new module distances and angles and gyro reading into the estimate, and records them.
+     * <p>Takes primitives, so a caller reading the modules each update needs no SwerveModulePosition, whose angle has
+     * to be a new Rotation2d every time it changes.
+     *
+     * @param timestampSeconds When the modules were read, in FPGA seconds.
+     * @param gyroRadians The gyro's reading.
+     * @param distancesMeters The drive distance of each module. Not kept, so it can be reused.
+     * @param anglesRadians The angle of each module. Not kept, so it can be reused.
+     */
+    public void update(double timestampSeconds, double gyroRadians, double[] distancesMeters, double[] anglesRadians) {
+        System.arraycopy(distancesMeters, 0, distances, 0, moduleCount);
+        System.arraycopy(anglesRadians, 0, angles, 0, moduleCount);
+
+        integrate(gyroRadians);
+        record(timestampSeconds, gyroRadians);
+    }
+
+    /**
+     * Moves the estimate by the module displacements since the last update, taking the heading from the gyro.
+     * Uses {@link #distances} and {@link #angles}.
+     */
+    private void integrate(double gyroRadians) {
+        double dx = 0.0;
+        double dy = 0.0;
+        for(int i = 0; i < moduleCount; i++) {
+            double distance = distances[i] - lastDistances[i];
+            double moduleDx = distance * Math.cos(angles[i]);
+            double moduleDy = distance * Math.sin(angles[i]);
+
+            dx += forwardKinematics[0][2 * i] * moduleDx + forwardKinematics[0][2 * i + 1] * moduleDy;
+            dy += forwardKinematics[1][2 * i] * moduleDx + forwardKinematics[1][2 * i + 1] * moduleDy;
+
+            lastDistances[i] = distances[i];
+        }
+
+        double newHeading = gyroRadians + gyroOffset;
+        exp(dx, dy, MathUtil.angleModulus(newHeading - heading));
+        heading = newHeading;
+    }
+
+    /**
+     * Moves the estimate along a twist in the robot's frame, following the arc it describes.
+     */
+    private void exp(double dx, double dy, double dtheta) {
+        double s;
+        double c;
+        if(Math.abs(dtheta) < 1e-9) {
+            s = 1.0 - dtheta * dtheta / 6.0;
+            c = 0.5 * dtheta;
+        }
+        else {
+            s = Math.sin(dtheta) / dtheta;
+            c = (1.0 - Math.cos(dtheta)) / dtheta;
+        }
+
+        double forward = dx * s - dy * c;
+        double left = dx * c + dy * s;
+
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        x += forward * cos - left * sin;
+        y += forward * sin + left * cos;
+        heading += dtheta;
+    }
+
+    private void record(double timestampSeconds, double gyroRadians) {
+        int slot;
+        if(size < capacity) {
+            slot = (head + size) % capacity;
+            size++;
+        }
+        else {
+            slot = head;
+            head = (head + 1) % capacity;
+        }
+
+        historyTimes[slot] = timestampSeconds;
+        store(slot, gyroRadians);
+    }
+
+    private void store(int slot, double gyroRadians) {
+        historyXs[slot] = x;
+        historyYs[slot] = y;
+        historyHeadings[slot] = heading;
+        historyGyros[slot] = gyroRadians;
+        for(int i = 0; i < moduleCount; i++) {
+            historyDistances[i][slot] = distances[i];
+            historyAngles[i][slot] = angles[i];
+        }
+    }
+
+    /**
+     * Corrects the estimate with a pose measured by vision when a frame was captured.
+     * <p>The estimate as of the capture time is pulled toward the measurement, weighted by how much each is trusted,
+     * kept in the history at the capture time, and every update since is replayed on top of the correction.
+     * Measurements older than the history are ignored.
+     *
+     * @param visionXMeters The robot's x on the field, as measured.
+     * @param visionYMeters The robot's y on the field, as measured.
+     * @param visionHeadingRadians The robot's heading on the field, as measured.
+     * @param timestampSeconds When the frame was captured, in FPGA seconds.
+     * @param xStdDevMeters How much the measured x is trusted.
+     * @param yStdDevMeters How much the measured y is trusted.
+     * @param headingStdDevRadians How much the measured heading is trusted.
+     */
+    public void addVisionMeasurement(
+        double visionXMeters, double visionYMeters, double visionHeadingRadians, double timestampSeconds,
+        double xStdDevMeters, double yStdDevMeters, double headingStdDevRadians
+    ) {
+        if(size == 0) return;
+
+        int newest = (head + size - 1) % capacity;
+        if(historyTimes[newest] - historySeconds > timestampSeconds) return;
+
+        // The first update at or after the capture time. The sample is interpolated from it and the one before.
+        int after = search(timestampSeconds);
+        double sampleGyro = sample(after, timestampSeconds);
+        double sampleX = x;
+        double sampleY = y;
+        double sampleHeading = heading;
+
+        // The twist from the sampled pose to the measured pose, in the sampled pose's frame.
+        double cos = Math.cos(sampleHeading);
+        double sin = Math.sin(sampleHeading);
+        double fieldDx = visionXMeters - sampleX;
+        double fieldDy = visionYMeters - sampleY;
+        double forward = fieldDx * cos + fieldDy * sin;
+        double left = -fieldDx * sin + fieldDy * cos;
+        double dtheta = MathUtil.angleModulus(visionHeadingRadians - sampleHeading);
+
+        double halfDtheta = 0.5 * dtheta;
+        double cosMinusOne = Math.cos(dtheta) - 1.0;
+        double halfThetaByTanOfHalfDtheta = Math.abs(cosMinusOne) < 1e-9
+            ? 1.0 - dtheta * dtheta / 12.0
+            : -(halfDtheta * Math.sin(dtheta)) / cosMinusOne;
+
+        double twistDx = forward * halfThetaByTanOfHalfDtheta + left * halfDtheta;
+        double twistDy = -forward * halfDtheta + left * halfThetaByTanOfHalfDtheta;
+
+        // Apply the share of the twist the Kalman gain gives to vision.
+        exp(
+            gain(0, xStdDevMeters) * twistDx,
+            gain(1, yStdDevMeters) * twistDy,
+            gain(2, headingStdDevRadians) * dtheta
+        );
+        gyroOffset = heading - sampleGyro;
+
+        // Keep the corrected estimate at the capture time, so another measurement from the same frame starts from it
+        // rather than from the uncorrected odometry.
+        int corrected = after < size && historyTimes[(head + after) % capacity] == timestampSeconds ? after : insert(after);
+        int correctedSlot = (head + corrected) % capacity;
+        historyTimes[correctedSlot] = timestampSeconds;
+        store(correctedSlot, sampleGyro);
+
+        // Replay the updates since the capture time from the corrected pose.
+        for(int index = corrected + 1; index < size; index++) {
+            int slot = (head + index) % capacity;
+            for(int i = 0; i < moduleCount; i++) {
+                distances[i] = historyDistances[i][slot];
+                angles[i] = historyAngles[i][slot];
+            }
+
+            integrate(historyGyros[slot]);
+            store(slot, historyGyros[slot]);
+        }
+    }
+
+    /**
+     * Opens a slot in the history before an update, moving it and every later update back by one. Forgets the oldest
+     * update if the history is full.
+     *
+     * @param index The update to insert before, oldest first.
+     * @return The new slot's index, oldest first.
+     */
+    private int insert(int index) {
+        if(size == capacity) {
+            head = (head + 1) % capacity;
+            size--;
+            index = Math.max(index - 1, 0);
+        }
+
+        for(int moved = size; moved > index; moved--) {
+            copy((head + moved - 1) % capacity, (head + moved) % capacity);
+        }
+        size++;
+
+        return index;
+    }
+
+    private void copy(int from, int to) {
+        historyTimes[to] = historyTimes[from];
+        historyXs[to] = historyXs[from];
+        historyYs[to] = historyYs[from];
+        historyHeadings[to] = historyHeadings[from];
+        historyGyros[to] = historyGyros[from];
+        for(int i = 0; i < moduleCount; i++) {
+            historyDistances[i][to] = historyDistances[i][from];
+            historyAngles[i][to] = historyAngles[i][from];
+        }
+    }
+
+    private double gain(int state, double stdDev) {
+        double q = stateVariances[state];
+        if(q == 0.0) return 0.0;
+        return q / (q + Math.sqrt(q * stdDev * stdDev));
+    }
+
+    /**
+     * Finds the first update at or after a time.
+     *
+     * @return The update's index, oldest first, or size if every update is before the time.
+     */
+    private int search(double timestampSeconds) {
+        int low = 0;
+        int high = size;
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+            if(historyTimes[(head + mid) % capacity] < timestampSeconds) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Sets the estimate and module positions to the history interpolated at a time, the way WPILib's estimator
+     * samples its pose buffer: the module positions and gyro are interpolated, and the pose is integrated to them from
+     * the update before. An update at exactly the time is taken as it is.
+     *
+     * @param after The first update at or after the time.
+     * @return The gyro reading at the time.
+     */
+    private double sample(int after, double timestampSeconds) {
+        int beforeSlot = (head + Math.max(after - 1, 0)) % capacity;
+        int afterSlot = (head + Math.min(after, size - 1)) % capacity;
+
+        double span = historyTimes[afterSlot] - historyTimes[beforeSlot];
+        double t = span > 0.0 ? MathUtil.clamp((timestampSeconds - historyTimes[beforeSlot]) / span, 0.0, 1.0) : 1.0;
+        if(t >= 1.0) beforeSlot = afterSlot;
+        else if(t <= 0.0) afterSlot = beforeSlot;
+
+        x = historyXs[beforeSlot];
+        y = historyYs[beforeSlot];
+        heading = historyHeadings[beforeSlot];
+        gyroOffset = heading - historyGyros[beforeSlot];
+        for(int i = 0; i < moduleCount; i++) {
+            lastDistances[i] = historyDistances[i][beforeSlot];
+            distances[i] = MathUtil.interpolate(historyDistances[i][beforeSlot], historyDistances[i][afterSlot], t);
+            angles[i] = historyAngles[i][beforeSlot] + t * MathUtil.angleModulus(historyAngles[i][afterSlot] - historyAngles[i][beforeSlot]);
+        }
+
+        double gyro = MathUtil.interpolate(historyGyros[beforeSlot], historyGyros[afterSlot], t);
+        integrate(gyro);
+        return gyro;
+    }
+
+    public double getXMeters() {
+        return x;
+    }
+
+    public double getYMeters() {
+        return y;
+    }
+
+    /**
+     * Returns the estimated heading, wrapped like WPILib's estimator.
+     *
+     * @return The heading, from -pi to pi radians.
+     */
+    public double getHeadingRadians() {
+        return MathUtil.angleModulus(heading);
+    }
+
+    /**
+     * Returns the estimated pose.
+     *
+     * @return A new pose.
+     */
+    public Pose2d getEstimatedPosition() {
+        return new Pose2d(x, y, new Rotation2d(getHeadingRadians()));
+    }
+}
@@ -3,19 +3,42 @@ package frc.robot.subsystems;
 import com.ctre.phoenix.sensors.PigeonIMU;
 
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Twist2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
-import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import frc.robot.Constants.CANDevices;
 import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.SimulationConstants;
+import frc.robot.Constants.TelemetryConstants;
+import frc.robot.can.CANBudget;
+import frc.robot.can.DeviceHealth;
+import frc.robot.can.DeviceHealthMonitor;
+import frc.robot.history.StateHistory;
+import frc.robot.logging.MatchLogger;
+import frc.robot.profiling.LoopProfiler;
+import frc.robot.profiling.LoopTimer;
+import frc.robot.subsystems.inputs.GyroInputs;
+import frc.robot.subsystems.inputs.OdometryInputs;
+import frc.robot.subsystems.sim.Simulation;
+import frc.robot.subsystems.sim.SwerveModuleSim;
+import frc.robot.telemetry.Telemetry;
+import frc.robot.telemetry.Telemetry.DoubleEntry;
 
 public class SwerveSys extends SubsystemBase {
 
+    private final LoopTimer periodicTimer = LoopProfiler.getInstance().register("SwerveSys.periodic");
+    private final LoopTimer odometryTimer = LoopProfiler.getInstance().register("SwerveSys.odometry", DriveConstants.odometryPeriodSeconds);
+
     // Initializes swerve module objects
     private final SwerveModule frontLeftMod = 
         new SwerveModule(
@@ -49,6 +72,30 @@ public class SwerveSys extends SubsystemBase {
             DriveConstants.rearRightModOffset
         );
 
+    private final SwerveModule[] modules = {frontLeftMod, frontRightMod, rearLeftMod, rearRightMod};
+
+    // CANcoder readings are only for checking offsets in the pits, so they publish slowly.
+    private final DoubleEntry[] canCoderEntries = {
+        Telemetry.getInstance().addDouble("front left CANcoder", TelemetryConstants.slowPeriodCycles, 0.1),
+        Telemetry.getInstance().addDouble("front right CANcoder", TelemetryConstants.slowPeriodCycles, 0.1),
+        Telemetry.getInstance().addDouble("rear left CANcoder", TelemetryConstants.slowPeriodCycles, 0.1),
+        Telemetry.getInstance().addDouble("rear right CANcoder", TelemetryConstants.slowPeriodCycles, 0.1)
+    };
+
+    // Preallocated buffers so driving and odometry don't allocate every loop.
+    private final double[] moduleSpeeds = new double[modules.length];
+    private final double[] moduleAngles = new double[modules.length];
+
+    // The odometry thread's module readings. Kept as primitives, since a SwerveModulePosition needs a new Rotation2d
+    // whenever its angle changes, which is nearly every sample.
+    private final double[] odometryDistances = new double[modules.length];
+    private final double[] odometryAngles = new double[modules.length];
+
+    /**
+     * Module angles that form an X, so the robot is hard to push while locked.
+     */
+    private static final double[] lockAnglesRadians = {0.25 * Math.PI, -0.25 * Math.PI, -0.25 * Math.PI, 0.25 * Math.PI};
+
     private boolean isLocked = false;
     public boolean isLocked() {
         return isLocked;
@@ -75,19 +122,108 @@ public class SwerveSys extends SubsystemBase {
         this.isTracking = isTracking;
     }
 
+    // The pose a trajectory wants the robot at this loop, kept so the log can measure path-following error.
+    private boolean isFollowingTrajectory = false;
+    private String trajectoryName = null;
+    private double trajectoryTargetXMeters = 0.0;
+    private double trajectoryTargetYMeters = 0.0;
+    private double trajectoryTargetHeadingRadians = 0.0;
+
+    /**
+     * Records the pose a trajectory is driving toward this loop.
+     *
+     * @param trajectoryName The name of the trajectory.
+     * @param xMeters The target x position.
+     * @param yMeters The target y position.
+     * @param headingRadians The target heading.
+     */
+    public void setTrajectoryTarget(String trajectoryName, double xMeters, double yMeters, double headingRadians) {
+        isFollowingTrajectory = true;
+        this.trajectoryName = trajectoryName;
+        trajectoryTargetXMeters = xMeters;
+        trajectoryTargetYMeters = yMeters;
+        trajectoryTargetHeadingRadians = headingRadians;
+    }
+
+    /**
+     * Clears the trajectory target once a trajectory ends.
+     */
+    public void clearTrajectoryTarget() {
+        isFollowingTrajectory = false;
+        trajectoryName = null;
+    }
+
+    public boolean isFollowingTrajectory() {
+        return isFollowingTrajectory;
+    }
+
+    /**
+     * Returns the name of the trajectory being followed.
+     *
+     * @return The name of the trajectory, or null if none is being followed.
+     */
+    public String getTrajectoryName() {
+        return trajectoryName;
+    }
+
+    /**
+     * Returns the pose the last trajectory wanted the robot at, which is kept after the trajectory ends.
+     *
+     * @return The last trajectory target.
+     */
+    public Pose2d getTrajectoryTarget() {
+        return new Pose2d(trajectoryTargetXMeters, trajectoryTargetYMeters, new Rotation2d(trajectoryTargetHeadingRadians));
+    }
+
     private final PigeonIMU imu = new PigeonIMU(CANDevices.imuId);
 
+    // The Pigeon is left alone while it isn't answering, and its last readings are held.
+    private final DeviceHealth imuHealth = DeviceHealthMonitor.getInstance().add("SwerveSys Pigeon", imu);
+    private final double[] imuYawPitchRollDegrees = new double[3];
+    private volatile double lastYawDegrees = 0.0;
+
+    private final GyroInputs gyroInputs = new GyroInputs();
+
+    // On the desktop, where the simulated robot actually is and what its Pigeon reads. The yaw is continuous and can
+    // be reset, like the Pigeon's, so it drifts from the true heading the same way.
+    private final boolean isSimulated = Simulation.isPhysicsEnabled();
+    private volatile Pose2d simulatedPose = new Pose2d();
+    private volatile double simulatedYawDegrees = 0.0;
+    private final SwerveModuleState[] simulatedStates = {
+        new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState(), new SwerveModuleState()
+    };
+
     // Odometry for the robot, measured in meters for linear motion and radians for rotational motion
-    // Takes in kinematics and robot angle for parameters
-
-    private SwerveDrivePoseEstimator odometry = 
-        new SwerveDrivePoseEstimator(
-            DriveConstants.kinematics,
-            getHeading(),
-            getModulePositions(),
-            new Pose2d()
+    // Reset in place rather than replaced, and only touched while holding odometryLock, since the odometry thread
+    // updates it.
+    private final SwervePoseEstimator odometry =
+        new SwervePoseEstimator(
+            DriveConstants.moduleXMeters,
+            DriveConstants.moduleYMeters,
+            DriveConstants.odometryXYStdDevMeters,
+            DriveConstants.odometryHeadingStdDevRadians,
+            DriveConstants.poseHistorySeconds,
+            DriveConstants.odometryPeriodSeconds
         );
 
+    private final Object odometryLock = new Object();
+
+    // What the estimator was fed this loop, as logged. The odometry thread's samples and the resets and vision
+    // measurements asked for during a loop wait in pendingInputs until the next loop takes them.
+    private final OdometryInputs odometryInputs = new OdometryInputs();
+    private final OdometryInputs pendingInputs = new OdometryInputs();
+
+    /**
+     * The estimated pose as of the start of the loop. Pose2d is immutable, so readers never see a partial update.
+     */
+    private volatile Pose2d loopPose = new Pose2d();
+
+    /**
+     * Updates the odometry on its own thread, faster than the main loop. Not started in a replay, which feeds the
+     * estimator the logged samples instead.
+     */
+    private final Notifier odometryNotifier = new Notifier(this::updateOdometry);
+
     /**
      * Constructs a new SwerveSys.
      * 
@@ -100,19 +236,229 @@ public class SwerveSys extends SubsystemBase {
         rearLeftMod.resetDistance();
         rearRightMod.resetDistance();
 
+        // The gyro publishes its yaw every 10ms by default; match it to the odometry rate.
+        CANBudget.getInstance().configureOdometry(imu);
+
         resetPose();
+
+        gyroInputs.register("swerve/gyro/");
+        odometryInputs.register("swerve/odometry/");
+        MatchLogger.getInstance().addDoubleOutput("swerve/poseXMeters", () -> getPose().getX());
+        MatchLogger.getInstance().addDoubleOutput("swerve/poseYMeters", () -> getPose().getY());
+        MatchLogger.getInstance().addDoubleOutput("swerve/poseHeadingRadians", () -> getPose().getRotation().getRadians());
+        MatchLogger.getInstance().addBooleanOutput("swerve/isLocked", () -> isLocked);
+        MatchLogger.getInstance().addBooleanOutput("swerve/isFieldOriented", () -> isFieldOriented);
+        MatchLogger.getInstance().addDoubleOutput("swerve/speedFactor", () -> speedFactor);
+        MatchLogger.getInstance().addBooleanOutput("swerve/isFollowingTrajectory", () -> isFollowingTrajectory);
+        MatchLogger.getInstance().addDoubleOutput("swerve/trajectoryTargetXMeters", () -> trajectoryTargetXMeters);
+        MatchLogger.getInstance().addDoubleOutput("swerve/trajectoryTargetYMeters", () -> trajectoryTargetYMeters);
+        MatchLogger.getInstance().addDoubleOutput("swerve/trajectoryTargetHeadingRadians", () -> trajectoryTargetHeadingRadians);
+
+        updateInputs();
+
+        if(!MatchLogger.getInstance().isReplaying()) {
+            odometryNotifier.setName("SwerveSys odometry");
+            odometryNotifier.startPeriodic(DriveConstants.odometryPeriodSeconds);
+        }
+    }
+
+    /**
+     * Reads the gyro and every module's sensors once. Called at the start of each loop,
+     * before any subsystem or command runs.
+     */
+    public void updateInputs() {
+        // The simulated robot stays flat, so only yaw moves.
+        if(isSimulated) gyroInputs.yawPitchRollDegrees[0] = simulatedYawDegrees;
+        else if(imuHealth.isHealthy() && imuHealth.update(imu.getYawPitchRoll(imuYawPitchRollDegrees))) {
+            System.arraycopy(imuYawPitchRollDegrees, 0, gyroInputs.yawPitchRollDegrees, 0, 3);
+        }
+
+        frontLeftMod.updateInputs();
+        frontRightMod.updateInputs();
+        rearLeftMod.updateInputs();
+        rearRightMod.updateInputs();
     }
 
     // This method will be called once per scheduler run
     @Override
     public void periodic() {
-        // Updates the odometry every 20ms
-        odometry.update(getHeading(), getModulePositions());
+        periodicTimer.start();
+
+        for(int i = 0; i < modules.length; i++) {
+            canCoderEntries[i].set(Math.toDegrees(modules[i].getCanCoderAngleRadians()));
+        }
+
+        periodicTimer.stop();
+    }
+
+    /**
+     * Steps every module's physics and moves the simulated robot by the motion of its wheels.
+     */
+    @Override
+    public void simulationPeriodic() {
+        if(!isSimulated) return;
+
+        double dtSeconds = TimedRobot.kDefaultPeriod / SimulationConstants.substepsPerLoop;
+        for(int step = 0; step < SimulationConstants.substepsPerLoop; step++) {
+            for(int i = 0; i < modules.length; i++) {
+                SwerveModuleSim sim = modules[i].getSim();
+                sim.update(dtSeconds);
+
+                simulatedStates[i].speedMetersPerSecond = sim.getDriveVelocityMetersPerSecond();
+                simulatedStates[i].angle = new Rotation2d(sim.getSteerAngleRadians());
+            }
+
+            ChassisSpeeds speeds = DriveConstants.kinematics.toChassisSpeeds(simulatedStates);
+            simulatedPose = simulatedPose.exp(new Twist2d(
+                speeds.vxMetersPerSecond * dtSeconds,
+                speeds.vyMetersPerSecond * dtSeconds,
+                speeds.omegaRadiansPerSecond * dtSeconds
+            ));
+            simulatedYawDegrees += Math.toDegrees(speeds.omegaRadiansPerSecond * dtSeconds);
+        }
+    }
+
+    /**
+     * Returns where the simulated robot actually is, as opposed to where odometry estimates it is.
+     * 
+     * @return The true pose of the simulated robot, or the estimated pose on the robot.
+     */
+    public Pose2d getSimulatedPose() {
+        return isSimulated ? simulatedPose : getPose();
+    }
+    
+    /**
+     * Samples the gyro and module positions, updates the pose estimator, and keeps the sample for the next loop to log.
+     * <p>Runs on the odometry thread at {@link DriveConstants#odometryPeriodSeconds}.
+     */
+    private void updateOdometry() {
+        odometryTimer.start();
+
+        // Sample inside the lock so the main loop can't take the samples between the reads and the update.
+        synchronized(odometryLock) {
+            // If the main loop has fallen behind, skip the sample so the log still holds every sample the estimator
+            // saw. The next sample covers the motion since the last one.
+            int sample = pendingInputs.sampleCount;
+            if(sample < DriveConstants.maxOdometrySamplesPerLoop) {
+                double timestampSeconds = Timer.getFPGATimestamp();
+                double gyroRadians = readHeadingRadians();
+                readModulePositions();
+
+                pendingInputs.timestampsSeconds[sample] = timestampSeconds;
+                pendingInputs.gyroRadians[sample] = gyroRadians;
+                System.arraycopy(odometryDistances, 0, pendingInputs.distancesMeters[sample], 0, modules.length);
+                System.arraycopy(odometryAngles, 0, pendingInputs.anglesRadians[sample], 0, modules.length);
+                pendingInputs.sampleCount++;
+
+                integrateSample(timestampSeconds, gyroRadians, odometryDistances, odometryAngles);
+            }
+        }
+
+        odometryTimer.stop();
+    }
+
+    /**
+     * Updates the pose estimator with one odometry sample and records it in the state history.
+     * <p>Only call while holding odometryLock.
+     */
+    private void integrateSample(double timestampSeconds, double gyroRadians, double[] distancesMeters, double[] anglesRadians) {
+        odometry.update(timestampSeconds, gyroRadians, distancesMeters, anglesRadians);
+
+        StateHistory.getInstance().recordPose(timestampSeconds, odometry.getXMeters(), odometry.getYMeters(), odometry.getHeadingRadians());
+        StateHistory.getInstance().recordModulePositions(timestampSeconds, distancesMeters, anglesRadians);
+    }
+
+    /**
+     * Feeds the pose estimator this loop's inputs and takes the pose for the loop. Call once the loop's inputs are
+     * final, after a replay has injected its own.
+     * <p>On the robot, the odometry thread has already integrated its samples, so they are taken into the log along
+     * with the reset and vision measurement asked for during the last loop, which are then applied. In a replay the
+     * odometry thread isn't running, so the logged samples are integrated here, then the logged reset and measurement
+     * applied. Either way the estimator sees the same inputs in the same order.
+     */
+    public void applyOdometryInputs() {
+        synchronized(odometryLock) {
+            if(MatchLogger.getInstance().isReplaying()) {
+                for(int sample = 0; sample < odometryInputs.sampleCount; sample++) {
+                    integrateSample(
+                        odometryInputs.timestampsSeconds[sample],
+                        odometryInputs.gyroRadians[sample],
+                        odometryInputs.distancesMeters[sample],
+                        odometryInputs.anglesRadians[sample]
+                    );
+                }
+            }
+            else {
+                takePendingInputs();
+            }
+
+            if(odometryInputs.hasReset) {
+                odometry.resetPosition(
+                    odometryInputs.resetGyroRadians,
+                    odometryInputs.resetDistancesMeters,
+                    odometryInputs.resetXMeters,
+                    odometryInputs.resetYMeters,
+                    odometryInputs.resetHeadingRadians
+                );
+                StateHistory.getInstance().clearDrivetrain();
+            }
+
+            if(odometryInputs.hasVisionMeasurement) {
+                odometry.addVisionMeasurement(
+                    odometryInputs.visionXMeters,
+                    odometryInputs.visionYMeters,
+                    odometryInputs.visionHeadingRadians,
+                    odometryInputs.visionTimestampSeconds,
+                    odometryInputs.visionXStdDevMeters,
+                    odometryInputs.visionYStdDevMeters,
+                    odometryInputs.visionHeadingStdDevRadians
+                );
+            }
+
+            loopPose = odometry.getEstimatedPosition();
+        }
 
-        SmartDashboard.putNumber("front left CANcoder", frontLeftMod.getCanCoderAngle().getDegrees());
-        SmartDashboard.putNumber("front right CANcoder", frontRightMod.getCanCoderAngle().getDegrees());
-        SmartDashboard.putNumber("rear left CANcoder", rearLeftMod.getCanCoderAngle().getDegrees());
-        SmartDashboard.putNumber("rear right CANcoder", rearRightMod.getCanCoderAngle().getDegrees());
+        // A replayed loop asks for its resets and measurements again, but the logged ones already stand in for them.
+        pendingInputs.hasReset = false;
+        pendingInputs.hasVisionMeasurement = false;
+    }
+
+    /**
+     * Moves the odometry thread's samples and the requested reset and vision measurement into the logged inputs.
+     * <p>Only call while holding odometryLock.
+     */
+    private void takePendingInputs() {
+        odometryInputs.sampleCount = pendingInputs.sampleCount;
+        for(int sample = 0; sample < pendingInputs.sampleCount; sample++) {
+            odometryInputs.timestampsSeconds[sample] = pendingInputs.timestampsSeconds[sample];
+            odometryInputs.gyroRadians[sample] = pendingInputs.gyroRadians[sample];
+            System.arraycopy(pendingInputs.distancesMeters[sample], 0, odometryInputs.distancesMeters[sample], 0, modules.length);
+            System.arraycopy(pendingInputs.anglesRadians[sample], 0, odometryInputs.anglesRadians[sample], 0, modules.length);
+        }
+        pendingInputs.sampleCount = 0;
+
+        odometryInputs.hasReset = pendingInputs.hasReset;
+        if(pendingInputs.hasReset) {
+            // Read now rather than when the reset was asked for, so the drive encoders and gyro have had a loop to zero.
+            odometryInputs.resetGyroRadians = readHeadingRadians();
+            readModulePositions();
+            System.arraycopy(odometryDistances, 0, odometryInputs.resetDistancesMeters, 0, modules.length);
+
+            odometryInputs.resetXMeters = pendingInputs.resetXMeters;
+            odometryInputs.resetYMeters = pendingInputs.resetYMeters;
+            odometryInputs.resetHeadingRadians = pendingInputs.resetHeadingRadians;
+        }
+
+        odometryInputs.hasVisionMeasurement = pendingInputs.hasVisionMeasurement;
+        if(pendingInputs.hasVisionMeasurement) {
+            odometryInputs.visionXMeters = pendingInputs.visionXMeters;
+            odometryInputs.visionYMeters = pendingInputs.visionYMeters;
+            odometryInputs.visionHeadingRadians = pendingInputs.visionHeadingRadians;
+            odometryInputs.visionTimestampSeconds = pendingInputs.visionTimestampSeconds;
+            odometryInputs.visionXStdDevMeters = pendingInputs.visionXStdDevMeters;
+            odometryInputs.visionYStdDevMeters = pendingInputs.visionYStdDevMeters;
+            odometryInputs.visionHeadingStdDevRadians = pendingInputs.visionHeadingStdDevRadians;
+        }
     }
     
     /**
@@ -127,12 +473,10 @@ public class SwerveSys extends SubsystemBase {
         if(driveX != 0.0 || driveY != 0.0 || rotation != 0.0) isLocked = false;
         
         if(isLocked) {
-            setModuleStates(new SwerveModuleState[] {
-                new SwerveModuleState(0.0, new Rotation2d(0.25 * Math.PI)),
-                new SwerveModuleState(0.0, new Rotation2d(-0.25 * Math.PI)),
-                new SwerveModuleState(0.0, new Rotation2d(-0.25 * Math.PI)),
-                new SwerveModuleState(0.0, new Rotation2d(0.25 * Math.PI))
-            });
+            for(int i = 0; i < modules.length; i++) {
+                moduleSpeeds[i] = 0.0;
+                moduleAngles[i] = lockAnglesRadians[i];
+            }
         }
         else {
             // Reduces the speed of the drive base for "turtle" or "sprint" modes.
@@ -141,19 +485,73 @@ public class SwerveSys extends SubsystemBase {
             rotation *= speedFactor;
 
             // Represents the overall state of the drive base.
-            ChassisSpeeds speeds =
-            isFieldOriented
-                ? ChassisSpeeds.fromFieldRelativeSpeeds(
-                    driveX, driveY, rotation, getHeading())
-                : new ChassisSpeeds(driveX, driveY, rotation);
-
-            // Uses kinematics (wheel placements) to convert overall robot state to array of individual module states.
-            SwerveModuleState[] states = DriveConstants.kinematics.toSwerveModuleStates(speeds);
+            double vx = driveX;
+            double vy = driveY;
+            if(isFieldOriented) {
+                double headingRadians = Math.toRadians(gyroInputs.getYawDegrees());
+                double cos = Math.cos(headingRadians);
+                double sin = Math.sin(headingRadians);
+
+                vx = driveX * cos + driveY * sin;
+                vy = -driveX * sin + driveY * cos;
+            }
+
+            // Uses kinematics (wheel placements) to convert overall robot state to individual module states.
+            toModuleStates(vx, vy, rotation, moduleSpeeds, moduleAngles);
             
             // Makes sure the wheels don't try to spin faster than the maximum speed possible
-            SwerveDriveKinematics.desaturateWheelSpeeds(states, DriveConstants.maxDriveSpeedMetersPerSec);
+            desaturateWheelSpeeds(moduleSpeeds, DriveConstants.maxDriveSpeedMetersPerSec);
+        }
+
+        for(int i = 0; i < modules.length; i++) {
+            modules[i].setDesiredState(moduleSpeeds[i], moduleAngles[i], false);
+        }
+    }
+
+    /**
+     * Converts chassis speeds to module speeds and angles without allocating.
+     * <p>Matches {@link SwerveDriveKinematics#toSwerveModuleStates}: if the chassis is stopped,
+     * the speeds are zeroed and the angles are left as they were so the wheels hold their heading.
+     * 
+     * @param vx The forward speed of the robot.
+     * @param vy The leftward speed of the robot.
+     * @param omega The counterclockwise rotation rate of the robot, in radians per second.
+     * @param speeds Filled with the speed of each module.
+     * @param anglesRadians Filled with the angle of each module, in radians.
+     */
+    public static void toModuleStates(double vx, double vy, double omega, double[] speeds, double[] anglesRadians) {
+        if(vx == 0.0 && vy == 0.0 && omega == 0.0) {
+            for(int i = 0; i < speeds.length; i++) {
+                speeds[i] = 0.0;
+            }
+            return;
+        }
+
+        for(int i = 0; i < speeds.length; i++) {
+            double x = vx - omega * DriveConstants.moduleYMeters[i];
+            double y = vy + omega * DriveConstants.moduleXMeters[i];
 
-            setModuleStates(states);
+            speeds[i] = Math.hypot(x, y);
+            anglesRadians[i] = Math.atan2(y, x);
+        }
+    }
+
+    /**
+     * Scales module speeds down uniformly so none exceeds the maximum, in place.
+     * 
+     * @param speeds The module speeds to desaturate.
+     * @param maxSpeed The maximum speed a module can reach.
+     */
+    public static void desaturateWheelSpeeds(double[] speeds, double maxSpeed) {
+        double realMaxSpeed = 0.0;
+        for(int i = 0; i < speeds.length; i++) {
+            realMaxSpeed = Math.max(realMaxSpeed, Math.abs(speeds[i]));
+        }
+
+        if(realMaxSpeed > maxSpeed) {
+            for(int i = 0; i < speeds.length; i++) {
+                speeds[i] = speeds[i] / realMaxSpeed * maxSpeed;
+            }
         }
     }
 
@@ -177,10 +575,9 @@ public class SwerveSys extends SubsystemBase {
      * @param moduleStates the module states to set.
      */
     public void setModuleStates(SwerveModuleState[] moduleStates) {
-        frontLeftMod.setDesiredState(moduleStates[0], false);
-        frontRightMod.setDesiredState(moduleStates[1], false);
-        rearLeftMod.setDesiredState(moduleStates[2], false);
-        rearRightMod.setDesiredState(moduleStates[3], false);
+        for(int i = 0; i < modules.length; i++) {
+            modules[i].setDesiredState(moduleStates[i], false);
+        }
     }
 
     /**
@@ -190,51 +587,96 @@ public class SwerveSys extends SubsystemBase {
      * @param moduleStates the module states to set.
      */
     public void setModuleStatesAuto(SwerveModuleState[] moduleStates) {
-        frontLeftMod.setDesiredState(moduleStates[0], true);
-        frontRightMod.setDesiredState(moduleStates[1], true);
-        rearLeftMod.setDesiredState(moduleStates[2], true);
-        rearRightMod.setDesiredState(moduleStates[3], true);
+        for(int i = 0; i < modules.length; i++) {
+            modules[i].setDesiredState(moduleStates[i], true);
+        }
     }
 
+    /**
+     * Drives the modules open-loop at the given robot-relative chassis speeds, as used by trajectory following.
+     * 
+     * @param chassisSpeeds The robot-relative speeds to drive at.
+     */
     public void setChassisSpeeds(ChassisSpeeds chassisSpeeds) {
-        setModuleStatesAuto(DriveConstants.kinematics.toSwerveModuleStates(chassisSpeeds));
+        toModuleStates(
+            chassisSpeeds.vxMetersPerSecond,
+            chassisSpeeds.vyMetersPerSecond,
+            chassisSpeeds.omegaRadiansPerSecond,
+            moduleSpeeds,
+            moduleAngles
+        );
+
+        for(int i = 0; i < modules.length; i++) {
+            modules[i].setDesiredState(moduleSpeeds[i], moduleAngles[i], true);
+        }
     }
     
 
     /**
-     * Returns an array of module states.
+     * Fills arrays with each module's speed and angle as of the start of the loop, without allocating.
      * 
-     * @return An array of SwerveModuleState.
+     * @param speedsMetersPerSecond Filled with each module's speed, in meters per second.
+     * @param anglesRadians Filled with each module's angle from the steer encoder, in radians.
      */
-    public SwerveModuleState[] getModuleStates() {
-        return new SwerveModuleState[] {
-            new SwerveModuleState(frontLeftMod.getCurrentVelocityMetersPerSecond(), frontLeftMod.getSteerEncAngle()),
-            new SwerveModuleState(frontRightMod.getCurrentVelocityMetersPerSecond(), frontRightMod.getSteerEncAngle()),
-            new SwerveModuleState(rearLeftMod.getCurrentVelocityMetersPerSecond(), rearLeftMod.getSteerEncAngle()),
-            new SwerveModuleState(rearRightMod.getCurrentVelocityMetersPerSecond(), rearRightMod.getSteerEncAngle())
-        };
+    public void getModuleStates(double[] speedsMetersPerSecond, double[] anglesRadians) {
+        for(int i = 0; i < modules.length; i++) {
+            speedsMetersPerSecond[i] = modules[i].getCurrentVelocityMetersPerSecond();
+            anglesRadians[i] = modules[i].getSteerEncAngleRadians();
+        }
     }
 
     /**
-     * Returns an array of module positions.
+     * Fills arrays with each module's drive distance and angle as of the start of the loop, without allocating.
      * 
-     * @return An array of SwerveModulePosition.
+     * @param distancesMeters Filled with each module's drive distance, in meters.
+     * @param anglesRadians Filled with each module's angle from the CANCoder, in radians.
      */
-    public SwerveModulePosition[] getModulePositions() {
-        return new SwerveModulePosition[] {
-            frontLeftMod.getPosition(),
-            frontRightMod.getPosition(),
-            rearLeftMod.getPosition(),
-            rearRightMod.getPosition()
-        };
+    public void getModulePositions(double[] distancesMeters, double[] anglesRadians) {
+        for(int i = 0; i < modules.length; i++) {
+            distancesMeters[i] = modules[i].getDriveDistanceMeters();
+            anglesRadians[i] = modules[i].getCanCoderAngleRadians();
+        }
     }
 
     /**
+     * Reads the module distances and angles straight from hardware into the odometry buffers, without allocating.
+     * <p>Only call while holding odometryLock, since the buffers are shared by the odometry thread and pose resets.
+     */
+    private void readModulePositions() {
+        for(int i = 0; i < modules.length; i++) {
+            odometryDistances[i] = modules[i].readDistanceMeters();
+            odometryAngles[i] = modules[i].readAngleRadians();
+        }
+    }
+
+    /**
+     * Returns the estimated pose as of the start of the loop, or the pose it was set to since. Never blocks.
+     * <p>Deliberately not the odometry thread's newest sample: every command and subsystem sees the same pose for the
+     * whole loop, at most one loop period old, and a replay, which feeds the loop's logged samples in at the start of
+     * each loop, sees exactly what the robot saw. The thread's samples still reach the estimator at 200 Hz, so
+     * integration and vision latency compensation run at the full rate.
+     * 
      * @return The current estimated position of the robot on the field
      * based on drive encoder and gyro readings.
      */
     public Pose2d getPose() {
-        return odometry.getEstimatedPosition();
+        return loopPose;
+    }
+
+    /**
+     * Asks for the estimator to be reset to a pose at the start of the next loop, against the gyro and module readings
+     * then. The pose is reported from now on.
+     */
+    private void requestReset(Pose2d pose) {
+        pendingInputs.hasReset = true;
+        pendingInputs.resetXMeters = pose.getX();
+        pendingInputs.resetYMeters = pose.getY();
+        pendingInputs.resetHeadingRadians = pose.getRotation().getRadians();
+
+        // A measurement from before the reset is in the old frame.
+        pendingInputs.hasVisionMeasurement = false;
+
+        loopPose = pose;
     }
 
     /**
@@ -243,17 +685,14 @@ public class SwerveSys extends SubsystemBase {
     public void resetPose() {
         resetDriveDistances();
         resetHeading();
-
-        odometry = new SwerveDrivePoseEstimator(
-            DriveConstants.kinematics,
-            new Rotation2d(),
-            getModulePositions(),
-            new Pose2d()
-        );
+        requestReset(new Pose2d());
     }
 
     public void setHeading(Rotation2d heading) {
-        imu.setYaw(Math.abs(heading.getDegrees() % 360));
+        if(imuHealth.isHealthy()) imu.setYaw(Math.abs(heading.getDegrees() % 360));
+        lastYawDegrees = Math.abs(heading.getDegrees() % 360);
+        if(isSimulated) simulatedYawDegrees = Math.abs(heading.getDegrees() % 360);
+        gyroInputs.yawPitchRollDegrees[0] = Math.abs(heading.getDegrees() % 360);
     }
 
     /**
@@ -262,14 +701,34 @@ public class SwerveSys extends SubsystemBase {
      * @param pose The pose to set the robot to.
      */
     public void setPose(Pose2d pose) {
+        // The simulated robot is placed wherever the code says it starts.
+        if(isSimulated) simulatedPose = pose;
+
         setHeading(pose.getRotation());
+        requestReset(pose);
+    }
 
-        odometry = new SwerveDrivePoseEstimator(
-            DriveConstants.kinematics,
-            pose.getRotation(),
-            getModulePositions(),
-            pose
-        );
+    /**
+     * Corrects the pose with a field pose measured by vision, at the start of the next loop.
+     * <p>The estimator replays the odometry since the frame was captured, so the correction lands where the robot was
+     * at the capture time rather than where it is now. One measurement is applied per loop; if more arrive, the one
+     * with the smallest standard deviation in x is kept.
+     * 
+     * @param visionPose The robot's pose on the field, as measured by vision.
+     * @param timestampSeconds When the frame was captured, in FPGA seconds.
+     * @param stdDevs The measurement's standard deviations in x and y, in meters, and heading, in radians.
+     */
+    public void addVisionMeasurement(Pose2d visionPose, double timestampSeconds, Matrix<N3, N1> stdDevs) {
+        if(pendingInputs.hasVisionMeasurement && stdDevs.get(0, 0) >= pendingInputs.visionXStdDevMeters) return;
+
+        pendingInputs.hasVisionMeasurement = true;
+        pendingInputs.visionXMeters = visionPose.getX();
+        pendingInputs.visionYMeters = visionPose.getY();
+        pendingInputs.visionHeadingRadians = visionPose.getRotation().getRadians();
+        pendingInputs.visionTimestampSeconds = timestampSeconds;
+        pendingInputs.visionXStdDevMeters = stdDevs.get(0, 0);
+        pendingInputs.visionYStdDevMeters = stdDevs.get(1, 0);
+        pendingInputs.visionHeadingStdDevRadians = stdDevs.get(2, 0);
     }
 
     /**
@@ -318,13 +777,23 @@ public class SwerveSys extends SubsystemBase {
      * @return The overall direction of travel of the robot
      */
     public Rotation2d getDirectionOfTravel() {
-        return new Rotation2d(
-            (frontLeftMod.getCanCoderAngle().plus(new Rotation2d(frontLeftMod.getCurrentVelocityMetersPerSecond() < 0.0 ? Math.PI : 0.0)).getRadians()
-            + frontRightMod.getCanCoderAngle().plus(new Rotation2d(frontRightMod.getCurrentVelocityMetersPerSecond() < 0.0 ? Math.PI : 0.0)).getRadians()
-            + rearLeftMod.getCanCoderAngle().plus(new Rotation2d(rearLeftMod.getCurrentVelocityMetersPerSecond() < 0.0 ? Math.PI : 0.0)).getRadians()
-            + rearRightMod.getCanCoderAngle().plus(new Rotation2d(rearRightMod.getCurrentVelocityMetersPerSecond() < 0.0 ? Math.PI : 0.0)).getRadians()
-            ) / 4.0
-        );
+        return new Rotation2d(getDirectionOfTravelRadians());
+    }
+
+    /**
+     * Returns the average direction of each module to get an overall direction of travel of the robot.
+     * 
+     * @return The overall direction of travel of the robot, in radians.
+     */
+    public double getDirectionOfTravelRadians() {
+        double sum = 0.0;
+        for(int i = 0; i < modules.length; i++) {
+            // Modules driving backwards are travelling in the opposite direction they point.
+            sum += MathUtil.angleModulus(
+                modules[i].getCanCoderAngleRadians() + (modules[i].getCurrentVelocityMetersPerSecond() < 0.0 ? Math.PI : 0.0)
+            );
+        }
+        return sum / modules.length;
     }
 
     /**
@@ -333,20 +802,46 @@ public class SwerveSys extends SubsystemBase {
      * @return The velocity in the forward direction of the robot in meters per second.
      */
     public double getForwardVelocityMetersPerSecond() {
-        double rel = Math.abs(getDirectionOfTravel().getDegrees() % 90.0);
-        if(getDirectionOfTravel().getDegrees() > 90.0 || getDirectionOfTravel().getDegrees() < -90.0)
+        double directionDegrees = Math.toDegrees(getDirectionOfTravelRadians());
+
+        double rel = Math.abs(directionDegrees % 90.0);
+        if(directionDegrees > 90.0 || directionDegrees < -90.0)
             rel -= 90.0;
 
         return getAverageDriveVelocityMetersPerSecond() * (Math.copySign((90.0 - rel), rel) / 90.0);
     }
 
     /**
-     * Returns the current heading of the robot from the gyro.
+     * Returns the current heading of the robot from the gyro, as of the start of the loop.
      * 
      * @return The current heading of the robot.
      */
     public Rotation2d getHeading() {
-        return Rotation2d.fromDegrees(imu.getYaw());
+        return Rotation2d.fromDegrees(gyroInputs.getYawDegrees());
+    }
+
+    /**
+     * Returns the current heading of the robot from the gyro, as of the start of the loop.
+     * 
+     * @return The current heading of the robot, in degrees.
+     */
+    public double getHeadingDegrees() {
+        return gyroInputs.getYawDegrees();
+    }
+
+    /**
+     * Reads the heading straight from the gyro, for the odometry thread and pose resets.
+     * 
+     * @return The current heading of the robot, in radians. Continuous, like the gyro's yaw.
+     */
+    private double readHeadingRadians() {
+        if(isSimulated) return Math.toRadians(simulatedYawDegrees);
+
+        if(imuHealth.isHealthy()) {
+            double yawDegrees = imu.getYaw();
+            if(imuHealth.update(imu.getLastError())) lastYawDegrees = yawDegrees;
+        }
+        return Math.toRadians(lastYawDegrees);
     }
 
     /**
@@ -356,7 +851,7 @@ public class SwerveSys extends SubsystemBase {
      */
     public double getPitchDegrees() {
         // IMU is turned 90 degrees, so pitch and roll are flipped.
-        return imu.getRoll();
+        return gyroInputs.getRollDegrees();
     }
 
     /**
@@ -366,14 +861,17 @@ public class SwerveSys extends SubsystemBase {
      */
     public double getRollDegrees() {
         // IMU is turned 90 degrees, so pitch and roll are flipped.
-        return imu.getPitch();
+        return gyroInputs.getPitchDegrees();
     }
 
     /**
      * Sets the gyro heading to zero.
      */
     public void resetHeading() {
-        imu.setYaw(0.0);
+        if(imuHealth.isHealthy()) imu.setYaw(0.0);
+        lastYawDegrees = 0.0;
+        if(isSimulated) simulatedYawDegrees = 0.0;
+        gyroInputs.yawPitchRollDegrees[0] = 0.0;
     }
 
     public void setDriveCurrentLimit(int amps) {
@@ -0,0 +1,75 @@
+package frc.robot.subsystems;
+
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.photonvision.common.dataflow.structures.Packet;
+import org.photonvision.targeting.PhotonPipelineResult;
+
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.RawSubscriber;
+
+/**
+ * Receives a PhotonVision camera's frames as they arrive, instead of when the main loop asks for them.
+ *
+ * <p>A NetworkTables listener decodes each result on the NetworkTables listener thread, stamps it with its capture
+ * time, and leaves it in a single slot. The main loop takes whatever is in the slot at the start of each loop, so
+ * it never pays to decode a frame, and it sees a new frame on the first loop after it arrives. A frame that arrives
+ * before the last one was taken replaces it, so the replaced frame is never seen or fused. Replaced frames are
+ * counted, since a high count means the camera sends faster than the loop can use.
+ */
+class VisionFrameListener {
+
+    private final RawSubscriber resultSubscriber;
+
+    private final AtomicReference<PhotonPipelineResult> latestFrame = new AtomicReference<PhotonPipelineResult>();
+    private final AtomicLong overwrittenFrameCount = new AtomicLong();
+
+    /**
+     * Constructs a new VisionFrameListener and starts listening.
+     *
+     * @param cameraName The name of the PhotonVision camera.
+     */
+    VisionFrameListener(String cameraName) {
+        NetworkTableInstance instance = NetworkTableInstance.getDefault();
+
+        // The same topic PhotonCamera reads. Every frame is queued for the listener, not just the latest.
+        resultSubscriber = instance.getTable("photonvision").getSubTable(cameraName).getRawTopic("rawBytes")
+            .subscribe("rawBytes", new byte[] {}, PubSubOption.periodic(0.01), PubSubOption.sendAll(true));
+
+        instance.addListener(resultSubscriber, EnumSet.of(NetworkTableEvent.Kind.kValueAll), this::decode);
+    }
+
+    private void decode(NetworkTableEvent event) {
+        if(event.valueData == null) return;
+
+        PhotonPipelineResult result = new PhotonPipelineResult();
+        result.createFromPacket(new Packet(event.valueData.value.getRaw()));
+
+        // NetworkTables stamps values on arrival in FPGA time, so take off the pipeline latency to get the capture time.
+        result.setTimestampSeconds(event.valueData.value.getTime() / 1e6 - result.getLatencyMillis() / 1e3);
+
+        if(latestFrame.getAndSet(result) != null) overwrittenFrameCount.incrementAndGet();
+    }
+
+    /**
+     * Takes the newest frame that arrived since the last call.
+     *
+     * @return The newest frame, or null if none has arrived.
+     */
+    PhotonPipelineResult takeFrame() {
+        return latestFrame.getAndSet(null);
+    }
+
+    /**
+     * Returns how many frames were replaced by a newer one before the main loop took them.
+     *
+     * @return The number of frames dropped.
+     */
+    long getOverwrittenFrameCount() {
+        return overwrittenFrameCount.get();
+    }
+}
@@ -1,16 +1,47 @@
 package frc.robot.subsystems;
 
+import java.io.IOException;
+import java.util.Optional;
+import java.util.function.Supplier;
+
 import org.photonvision.PhotonCamera;
+import org.photonvision.targeting.PhotonPipelineResult;
+import org.photonvision.targeting.PhotonTrackedTarget;
 
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFieldLayout.OriginPosition;
+import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj.PowerDistribution;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.PowerDistribution.ModuleType;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.GameElement;
+import frc.robot.Constants.TelemetryConstants;
 import frc.robot.Constants.VisionConstants;
+import frc.robot.history.StateHistory;
+import frc.robot.logging.MatchLogger;
+import frc.robot.profiling.LoopProfiler;
+import frc.robot.profiling.LoopTimer;
+import frc.robot.subsystems.sim.Simulation;
+import frc.robot.subsystems.sim.VisionSim;
+import frc.robot.telemetry.Telemetry;
+import frc.robot.telemetry.Telemetry.DoubleEntry;
 
 public class VisionSys extends SubsystemBase {
 
+    private final LoopTimer periodicTimer = LoopProfiler.getInstance().register("VisionSys.periodic");
+
     private final PowerDistribution powerDistributionHub;
 
     /**
@@ -29,30 +60,240 @@ public class VisionSys extends SubsystemBase {
         }
     }
 
+    /**
+     * Takes a field pose measured by vision, like {@link SwerveSys#addVisionMeasurement}.
+     */
+    @FunctionalInterface
+    public static interface PoseMeasurementConsumer {
+        void accept(Pose2d visionPose, double timestampSeconds, Matrix<N3, N1> stdDevs);
+    }
+
+    private static final Transform3d cameraToRobot = VisionConstants.limelightRobotToCamera.inverse();
+
     PhotonCamera limelight;
     PhotonCamera intakeCam;
+
+    // Decodes the limelight's frames off the main loop as they arrive.
+    private final VisionFrameListener frameListener;
+
+    // The newest frame, taken from the listener once per loop in periodic(). Every query reads this copy.
+    private PhotonPipelineResult latestResult = new PhotonPipelineResult();
+    private PhotonTrackedTarget bestTarget = null;
+
+    private long frameSequence = 0;
+    private double frameTimestampSeconds = -1.0;
+
+    // How far the robot has turned since the latest frame was captured, counterclockwise, from the state history.
+    // Updated once per loop, so the target's yaw can be brought up to date.
+    private double turnSinceFrameDegrees = 0.0;
+
+    // Publishes simulated frames for the limelight on the desktop. Null on the robot.
+    private final VisionSim sim;
+    private final Supplier<Pose2d> simulatedPose;
+
+    // Where the AprilTags are, for turning a sighting into a field pose. Null if the layout couldn't be loaded.
+    private final AprilTagFieldLayout fieldLayout;
+    private final PoseMeasurementConsumer poseMeasurementConsumer;
+
+    // The alliance whose wall the layout's origin is set to. Poses are only fused once it's known, since odometry
+    // measures from the robot's own alliance wall.
+    private Alliance fieldOrigin = Alliance.Invalid;
+
+    private long poseMeasurementCount = 0;
+    private long rejectedPoseCount = 0;
+
+    private final DoubleEntry pipelineIndexEntry =
+        Telemetry.getInstance().addDouble("Pipeline index", TelemetryConstants.slowPeriodCycles, 0.0);
+    private final DoubleEntry overwrittenFrameEntry =
+        Telemetry.getInstance().addDouble("Vision overwritten frames", TelemetryConstants.slowPeriodCycles, 0.5);
     
     /**
      * Constructs a new VisionSys.
      * 
      * <p>VisionSys contains the Limelight and means to control and obtain values from it.
+     * 
+     * @param simulatedPose Where the simulated robot actually is, for simulating what the limelight sees.
+     * @param poseMeasurementConsumer Takes the field poses measured from AprilTags.
      */
-    public VisionSys() {
+    public VisionSys(Supplier<Pose2d> simulatedPose, PoseMeasurementConsumer poseMeasurementConsumer) {
         limelight = new PhotonCamera("Limelight");
+        frameListener = new VisionFrameListener(limelight.getName());
+
+        this.simulatedPose = simulatedPose;
+        sim = Simulation.isPhysicsEnabled() ? new VisionSim(limelight.getName()) : null;
         intakeCam = new PhotonCamera("Intake");
 
+        this.poseMeasurementConsumer = poseMeasurementConsumer;
+        fieldLayout = loadFieldLayout();
+
         intakeCam.setDriverMode(true);
         setDriverMode(true);
 
         powerDistributionHub = new PowerDistribution(1, ModuleType.kRev);
         setPower(true);
+
+        // Frames come from NetworkTables rather than an inputs struct, so a replay can't reproduce these. The pose
+        // measurement that was fused is logged with the odometry inputs instead.
+        MatchLogger logger = MatchLogger.getInstance();
+        logger.addDoubleDiagnostic("vision/hasTarget", () -> hasTarget() ? 1.0 : 0.0);
+        logger.addDoubleDiagnostic("vision/targetXDegrees", this::targetXDegrees);
+        logger.addDoubleDiagnostic("vision/targetYDegrees", this::targetYDegrees);
+        logger.addDoubleDiagnostic("vision/aprilTagId", this::aprilTagId);
+        logger.addDoubleDiagnostic("vision/frameSequence", this::getFrameSequence);
+        logger.addDoubleDiagnostic("vision/frameTimestampSeconds", this::getFrameTimestampSeconds);
+        logger.addDoubleDiagnostic("vision/latencyMillis", this::getLatencyMillis);
+        logger.addDoubleDiagnostic("vision/poseMeasurementCount", () -> poseMeasurementCount);
+        logger.addDoubleDiagnostic("vision/rejectedPoseCount", () -> rejectedPoseCount);
+        logger.addDoubleDiagnostic("vision/overwrittenFrameCount", frameListener::getOverwrittenFrameCount);
+    }
+
+    private static AprilTagFieldLayout loadFieldLayout() {
+        try {
+            return AprilTagFieldLayout.loadFromResource(AprilTagFields.k2023ChargedUp.m_resourceFile);
+        }
+        catch(IOException e) {
+            DriverStation.reportWarning("Vision won't correct the pose, the AprilTag layout didn't load: " + e.getMessage(), false);
+            return null;
+        }
     }
 
     // This method will be called once per scheduler run
     @Override
     public void periodic() {
+        periodicTimer.start();
+
+        // Only a frame that arrived since the last loop is waiting, so no frame is fused twice. Frames replaced before
+        // this loop could take them are never fused, and are counted by the listener.
+        PhotonPipelineResult frame = frameListener.takeFrame();
+        if(frame != null) {
+            latestResult = frame;
+            bestTarget = latestResult.hasTargets() ? latestResult.getBestTarget() : null;
+
+            frameTimestampSeconds = latestResult.getTimestampSeconds();
+            frameSequence++;
+
+            addPoseMeasurements();
+        }
+        else if(bestTarget != null && Timer.getFPGATimestamp() - frameTimestampSeconds > VisionConstants.frameTimeoutSeconds) {
+            // The camera stopped sending frames, so its last target is out of date.
+            latestResult = new PhotonPipelineResult();
+            bestTarget = null;
+        }
+
+        turnSinceFrameDegrees = bestTarget != null ? getTurnSinceDegrees(frameTimestampSeconds) : 0.0;
+
         // SmartDashboard.putBoolean("Intake cam connected", intakeCam.isConnected());
-        SmartDashboard.putNumber("Pipeline index", limelight.getPipelineIndex());
+        pipelineIndexEntry.set(limelight.getPipelineIndex());
+        overwrittenFrameEntry.set(frameListener.getOverwrittenFrameCount());
+
+        periodicTimer.stop();
+    }
+
+    /**
+     * Looks up how far the robot has turned since a time, from the estimated headings in the state history.
+     *
+     * @param timestampSeconds The time, in FPGA seconds.
+     * @return The turn since then, counterclockwise, in degrees, or 0 if no pose has been recorded.
+     */
+    private static double getTurnSinceDegrees(double timestampSeconds) {
+        StateHistory history = StateHistory.getInstance();
+        double headingThenRadians = history.getPoseHeadingRadians(timestampSeconds);
+        double headingNowRadians = history.getPoseHeadingRadians(history.getPoseHistory().getNewestTimestampSeconds());
+        if(Double.isNaN(headingThenRadians) || Double.isNaN(headingNowRadians)) return 0.0;
+
+        return Math.toDegrees(MathUtil.angleModulus(headingNowRadians - headingThenRadians));
+    }
+
+    /**
+     * Moves the layout's origin to the robot's alliance wall once the driver station reports the alliance.
+     *
+     * @return True if the alliance is known, so tag poses are in the odometry's frame.
+     */
+    private boolean updateFieldOrigin() {
+        Alliance alliance = DriverStation.getAlliance();
+        if(alliance != Alliance.Invalid && alliance != fieldOrigin) {
+            fieldLayout.setOrigin(
+                alliance == Alliance.Red ? OriginPosition.kRedAllianceWallRightSide : OriginPosition.kBlueAllianceWallRightSide
+            );
+            fieldOrigin = alliance;
+        }
+        return fieldOrigin != Alliance.Invalid;
+    }
+
+    /**
+     * Turns the AprilTags in the latest frame into one field pose and hands it to the pose estimator, along with when
+     * the frame was captured.
+     * <p>Ambiguous sightings and far-away tags are thrown out, and the rest are averaged, weighted by how far each tag
+     * is. The tags in a frame share the camera's error, so the average is trusted like its closest tag rather than as
+     * independent sightings.
+     */
+    private void addPoseMeasurements() {
+        if(fieldLayout == null || !updateFieldOrigin()) return;
+
+        // Sums of each tag's pose, weighted by the inverse of its variance.
+        double weightSum = 0.0;
+        double xSum = 0.0;
+        double ySum = 0.0;
+        double cosSum = 0.0;
+        double sinSum = 0.0;
+        double minDistanceMeters = Double.POSITIVE_INFINITY;
+
+        for(PhotonTrackedTarget target : latestResult.getTargets()) {
+            // Retroreflective tape has no ID, so it has no pose on the field.
+            Optional<Pose3d> tagPose = fieldLayout.getTagPose(target.getFiducialId());
+            if(tagPose.isEmpty()) continue;
+
+            Transform3d cameraToTag = target.getBestCameraToTarget();
+            double distanceMeters = cameraToTag.getTranslation().getNorm();
+
+            // An ambiguity of -1 means it wasn't computed.
+            if(
+                target.getPoseAmbiguity() < 0.0 || target.getPoseAmbiguity() > VisionConstants.maxPoseAmbiguity ||
+                distanceMeters > VisionConstants.maxPoseTagDistanceMeters
+            ) {
+                rejectedPoseCount++;
+                continue;
+            }
+
+            Pose2d visionPose = tagPose.get().transformBy(cameraToTag.inverse()).transformBy(cameraToRobot).toPose2d();
+
+            if(
+                visionPose.getX() < 0.0 || visionPose.getX() > fieldLayout.getFieldLength() ||
+                visionPose.getY() < 0.0 || visionPose.getY() > fieldLayout.getFieldWidth()
+            ) {
+                rejectedPoseCount++;
+                continue;
+            }
+
+            // The standard deviations grow with the square of the distance, so the variance with its fourth power.
+            double distanceSq = distanceMeters * distanceMeters;
+            double weight = 1.0 / (distanceSq * distanceSq);
+
+            weightSum += weight;
+            xSum += weight * visionPose.getX();
+            ySum += weight * visionPose.getY();
+            cosSum += weight * visionPose.getRotation().getCos();
+            sinSum += weight * visionPose.getRotation().getSin();
+            minDistanceMeters = Math.min(minDistanceMeters, distanceMeters);
+        }
+
+        if(weightSum == 0.0) return;
+
+        double distanceSq = minDistanceMeters * minDistanceMeters;
+        double xyStdDevMeters = VisionConstants.poseXYStdDevMetersPerMeterSq * distanceSq;
+        double headingStdDevRadians = VisionConstants.poseHeadingStdDevRadiansPerMeterSq * distanceSq;
+
+        poseMeasurementConsumer.accept(
+            new Pose2d(xSum / weightSum, ySum / weightSum, new Rotation2d(cosSum, sinSum)),
+            latestResult.getTimestampSeconds(),
+            VecBuilder.fill(xyStdDevMeters, xyStdDevMeters, headingStdDevRadians)
+        );
+        poseMeasurementCount++;
+    }
+
+    @Override
+    public void simulationPeriodic() {
+        if(sim != null) sim.update(simulatedPose.get());
     }
 
     /**
@@ -94,25 +335,58 @@ public class VisionSys extends SubsystemBase {
         }
     }
 
+    /**
+     * Returns the limelight's latest pipeline result, as taken from the listener at the start of this loop.
+     * @return The latest pipeline result.
+     */
+    public PhotonPipelineResult getLatestResult() {
+        return latestResult;
+    }
+
+    /**
+     * Returns a number that increases by one every time the limelight produces a new frame.
+     * <p>Consumers can save it and compare later to tell whether the cached result is a new frame.
+     * @return The sequence number of the latest frame.
+     */
+    public long getFrameSequence() {
+        return frameSequence;
+    }
+
+    /**
+     * Returns when the latest frame was captured, with its latency already subtracted.
+     * @return The capture time of the latest frame, in FPGA seconds.
+     */
+    public double getFrameTimestampSeconds() {
+        return frameTimestampSeconds;
+    }
+
+    /**
+     * Returns the pipeline latency of the latest frame.
+     * @return The latency of the latest frame, in milliseconds.
+     */
+    public double getLatencyMillis() {
+        return latestResult.getLatencyMillis();
+    }
+
     /**
      * Checks whether the limelight is tracking a target.
      * @return True if the limelight is tracking a target.
      */
     public boolean hasTarget() {
-        return limelight.getLatestResult().hasTargets() && targetYDegrees() <= 0.0;
+        return bestTarget != null && targetYDegrees() <= 0.0;
     }
 
     /**
      * Returns the x-offset, or yaw, from the crosshair of the best target.
+     * <p>The camera measured the yaw when the frame was captured, a pipeline latency ago. It's brought up to date by
+     * how far the robot has turned since, so aligning doesn't chase where the target was. The yaw is positive to the
+     * right, so a counterclockwise turn adds to it.
      * @return The x-offset, or yaw, from the crosshair of the best target, in degrees.
      */
     public double targetXDegrees() {
         if(hasTarget()) {
-            try {
-                return limelight.getLatestResult().getBestTarget().getYaw();
-            } catch (NullPointerException e) {
-                return 0.0;
-            }        }
+            return bestTarget.getYaw() + turnSinceFrameDegrees;
+        }
         else {
             return 0.0;
         }
@@ -123,12 +397,8 @@ public class VisionSys extends SubsystemBase {
      * @return The y-offset, or skew, from the crosshair of the best target, in degrees.
      */
     public double targetYDegrees() {
-        if(limelight.getLatestResult().hasTargets()) {
-            try {
-                return limelight.getLatestResult().getBestTarget().getPitch();
-            } catch (NullPointerException e) {
-                return 0.0;
-            }
+        if(bestTarget != null) {
+            return bestTarget.getPitch();
         }
         else {
             return 0.0;
@@ -140,7 +410,7 @@ public class VisionSys extends SubsystemBase {
      * @return True if the target's x value is within the alignment threshold.
      */
     public boolean targetIsXAligned() {
-        return limelight.getLatestResult().hasTargets() && Math.abs(targetXDegrees()) < VisionConstants.alignedToleranceDegrees;
+        return bestTarget != null && Math.abs(targetXDegrees()) < VisionConstants.alignedToleranceDegrees;
         // test(porpoises); -Andy
     }
 
@@ -155,10 +425,10 @@ public class VisionSys extends SubsystemBase {
 
     /**
      * Returns the Apriltag ID of the current target.
-     * @return The Apriltag ID of the current target, -1 if the target is not an Apriltag it recognizes.
+     * @return The Apriltag ID of the current target, -1 if there is no target or it is not an Apriltag it recognizes.
      */
     public double aprilTagId() {
-        return limelight.getLatestResult().getBestTarget().getFiducialId();
+        return bestTarget != null ? bestTarget.getFiducialId() : -1;
     }
 
     /**
@@ -0,0 +1,25 @@
+package frc.robot.subsystems.inputs;
+
+import frc.robot.logging.MatchLogger;
+
+/**
+ * Pneumatic hub readings for {@link frc.robot.subsystems.CompressorSys}, sampled once per loop.
+ */
+public class CompressorInputs {
+
+    public double pressurePSI = 0.0;
+    public double currentAmps = 0.0;
+    public boolean isEnabled = false;
+
+    /**
+     * Registers every reading with the match logger, so it is recorded each loop and can be replayed.
+     *
+     * @param prefix The prefix of the channel names, ending in a slash.
+     */
+    public void register(String prefix) {
+        MatchLogger logger = MatchLogger.getInstance();
+        logger.addDoubleInput(prefix + "pressurePSI", () -> pressurePSI, value -> pressurePSI = value);
+        logger.addDoubleInput(prefix + "currentAmps", () -> currentAmps, value -> currentAmps = value);
+        logger.addBooleanInput(prefix + "isEnabled", () -> isEnabled, value -> isEnabled = value);
+    }
+}
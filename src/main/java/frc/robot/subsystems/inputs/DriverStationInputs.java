@@ -0,0 +1,95 @@
+package frc.robot.subsystems.inputs;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Constants.LoggingConstants;
+import frc.robot.logging.MatchLogger;
+
+/**
+ * Robot mode and joystick readings from the driver station, sampled once per loop.
+ *
+ * <p>The robot code reads its controllers directly, so these are only recorded for replaying a match.
+ */
+public class DriverStationInputs {
+
+    public boolean isEnabled = false;
+    public boolean isAutonomous = false;
+    public boolean isTest = false;
+    public boolean isDSAttached = false;
+
+    /**
+     * The alliance, as the ordinal of {@link DriverStation.Alliance}.
+     */
+    public int alliance = DriverStation.Alliance.Invalid.ordinal();
+
+    public double matchTimeSeconds = 0.0;
+
+    public final boolean[] isJoystickConnected = new boolean[LoggingConstants.joystickPortCount];
+    public final boolean[] joystickIsXbox = new boolean[LoggingConstants.joystickPortCount];
+    public final int[] joystickButtonCounts = new int[LoggingConstants.joystickPortCount];
+
+    public final double[][] joystickAxes = new double[LoggingConstants.joystickPortCount][LoggingConstants.joystickAxisCount];
+    public final int[] joystickButtons = new int[LoggingConstants.joystickPortCount];
+    public final int[] joystickPOVs = new int[LoggingConstants.joystickPortCount];
+
+    /**
+     * Reads the driver station's latest data.
+     */
+    public void update() {
+        isEnabled = DriverStation.isEnabled();
+        isAutonomous = DriverStation.isAutonomous();
+        isTest = DriverStation.isTest();
+        isDSAttached = DriverStation.isDSAttached();
+        alliance = DriverStation.getAlliance().ordinal();
+        matchTimeSeconds = DriverStation.getMatchTime();
+
+        for(int port = 0; port < joystickAxes.length; port++) {
+            isJoystickConnected[port] = DriverStation.isJoystickConnected(port);
+            joystickIsXbox[port] = DriverStation.getJoystickIsXbox(port);
+            joystickButtonCounts[port] = DriverStation.getStickButtonCount(port);
+
+            int axisCount = Math.min(DriverStation.getStickAxisCount(port), joystickAxes[port].length);
+            for(int axis = 0; axis < joystickAxes[port].length; axis++) {
+                joystickAxes[port][axis] = axis < axisCount ? DriverStation.getStickAxis(port, axis) : 0.0;
+            }
+
+            joystickButtons[port] = DriverStation.getStickButtons(port);
+            joystickPOVs[port] = DriverStation.getStickPOVCount(port) > 0 ? DriverStation.getStickPOV(port, 0) : -1;
+        }
+    }
+
+    /**
+     * Registers every reading with the match logger, so it is recorded each loop and can be replayed.
+     *
+     * @param prefix The prefix of the channel names, ending in a slash.
+     */
+    public void register(String prefix) {
+        MatchLogger logger = MatchLogger.getInstance();
+        logger.addBooleanInput(prefix + "isEnabled", () -> isEnabled, value -> isEnabled = value);
+        logger.addBooleanInput(prefix + "isAutonomous", () -> isAutonomous, value -> isAutonomous = value);
+        logger.addBooleanInput(prefix + "isTest", () -> isTest, value -> isTest = value);
+        logger.addBooleanInput(prefix + "isDSAttached", () -> isDSAttached, value -> isDSAttached = value);
+        logger.addDoubleInput(prefix + "alliance", () -> alliance, value -> alliance = (int)value);
+        logger.addDoubleInput(prefix + "matchTimeSeconds", () -> matchTimeSeconds, value -> matchTimeSeconds = value);
+
+        for(int i = 0; i < joystickAxes.length; i++) {
+            int port = i;
+            String portPrefix = prefix + "joystick" + port + "/";
+
+            logger.addBooleanInput(portPrefix + "isConnected", () -> isJoystickConnected[port], value -> isJoystickConnected[port] = value);
+            logger.addBooleanInput(portPrefix + "isXbox", () -> joystickIsXbox[port], value -> joystickIsXbox[port] = value);
+            logger.addDoubleInput(portPrefix + "buttonCount", () -> joystickButtonCounts[port], value -> joystickButtonCounts[port] = (int)value);
+
+            for(int j = 0; j < joystickAxes[port].length; j++) {
+                int axis = j;
+                logger.addDoubleInput(
+                    portPrefix + "axis" + axis,
+                    () -> joystickAxes[port][axis],
+                    value -> joystickAxes[port][axis] = value
+                );
+            }
+
+            logger.addDoubleInput(portPrefix + "buttons", () -> joystickButtons[port], value -> joystickButtons[port] = (int)value);
+            logger.addDoubleInput(portPrefix + "pov", () -> joystickPOVs[port], value -> joystickPOVs[port] = (int)value);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package frc.robot.subsystems.inputs;
+
+import frc.robot.logging.MatchLogger;
+
+/**
+ * Pigeon readings for {@link frc.robot.subsystems.SwerveSys}, sampled once per loop.
+ */
+public class GyroInputs {
+
+    /**
+     * Yaw, pitch and roll in degrees, filled in place by the Pigeon.
+     */
+    public final double[] yawPitchRollDegrees = new double[3];
+
+    public double getYawDegrees() {
+        return yawPitchRollDegrees[0];
+    }
+
+    public double getPitchDegrees() {
+        return yawPitchRollDegrees[1];
+    }
+
+    public double getRollDegrees() {
+        return yawPitchRollDegrees[2];
+    }
+
+    /**
+     * Registers every reading with the match logger, so it is recorded each loop and can be replayed.
+     *
+     * @param prefix The prefix of the channel names, ending in a slash.
+     */
+    public void register(String prefix) {
+        MatchLogger logger = MatchLogger.getInstance();
+        logger.addDoubleInput(prefix + "yawDegrees", () -> yawPitchRollDegrees[0], value -> yawPitchRollDegrees[0] = value);
+        logger.addDoubleInput(prefix + "pitchDegrees", () -> yawPitchRollDegrees[1], value -> yawPitchRollDegrees[1] = value);
+        logger.addDoubleInput(prefix + "rollDegrees", () -> yawPitchRollDegrees[2], value -> yawPitchRollDegrees[2] = value);
+    }
+}
@@ -0,0 +1,29 @@
+package frc.robot.subsystems.inputs;
+
+import frc.robot.logging.MatchLogger;
+
+/**
+ * Sensor readings for {@link frc.robot.subsystems.IntakeSys}, sampled once per loop.
+ */
+public class IntakeInputs {
+
+    /**
+     * The raw actuation encoder position, including the intake's offset.
+     */
+    public double encoderPositionInches = 0.0;
+
+    public double rollerVelocityRPM = 0.0;
+    public double rollerOutput = 0.0;
+
+    /**
+     * Registers every reading with the match logger, so it is recorded each loop and can be replayed.
+     *
+     * @param prefix The prefix of the channel names, ending in a slash.
+     */
+    public void register(String prefix) {
+        MatchLogger logger = MatchLogger.getInstance();
+        logger.addDoubleInput(prefix + "encoderPositionInches", () -> encoderPositionInches, value -> encoderPositionInches = value);
+        logger.addDoubleInput(prefix + "rollerVelocityRPM", () -> rollerVelocityRPM, value -> rollerVelocityRPM = value);
+        logger.addDoubleInput(prefix + "rollerOutput", () -> rollerOutput, value -> rollerOutput = value);
+    }
+}
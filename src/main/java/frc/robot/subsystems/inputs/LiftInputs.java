@@ -0,0 +1,27 @@
+package frc.robot.subsystems.inputs;
+
+import frc.robot.logging.MatchLogger;
+
+/**
+ * Sensor readings for {@link frc.robot.subsystems.LiftSys}, sampled once per loop.
+ */
+public class LiftInputs {
+
+    public double positionInches = 0.0;
+
+    /**
+     * The output last commanded to the master motor, from -1.0 to 1.0.
+     */
+    public double masterOutput = 0.0;
+
+    /**
+     * Registers every reading with the match logger, so it is recorded each loop and can be replayed.
+     *
+     * @param prefix The prefix of the channel names, ending in a slash.
+     */
+    public void register(String prefix) {
+        MatchLogger logger = MatchLogger.getInstance();
+        logger.addDoubleInput(prefix + "positionInches", () -> positionInches, value -> positionInches = value);
+        logger.addDoubleInput(prefix + "masterOutput", () -> masterOutput, value -> masterOutput = value);
+    }
+}
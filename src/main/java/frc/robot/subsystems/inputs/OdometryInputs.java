@@ -0,0 +1,88 @@
+package frc.robot.subsystems.inputs;
+
+import frc.robot.Constants.DriveConstants;
+import frc.robot.logging.MatchLogger;
+
+/**
+ * Everything the pose estimator in {@link frc.robot.subsystems.SwerveSys} was fed during one loop: each sample the
+ * odometry thread took, any pose reset, and the vision measurement, in the order they were applied.
+ *
+ * <p>The odometry thread samples faster than the log records, so logging its samples rather than the once-per-loop
+ * module inputs is what lets a replay rebuild the same pose. Only the first {@link #sampleCount} samples are current.
+ */
+public class OdometryInputs {
+
+    public int sampleCount = 0;
+
+    public final double[] timestampsSeconds = new double[DriveConstants.maxOdometrySamplesPerLoop];
+    public final double[] gyroRadians = new double[DriveConstants.maxOdometrySamplesPerLoop];
+
+    // Indexed [sample][module].
+    public final double[][] distancesMeters = new double[DriveConstants.maxOdometrySamplesPerLoop][4];
+    public final double[][] anglesRadians = new double[DriveConstants.maxOdometrySamplesPerLoop][4];
+
+    /**
+     * A pose reset, applied after the samples, with the gyro and module readings it was made against.
+     */
+    public boolean hasReset = false;
+    public double resetGyroRadians = 0.0;
+    public final double[] resetDistancesMeters = new double[4];
+    public double resetXMeters = 0.0;
+    public double resetYMeters = 0.0;
+    public double resetHeadingRadians = 0.0;
+
+    /**
+     * A vision measurement, applied after the reset.
+     */
+    public boolean hasVisionMeasurement = false;
+    public double visionXMeters = 0.0;
+    public double visionYMeters = 0.0;
+    public double visionHeadingRadians = 0.0;
+    public double visionTimestampSeconds = 0.0;
+    public double visionXStdDevMeters = 0.0;
+    public double visionYStdDevMeters = 0.0;
+    public double visionHeadingStdDevRadians = 0.0;
+
+    /**
+     * Registers every reading with the match logger, so it is recorded each loop and can be replayed.
+     *
+     * @param prefix The prefix of the channel names, ending in a slash.
+     */
+    public void register(String prefix) {
+        MatchLogger logger = MatchLogger.getInstance();
+        logger.addDoubleInput(prefix + "sampleCount", () -> sampleCount, value -> sampleCount = (int)value);
+
+        for(int i = 0; i < DriveConstants.maxOdometrySamplesPerLoop; i++) {
+            final int sample = i;
+            String samplePrefix = prefix + "sample" + sample + "/";
+
+            logger.addDoubleInput(samplePrefix + "timestampSeconds", () -> timestampsSeconds[sample], value -> timestampsSeconds[sample] = value);
+            logger.addDoubleInput(samplePrefix + "gyroRadians", () -> gyroRadians[sample], value -> gyroRadians[sample] = value);
+
+            for(int j = 0; j < 4; j++) {
+                final int module = j;
+                logger.addDoubleInput(samplePrefix + "module" + module + "/distanceMeters", () -> distancesMeters[sample][module], value -> distancesMeters[sample][module] = value);
+                logger.addDoubleInput(samplePrefix + "module" + module + "/angleRadians", () -> anglesRadians[sample][module], value -> anglesRadians[sample][module] = value);
+            }
+        }
+
+        logger.addBooleanInput(prefix + "hasReset", () -> hasReset, value -> hasReset = value);
+        logger.addDoubleInput(prefix + "reset/gyroRadians", () -> resetGyroRadians, value -> resetGyroRadians = value);
+        for(int j = 0; j < 4; j++) {
+            final int module = j;
+            logger.addDoubleInput(prefix + "reset/module" + module + "/distanceMeters", () -> resetDistancesMeters[module], value -> resetDistancesMeters[module] = value);
+        }
+        logger.addDoubleInput(prefix + "reset/xMeters", () -> resetXMeters, value -> resetXMeters = value);
+        logger.addDoubleInput(prefix + "reset/yMeters", () -> resetYMeters, value -> resetYMeters = value);
+        logger.addDoubleInput(prefix + "reset/headingRadians", () -> resetHeadingRadians, value -> resetHeadingRadians = value);
+
+        logger.addBooleanInput(prefix + "hasVisionMeasurement", () -> hasVisionMeasurement, value -> hasVisionMeasurement = value);
+        logger.addDoubleInput(prefix + "vision/xMeters", () -> visionXMeters, value -> visionXMeters = value);
+        logger.addDoubleInput(prefix + "vision/yMeters", () -> visionYMeters, value -> visionYMeters = value);
+        logger.addDoubleInput(prefix + "vision/headingRadians", () -> visionHeadingRadians, value -> visionHeadingRadians = value);
+        logger.addDoubleInput(prefix + "vision/timestampSeconds", () -> visionTimestampSeconds, value -> visionTimestampSeconds = value);
+        logger.addDoubleInput(prefix + "vision/xStdDevMeters", () -> visionXStdDevMeters, value -> visionXStdDevMeters = value);
+        logger.addDoubleInput(prefix + "vision/yStdDevMeters", () -> visionYStdDevMeters, value -> visionYStdDevMeters = value);
+        logger.addDoubleInput(prefix + "vision/headingStdDevRadians", () -> visionHeadingStdDevRadians, value -> visionHeadingStdDevRadians = value);
+    }
+}
@@ -0,0 +1,23 @@
+package frc.robot.subsystems.inputs;
+
+import frc.robot.logging.MatchLogger;
+
+/**
+ * Battery and power readings, sampled once per loop.
+ */
+public class PowerInputs {
+
+    public double batteryVoltage = 0.0;
+    public boolean isBrownedOut = false;
+
+    /**
+     * Registers every reading with the match logger, so it is recorded each loop and can be replayed.
+     *
+     * @param prefix The prefix of the channel names, ending in a slash.
+     */
+    public void register(String prefix) {
+        MatchLogger logger = MatchLogger.getInstance();
+        logger.addDoubleInput(prefix + "batteryVoltage", () -> batteryVoltage, value -> batteryVoltage = value);
+        logger.addBooleanInput(prefix + "isBrownedOut", () -> isBrownedOut, value -> isBrownedOut = value);
+    }
+}
@@ -0,0 +1,32 @@
+package frc.robot.subsystems.inputs;
+
+import frc.robot.logging.MatchLogger;
+
+/**
+ * Sensor readings for a {@link frc.robot.subsystems.SwerveModule}, sampled once per loop.
+ */
+public class SwerveModuleInputs {
+
+    public double drivePositionMeters = 0.0;
+    public double driveVelocityMetersPerSecond = 0.0;
+
+    public double steerPositionRadians = 0.0;
+
+    /**
+     * The raw absolute CANCoder reading, before the module offset is applied.
+     */
+    public double canCoderAbsoluteDegrees = 0.0;
+
+    /**
+     * Registers every reading with the match logger, so it is recorded each loop and can be replayed.
+     *
+     * @param prefix The prefix of the channel names, ending in a slash.
+     */
+    public void register(String prefix) {
+        MatchLogger logger = MatchLogger.getInstance();
+        logger.addDoubleInput(prefix + "drivePositionMeters", () -> drivePositionMeters, value -> drivePositionMeters = value);
+        logger.addDoubleInput(prefix + "driveVelocityMetersPerSecond", () -> driveVelocityMetersPerSecond, value -> driveVelocityMetersPerSecond = value);
+        logger.addDoubleInput(prefix + "steerPositionRadians", () -> steerPositionRadians, value -> steerPositionRadians = value);
+        logger.addDoubleInput(prefix + "canCoderAbsoluteDegrees", () -> canCoderAbsoluteDegrees, value -> canCoderAbsoluteDegrees = value);
+    }
+}
@@ -0,0 +1,111 @@
+package frc.robot.subsystems.sim;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.Constants.IntakeConstants;
+import frc.robot.Constants.SimulationConstants;
+
+/**
+ * Physics for the intake: a brushed motor sliding it out on a belt between hard stops, and a NEO spinning the
+ * rollers.
+ *
+ * <p>Actuation positions are in inches from fully in, without the offset the subsystem adds to the encoder.
+ */
+public class IntakeSim {
+
+    private final DCMotorSim actuationSim = new DCMotorSim(
+        DCMotor.getBag(1),
+        SimulationConstants.intakeActuationGearing,
+        SimulationConstants.intakeActuationMomentOfInertiaKgMetersSq
+    );
+
+    private final FlywheelSim rollerSim = new FlywheelSim(
+        DCMotor.getNEO(1),
+        1.0 / IntakeConstants.rollerGearReduction,
+        SimulationConstants.intakeRollerMomentOfInertiaKgMetersSq
+    );
+
+    private final SparkMaxControllerSim actuationController = new SparkMaxControllerSim(IntakeConstants.kP, 0.0, IntakeConstants.kD, 0.0, 0.0);
+
+    private final SparkMaxControllerSim rollerController = new SparkMaxControllerSim(
+        IntakeConstants.rollerkP, IntakeConstants.rollerkI, 0.0, IntakeConstants.rollerkFF, IntakeConstants.rollerIZone
+    );
+
+    private boolean actuationIsClosedLoop = true;
+    private double actuationDutyCycle = 0.0;
+    private double targetInches = 0.0;
+
+    private double rollerTargetRPM = 0.0;
+    private double rollerOutput = 0.0;
+
+    public void setActuationDutyCycle(double dutyCycle) {
+        actuationIsClosedLoop = false;
+        actuationDutyCycle = dutyCycle;
+    }
+
+    public void setActuationTarget(double inches) {
+        actuationIsClosedLoop = true;
+        targetInches = inches;
+    }
+
+    public void setRollerRPM(double rpm) {
+        rollerTargetRPM = rpm;
+    }
+
+    /**
+     * Advances the intake.
+     *
+     * @param dtSeconds The length of the step.
+     */
+    public void update(double dtSeconds) {
+        double batteryVolts = RobotController.getBatteryVoltage();
+
+        boolean isDisabled = DriverStation.isDisabled();
+
+        double actuationOutput;
+        if(isDisabled) actuationOutput = 0.0;
+        else if(actuationIsClosedLoop)
+            actuationOutput = actuationController.calculate(targetInches, getPositionInches(), getVelocityInchesPerSecond(), dtSeconds);
+        else actuationOutput = actuationDutyCycle;
+
+        actuationSim.setInputVoltage(actuationOutput * batteryVolts);
+        actuationSim.update(dtSeconds);
+
+        // The carriage stops dead at either end of its travel.
+        double positionInches = getPositionInches();
+        if(positionInches < IntakeConstants.minInches || positionInches > IntakeConstants.maxInches) {
+            double clampedInches = MathUtil.clamp(positionInches, IntakeConstants.minInches, IntakeConstants.maxInches);
+            actuationSim.setState(VecBuilder.fill(clampedInches / IntakeConstants.encRevToInches * 2.0 * Math.PI, 0.0));
+        }
+
+        rollerOutput = isDisabled ? 0.0 : rollerController.calculate(rollerTargetRPM, getRollerRPM(), 0.0, dtSeconds);
+        rollerSim.setInputVoltage(rollerOutput * batteryVolts);
+        rollerSim.update(dtSeconds);
+    }
+
+    public double getPositionInches() {
+        return actuationSim.getAngularPositionRad() / (2.0 * Math.PI) * IntakeConstants.encRevToInches;
+    }
+
+    private double getVelocityInchesPerSecond() {
+        return actuationSim.getAngularVelocityRadPerSec() / (2.0 * Math.PI) * IntakeConstants.encRevToInches;
+    }
+
+    public double getRollerRPM() {
+        return rollerSim.getAngularVelocityRPM();
+    }
+
+    /**
+     * Returns the duty cycle the roller motor is applying.
+     *
+     * @return The applied output, from -1.0 to 1.0.
+     */
+    public double getRollerOutput() {
+        return rollerOutput;
+    }
+}
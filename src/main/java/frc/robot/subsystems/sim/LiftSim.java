@@ -0,0 +1,121 @@
+package frc.robot.subsystems.sim;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.ElevatorSim;
+import frc.robot.Constants.LiftConstants;
+import frc.robot.Constants.SimulationConstants;
+
+/**
+ * Physics for the lift: two NEOs on an elevator that a cylinder tilts forward when articulated down.
+ *
+ * <p>Gravity is applied here rather than by the elevator model, so it can scale with how far the lift is tilted.
+ */
+public class LiftSim {
+
+    private static final DCMotor gearbox = DCMotor.getNEO(2);
+
+    private static final double gearing = 1.0 / LiftConstants.gearReduction;
+
+    /**
+     * The drum that turns {@link LiftConstants#inchesPerEncRev} per motor turn.
+     */
+    private static final double drumRadiusMeters =
+        Units.inchesToMeters(LiftConstants.inchesPerEncRev * gearing / (2.0 * Math.PI));
+
+    /**
+     * The voltage that holds the carriage still when the lift is vertical.
+     */
+    private static final double gravityVolts =
+        SimulationConstants.liftCarriageMassKg * 9.81 * drumRadiusMeters / gearing / gearbox.KtNMPerAmp * gearbox.rOhms;
+
+    private final ElevatorSim elevatorSim = new ElevatorSim(
+        gearbox,
+        gearing,
+        SimulationConstants.liftCarriageMassKg,
+        drumRadiusMeters,
+        0.0,
+        Units.inchesToMeters(LiftConstants.maxHeightInches),
+        false
+    );
+
+    private final SparkMaxControllerSim controller = new SparkMaxControllerSim(LiftConstants.kP, 0.0, LiftConstants.kD, 0.0, 0.0);
+
+    private boolean isClosedLoop = false;
+    private double dutyCycle = 0.0;
+    private double targetInches = 0.0;
+
+    private boolean isArticulatedDown = false;
+
+    /**
+     * How far the cylinder has moved, from 0.0 when up to 1.0 when down.
+     */
+    private double articulation = 0.0;
+
+    private double output = 0.0;
+
+    public void setDutyCycle(double dutyCycle) {
+        isClosedLoop = false;
+        this.dutyCycle = dutyCycle;
+    }
+
+    public void setTarget(double inches) {
+        isClosedLoop = true;
+        targetInches = inches;
+    }
+
+    public void setOutputRange(double minOutput, double maxOutput) {
+        controller.setOutputRange(minOutput, maxOutput);
+    }
+
+    public void setArticulatedDown(boolean isArticulatedDown) {
+        this.isArticulatedDown = isArticulatedDown;
+    }
+
+    /**
+     * Advances the lift.
+     *
+     * @param dtSeconds The length of the step.
+     */
+    public void update(double dtSeconds) {
+        double step = dtSeconds / SimulationConstants.liftArticulationSeconds;
+        articulation = MathUtil.clamp(articulation + (isArticulatedDown ? step : -step), 0.0, 1.0);
+
+        if(DriverStation.isDisabled()) {
+            output = 0.0;
+        }
+        else if(isClosedLoop) {
+            output = controller.calculate(
+                targetInches,
+                getPositionInches(),
+                Units.metersToInches(elevatorSim.getVelocityMetersPerSecond()),
+                dtSeconds
+            );
+        }
+        else {
+            output = dutyCycle;
+        }
+
+        double batteryVolts = RobotController.getBatteryVoltage();
+        double tiltRadians = Math.toRadians(articulation * SimulationConstants.liftArticulatedDownDegrees);
+
+        elevatorSim.setInputVoltage(output * batteryVolts - gravityVolts * Math.cos(tiltRadians));
+        elevatorSim.update(dtSeconds);
+    }
+
+    public double getPositionInches() {
+        return Units.metersToInches(elevatorSim.getPositionMeters());
+    }
+
+    /**
+     * Returns the duty cycle the master motor is applying.
+     *
+     * @return The applied output, from -1.0 to 1.0.
+     */
+    public double getOutput() {
+        return output;
+    }
+}
@@ -0,0 +1,64 @@
+package frc.robot.subsystems.sim;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.REVPHSim;
+import frc.robot.Constants.CANDevices;
+import frc.robot.Constants.CompressorConstants;
+import frc.robot.Constants.SimulationConstants;
+
+/**
+ * Physics for the air system on the REV Pneumatic Hub: tank pressure, the compressor, and the air each cylinder
+ * uses.
+ *
+ * <p>The simulated hub records solenoid outputs and the compressor's closed-loop mode, but doesn't run the
+ * closed loop or model any air. This reads the solenoids and mode from the hub, and writes back whether the
+ * compressor is running and its current, so the subsystem reads them through the usual API. The hub has no
+ * simulated pressure sensor, so pressure is read from here.
+ */
+public class PneumaticsSim {
+
+    private static final int channelCount = 16;
+
+    // HAL_REVPHCompressorConfigType_kDisabled
+    private static final int compressorDisabled = 0;
+
+    private final REVPHSim hubSim = new REVPHSim(CANDevices.pneumaticHubId);
+
+    private final boolean[] solenoidOutputs = new boolean[channelCount];
+
+    private double pressurePSI = SimulationConstants.startingPressurePSI;
+
+    private boolean isCompressorOn = false;
+
+    /**
+     * Advances the air system.
+     *
+     * @param dtSeconds The length of the step.
+     */
+    public void update(double dtSeconds) {
+        // A double solenoid fires a cylinder by switching one of its channels on.
+        for(int i = 0; i < channelCount; i++) {
+            boolean output = hubSim.getSolenoidOutput(i);
+            if(output && !solenoidOutputs[i]) pressurePSI -= SimulationConstants.psiPerActuation;
+            solenoidOutputs[i] = output;
+        }
+
+        // The hub stops the compressor while the robot is disabled.
+        if(hubSim.getCompressorConfigType() == compressorDisabled || DriverStation.isDisabled()) isCompressorOn = false;
+        else if(pressurePSI < CompressorConstants.minPressurePSI) isCompressorOn = true;
+        else if(pressurePSI >= CompressorConstants.maxPressurePSI) isCompressorOn = false;
+
+        if(isCompressorOn) {
+            pressurePSI += SimulationConstants.compressorFillPSIPerSecond
+                * (1.0 - pressurePSI / SimulationConstants.compressorStallPSI) * dtSeconds;
+        }
+        pressurePSI = Math.max(pressurePSI, 0.0);
+
+        hubSim.setCompressorOn(isCompressorOn);
+        hubSim.setCompressorCurrent(isCompressorOn ? SimulationConstants.compressorCurrentAmps : 0.0);
+    }
+
+    public double getPressurePSI() {
+        return pressurePSI;
+    }
+}
@@ -0,0 +1,23 @@
+package frc.robot.subsystems.sim;
+
+import edu.wpi.first.wpilibj.RobotBase;
+import frc.robot.logging.MatchLogger;
+
+/**
+ * Decides whether subsystems build physics models in place of their hardware.
+ */
+public final class Simulation {
+
+    private Simulation() {}
+
+    /**
+     * Checks whether physics models should stand in for the hardware.
+     * <p>True on the desktop, so the code can be driven with no robot attached. False on the robot, and during a
+     * log replay, where inputs come from the log instead.
+     *
+     * @return True if subsystems should simulate their hardware.
+     */
+    public static boolean isPhysicsEnabled() {
+        return RobotBase.isSimulation() && !MatchLogger.getInstance().isReplaying();
+    }
+}
@@ -0,0 +1,72 @@
+package frc.robot.subsystems.sim;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Emulates the closed-loop controller that runs on a SPARK MAX, which REVLib doesn't simulate.
+ *
+ * <p>Gains are in the SPARK MAX's own units, so the subsystem's gains can be passed straight in: the output is a
+ * duty cycle, the error is in the encoder's converted units, the feedforward multiplies the setpoint, and the
+ * integral and derivative act per 1 ms controller cycle.
+ */
+public class SparkMaxControllerSim {
+
+    private static final double cycleSeconds = 0.001;
+
+    private final double kP;
+    private final double kI;
+    private final double kD;
+    private final double kFF;
+    private final double iZone;
+
+    private double minOutput = -1.0;
+    private double maxOutput = 1.0;
+
+    private double integral = 0.0;
+
+    /**
+     * Constructs a new SparkMaxControllerSim.
+     *
+     * @param kP The proportional gain.
+     * @param kI The integral gain.
+     * @param kD The derivative gain.
+     * @param kFF The velocity feedforward gain.
+     * @param iZone The error beyond which the integral is reset, or 0.0 to always integrate.
+     */
+    public SparkMaxControllerSim(double kP, double kI, double kD, double kFF, double iZone) {
+        this.kP = kP;
+        this.kI = kI;
+        this.kD = kD;
+        this.kFF = kFF;
+        this.iZone = iZone;
+    }
+
+    public void setOutputRange(double minOutput, double maxOutput) {
+        this.minOutput = minOutput;
+        this.maxOutput = maxOutput;
+    }
+
+    public void reset() {
+        integral = 0.0;
+    }
+
+    /**
+     * Runs the controller for one step.
+     *
+     * @param setpoint The reference passed to setReference.
+     * @param measurement The encoder reading.
+     * @param measurementRate How fast the measurement is changing, per second. Used for the derivative, so a
+     * setpoint change doesn't kick it.
+     * @param dtSeconds The length of the step.
+     * @return The duty cycle the controller applies.
+     */
+    public double calculate(double setpoint, double measurement, double measurementRate, double dtSeconds) {
+        double error = setpoint - measurement;
+
+        if(iZone == 0.0 || Math.abs(error) <= iZone) integral += error * (dtSeconds / cycleSeconds);
+        else integral = 0.0;
+
+        double output = kP * error + kI * integral - kD * measurementRate * cycleSeconds + kFF * setpoint;
+        return MathUtil.clamp(output, minOutput, maxOutput);
+    }
+}
@@ -0,0 +1,170 @@
+package frc.robot.subsystems.sim;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.SimulationConstants;
+
+/**
+ * Physics for one swerve module: a NEO driving the wheel and a NEO steering it, each behind its SPARK MAX.
+ *
+ * <p>Commands mirror the SPARK MAX calls the module makes. Encoder positions are kept in the same converted units
+ * the module configures, and can be re-zeroed the same way.
+ */
+public class SwerveModuleSim {
+
+    private final DCMotorSim driveSim = new DCMotorSim(
+        DCMotor.getNEO(1),
+        1.0 / DriveConstants.driveMtrGearReduction,
+        SimulationConstants.driveMomentOfInertiaKgMetersSq
+    );
+
+    private final DCMotorSim steerSim = new DCMotorSim(
+        DCMotor.getNEO(1),
+        1.0 / DriveConstants.steerMtrGearReduction,
+        SimulationConstants.steerMomentOfInertiaKgMetersSq
+    );
+
+    private final SparkMaxControllerSim driveController = new SparkMaxControllerSim(DriveConstants.drivekP, 0.0, 0.0, 0.0, 0.0);
+    private final SparkMaxControllerSim steerController =
+        new SparkMaxControllerSim(DriveConstants.steerkP, 0.0, DriveConstants.steerkD, 0.0, 0.0);
+
+    private boolean isDriveOpenLoop = true;
+    private double driveDutyCycle = 0.0;
+    private double driveTargetMetersPerSecond = 0.0;
+    private double driveFeedforwardVolts = 0.0;
+
+    private double steerTargetRadians = 0.0;
+
+    private double driveEncoderOffsetMeters = 0.0;
+    private double steerEncoderOffsetRadians = 0.0;
+
+    // Written by the main loop and read by the odometry thread.
+    private volatile double drivePositionMeters = 0.0;
+    private volatile double driveVelocityMetersPerSecond = 0.0;
+    private volatile double steerAngleRadians = 0.0;
+
+    /**
+     * Drives the wheel at a duty cycle, like CANSparkMax.set().
+     *
+     * @param dutyCycle The duty cycle, from -1.0 to 1.0.
+     */
+    public void setDriveDutyCycle(double dutyCycle) {
+        isDriveOpenLoop = true;
+        driveDutyCycle = dutyCycle;
+    }
+
+    /**
+     * Drives the wheel at a velocity with the SPARK MAX's velocity loop.
+     *
+     * @param metersPerSecond The target wheel speed.
+     * @param feedforwardVolts The arbitrary feedforward passed with the reference.
+     */
+    public void setDriveVelocity(double metersPerSecond, double feedforwardVolts) {
+        isDriveOpenLoop = false;
+        driveTargetMetersPerSecond = metersPerSecond;
+        driveFeedforwardVolts = feedforwardVolts;
+    }
+
+    /**
+     * Steers the module with the SPARK MAX's position loop.
+     *
+     * @param radians The target steer encoder position, which isn't wrapped.
+     */
+    public void setSteerTarget(double radians) {
+        steerTargetRadians = radians;
+    }
+
+    public void setDriveEncoderPosition(double meters) {
+        driveEncoderOffsetMeters = meters - getWheelPositionMeters();
+        drivePositionMeters = meters;
+    }
+
+    public void setSteerEncoderPosition(double radians) {
+        steerEncoderOffsetRadians = radians - steerSim.getAngularPositionRad();
+    }
+
+    /**
+     * Advances the module.
+     *
+     * @param dtSeconds The length of the step.
+     */
+    public void update(double dtSeconds) {
+        double batteryVolts = RobotController.getBatteryVoltage();
+
+        double driveVolts;
+        if(isDriveOpenLoop) {
+            driveVolts = driveDutyCycle * batteryVolts;
+        }
+        else {
+            driveVolts = driveFeedforwardVolts + batteryVolts * driveController.calculate(
+                driveTargetMetersPerSecond, getWheelVelocityMetersPerSecond(), 0.0, dtSeconds
+            );
+        }
+
+        double steerVolts = batteryVolts * steerController.calculate(
+            steerTargetRadians,
+            getSteerPositionRadians(),
+            steerSim.getAngularVelocityRadPerSec(),
+            dtSeconds
+        );
+
+        // Motor controllers stop driving their motors while the robot is disabled.
+        if(DriverStation.isDisabled()) {
+            driveVolts = 0.0;
+            steerVolts = 0.0;
+        }
+
+        driveSim.setInputVoltage(MathUtil.clamp(driveVolts, -batteryVolts, batteryVolts));
+        steerSim.setInputVoltage(MathUtil.clamp(steerVolts, -batteryVolts, batteryVolts));
+        driveSim.update(dtSeconds);
+        steerSim.update(dtSeconds);
+
+        drivePositionMeters = getWheelPositionMeters() + driveEncoderOffsetMeters;
+        driveVelocityMetersPerSecond = getWheelVelocityMetersPerSecond();
+        steerAngleRadians = steerSim.getAngularPositionRad();
+    }
+
+    private double getWheelPositionMeters() {
+        return driveSim.getAngularPositionRad() * DriveConstants.wheelRadiusMeters;
+    }
+
+    private double getWheelVelocityMetersPerSecond() {
+        return driveSim.getAngularVelocityRadPerSec() * DriveConstants.wheelRadiusMeters;
+    }
+
+    /**
+     * Returns the drive encoder reading. Safe to call from the odometry thread.
+     *
+     * @return The drive encoder position, in meters.
+     */
+    public double getDrivePositionMeters() {
+        return drivePositionMeters;
+    }
+
+    public double getDriveVelocityMetersPerSecond() {
+        return driveVelocityMetersPerSecond;
+    }
+
+    /**
+     * Returns the true angle of the module, which is what the CANCoder measures. Safe to call from the odometry
+     * thread.
+     *
+     * @return The module angle, in radians. Not wrapped.
+     */
+    public double getSteerAngleRadians() {
+        return steerAngleRadians;
+    }
+
+    /**
+     * Returns the steer encoder reading.
+     *
+     * @return The steer encoder position, in radians. Not wrapped.
+     */
+    public double getSteerPositionRadians() {
+        return steerSim.getAngularPositionRad() + steerEncoderOffsetRadians;
+    }
+}
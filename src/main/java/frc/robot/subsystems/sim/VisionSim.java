@@ -0,0 +1,57 @@
+package frc.robot.subsystems.sim;
+
+import java.io.IOException;
+
+import org.photonvision.SimVisionSystem;
+
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Constants.SimulationConstants;
+import frc.robot.Constants.VisionConstants;
+
+/**
+ * A simulated limelight that sees the 2023 field's AprilTags from wherever the simulated robot is.
+ *
+ * <p>Frames are published under the camera's name, so the subsystem's PhotonCamera reads them as it would from
+ * the coprocessor. The retroreflective tape on the poles isn't modelled, so the camera sees AprilTags whatever
+ * pipeline is selected.
+ */
+public class VisionSim {
+
+    private final SimVisionSystem cameraSim;
+
+    /**
+     * Constructs a new VisionSim.
+     *
+     * @param cameraName The name of the PhotonVision camera to publish as.
+     */
+    public VisionSim(String cameraName) {
+        cameraSim = new SimVisionSystem(
+            cameraName,
+            SimulationConstants.limelightDiagonalFOVDegrees,
+            VisionConstants.limelightRobotToCamera,
+            SimulationConstants.limelightMaxRangeMeters,
+            SimulationConstants.limelightResolutionWidth,
+            SimulationConstants.limelightResolutionHeight,
+            SimulationConstants.limelightMinTargetArea
+        );
+
+        try {
+            cameraSim.addVisionTargets(AprilTagFieldLayout.loadFromResource(AprilTagFields.k2023ChargedUp.m_resourceFile));
+        }
+        catch(IOException e) {
+            DriverStation.reportWarning("Simulated " + cameraName + " has no AprilTags: " + e.getMessage(), false);
+        }
+    }
+
+    /**
+     * Publishes the frame the camera would capture from a pose.
+     *
+     * @param robotPose Where the simulated robot actually is.
+     */
+    public void update(Pose2d robotPose) {
+        cameraSim.processFrame(robotPose);
+    }
+}
@@ -0,0 +1,219 @@
+package frc.robot.telemetry;
+
+import java.util.ArrayList;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
+import frc.robot.Constants.TelemetryConstants;
+
+/**
+ * Registry of dashboard values, each bound to a typed NetworkTables publisher once at startup.
+ *
+ * <p>Code sets values on its entries whenever it likes, which only stores them. {@link #publish()} runs once at the
+ * end of each loop and sends an entry only when its publish period has come around and its value has changed by more
+ * than its deadband, so steady values cost no bandwidth and no key lookups.
+ *
+ * <p>Entries publish under the SmartDashboard table, so existing dashboard layouts keep working.
+ */
+public class Telemetry {
+
+    private static Telemetry instance;
+
+    /**
+     * Returns the Telemetry instance.
+     *
+     * @return The Telemetry instance.
+     */
+    public static synchronized Telemetry getInstance() {
+        if(instance == null) instance = new Telemetry();
+        return instance;
+    }
+
+    private final NetworkTable table = NetworkTableInstance.getDefault().getTable("SmartDashboard");
+
+    private final ArrayList<Entry> entries = new ArrayList<Entry>();
+
+    private Telemetry() {}
+
+    /**
+     * Adds a number that publishes every loop whenever it changes at all.
+     *
+     * @param key The key to publish under.
+     * @return The entry to set the value on.
+     */
+    public DoubleEntry addDouble(String key) {
+        return addDouble(key, TelemetryConstants.defaultPeriodCycles, 0.0);
+    }
+
+    /**
+     * Adds a number.
+     *
+     * @param key The key to publish under.
+     * @param periodCycles The number of loops between chances to publish.
+     * @param deadband The amount the value must change by, since it was last sent, to be sent again.
+     * @return The entry to set the value on.
+     */
+    public DoubleEntry addDouble(String key, int periodCycles, double deadband) {
+        return add(new DoubleEntry(table.getDoubleTopic(key).publish(), periodCycles, deadband));
+    }
+
+    /**
+     * Adds a string that publishes whenever it changes.
+     * <p>Strings are compared by reference first, so setting the same constant every loop is free.
+     *
+     * @param key The key to publish under.
+     * @param periodCycles The number of loops between chances to publish.
+     * @return The entry to set the value on.
+     */
+    public StringEntry addString(String key, int periodCycles) {
+        return add(new StringEntry(table.getStringTopic(key).publish(), periodCycles));
+    }
+
+    /**
+     * Adds a boolean that publishes whenever it changes.
+     *
+     * @param key The key to publish under.
+     * @param periodCycles The number of loops between chances to publish.
+     * @return The entry to set the value on.
+     */
+    public BooleanEntry addBoolean(String key, int periodCycles) {
+        return add(new BooleanEntry(table.getBooleanTopic(key).publish(), periodCycles));
+    }
+
+    private <T extends Entry> T add(T entry) {
+        entries.add(entry);
+        return entry;
+    }
+
+    /**
+     * Sends every entry that is due and has changed. Call once at the end of each loop.
+     */
+    public void publish() {
+        for(int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+
+            entry.cyclesSincePublish++;
+            if(entry.cyclesSincePublish < entry.periodCycles) continue;
+
+            if(entry.publishIfChanged()) entry.cyclesSincePublish = 0;
+        }
+    }
+
+    /**
+     * A single dashboard value.
+     */
+    public static abstract class Entry {
+
+        private final int periodCycles;
+
+        // Starts due, so every entry sends on the first loop it has a value.
+        private int cyclesSincePublish;
+
+        protected boolean hasValue = false;
+        protected boolean hasSent = false;
+
+        private Entry(int periodCycles) {
+            this.periodCycles = periodCycles;
+            cyclesSincePublish = periodCycles;
+        }
+
+        /**
+         * Sends the value if it has changed enough since it was last sent.
+         *
+         * @return True if the value was sent.
+         */
+        abstract boolean publishIfChanged();
+    }
+
+    public static class DoubleEntry extends Entry {
+
+        private final DoublePublisher publisher;
+        private final double deadband;
+
+        private double value;
+        private double sentValue;
+
+        private DoubleEntry(DoublePublisher publisher, int periodCycles, double deadband) {
+            super(periodCycles);
+            this.publisher = publisher;
+            this.deadband = deadband;
+        }
+
+        public void set(double value) {
+            this.value = value;
+            hasValue = true;
+        }
+
+        @Override
+        boolean publishIfChanged() {
+            if(!hasValue) return false;
+            if(hasSent && (value == sentValue || Math.abs(value - sentValue) <= deadband)) return false;
+
+            publisher.set(value);
+            sentValue = value;
+            hasSent = true;
+            return true;
+        }
+    }
+
+    public static class StringEntry extends Entry {
+
+        private final StringPublisher publisher;
+
+        private String value;
+        private String sentValue;
+
+        private StringEntry(StringPublisher publisher, int periodCycles) {
+            super(periodCycles);
+            this.publisher = publisher;
+        }
+
+        public void set(String value) {
+            this.value = value;
+            hasValue = true;
+        }
+
+        @Override
+        boolean publishIfChanged() {
+            if(!hasValue) return false;
+            if(hasSent && (value == sentValue || value.equals(sentValue))) return false;
+
+            publisher.set(value);
+            sentValue = value;
+            hasSent = true;
+            return true;
+        }
+    }
+
+    public static class BooleanEntry extends Entry {
+
+        private final BooleanPublisher publisher;
+
+        private boolean value;
+        private boolean sentValue;
+
+        private BooleanEntry(BooleanPublisher publisher, int periodCycles) {
+            super(periodCycles);
+            this.publisher = publisher;
+        }
+
+        public void set(boolean value) {
+            this.value = value;
+            hasValue = true;
+        }
+
+        @Override
+        boolean publishIfChanged() {
+            if(!hasValue) return false;
+            if(hasSent && value == sentValue) return false;
+
+            publisher.set(value);
+            sentValue = value;
+            hasSent = true;
+            return true;
+        }
+    }
+}
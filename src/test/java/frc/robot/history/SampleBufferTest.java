@@ -0,0 +1,143 @@
+package frc.robot.history;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Adds samples to a {@link SampleBuffer} and looks them up between samples, outside the buffer, across the wrap and
+ * after a clear.
+ */
+class SampleBufferTest {
+
+    private static final double epsilon = 1e-9;
+
+    @Test
+    void interpolatesBetweenSamples() {
+        SampleBuffer buffer = new SampleBuffer(4, 1);
+        buffer.add(1.0, 0.0);
+        buffer.add(2.0, 10.0);
+
+        assertEquals(2.5, buffer.get(0, 1.25), epsilon);
+        assertEquals(10.0, buffer.get(0, 2.0), epsilon);
+    }
+
+    @Test
+    void holdsTheEndValuesOutsideTheBuffer() {
+        SampleBuffer buffer = new SampleBuffer(4, 1);
+        buffer.add(1.0, 3.0);
+        buffer.add(2.0, 5.0);
+
+        assertEquals(3.0, buffer.get(0, 0.0), epsilon);
+        assertEquals(5.0, buffer.get(0, 9.0), epsilon);
+    }
+
+    @Test
+    void reportsAnEmptyBuffer() {
+        SampleBuffer buffer = new SampleBuffer(4, 2);
+        double[] sample = {7.0, 8.0};
+
+        assertTrue(Double.isNaN(buffer.get(0, 1.0)));
+        assertFalse(buffer.get(1.0, sample));
+        assertArrayEquals(new double[] {7.0, 8.0}, sample, epsilon);
+        assertTrue(Double.isNaN(buffer.getOldestTimestampSeconds()));
+        assertTrue(Double.isNaN(buffer.getNewestTimestampSeconds()));
+    }
+
+    @Test
+    void replacesTheOldestSampleOnceFull() {
+        SampleBuffer buffer = new SampleBuffer(3, 1);
+        for(int i = 0; i < 5; i++) {
+            buffer.add(i, i * 10.0);
+        }
+
+        assertEquals(3, buffer.size());
+        assertEquals(2.0, buffer.getOldestTimestampSeconds(), epsilon);
+        assertEquals(4.0, buffer.getNewestTimestampSeconds(), epsilon);
+
+        // Across the slot where the ring wraps.
+        assertEquals(35.0, buffer.get(0, 3.5), epsilon);
+        assertEquals(20.0, buffer.get(0, 1.0), epsilon);
+    }
+
+    @Test
+    void dropsSamplesOlderThanTheNewest() {
+        SampleBuffer buffer = new SampleBuffer(4, 1);
+        buffer.add(2.0, 1.0);
+        buffer.add(1.0, 5.0);
+
+        assertEquals(1, buffer.size());
+        assertEquals(1.0, buffer.get(0, 1.0), epsilon);
+    }
+
+    @Test
+    void startsOverAfterClear() {
+        SampleBuffer buffer = new SampleBuffer(3, 1);
+        for(int i = 0; i < 5; i++) {
+            buffer.add(i, i);
+        }
+        buffer.clear();
+
+        assertEquals(0, buffer.size());
+        assertTrue(Double.isNaN(buffer.get(0, 3.0)));
+
+        // Older than anything before the clear, which would otherwise be dropped.
+        buffer.add(0.5, 4.0);
+        buffer.add(1.5, 6.0);
+
+        assertEquals(2, buffer.size());
+        assertEquals(5.0, buffer.get(0, 1.0), epsilon);
+    }
+
+    @Test
+    void interpolatesAnglesTheShortWayAround() {
+        SampleBuffer buffer = new SampleBuffer(4, 2);
+        buffer.setAngle(0);
+        buffer.add(0.0, new double[] {Math.PI - 0.1, Math.PI - 0.1});
+        buffer.add(1.0, new double[] {-Math.PI + 0.1, -Math.PI + 0.1});
+
+        assertEquals(Math.PI - 0.05, buffer.get(0, 0.25), epsilon);
+        assertEquals(-Math.PI + 0.05, buffer.get(0, 0.75), epsilon);
+
+        // The same values on a channel that isn't an angle go the long way, through zero.
+        assertEquals(0.0, buffer.get(1, 0.5), epsilon);
+    }
+
+    @Test
+    void wrapsAnglesAtTheEndsOfTheBuffer() {
+        SampleBuffer buffer = new SampleBuffer(4, 2);
+        buffer.setAngle(0);
+        buffer.add(0.0, new double[] {2.0 * Math.PI + 0.1, 2.0 * Math.PI + 0.1});
+        buffer.add(1.0, new double[] {-2.0 * Math.PI - 0.3, -2.0 * Math.PI - 0.3});
+
+        // The same wrapped angles before, inside and after the buffer, so nothing jumps by 2 pi at either end.
+        assertEquals(0.1, buffer.get(0, -1.0), epsilon);
+        assertEquals(0.1, buffer.get(0, 0.0), epsilon);
+        assertEquals(-0.1, buffer.get(0, 0.5), epsilon);
+        assertEquals(-0.3, buffer.get(0, 1.0), epsilon);
+        assertEquals(-0.3, buffer.get(0, 2.0), epsilon);
+
+        // A channel that isn't an angle is returned as it was recorded.
+        assertEquals(2.0 * Math.PI + 0.1, buffer.get(1, -1.0), epsilon);
+        assertEquals(-2.0 * Math.PI - 0.3, buffer.get(1, 2.0), epsilon);
+    }
+
+    @Test
+    void fillsEveryChannelFromTheSameSamples() {
+        SampleBuffer buffer = new SampleBuffer(4, 3);
+        buffer.setAngle(2);
+        buffer.add(0.0, new double[] {0.0, 10.0, Math.PI - 0.2});
+        buffer.add(1.0, new double[] {2.0, 20.0, -Math.PI + 0.2});
+
+        double[] sample = new double[3];
+        assertTrue(buffer.get(0.25, sample));
+        assertArrayEquals(new double[] {0.5, 12.5, Math.PI - 0.1}, sample, epsilon);
+
+        for(int channel = 0; channel < 3; channel++) {
+            assertEquals(buffer.get(channel, 0.25), sample[channel], epsilon);
+        }
+    }
+}
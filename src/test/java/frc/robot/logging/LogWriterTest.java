@@ -0,0 +1,184 @@
+package frc.robot.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Writes frames through a {@link LogWriter} on its own thread and reads them back with a {@link LogReader}.
+ */
+class LogWriterTest {
+
+    private static final byte[] kinds = {LogFormat.inputChannel, LogFormat.outputChannel, LogFormat.diagnosticChannel};
+    private static final String[] names = {"test/input", "test/output", "test/diagnostic"};
+
+    @TempDir
+    File directory;
+
+    private LogRing ring;
+    private LogWriter writer;
+    private Thread thread;
+    private final ConcurrentLinkedQueue<String> commandNames = new ConcurrentLinkedQueue<String>();
+
+    /**
+     * Writes a header like {@link MatchLogger} does and starts a writer behind it.
+     */
+    private File start(int channelCount, int maxEvents) throws IOException {
+        File file = new File(directory, "test" + LogFormat.fileExtension);
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(4 + 4 + LogFormat.maxVarLongBytes + channelCount * 64);
+        header.putInt(LogFormat.magic);
+        header.putInt(LogFormat.version);
+        LogFormat.putVarLong(header, channelCount);
+        for(int i = 0; i < channelCount; i++) {
+            header.put(kinds[i % kinds.length]);
+            LogFormat.putString(header, names[i % names.length] + i);
+        }
+        header.flip();
+        while(header.hasRemaining()) channel.write(header);
+
+        ring = new LogRing(8, channelCount, maxEvents);
+        writer = new LogWriter(ring, channel, commandNames, channelCount, maxEvents);
+        thread = new Thread(writer, "LogWriterTest");
+        thread.start();
+
+        return file;
+    }
+
+    private LogFrame claim() {
+        LogFrame frame;
+        while((frame = ring.claim()) == null) Thread.yield();
+        return frame;
+    }
+
+    private void finish() throws InterruptedException {
+        writer.stop();
+        thread.join(10000);
+        assertFalse(thread.isAlive(), "The writer didn't finish");
+    }
+
+    @Test
+    void roundTripsValuesEventsAndDroppedFrames() throws Exception {
+        File file = start(3, 4);
+
+        double[][] values = {
+            {1.0, 0.0, -2.5},
+            {1.0, Double.NaN, Double.MAX_VALUE},
+            {-0.0, Double.NEGATIVE_INFINITY, 1e-300}
+        };
+        long[] timestamps = {20000, 40000, 100000};
+        int[] dropped = {0, 0, 2};
+
+        commandNames.add("first");
+        commandNames.add("second");
+
+        for(int f = 0; f < values.length; f++) {
+            LogFrame frame = claim();
+            frame.timestampMicros = timestamps[f];
+            System.arraycopy(values[f], 0, frame.values, 0, 3);
+            frame.droppedBefore = dropped[f];
+            frame.eventCount = f;
+            for(int e = 0; e < f; e++) {
+                frame.events[e] = LogFormat.event(e, LogFormat.commandFinished);
+            }
+            ring.publish();
+        }
+
+        finish();
+
+        LogReader reader = LogReader.open(file);
+        assertEquals(3, reader.getChannelCount());
+        for(int i = 0; i < 3; i++) {
+            assertEquals(names[i] + i, reader.getChannelName(i));
+        }
+        assertTrue(reader.isInput(0));
+        assertTrue(reader.isDiagnostic(2));
+
+        for(int f = 0; f < values.length; f++) {
+            assertTrue(reader.next(), "Frame " + f + " is missing");
+            assertEquals(timestamps[f], reader.getTimestampMicros());
+            assertEquals(dropped[f], reader.getDroppedBefore());
+            for(int i = 0; i < 3; i++) {
+                assertEquals(
+                    Double.doubleToRawLongBits(values[f][i]),
+                    Double.doubleToRawLongBits(reader.getValue(i)),
+                    "Frame " + f + ", channel " + i
+                );
+            }
+
+            assertEquals(f, reader.getEventCount());
+            for(int e = 0; e < f; e++) {
+                assertEquals(e, LogFormat.eventCommandId(reader.getEvent(e)));
+                assertEquals(LogFormat.commandFinished, LogFormat.eventType(reader.getEvent(e)));
+            }
+        }
+
+        assertEquals("first", reader.getCommandName(0));
+        assertEquals("second", reader.getCommandName(1));
+
+        assertFalse(reader.next());
+        assertFalse(reader.isTruncated());
+    }
+
+    @Test
+    void roundTripsFramesAtTheirLargestEncodedSize() throws Exception {
+        // Enough channels that a few frames fill the write buffer, so frames land against its end.
+        int channelCount = 1000;
+        int maxEvents = 8;
+        File file = start(channelCount, maxEvents);
+
+        // Flipping the top and bottom bits makes every changed value its longest XOR.
+        double flipped = Double.longBitsToDouble(0x8000000000000001L);
+
+        int frameCount = 40;
+        long timestampMicros = 0;
+        for(int f = 0; f < frameCount; f++) {
+            LogFrame frame = claim();
+
+            timestampMicros += Long.MAX_VALUE / (2 * frameCount);
+            frame.timestampMicros = timestampMicros;
+            for(int i = 0; i < channelCount; i++) {
+                frame.values[i] = f % 2 == 0 ? flipped : 0.0;
+            }
+            frame.droppedBefore = Integer.MAX_VALUE;
+            frame.eventCount = maxEvents;
+            for(int e = 0; e < maxEvents; e++) {
+                frame.events[e] = Integer.MAX_VALUE;
+            }
+
+            ring.publish();
+        }
+
+        finish();
+
+        LogReader reader = LogReader.open(file);
+        timestampMicros = 0;
+        for(int f = 0; f < frameCount; f++) {
+            assertTrue(reader.next(), "Frame " + f + " is missing");
+
+            timestampMicros += Long.MAX_VALUE / (2 * frameCount);
+            assertEquals(timestampMicros, reader.getTimestampMicros());
+            assertEquals(Integer.MAX_VALUE, reader.getDroppedBefore());
+            assertEquals(maxEvents, reader.getEventCount());
+
+            double expected = f % 2 == 0 ? flipped : 0.0;
+            for(int i = 0; i < channelCount; i++) {
+                assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(reader.getValue(i)));
+            }
+        }
+
+        assertFalse(reader.next());
+        assertFalse(reader.isTruncated());
+    }
+}
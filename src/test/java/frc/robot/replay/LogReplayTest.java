@@ -0,0 +1,141 @@
+package frc.robot.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Constants.ControllerConstants;
+import frc.robot.Robot;
+import frc.robot.logging.LogFormat;
+import frc.robot.logging.MatchLogger;
+
+/**
+ * Records a short teleop drive on the simulated robot, then replays the log with {@link LogReplay} and checks that
+ * every output comes out within {@link frc.robot.Constants.LoggingConstants#replayTolerance} of the recording.
+ *
+ * <p>The HAL holds one robot per process, so the recording and the replay each run in their own JVM, with this one's
+ * classpath and native library path.
+ */
+class LogReplayTest {
+
+    private static final long processTimeoutSeconds = 120;
+
+    @TempDir
+    File directory;
+
+    @Test
+    void replaysASimulatedDriveWithinTolerance() throws IOException, InterruptedException {
+        assertEquals(0, runJava(RecordDrive.class, directory.getPath()), "The drive wasn't recorded");
+
+        File[] logs = directory.listFiles((dir, name) -> name.endsWith(LogFormat.fileExtension));
+        assertNotNull(logs);
+        assertEquals(1, logs.length);
+
+        assertEquals(0, runJava(LogReplay.class, logs[0].getPath()), "The replay diverged from the recording");
+    }
+
+    private static int runJava(Class<?> mainClass, String argument) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(
+            new File(new File(System.getProperty("java.home"), "bin"), "java").getPath(),
+            "-cp", System.getProperty("java.class.path"),
+            "-Djava.library.path=" + System.getProperty("java.library.path"),
+            mainClass.getName(),
+            argument
+        ).inheritIO().start();
+
+        if(!process.waitFor(processTimeoutSeconds, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            fail(mainClass.getSimpleName() + " didn't finish in " + processTimeoutSeconds + " s");
+        }
+        return process.exitValue();
+    }
+
+    /**
+     * Drives the simulated robot with the driver's gamepad for a few seconds and logs it to the given directory.
+     * Exits with status 1 if nothing was logged or the robot didn't move.
+     */
+    static class RecordDrive {
+
+        private static final double loopSeconds = TimedRobot.kDefaultPeriod;
+
+        private static final double minDriveMeters = 0.5;
+
+        public static void main(String[] args) {
+            if(!HAL.initialize(500, 0)) throw new IllegalStateException("Failed to initialize the HAL");
+
+            // Stepped like a replay, so every loop sees exactly one loop period pass and the odometry thread runs
+            // between loops.
+            SimHooks.pauseTiming();
+
+            MatchLogger.getInstance().setLogDirectory(new File(args[0]));
+
+            DriverStationSim.setDsAttached(true);
+            DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+            DriverStationSim.setAutonomous(false);
+            DriverStationSim.setJoystickIsXbox(ControllerConstants.driverGamepadPort, true);
+            DriverStationSim.setJoystickAxisCount(ControllerConstants.driverGamepadPort, 6);
+            DriverStationSim.setJoystickButtonCount(ControllerConstants.driverGamepadPort, 10);
+            DriverStationSim.setJoystickPOVCount(ControllerConstants.driverGamepadPort, 1);
+            DriverStationSim.setEnabled(false);
+            DriverStationSim.notifyNewData();
+
+            Robot robot = new Robot();
+            robot.robotInit();
+
+            robot.disabledInit();
+            run(robot, 0.5, true);
+
+            DriverStationSim.setEnabled(true);
+            DriverStationSim.notifyNewData();
+            robot.teleopInit();
+
+            // Forward while turning, then a strafe, then a stop. Left stick y, left stick x, right stick x.
+            drive(robot, -0.6, 0.0, 0.4, 1.5);
+            drive(robot, 0.0, 0.5, 0.0, 1.0);
+            drive(robot, 0.0, 0.0, 0.0, 0.5);
+
+            double driveMeters = robot.getRobotContainer().getSwerveSys().getPose().getTranslation().getNorm();
+
+            MatchLogger.getInstance().stop();
+
+            if(MatchLogger.getInstance().getLogFile() == null) {
+                System.err.println("No log was written");
+                System.exit(1);
+            }
+            if(driveMeters < minDriveMeters) {
+                System.err.println("The robot only moved " + driveMeters + " m");
+                System.exit(1);
+            }
+            System.exit(0);
+        }
+
+        private static void drive(Robot robot, double leftY, double leftX, double rightX, double seconds) {
+            DriverStationSim.setJoystickAxis(ControllerConstants.driverGamepadPort, 1, leftY);
+            DriverStationSim.setJoystickAxis(ControllerConstants.driverGamepadPort, 0, leftX);
+            DriverStationSim.setJoystickAxis(ControllerConstants.driverGamepadPort, 4, rightX);
+            DriverStationSim.notifyNewData();
+
+            run(robot, seconds, false);
+        }
+
+        private static void run(Robot robot, double seconds, boolean isDisabled) {
+            for(double t = 0.0; t < seconds; t += loopSeconds) {
+                SimHooks.stepTiming(loopSeconds);
+                robot.robotPeriodic();
+                if(isDisabled) robot.disabledPeriodic();
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * Drives {@link SwervePoseEstimator} and the WPILib SwerveDrivePoseEstimator it replaced through the same updates,
+ * resets and delayed vision measurements, and checks that they agree after every step.
+ */
+class SwervePoseEstimatorTest {
+
+    private static final double periodSeconds = DriveConstants.odometryPeriodSeconds;
+
+    private static final double epsilon = 1e-6;
+
+    private static final double visionStdDev = 0.9;
+
+    private final SwervePoseEstimator estimator = new SwervePoseEstimator(
+        DriveConstants.moduleXMeters,
+        DriveConstants.moduleYMeters,
+        DriveConstants.odometryXYStdDevMeters,
+        DriveConstants.odometryHeadingStdDevRadians,
+        DriveConstants.poseHistorySeconds,
+        periodSeconds
+    );
+
+    private SwerveDrivePoseEstimator wpilib;
+
+    // The drive's current readings.
+    private double timestampSeconds = 0.0;
+    private double gyroRadians = 0.3;
+    private final double[] distancesMeters = new double[4];
+    private final double[] anglesRadians = new double[4];
+
+    @Test
+    void followsOdometry() {
+        reset(0.0, 0.0, 0.0);
+
+        for(int step = 0; step < 400; step++) {
+            update(step);
+        }
+    }
+
+    @Test
+    void resetsInPlace() {
+        reset(0.0, 0.0, 0.0);
+        for(int step = 0; step < 100; step++) {
+            update(step);
+        }
+
+        reset(2.0, -1.0, 1.2);
+        for(int step = 100; step < 200; step++) {
+            update(step);
+        }
+    }
+
+    @Test
+    void appliesDelayedVision() {
+        reset(1.0, 2.0, 0.5);
+
+        for(int step = 0; step < 600; step++) {
+            update(step);
+
+            if(step % 25 == 24) {
+                // A frame captured between two updates, corrected toward a pose off to the side.
+                addVision(timestampSeconds - 0.1013, 0.01 * step, 2.0 + 0.005 * step, 0.5 - 0.002 * step, visionStdDev);
+            }
+        }
+    }
+
+    @Test
+    void appliesVisionAtAnUpdate() {
+        reset(0.0, 0.0, 0.0);
+
+        for(int step = 0; step < 300; step++) {
+            update(step);
+
+            if(step % 40 == 39) {
+                addVision(timestampSeconds - 20 * periodSeconds, 0.5, 0.5, 0.2, 0.3);
+            }
+        }
+    }
+
+    @Test
+    void buildsOnEarlierVisionFromTheSameFrame() {
+        reset(0.0, 0.0, 0.0);
+
+        for(int step = 0; step < 300; step++) {
+            update(step);
+
+            if(step % 50 == 49) {
+                // Two tags seen in one frame, applied one after the other.
+                double captureSeconds = timestampSeconds - 0.0871;
+                addVision(captureSeconds, 1.0, 0.2, 0.1, visionStdDev);
+                addVision(captureSeconds, 1.1, 0.3, 0.15, 0.5);
+            }
+        }
+    }
+
+    @Test
+    void ignoresVisionOlderThanTheHistory() {
+        reset(0.0, 0.0, 0.0);
+
+        for(int step = 0; step < 400; step++) {
+            update(step);
+        }
+
+        addVision(timestampSeconds - DriveConstants.poseHistorySeconds - 0.1, 5.0, 5.0, 1.0, 0.1);
+        update(400);
+    }
+
+    @Test
+    void appliesVisionAfterAReset() {
+        reset(0.0, 0.0, 0.0);
+        for(int step = 0; step < 100; step++) {
+            update(step);
+        }
+
+        // Captured before the reset, so both estimators sample the one update since it.
+        reset(3.0, 3.0, -0.4);
+        update(100);
+        addVision(timestampSeconds - 0.2, 2.5, 3.5, -0.3, visionStdDev);
+
+        for(int step = 101; step < 200; step++) {
+            update(step);
+            if(step % 30 == 0) addVision(timestampSeconds - 0.05, 3.0, 3.0 + 0.01 * step, -0.4, visionStdDev);
+        }
+    }
+
+    private void reset(double xMeters, double yMeters, double headingRadians) {
+        estimator.resetPosition(gyroRadians, distancesMeters, xMeters, yMeters, headingRadians);
+
+        Pose2d pose = new Pose2d(xMeters, yMeters, new Rotation2d(headingRadians));
+        if(wpilib == null) {
+            wpilib = new SwerveDrivePoseEstimator(
+                DriveConstants.kinematics,
+                new Rotation2d(gyroRadians),
+                positions(),
+                pose,
+                VecBuilder.fill(DriveConstants.odometryXYStdDevMeters, DriveConstants.odometryXYStdDevMeters, DriveConstants.odometryHeadingStdDevRadians),
+                VecBuilder.fill(visionStdDev, visionStdDev, visionStdDev)
+            );
+        }
+        else {
+            wpilib.resetPosition(new Rotation2d(gyroRadians), positions(), pose);
+        }
+
+        assertAgree();
+    }
+
+    /**
+     * Steps the drive along a weaving curve, with the modules turning at slightly different rates, and updates both
+     * estimators with it.
+     */
+    private void update(int step) {
+        timestampSeconds += periodSeconds;
+        gyroRadians += 0.01 * Math.sin(0.02 * step);
+        for(int i = 0; i < 4; i++) {
+            distancesMeters[i] += (2.0 + 0.1 * i) * periodSeconds;
+            anglesRadians[i] = MathUtil.angleModulus(1.5 * Math.sin(0.01 * step) + 0.05 * i);
+        }
+
+        estimator.update(timestampSeconds, gyroRadians, distancesMeters, anglesRadians);
+        wpilib.updateWithTime(timestampSeconds, new Rotation2d(gyroRadians), positions());
+
+        assertAgree();
+    }
+
+    private void addVision(double captureSeconds, double xMeters, double yMeters, double headingRadians, double stdDev) {
+        estimator.addVisionMeasurement(xMeters, yMeters, headingRadians, captureSeconds, stdDev, stdDev, stdDev);
+        wpilib.addVisionMeasurement(
+            new Pose2d(xMeters, yMeters, new Rotation2d(headingRadians)),
+            captureSeconds,
+            VecBuilder.fill(stdDev, stdDev, stdDev)
+        );
+
+        assertAgree();
+    }
+
+    private SwerveModulePosition[] positions() {
+        SwerveModulePosition[] positions = new SwerveModulePosition[4];
+        for(int i = 0; i < 4; i++) {
+            positions[i] = new SwerveModulePosition(distancesMeters[i], new Rotation2d(anglesRadians[i]));
+        }
+        return positions;
+    }
+
+    private void assertAgree() {
+        Pose2d expected = wpilib.getEstimatedPosition();
+        String at = " at " + timestampSeconds + " s";
+
+        assertEquals(expected.getX(), estimator.getXMeters(), epsilon, "x" + at);
+        assertEquals(expected.getY(), estimator.getYMeters(), epsilon, "y" + at);
+        assertEquals(
+            0.0,
+            MathUtil.angleModulus(estimator.getHeadingRadians() - expected.getRotation().getRadians()),
+            epsilon,
+            "heading" + at
+        );
+    }
+}